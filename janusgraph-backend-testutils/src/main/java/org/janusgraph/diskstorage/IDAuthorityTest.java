@@ -58,6 +58,7 @@ import java.util.stream.Stream;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDAUTHORITY_CAV_BITS;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDAUTHORITY_CAV_RETRIES;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDAUTHORITY_CAV_TAG;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDAUTHORITY_CONDITIONAL_INSERT;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDAUTHORITY_CONFLICT_AVOIDANCE;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDAUTHORITY_WAIT;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDS_BLOCK_SIZE;
@@ -67,6 +68,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 
 /**
@@ -100,6 +102,10 @@ public abstract class IDAuthorityTest {
         c.set(IDAUTHORITY_CONFLICT_AVOIDANCE, ConflictAvoidanceMode.GLOBAL_AUTO);
         configurations.add(arguments(checkAndReturnWriteConfiguration(c)));
 
+        c = getBasicConfig();
+        c.set(IDAUTHORITY_CONDITIONAL_INSERT,true);
+        configurations.add(arguments(checkAndReturnWriteConfiguration(c)));
+
         return configurations.stream();
     }
     private static WriteConfiguration checkAndReturnWriteConfiguration(ModifiableConfiguration baseConfig){
@@ -137,8 +143,11 @@ public abstract class IDAuthorityTest {
         hasEmptyUid = uidBitWidth==0;
         blockSize = config.get(IDS_BLOCK_SIZE);
         StoreManager m = openStorageManager();
+        final boolean hasConditionalInsert = m.getFeatures().hasConditionalInsert();
         m.clearStorage();
         m.close();
+        assumeTrue(!config.get(IDAUTHORITY_CONDITIONAL_INSERT) || hasConditionalInsert,
+            "Storage backend does not support conditional inserts");
         open();
     }
 
@@ -175,6 +184,7 @@ public abstract class IDAuthorityTest {
     }
 
     public void close() throws BackendException {
+        if (manager == null) return;
         for (int i = 0; i < CONCURRENCY; i++) {
             idAuthorities[i].close();
             manager[i].close();
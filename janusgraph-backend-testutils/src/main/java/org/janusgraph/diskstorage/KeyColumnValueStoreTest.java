@@ -972,6 +972,29 @@ public abstract class KeyColumnValueStoreTest extends AbstractKCVSTest implement
         assertTrue(KCVSUtil.containsKeyColumn(store, key1, c, tx));
     }
 
+    @Test
+    public void testInsertIfAbsent() throws Exception {
+        if (!manager.getFeatures().hasConditionalInsert()) return;
+
+        final StaticBuffer key = KeyColumnValueStoreUtil.longToByteBuffer(1);
+        final StaticBuffer c = KeyColumnValueStoreUtil.stringToByteBuffer("c");
+        final StaticBuffer d = KeyColumnValueStoreUtil.stringToByteBuffer("d");
+        assertTrue(store.insertIfAbsent(key, StaticArrayEntry.of(c, KeyColumnValueStoreUtil.stringToByteBuffer("v1")), tx));
+        tx.commit();
+
+        tx = startTx();
+        assertFalse(store.insertIfAbsent(key, StaticArrayEntry.of(c, KeyColumnValueStoreUtil.stringToByteBuffer("v2")), tx));
+        assertEquals("v1", KeyColumnValueStoreUtil.get(store, tx, 1, "c"));
+        // Conditional inserts are undone on rollback
+        assertTrue(store.insertIfAbsent(key, StaticArrayEntry.of(d, KeyColumnValueStoreUtil.stringToByteBuffer("v3")), tx));
+        tx.rollback();
+
+        tx = startTx();
+        assertNull(KeyColumnValueStoreUtil.get(store, tx, 1, "d"));
+        assertEquals("v1", KeyColumnValueStoreUtil.get(store, tx, 1, "c"));
+        assertTrue(store.insertIfAbsent(key, StaticArrayEntry.of(d, KeyColumnValueStoreUtil.stringToByteBuffer("v3")), tx));
+    }
+
     @Test
     public void testGetSlices() throws Exception {
         if (!manager.getFeatures().hasMultiQuery()) return;
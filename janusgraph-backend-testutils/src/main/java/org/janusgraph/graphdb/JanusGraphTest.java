@@ -80,6 +80,7 @@ import org.janusgraph.diskstorage.StaticBuffer;
 import org.janusgraph.diskstorage.configuration.ConfigElement;
 import org.janusgraph.diskstorage.configuration.ConfigOption;
 import org.janusgraph.diskstorage.configuration.WriteConfiguration;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.GroupCommitter;
 import org.janusgraph.diskstorage.keycolumnvalue.scan.ScanJobFuture;
 import org.janusgraph.diskstorage.keycolumnvalue.scan.ScanMetrics;
 import org.janusgraph.diskstorage.locking.PermanentLockingException;
@@ -177,6 +178,9 @@ import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
@@ -199,6 +203,8 @@ import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.DB
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.DB_CACHE_CLEAN_WAIT;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.DB_CACHE_TIME;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.FORCE_INDEX_USAGE;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.GROUP_COMMIT;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.GROUP_COMMIT_WINDOW;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.HARD_MAX_LIMIT;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDS_STORE_NAME;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.INITIAL_JANUSGRAPH_VERSION;
@@ -3298,6 +3304,51 @@ public abstract class JanusGraphTest extends JanusGraphBaseTest {
         assertTrue(numB <= 1);
     }
 
+    @Test
+    public void testGroupCommit() throws Exception {
+        clopen(option(GROUP_COMMIT), true, option(GROUP_COMMIT_WINDOW), Duration.ofMillis(50));
+        PropertyKey uid = mgmt.makePropertyKey("uid").dataType(Integer.class).cardinality(Cardinality.SINGLE).make();
+        mgmt.buildIndex("uid", Vertex.class).addKey(uid).unique().buildCompositeIndex();
+        mgmt.makeEdgeLabel("knows").multiplicity(Multiplicity.MULTI).make();
+        finishSchema();
+
+        final Object baseVid = getId(tx.addVertex());
+        newTx();
+        final GroupCommitter committer = graph.getBackend().getGroupCommitter();
+        final long numBatchesBefore = committer.getNumBatches(), numTransactionsBefore = committer.getNumTransactions();
+        final int numThreads = 4, numTx = 25;
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < numThreads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < numTx; i++) {
+                        JanusGraphTransaction tx = graph.newTransaction();
+                        JanusGraphVertex v = tx.addVertex("uid", thread * numTx + i);
+                        // all transactions modify the same base vertex
+                        getV(tx, baseVid).addEdge("knows", v);
+                        tx.commit();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        // concurrently committing transactions were persisted together
+        final long numBatches = committer.getNumBatches() - numBatchesBefore;
+        assertEquals(numThreads * numTx, committer.getNumTransactions() - numTransactionsBefore);
+        assertTrue(numBatches < numThreads * numTx, "Expected concurrent transactions to share batches but got " + numBatches);
+
+        newTx();
+        assertCount(numThreads * numTx, getV(tx, baseVid).query().direction(OUT).labels("knows").edges());
+        for (int i = 0; i < numThreads * numTx; i++) {
+            assertCount(1, tx.query().has("uid", i).vertices());
+        }
+    }
+
     private void failTransactionOnCommit(final TransactionJob job) {
         final JanusGraphTransaction tx = graph.newTransaction();
         assertThrows(Exception.class, () -> {
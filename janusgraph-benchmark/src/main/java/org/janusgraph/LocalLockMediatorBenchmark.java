@@ -0,0 +1,121 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph;
+
+import org.janusgraph.diskstorage.locking.LocalLockMediator;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.diskstorage.util.KeyColumn;
+import org.janusgraph.diskstorage.util.time.TimestampProviders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the throughput of local lock claims of concurrent transactions, each of which locks and unlocks
+ * {@code batchSize} key-columns. With {@code hotKeys} set to 0 every thread locks its own key-columns, otherwise all
+ * threads compete for the same {@code hotKeys} key-columns.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(jvmArgsAppend = "-Xmx1G")
+@Threads(8)
+public class LocalLockMediatorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Mediator {
+
+        @Param({"1", "64"})
+        int stripes;
+
+        @Param({"0", "16", "1024"})
+        int hotKeys;
+
+        LocalLockMediator<Object> mediator;
+        final AtomicInteger threads = new AtomicInteger();
+
+        @Setup
+        public void setup() {
+            mediator = new LocalLockMediator<>("benchmark", TimestampProviders.MILLI, stripes);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Transaction {
+
+        @Param({"1", "10"})
+        int batchSize;
+
+        final Object requester = new Object();
+        final List<List<KeyColumn>> batches = new ArrayList<>();
+        final Instant expires = Instant.now().plusSeconds(3600);
+        int next = 0;
+
+        @Setup
+        public void setup(Mediator mediator) {
+            final int thread = mediator.threads.getAndIncrement();
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 1024; i++) {
+                final List<KeyColumn> batch = new ArrayList<>(batchSize);
+                for (int j = 0; j < batchSize; j++) {
+                    final int key = mediator.hotKeys == 0 ? random.nextInt() : random.nextInt(mediator.hotKeys);
+                    final int column = mediator.hotKeys == 0 ? thread : 0;
+                    batch.add(new KeyColumn(BufferUtil.getIntBuffer(key), BufferUtil.getIntBuffer(column)));
+                }
+                batches.add(batch);
+            }
+        }
+
+        List<KeyColumn> nextBatch() {
+            next = (next + 1) & 1023;
+            return batches.get(next);
+        }
+    }
+
+    @Benchmark
+    public void lockIndividually(Mediator mediator, Transaction tx, Blackhole bh) {
+        final List<KeyColumn> batch = tx.nextBatch();
+        final List<KeyColumn> acquired = new ArrayList<>(batch.size());
+        for (KeyColumn kc : batch) {
+            if (!mediator.mediator.lock(kc, tx.requester, tx.expires)) break;
+            acquired.add(kc);
+        }
+        bh.consume(acquired.size() == batch.size());
+        for (KeyColumn kc : acquired) {
+            mediator.mediator.unlock(kc, tx.requester);
+        }
+    }
+
+    @Benchmark
+    public void lockAll(Mediator mediator, Transaction tx, Blackhole bh) {
+        final List<KeyColumn> batch = tx.nextBatch();
+        final boolean acquired = mediator.mediator.lockAll(batch, tx.requester, tx.expires);
+        bh.consume(acquired);
+        if (acquired) {
+            mediator.mediator.unlockAll(batch, tx.requester);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph;
+
+import org.janusgraph.diskstorage.IDAuthority;
+import org.janusgraph.diskstorage.IDBlock;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyRange;
+import org.janusgraph.graphdb.database.idassigner.IDBlockSizer;
+import org.janusgraph.graphdb.database.idassigner.StandardIDPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput of many threads drawing ids from a single {@link StandardIDPool}, as all threads of a JVM
+ * do for the relation ids of one partition. Blocks are handed out instantly, so the benchmark isolates the
+ * hand-out of ids within a block from the latency of the id authority.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(jvmArgsAppend = "-Xmx1G")
+@Threads(32)
+@State(Scope.Benchmark)
+public class StandardIDPoolBenchmark {
+
+    @Param({"1000", "100000"})
+    long blockSize;
+
+    StandardIDPool pool;
+
+    @Setup
+    public void setup() {
+        pool = new StandardIDPool(new InstantIDAuthority(blockSize), 0, 0, Long.MAX_VALUE, Duration.ofSeconds(10), 0.3);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    public long nextID() {
+        return pool.nextID();
+    }
+
+    private static class InstantIDAuthority implements IDAuthority {
+
+        private final long blockSize;
+        private final AtomicLong nextStart = new AtomicLong(1);
+
+        private InstantIDAuthority(long blockSize) {
+            this.blockSize = blockSize;
+        }
+
+        @Override
+        public IDBlock getIDBlock(int partition, int idNamespace, Duration timeout) {
+            final long start = nextStart.getAndAdd(blockSize);
+            return new IDBlock() {
+                @Override
+                public long numIds() {
+                    return blockSize;
+                }
+
+                @Override
+                public long getId(long index) {
+                    return start + index;
+                }
+            };
+        }
+
+        @Override
+        public List<KeyRange> getLocalIDPartition() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void setIDBlockSizer(IDBlockSizer sizer) {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String getUniqueID() {
+            return "benchmark";
+        }
+
+        @Override
+        public boolean supportsInterruption() {
+            return false;
+        }
+    }
+}
@@ -226,8 +226,18 @@ public class BerkeleyJEKeyValueStore implements OrderedKeyValueStore {
     }
 
     public void insert(StaticBuffer key, StaticBuffer value, StoreTransaction txh, boolean allowOverwrite, Integer ttl) throws BackendException {
+        if (!put(key, value, txh, allowOverwrite, ttl)) {
+            throw new PermanentBackendException("Key already exists on no-overwrite.");
+        }
+    }
+
+    @Override
+    public boolean insertIfAbsent(StaticBuffer key, StaticBuffer value, StoreTransaction txh, Integer ttl) throws BackendException {
+        return put(key, value, txh, false, ttl);
+    }
+
+    private boolean put(StaticBuffer key, StaticBuffer value, StoreTransaction txh, boolean allowOverwrite, Integer ttl) {
         Transaction tx = getTransaction(txh);
-        OperationStatus status;
 
         log.trace("db={}, op=insert, tx={}", name, txh);
 
@@ -240,14 +250,10 @@ public class BerkeleyJEKeyValueStore implements OrderedKeyValueStore {
         if (allowOverwrite) {
             OperationResult result = db.put(tx, key.as(ENTRY_FACTORY), value.as(ENTRY_FACTORY), Put.OVERWRITE, writeOptions);
             EnvironmentFailureException.assertState(result != null);
-            status = OperationStatus.SUCCESS;
+            return true;
         } else {
             OperationResult result = db.put(tx, key.as(ENTRY_FACTORY), value.as(ENTRY_FACTORY), Put.NO_OVERWRITE, writeOptions);
-            status = result == null ? OperationStatus.KEYEXIST : OperationStatus.SUCCESS;
-        }
-
-        if (status != OperationStatus.SUCCESS) {
-            throw new PermanentBackendException("Key already exists on no-overwrite.");
+            return result != null;
         }
     }
 
@@ -114,6 +114,7 @@ public class BerkeleyJEStoreManager extends LocalStoreManager implements Ordered
                     .supportsInterruption(false)
                     .cellTTL(true)
                     .optimisticLocking(false)
+                    .conditionalInsert(transactional)
                     .build();
     }
 
@@ -332,6 +332,19 @@ public interface JanusGraphManagement extends JanusGraphConfiguration, SchemaMan
      */
     ScanJobFuture updateIndex(Index index, SchemaAction updateAction, int numOfThreads);
 
+    /**
+     * Like {@link #updateIndex(Index, SchemaAction, int)}. The progress of REINDEX and DISCARD_INDEX is checkpointed
+     * periodically, and if {@code resume} is true and a previous run of the same action on the index did not
+     * complete, e.g. because the process died, the action resumes from its last checkpoint instead of starting over.
+     *
+     * @param index
+     * @param updateAction
+     * @param numOfThreads
+     * @param resume whether to resume from the last checkpoint of the action
+     * @return a future that completes when the index action is done
+     */
+    ScanJobFuture updateIndex(Index index, SchemaAction updateAction, int numOfThreads, boolean resume);
+
     /**
      * If an index update job was triggered through {@link #updateIndex(Index, SchemaAction)} with schema actions
      * {@link org.janusgraph.core.schema.SchemaAction#REINDEX} or {@link org.janusgraph.core.schema.SchemaAction#DISCARD_INDEX}
@@ -43,6 +43,7 @@ import org.janusgraph.diskstorage.keycolumnvalue.StoreManager;
 import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
 import org.janusgraph.diskstorage.keycolumnvalue.cache.CacheTransaction;
 import org.janusgraph.diskstorage.keycolumnvalue.cache.ExpirationKCVSCache;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.GroupCommitter;
 import org.janusgraph.diskstorage.keycolumnvalue.cache.KCVSCache;
 import org.janusgraph.diskstorage.keycolumnvalue.cache.NoKCVSCache;
 import org.janusgraph.diskstorage.keycolumnvalue.keyvalue.OrderedKeyValueStoreManager;
@@ -68,6 +69,7 @@ import org.janusgraph.util.system.ConfigurationUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -78,6 +80,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
@@ -86,10 +89,14 @@ import java.util.stream.Collectors;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.ALLOW_CUSTOM_VERTEX_ID_TYPES;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.BASIC_METRICS;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.BUFFER_SIZE;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.BUFFER_SIZE_BYTES;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.DB_CACHE;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.DB_CACHE_CLEAN_WAIT;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.DB_CACHE_SIZE;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.DB_CACHE_TIME;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.FLUSH_PARALLELISM;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.GROUP_COMMIT;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.GROUP_COMMIT_WINDOW;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDS_STORE_NAME;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.INDEX_BACKEND;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.INDEX_NS;
@@ -103,19 +110,25 @@ import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.ME
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.PAGE_SIZE;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.PARALLEL_BACKEND_EXECUTOR_SERVICE_CLASS;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.PARALLEL_BACKEND_EXECUTOR_SERVICE_CORE_POOL_SIZE;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.INDEX_QUEUE;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.INDEX_QUEUE_LOG;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.PARALLEL_BACKEND_EXECUTOR_SERVICE_KEEP_ALIVE_TIME;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.PARALLEL_BACKEND_EXECUTOR_SERVICE_MAX_POOL_SIZE;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.PARALLEL_BACKEND_EXECUTOR_SERVICE_MAX_SHUTDOWN_WAIT_TIME;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.PARALLEL_BACKEND_OPS;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.SCAN_CHECKPOINT_IDENTIFIER;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.STORAGE_BACKEND;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.STORAGE_BATCH;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.STORAGE_DIRECTORY;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.STORAGE_HOSTS;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.STORAGE_READ_WAITTIME;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.STORAGE_WRITE_WAITTIME;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.SYSTEM_LOG_TRANSACTIONS;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.SYSTEM_PROPERTIES_STORE_NAME;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.TIMESTAMP_PROVIDER;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.TRANSACTION_LOG;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.TX_MUTATION_SPILL_DIRECTORY;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.TX_MUTATION_SPILL_THRESHOLD;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.USER_CONFIGURATION_IDENTIFIER;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.USER_LOG;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.USER_LOG_PREFIX;
@@ -156,6 +169,7 @@ public class Backend implements LockerProvider, AutoCloseable {
 
     public static final String SYSTEM_TX_LOG_NAME = "txlog";
     public static final String SYSTEM_MGMT_LOG_NAME = "systemlog";
+    public static final String INDEX_QUEUE_LOG_NAME = "indexqueue";
 
     public static final double EDGESTORE_CACHE_PERCENT = 0.8;
     public static final double INDEXSTORE_CACHE_PERCENT = 0.2;
@@ -206,21 +220,28 @@ public class Backend implements LockerProvider, AutoCloseable {
     private KCVSCache edgeStore;
     private KCVSCache indexStore;
     private KCVSCache txLogStore;
+    private KCVSCache indexQueueStore;
     private IDAuthority idAuthority;
     private KCVSConfiguration systemConfig;
     private KCVSConfiguration userConfig;
+    private KCVSConfiguration scanCheckpoints;
     private boolean hasAttemptedClose;
 
     private final StandardScanner scanner;
+    private final GroupCommitter groupCommitter;
 
     private final KCVSLogManager managementLogManager;
     private final KCVSLogManager txLogManager;
     private final LogManager userLogManager;
+    private final KCVSLogManager indexQueueLogManager;
 
 
     private final Map<String, IndexProvider> indexes;
 
     private final int bufferSize;
+    private final long bufferSizeBytes;
+    private final int flushParallelism;
+    private final ExecutorService flushExecutor;
     private final Duration maxWriteTime;
     private final Duration maxReadTime;
     private final boolean allowCustomVertexIdType;
@@ -248,6 +269,7 @@ public class Backend implements LockerProvider, AutoCloseable {
         managementLogManager = getKCVSLogManager(MANAGEMENT_LOG);
         txLogManager = getKCVSLogManager(TRANSACTION_LOG);
         userLogManager = getLogManager(USER_LOG);
+        indexQueueLogManager = configuration.get(INDEX_QUEUE) ? getKCVSLogManager(INDEX_QUEUE_LOG) : null;
 
         allowCustomVertexIdType = configuration.get(ALLOW_CUSTOM_VERTEX_ID_TYPES);
 
@@ -258,6 +280,19 @@ public class Backend implements LockerProvider, AutoCloseable {
         if (!storeFeatures.hasBatchMutation()) {
             bufferSize = Integer.MAX_VALUE;
         } else bufferSize = bufferSizeTmp;
+        bufferSizeBytes = storeFeatures.hasBatchMutation() ? configuration.get(BUFFER_SIZE_BYTES) : 0;
+
+        //Concurrently persisted chunks would not be isolated by transactional storage backends and chunks share the
+        //store transaction, hence they are only persisted concurrently if its transactions are thread-safe
+        if (configuration.get(FLUSH_PARALLELISM) > 1 && storeFeatures.hasBatchMutation() && !storeFeatures.hasTxIsolation()
+                && storeFeatures.hasThreadSafeTransactions()) {
+            flushParallelism = configuration.get(FLUSH_PARALLELISM);
+            flushExecutor = Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("CacheFlush[%02d]").build());
+        } else {
+            flushParallelism = 1;
+            flushExecutor = null;
+        }
 
         maxWriteTime = configuration.get(STORAGE_WRITE_WAITTIME);
         maxReadTime = configuration.get(STORAGE_READ_WAITTIME);
@@ -297,6 +332,12 @@ public class Backend implements LockerProvider, AutoCloseable {
         Preconditions.checkNotNull(lockerCreator);
 
         scanner = new StandardScanner(storeManager);
+
+        if (configuration.get(GROUP_COMMIT) && !configuration.get(STORAGE_BATCH)) {
+            groupCommitter = new GroupCommitter(storeManager, bufferSize, configuration.get(GROUP_COMMIT_WINDOW), maxWriteTime);
+        } else {
+            groupCommitter = null;
+        }
     }
 
 
@@ -373,12 +414,16 @@ public class Backend implements LockerProvider, AutoCloseable {
             txLogManager.openLog(SYSTEM_TX_LOG_NAME);
             managementLogManager.openLog(SYSTEM_MGMT_LOG_NAME);
             txLogStore = new NoKCVSCache(storeManager.openDatabase(SYSTEM_TX_LOG_NAME));
+            if (indexQueueLogManager != null) {
+                indexQueueLogManager.openLog(INDEX_QUEUE_LOG_NAME);
+                indexQueueStore = new NoKCVSCache(storeManager.openDatabase(INDEX_QUEUE_LOG_NAME));
+            }
 
 
             //Open global configuration
             KeyColumnValueStore systemConfigStore = storeManagerLocking.openDatabase(SYSTEM_PROPERTIES_STORE_NAME);
             KCVSConfigurationBuilder kcvsConfigurationBuilder = new KCVSConfigurationBuilder();
-            systemConfig = kcvsConfigurationBuilder.buildGlobalConfiguration(new BackendOperation.TransactionalProvider() {
+            BackendOperation.TransactionalProvider systemConfigTxProvider = new BackendOperation.TransactionalProvider() {
                 @Override
                 public StoreTransaction openTx() throws BackendException {
                     return storeManagerLocking.beginTransaction(StandardBaseTransactionConfig.of(
@@ -390,20 +435,10 @@ public class Backend implements LockerProvider, AutoCloseable {
                 public void close() throws BackendException {
                     //Do nothing, storeManager is closed explicitly by Backend
                 }
-            },systemConfigStore,configuration);
-            userConfig = kcvsConfigurationBuilder.buildConfiguration(new BackendOperation.TransactionalProvider() {
-                @Override
-                public StoreTransaction openTx() throws BackendException {
-                    return storeManagerLocking.beginTransaction(StandardBaseTransactionConfig.of(
-                        configuration.get(TIMESTAMP_PROVIDER),
-                        storeFeatures.getKeyConsistentTxConfig()));
-                }
-
-                @Override
-                public void close() throws BackendException {
-                    //Do nothing, storeManager is closed explicitly by Backend
-                }
-            },systemConfigStore,USER_CONFIGURATION_IDENTIFIER,configuration);
+            };
+            systemConfig = kcvsConfigurationBuilder.buildGlobalConfiguration(systemConfigTxProvider,systemConfigStore,configuration);
+            userConfig = kcvsConfigurationBuilder.buildConfiguration(systemConfigTxProvider,systemConfigStore,USER_CONFIGURATION_IDENTIFIER,configuration);
+            scanCheckpoints = kcvsConfigurationBuilder.buildConfiguration(systemConfigTxProvider,systemConfigStore,SCAN_CHECKPOINT_IDENTIFIER,configuration);
 
         } catch (BackendException e) {
             throw new JanusGraphException("Could not initialize backend", e);
@@ -427,6 +462,30 @@ public class Backend implements LockerProvider, AutoCloseable {
         }
     }
 
+    /**
+     * Returns the log that mixed index updates are queued in, or null if the index queue is disabled.
+     *
+     * @return the index queue log
+     */
+    public KCVSLog getIndexQueueLog() {
+        if (indexQueueLogManager == null) return null;
+        try {
+            return indexQueueLogManager.openLog(INDEX_QUEUE_LOG_NAME);
+        } catch (BackendException e) {
+            throw new JanusGraphException("Could not re-open index queue log", e);
+        }
+    }
+
+    /**
+     * Returns the store backing the index queue log which queued updates are persisted to as part of the storage
+     * transaction, or null if the index queue is disabled.
+     *
+     * @return the index queue store
+     */
+    public KCVSCache getIndexQueueStore() {
+        return indexQueueStore;
+    }
+
     public Log getSystemMgmtLog() {
         try {
             return managementLogManager.openLog(SYSTEM_MGMT_LOG_NAME);
@@ -477,6 +536,13 @@ public class Backend implements LockerProvider, AutoCloseable {
         return userConfig;
     }
 
+    /**
+     * Returns the store of the checkpoints of scan jobs, see {@link StandardScanner.Builder#setCheckpoint}
+     */
+    public KCVSConfiguration getScanCheckpoints() {
+        return scanCheckpoints;
+    }
+
     private String getMetricsCacheName(String storeName) {
         if (!configuration.get(BASIC_METRICS)) return null;
         return configuration.get(METRICS_MERGE_STORES) ? METRICS_MERGED_CACHE : storeName + METRICS_CACHE_SUFFIX;
@@ -567,6 +633,15 @@ public class Backend implements LockerProvider, AutoCloseable {
         return storeFeatures;
     }
 
+    /**
+     * Returns the {@link GroupCommitter} which persists the mutations of concurrently committing transactions together
+     *
+     * @return the group committer, or null if group commit is disabled
+     */
+    public GroupCommitter getGroupCommitter() {
+        return groupCommitter;
+    }
+
     public Class<? extends KeyColumnValueStoreManager> getStoreManagerClass() {
         return storeManager.getClass();
     }
@@ -593,7 +668,13 @@ public class Backend implements LockerProvider, AutoCloseable {
         StoreTransaction tx = storeManagerLocking.beginTransaction(configuration);
 
         // Cache
-        CacheTransaction cacheTx = new CacheTransaction(tx, storeManagerLocking, bufferSize, maxWriteTime, configuration.hasEnabledBatchLoading());
+        // Mutations can only be spilled if they don't need to be written to the transaction log in their entirety
+        final boolean canSpill = !configuration.isReadOnly() && configuration.getCustomOptions() != null
+            && !this.configuration.get(SYSTEM_LOG_TRANSACTIONS);
+        final long spillThreshold = canSpill ? configuration.getCustomOption(TX_MUTATION_SPILL_THRESHOLD) : 0;
+        final File spillDirectory = this.configuration.has(TX_MUTATION_SPILL_DIRECTORY) ? new File(this.configuration.get(TX_MUTATION_SPILL_DIRECTORY)) : null;
+        CacheTransaction cacheTx = new CacheTransaction(tx, storeManagerLocking, bufferSize, maxWriteTime, configuration.hasEnabledBatchLoading(),
+            2, spillThreshold, spillDirectory, bufferSizeBytes, flushExecutor, flushParallelism);
 
         // Index transactions
         final Map<String, IndexTransaction> indexTx = new HashMap<>(indexes.size());
@@ -615,16 +696,20 @@ public class Backend implements LockerProvider, AutoCloseable {
             executeWithCatching(managementLogManager::close, exceptionWrapper);
             executeWithCatching(txLogManager::close, exceptionWrapper);
             executeWithCatching(userLogManager::close, exceptionWrapper);
+            if (indexQueueLogManager != null) executeWithCatching(indexQueueLogManager::close, exceptionWrapper);
 
             executeWithCatching(scanner::close, exceptionWrapper);
+            if (groupCommitter != null) groupCommitter.close();
 
             if (edgeStore != null) executeWithCatching(edgeStore::close, exceptionWrapper);
             if (indexStore != null) executeWithCatching(indexStore::close, exceptionWrapper);
             if (idAuthority != null) executeWithCatching(idAuthority::close, exceptionWrapper);
             if (systemConfig != null) executeWithCatching(systemConfig::close, exceptionWrapper);
             if (userConfig != null) executeWithCatching(userConfig::close, exceptionWrapper);
+            if (scanCheckpoints != null) executeWithCatching(scanCheckpoints::close, exceptionWrapper);
             executeWithCatching(storeManager::close, exceptionWrapper);
             gracefulExecutorServiceShutdown(threadPool, threadPoolShutdownMaxWaitTime);
+            if (flushExecutor != null) flushExecutor.shutdown();
             //Indexes
             for (IndexProvider index : indexes.values()){
                 executeWithCatching(index::close, exceptionWrapper);
@@ -649,15 +734,19 @@ public class Backend implements LockerProvider, AutoCloseable {
             managementLogManager.close();
             txLogManager.close();
             userLogManager.close();
+            if (indexQueueLogManager != null) indexQueueLogManager.close();
 
             scanner.close();
+            if (groupCommitter != null) groupCommitter.close();
             edgeStore.close();
             indexStore.close();
             idAuthority.close();
             systemConfig.close();
             userConfig.close();
+            scanCheckpoints.close();
             storeManager.clearStorage();
             storeManager.close();
+            if (flushExecutor != null) flushExecutor.shutdown();
             //Indexes
             for (IndexProvider index : indexes.values()) {
                 index.clearStorage();
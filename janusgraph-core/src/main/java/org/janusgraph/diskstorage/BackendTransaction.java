@@ -14,6 +14,7 @@
 
 package org.janusgraph.diskstorage;
 
+import com.codahale.metrics.Timer;
 import com.google.common.base.Preconditions;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalInterruptedException;
@@ -28,12 +29,17 @@ import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
 import org.janusgraph.diskstorage.keycolumnvalue.StoreFeatures;
 import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
 import org.janusgraph.diskstorage.keycolumnvalue.cache.CacheTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.GroupCommitter;
 import org.janusgraph.diskstorage.keycolumnvalue.cache.KCVSCache;
+import org.janusgraph.diskstorage.locking.PermanentLockingException;
 import org.janusgraph.diskstorage.log.kcvs.ExternalCachePersistor;
 import org.janusgraph.diskstorage.util.BackendOperation;
 import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.diskstorage.util.KeyColumn;
+import org.janusgraph.diskstorage.util.MetricInstrumentedIndexProvider;
 import org.janusgraph.graphdb.database.serialize.DataOutput;
 import org.janusgraph.graphdb.tinkerpop.optimize.step.Aggregation;
+import org.janusgraph.util.stats.MetricManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,9 +48,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.ALLOW_CUSTOM_VERTEX_ID_TYPES;
@@ -116,6 +125,16 @@ public class BackendTransaction implements LoggableTransaction {
         return new ExternalCachePersistor(txLogStore,storeTx);
     }
 
+    /**
+     * Returns a persistor which adds log messages to the given log store as part of this transaction's storage mutations.
+     *
+     * @param logStore the store backing the log
+     * @return the persistor
+     */
+    public ExternalCachePersistor getLogPersistor(KCVSCache logStore) {
+        return new ExternalCachePersistor(logStore,storeTx);
+    }
+
     public BaseTransactionConfig getBaseTransactionConfig() {
         return txConfig;
     }
@@ -125,6 +144,10 @@ public class BackendTransaction implements LoggableTransaction {
         return indexTx.containsKey(index);
     }
 
+    public Map<String, IndexTransaction> getIndexTransactions() {
+        return indexTx;
+    }
+
     public IndexTransaction getIndexTransaction(String index) {
         Preconditions.checkArgument(StringUtils.isNotBlank(index), "index cannot be blank");
         IndexTransaction itx = indexTx.get(index);
@@ -147,22 +170,97 @@ public class BackendTransaction implements LoggableTransaction {
         storeTx.commit();
     }
 
+    /**
+     * Commits the storage transaction such that its mutations are persisted together with those of other concurrently
+     * committing transactions by the given {@link GroupCommitter}.
+     *
+     * @param groupCommitter the group committer, or null to commit the storage transaction on its own
+     * @throws BackendException
+     */
+    public void commitStorage(GroupCommitter groupCommitter) throws BackendException {
+        storeTx.commit(groupCommitter);
+    }
+
+    /**
+     * Commits all index transactions. If a thread pool is available, the index transactions are committed
+     * concurrently such that the commit only takes as long as the slowest index.
+     *
+     * @return the failures of the individual index transactions by index name
+     */
     public Map<String,Throwable> commitIndexes() {
-        final Map<String,Throwable> exceptions = new HashMap<>(indexTx.size());
+        final Map<String,Throwable> exceptions = new ConcurrentHashMap<>(indexTx.size());
+        if (threadPool == null || indexTx.size() < MIN_TASKS_TO_PARALLELIZE) {
+            for (Map.Entry<String,IndexTransaction> indexTransactionEntry : indexTx.entrySet()) {
+                commitIndex(indexTransactionEntry.getKey(), indexTransactionEntry.getValue(), exceptions);
+            }
+        } else {
+            final CountDownLatch doneSignal = new CountDownLatch(indexTx.size());
+            for (Map.Entry<String,IndexTransaction> indexTransactionEntry : indexTx.entrySet()) {
+                final Runnable commit = () -> {
+                    try {
+                        commitIndex(indexTransactionEntry.getKey(), indexTransactionEntry.getValue(), exceptions);
+                    } finally {
+                        doneSignal.countDown();
+                    }
+                };
+                try {
+                    threadPool.execute(commit);
+                } catch (RejectedExecutionException e) {
+                    commit.run();
+                }
+            }
+            try {
+                doneSignal.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JanusGraphException("Interrupted while waiting for index transactions to commit", e);
+            }
+        }
+        return exceptions;
+    }
+
+    /**
+     * Discards the mutations of all index transactions, e.g. because they have been queued for asynchronous
+     * delivery instead. Failures are logged since the index transactions have not persisted anything.
+     */
+    public void rollbackIndexes() {
         for (Map.Entry<String,IndexTransaction> indexTransactionEntry : indexTx.entrySet()) {
             try {
-                indexTransactionEntry.getValue().commit();
+                indexTransactionEntry.getValue().rollback();
             } catch (Throwable e) {
-                exceptions.put(indexTransactionEntry.getKey(),e);
+                log.warn("Could not roll back transaction on index {}", indexTransactionEntry.getKey(), e);
             }
         }
-        return exceptions;
+    }
+
+    private void commitIndex(String index, IndexTransaction itx, Map<String,Throwable> exceptions) {
+        final String groupName = txConfig.getGroupName();
+        final String metricsPrefix = Backend.METRICS_INDEX_PROVIDER_NAME + "." + index;
+        final Timer.Context timer = groupName == null ? null : MetricManager.INSTANCE
+            .getTimer(groupName, metricsPrefix, MetricInstrumentedIndexProvider.M_COMMIT, MetricInstrumentedIndexProvider.M_TIME).time();
+        try {
+            itx.commit();
+        } catch (Throwable e) {
+            if (groupName != null) {
+                MetricManager.INSTANCE.getCounter(groupName, metricsPrefix,
+                    MetricInstrumentedIndexProvider.M_COMMIT, MetricInstrumentedIndexProvider.M_EXCEPTIONS).inc();
+            }
+            exceptions.put(index, e);
+        } finally {
+            if (timer != null) timer.stop();
+        }
     }
 
     @Override
     public void commit() throws BackendException {
         storeTx.commit();
-        for (IndexTransaction itx : indexTx.values()) itx.commit();
+        final Map<String,Throwable> exceptions = commitIndexes();
+        for (Throwable e : exceptions.values()) {
+            if (e instanceof BackendException) throw (BackendException) e;
+            if (e instanceof RuntimeException) throw (RuntimeException) e;
+            if (e instanceof Error) throw (Error) e;
+            throw new JanusGraphException("Could not commit index transaction", e);
+        }
     }
 
     /**
@@ -274,6 +372,27 @@ public class BackendTransaction implements LoggableTransaction {
         indexStore.acquireLock(key, entry.getColumnAs(StaticBuffer.STATIC_FACTORY), entry.getValueAs(StaticBuffer.STATIC_FACTORY), storeTx);
     }
 
+    /**
+     * Atomically inserts the entry into the property index unless the key-column pair already exists. This has the
+     * same effect as acquiring a lock on the key-column pair with no expected value followed by writing the entry,
+     * but takes a single conditional write instead of the locking protocol.
+     * <p>
+     * The insertion is undone when the transaction rolls back. Requires {@link StoreFeatures#hasConditionalInsert()}.
+     *
+     * @param key   Key
+     * @param entry Entry (column + value) to insert
+     * @throws PermanentLockingException if the key-column pair already exists
+     */
+    public void insertIndexIfAbsent(StaticBuffer key, Entry entry) throws BackendException {
+        Preconditions.checkState(storeFeatures.hasConditionalInsert(), "Store does not support conditional inserts");
+        acquiredLock = true;
+        if (!indexStore.insertIfAbsent(key, entry, storeTx)) {
+            throw new PermanentLockingException("Conditional insert failed for "
+                + new KeyColumn(key, entry.getColumnAs(StaticBuffer.STATIC_FACTORY)) + ": column already exists (store="
+                + indexStore.getName() + ")");
+        }
+    }
+
     /* ###################################################
             Convenience Read Methods
      */
@@ -308,43 +427,71 @@ public class BackendTransaction implements LoggableTransaction {
                 }
             });
         } else {
-            final Map<StaticBuffer,EntryList> results = new HashMap<>(keys.size());
-            if (threadPool == null || keys.size() < MIN_TASKS_TO_PARALLELIZE) {
-                for (StaticBuffer key : keys) {
-                    results.put(key,edgeStoreQuery(new KeySliceQuery(key, query)));
-                }
-            } else {
-                final CountDownLatch doneSignal = new CountDownLatch(keys.size());
-                final AtomicInteger failureCount = new AtomicInteger(0);
-                EntryList[] resultArray = new EntryList[keys.size()];
-                for (int i = 0; i < keys.size(); i++) {
-                    final int pos = i;
-                    threadPool.execute(() -> {
-                        try {
-                            resultArray[pos] = edgeStoreQuery(new KeySliceQuery(keys.get(pos), query));
-                        } catch (Exception e) {
-                            failureCount.incrementAndGet();
-                            log.warn("Individual query in multi-transaction failed: ", e);
-                        } finally {
-                            doneSignal.countDown();
-                        }
-                    });
-                }
-                try {
-                    doneSignal.await();
-                } catch (InterruptedException e) {
-                    throw new JanusGraphException("Interrupted while waiting for multi-query to complete", e);
-                }
-                if (failureCount.get() > 0) {
-                    throw new JanusGraphException("Could not successfully complete multi-query. " + failureCount.get() + " individual queries failed.");
+            return executeIndividually(keys, query, this::edgeStoreQuery);
+        }
+    }
+
+    /**
+     * Executes the given slice query for all keys of the index store. Backends which support multi-queries
+     * retrieve all keys in a single batched call.
+     */
+    public Map<StaticBuffer,EntryList> indexMultiQuery(final List<StaticBuffer> keys, final SliceQuery query) {
+        if (storeFeatures.hasMultiQuery()) {
+            return executeRead(new Callable<Map<StaticBuffer,EntryList>>() {
+                @Override
+                public Map<StaticBuffer,EntryList> call() throws Exception {
+                    return cacheEnabled?indexStore.getSlice(keys, query, storeTx):
+                                        indexStore.getSliceNoCache(keys, query, storeTx);
                 }
-                for (int i=0;i<keys.size();i++) {
-                    assert resultArray[i]!=null;
-                    results.put(keys.get(i),resultArray[i]);
+
+                @Override
+                public String toString() {
+                    return "MultiVertexIndexQuery";
                 }
+            });
+        } else {
+            return executeIndividually(keys, query, this::indexQuery);
+        }
+    }
+
+    private Map<StaticBuffer,EntryList> executeIndividually(final List<StaticBuffer> keys, final SliceQuery query,
+                                                           final Function<KeySliceQuery, EntryList> singleQuery) {
+        final Map<StaticBuffer,EntryList> results = new HashMap<>(keys.size());
+        if (threadPool == null || keys.size() < MIN_TASKS_TO_PARALLELIZE) {
+            for (StaticBuffer key : keys) {
+                results.put(key,singleQuery.apply(new KeySliceQuery(key, query)));
+            }
+        } else {
+            final CountDownLatch doneSignal = new CountDownLatch(keys.size());
+            final AtomicInteger failureCount = new AtomicInteger(0);
+            EntryList[] resultArray = new EntryList[keys.size()];
+            for (int i = 0; i < keys.size(); i++) {
+                final int pos = i;
+                threadPool.execute(() -> {
+                    try {
+                        resultArray[pos] = singleQuery.apply(new KeySliceQuery(keys.get(pos), query));
+                    } catch (Exception e) {
+                        failureCount.incrementAndGet();
+                        log.warn("Individual query in multi-transaction failed: ", e);
+                    } finally {
+                        doneSignal.countDown();
+                    }
+                });
+            }
+            try {
+                doneSignal.await();
+            } catch (InterruptedException e) {
+                throw new JanusGraphException("Interrupted while waiting for multi-query to complete", e);
+            }
+            if (failureCount.get() > 0) {
+                throw new JanusGraphException("Could not successfully complete multi-query. " + failureCount.get() + " individual queries failed.");
+            }
+            for (int i=0;i<keys.size();i++) {
+                assert resultArray[i]!=null;
+                results.put(keys.get(i),resultArray[i]);
             }
-            return results;
         }
+        return results;
     }
 
     public KeyIterator edgeStoreKeys(final SliceQuery sliceQuery) {
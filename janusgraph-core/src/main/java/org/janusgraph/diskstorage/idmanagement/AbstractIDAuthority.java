@@ -96,7 +96,22 @@ public abstract class AbstractIDAuthority implements IDAuthority {
     protected long getBlockSize(final int idNamespace) {
         Preconditions.checkArgument(blockSizer != null, "Blocksizer has not yet been initialized");
         isActive = true;
-        long blockSize = blockSizer.getBlockSize(idNamespace);
+        return checkBlockSize(blockSizer.getBlockSize(idNamespace), idNamespace);
+    }
+
+    /**
+     * Returns the block size of the specified partition and id namespace as determined by the configured {@link IDBlockSizer}.
+     * @param partition
+     * @param idNamespace
+     * @return
+     */
+    protected long getBlockSize(final int partition, final int idNamespace) {
+        Preconditions.checkArgument(blockSizer != null, "Blocksizer has not yet been initialized");
+        isActive = true;
+        return checkBlockSize(blockSizer.getBlockSize(partition, idNamespace), idNamespace);
+    }
+
+    private long checkBlockSize(final long blockSize, final int idNamespace) {
         Preconditions.checkArgument(blockSize>0,"Invalid block size: %s",blockSize);
         Preconditions.checkArgument(blockSize<getIdUpperBound(idNamespace),
                 "Block size [%s] cannot be larger than upper bound [%s] for partition [%s]",blockSize,getIdUpperBound(idNamespace),idNamespace);
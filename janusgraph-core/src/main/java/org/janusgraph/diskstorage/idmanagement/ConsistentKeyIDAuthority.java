@@ -50,11 +50,15 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.CLUSTER_MAX_PARTITIONS;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDAUTHORITY_CAV_BITS;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDAUTHORITY_CAV_RETRIES;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDAUTHORITY_CAV_TAG;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDAUTHORITY_CONDITIONAL_INSERT;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDAUTHORITY_CONFLICT_AVOIDANCE;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.TIMESTAMP_PROVIDER;
 
@@ -71,6 +75,11 @@ import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.TI
  * The partition id is used as the key and since key operations are considered
  * consistent, this protocol guarantees unique id block assignments.
  * <p>
+ * If {@link org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration#IDAUTHORITY_CONDITIONAL_INSERT} is enabled,
+ * id blocks are instead claimed by conditionally inserting a column for the start of the block, which only succeeds
+ * for the first claimant. Allocating a block then takes a single round trip to the storage backend as long as this
+ * instance knows the end of the latest block of a partition, and no waiting period at all.
+ * <p>
  * @author Matthias Broecheler (me@matthiasb.com)
  */
 
@@ -92,6 +101,17 @@ public class ConsistentKeyIDAuthority extends AbstractIDAuthority implements Bac
     private static final StaticBuffer UPPER_SLICE = BufferUtil.oneBuffer(17);
     private static final int ROLLBACK_ATTEMPTS = 5;
 
+    /*
+     * Conditionally inserted ID columns are 8 bytes long and hold the end of the claimed block as value:
+     *
+     * ---------------------------------------------
+     * | 8 bytes negated block start | 8 bytes end |
+     * ---------------------------------------------
+     *
+     * Negating the start sorts the latest claim first.
+     */
+    private static final int CONDITIONAL_CLAIM_LENGTH = 8;
+
     private final StoreManager manager;
     private final KeyColumnValueStore idStore;
     private final StandardBaseTransactionConfig.Builder storeTxConfigBuilder;
@@ -111,8 +131,15 @@ public class ConsistentKeyIDAuthority extends AbstractIDAuthority implements Bac
     protected final int randomUniqueIDLimit;
     private final Duration waitGracePeriod;
     private final boolean supportsInterruption;
+    private final boolean conditionalInsert;
 
     private final Random random = new Random();
+    private final ConcurrentMap<StaticBuffer, ReentrantLock> claimLocks = new ConcurrentHashMap<>();
+    /**
+     * The end of the latest block this instance claimed per partition key when using conditional inserts,
+     * which is where the next claim is attempted without reading the partition key first
+     */
+    private final ConcurrentMap<StaticBuffer, Long> claimedEnds = new ConcurrentHashMap<>();
 
     public ConsistentKeyIDAuthority(KeyColumnValueStore idStore, StoreManager manager, Configuration config) throws BackendException {
         super(config);
@@ -125,6 +152,10 @@ public class ConsistentKeyIDAuthority extends AbstractIDAuthority implements Bac
 
         supportsInterruption = manager.getFeatures().supportsInterruption();
 
+        conditionalInsert = config.get(IDAUTHORITY_CONDITIONAL_INSERT);
+        Preconditions.checkArgument(!conditionalInsert || manager.getFeatures().hasConditionalInsert(),
+            "Cannot claim id blocks with conditional inserts since storage backend [%s] does not support them", manager.getName());
+
         partitionBitWidth = NumberUtil.getPowerOf2(config.get(CLUSTER_MAX_PARTITIONS));
         Preconditions.checkArgument(partitionBitWidth >=0 && partitionBitWidth <=16);
 
@@ -197,6 +228,54 @@ public class ConsistentKeyIDAuthority extends AbstractIDAuthority implements Bac
         return latest;
     }
 
+    private long getLatestClaimedEnd(final StaticBuffer partitionKey) throws BackendException {
+        final Long claimedEnd = claimedEnds.get(partitionKey);
+        if (claimedEnd != null) return claimedEnd;
+
+        final List<Entry> blocks = BackendOperation.execute(
+            (BackendOperation.Transactional<List<Entry>>) txh -> idStore.getSlice(new KeySliceQuery(partitionKey, LOWER_SLICE, UPPER_SLICE).setLimit(1), txh),this,times);
+        if (blocks == null) throw new TemporaryBackendException("Could not read from storage");
+        return blocks.isEmpty() ? BASE_ID : blocks.get(0).getValue().getLong(0);
+    }
+
+    private boolean insertClaim(final StaticBuffer partitionKey, long start, long end) throws BackendException {
+        final Entry claim = StaticArrayEntry.of(new WriteByteBuffer(CONDITIONAL_CLAIM_LENGTH).putLong(-start).getStaticBuffer(),
+            BufferUtil.getLongBuffer(end));
+        final boolean inserted;
+        try {
+            inserted = BackendOperation.execute(txh -> idStore.insertIfAbsent(partitionKey, claim, txh), this, times);
+        } catch (BackendException e) {
+            claimedEnds.remove(partitionKey);
+            throw e;
+        }
+        if (inserted) claimedEnds.put(partitionKey, end);
+        else claimedEnds.remove(partitionKey);
+        return inserted;
+    }
+
+    /**
+     * Picks the partition key to claim the next id block on and locks it. Claims of this instance on the same partition
+     * key must not overlap since they would write identical columns. If the unique id is randomized, concurrent claims,
+     * e.g. of prefetched blocks, pick partition keys which are not being claimed on yet so that they run in parallel.
+     * Otherwise, there is a single partition key per partition and id namespace and its claims run one after another.
+     */
+    private ClaimKey lockClaimKey(int partition, int idNamespace) throws BackendException {
+        final int attempts = randomizeUniqueId ? uniqueIDUpperBound : 1;
+        ClaimKey claimKey = null;
+        for (int attempt = 0; attempt < attempts; attempt++) {
+            final int uniquePID = getUniquePartitionID();
+            final StaticBuffer partitionKey = getPartitionKey(partition, idNamespace, uniquePID);
+            claimKey = new ClaimKey(uniquePID, partitionKey, claimLocks.computeIfAbsent(partitionKey, k -> new ReentrantLock()));
+            if (claimKey.lock.tryLock()) return claimKey;
+        }
+        try {
+            claimKey.lock.lockInterruptibly();
+        } catch (InterruptedException e) {
+            throw new PermanentBackendException(e);
+        }
+        return claimKey;
+    }
+
     private int getUniquePartitionID() {
         int id;
         if (randomizeUniqueId) {
@@ -218,13 +297,13 @@ public class ConsistentKeyIDAuthority extends AbstractIDAuthority implements Bac
     }
 
     @Override
-    public synchronized IDBlock getIDBlock(final int partition, final int idNamespace, Duration timeout) throws BackendException {
+    public IDBlock getIDBlock(final int partition, final int idNamespace, Duration timeout) throws BackendException {
         Preconditions.checkArgument(partition>=0 && partition<(1<< partitionBitWidth),"Invalid partition id [%s] for bit width [%s]",partition, partitionBitWidth);
         Preconditions.checkArgument(idNamespace>=0); //can be any non-negative value
 
         final Timer methodTime = times.getTimer().start();
 
-        final long blockSize = getBlockSize(idNamespace);
+        final long blockSize = getBlockSize(partition, idNamespace);
         final long idUpperBound = getIdUpperBound(idNamespace);
 
         final int maxAvailableBits = (VariableLong.unsignedBitLength(idUpperBound)-1)-uniqueIdBitWidth;
@@ -240,115 +319,135 @@ public class ConsistentKeyIDAuthority extends AbstractIDAuthority implements Bac
                 "Block size [%s] is larger than upper bound [%s] for bit width [%s]",blockSize,idBlockUpperBound,uniqueIdBitWidth);
 
         while (methodTime.elapsed().compareTo(timeout) < 0) {
-            final int uniquePID = getUniquePartitionID();
-            final StaticBuffer partitionKey = getPartitionKey(partition,idNamespace,uniquePID);
+            final ClaimKey claimKey = lockClaimKey(partition, idNamespace);
+            final int uniquePID = claimKey.uniquePID;
+            final StaticBuffer partitionKey = claimKey.partitionKey;
             try {
-                long nextStart = getCurrentID(partitionKey);
-                if (idBlockUpperBound - blockSize <= nextStart) {
-                    log.info("ID overflow detected on partition({})-namespace({}) with uniqueid {}. Current id {}, block size {}, and upper bound {} for bit width {}.",
-                            partition, idNamespace, uniquePID, nextStart, blockSize, idBlockUpperBound, uniqueIdBitWidth);
-                    if (randomizeUniqueId) {
-                        exhaustedUniquePIDs.add(uniquePID);
-                        if (exhaustedUniquePIDs.size() == randomUniqueIDLimit)
-                            throw new IDPoolExhaustedException(String.format("Exhausted %d uniqueid(s) on partition(%d)-namespace(%d): %s",
-                                exhaustedUniquePIDs.size(), partition, idNamespace,
-                                StringUtils.join(exhaustedUniquePIDs, ",")));
-                        else
-                            throw new UniqueIDExhaustedException(
-                                    String.format("Exhausted ID partition(%d)-namespace(%d) with uniqueid %d (uniqueid attempt %d/%d)",
-                                            partition, idNamespace, uniquePID, exhaustedUniquePIDs.size(), randomUniqueIDLimit));
-                    }
-                    throw new IDPoolExhaustedException("Exhausted id block for partition("+partition+")-namespace("+idNamespace+") with upper bound: " + idBlockUpperBound);
-                }
-
-                // calculate the start (inclusive) and end (exclusive) of the allocation we're about to attempt
-                assert idBlockUpperBound - blockSize > nextStart;
-                long nextEnd = nextStart + blockSize;
-                StaticBuffer target = null;
-
-                // attempt to write our claim on the next id block
-                boolean success = false;
                 try {
-                    Timer writeTimer = times.getTimer().start();
-                    target = getBlockApplication(nextEnd, writeTimer.getStartTime());
-                    final StaticBuffer finalTarget = target; // copy for the inner class
-                    BackendOperation.execute(txh -> {
-                        idStore.mutate(partitionKey, Collections.singletonList(StaticArrayEntry.of(finalTarget)), KeyColumnValueStore.NO_DELETIONS, txh);
-                        return true;
-                    },this,times);
-                    writeTimer.stop();
-
-                    final boolean distributed = manager.getFeatures().isDistributed();
-                    Duration writeElapsed = writeTimer.elapsed();
-                    if (idApplicationWaitMS.compareTo(writeElapsed) < 0 && distributed) {
-                        throw new TemporaryBackendException("Wrote claim for id block [" + nextStart + ", " + nextEnd + ") in " + (writeElapsed) + " => too slow, threshold is: " + idApplicationWaitMS);
-                    } else {
-
-                        assert 0 != target.length();
-                        final StaticBuffer[] slice = getBlockSlice(nextEnd);
-
-                        /* At this point we've written our claim on [nextStart, nextEnd),
-                         * but we haven't yet guaranteed the absence of a contending claim on
-                         * the same id block from another machine
-                         */
-
-                        if (distributed) {
-                            sleepAndConvertInterrupts(idApplicationWaitMS.plus(waitGracePeriod));
+                    long nextStart = conditionalInsert ? getLatestClaimedEnd(partitionKey) : getCurrentID(partitionKey);
+                    if (idBlockUpperBound - blockSize <= nextStart) {
+                        log.info("ID overflow detected on partition({})-namespace({}) with uniqueid {}. Current id {}, block size {}, and upper bound {} for bit width {}.",
+                                partition, idNamespace, uniquePID, nextStart, blockSize, idBlockUpperBound, uniqueIdBitWidth);
+                        if (randomizeUniqueId) {
+                            exhaustedUniquePIDs.add(uniquePID);
+                            if (exhaustedUniquePIDs.size() == randomUniqueIDLimit)
+                                throw new IDPoolExhaustedException(String.format("Exhausted %d uniqueid(s) on partition(%d)-namespace(%d): %s",
+                                    exhaustedUniquePIDs.size(), partition, idNamespace,
+                                    StringUtils.join(exhaustedUniquePIDs, ",")));
+                            else
+                                throw new UniqueIDExhaustedException(
+                                        String.format("Exhausted ID partition(%d)-namespace(%d) with uniqueid %d (uniqueid attempt %d/%d)",
+                                                partition, idNamespace, uniquePID, exhaustedUniquePIDs.size(), randomUniqueIDLimit));
                         }
+                        throw new IDPoolExhaustedException("Exhausted id block for partition("+partition+")-namespace("+idNamespace+") with upper bound: " + idBlockUpperBound);
+                    }
 
-                        // Read all id allocation claims on this partition, for the counter value we're claiming
-                        final List<Entry> blocks = BackendOperation.execute(
-                            (BackendOperation.Transactional<List<Entry>>) txh -> idStore.getSlice(new KeySliceQuery(partitionKey, slice[0], slice[1]), txh),this,times);
-                        if (blocks == null) throw new TemporaryBackendException("Could not read from storage");
-                        if (blocks.isEmpty())
-                            throw new PermanentBackendException("It seems there is a race-condition in the block application. " +
-                                    "If you have multiple JanusGraph instances running on one physical machine, ensure that they have unique machine idAuthorities");
-
-                        /* If our claim is the lexicographically first one, then our claim
-                         * is the most senior one and we own this id block
-                         */
-                        if (target.equals(blocks.get(0).getColumnAs(StaticBuffer.STATIC_FACTORY))) {
+                    // calculate the start (inclusive) and end (exclusive) of the allocation we're about to attempt
+                    assert idBlockUpperBound - blockSize > nextStart;
+                    long nextEnd = nextStart + blockSize;
 
+                    if (conditionalInsert) {
+                        if (insertClaim(partitionKey, nextStart, nextEnd)) {
                             ConsistentKeyIDBlock idBlock = new ConsistentKeyIDBlock(nextStart,blockSize,uniqueIdBitWidth,uniquePID);
-
                             if (log.isDebugEnabled()) {
                                 log.debug("Acquired ID block [{}] on partition({})-namespace({}) (my rid is {})",
                                     idBlock, partition, idNamespace, uid);
                             }
-
-                            success = true;
                             return idBlock;
-                        } else {
-                            // Another claimant beat us to this id block -- try again.
-                            log.debug("Failed to acquire ID block [{},{}) (another host claimed it first)", nextStart, nextEnd);
                         }
+                        // Another claimant inserted the block first -- retry after the latest claim
+                        log.debug("Failed to acquire ID block [{},{}) (another host claimed it first)", nextStart, nextEnd);
+                        continue;
                     }
-                } finally {
-                    if (!success && null != target) {
-                        //Delete claim to not pollute id space
-                        for (int attempt = 0; attempt < ROLLBACK_ATTEMPTS; attempt++) {
-                            try {
-                                final StaticBuffer finalTarget = target; // copy for the inner class
-                                BackendOperation.execute(txh -> {
-                                    idStore.mutate(partitionKey, KeyColumnValueStore.NO_ADDITIONS, Collections.singletonList(finalTarget), txh);
-                                    return true;
-                                }, new BackendOperation.TransactionalProvider() { //Use normal consistency level for these non-critical delete operations
-                                    @Override
-                                    public StoreTransaction openTx() throws BackendException {
-                                        return manager.beginTransaction(storeTxConfigBuilder.build());
-                                    }
-                                    @Override
-                                    public void close() {}
-                                },times);
-
-                                break;
-                            } catch (BackendException e) {
-                                log.warn("Storage exception while deleting old block application - retrying in {}", rollbackWaitTime, e);
-                                if (!rollbackWaitTime.isZero())
-                                    sleepAndConvertInterrupts(rollbackWaitTime);
+
+                    StaticBuffer target = null;
+
+                    // attempt to write our claim on the next id block
+                    boolean success = false;
+                    try {
+                        Timer writeTimer = times.getTimer().start();
+                        target = getBlockApplication(nextEnd, writeTimer.getStartTime());
+                        final StaticBuffer finalTarget = target; // copy for the inner class
+                        BackendOperation.execute(txh -> {
+                            idStore.mutate(partitionKey, Collections.singletonList(StaticArrayEntry.of(finalTarget)), KeyColumnValueStore.NO_DELETIONS, txh);
+                            return true;
+                        },this,times);
+                        writeTimer.stop();
+
+                        final boolean distributed = manager.getFeatures().isDistributed();
+                        Duration writeElapsed = writeTimer.elapsed();
+                        if (idApplicationWaitMS.compareTo(writeElapsed) < 0 && distributed) {
+                            throw new TemporaryBackendException("Wrote claim for id block [" + nextStart + ", " + nextEnd + ") in " + (writeElapsed) + " => too slow, threshold is: " + idApplicationWaitMS);
+                        } else {
+
+                            assert 0 != target.length();
+                            final StaticBuffer[] slice = getBlockSlice(nextEnd);
+
+                            /* At this point we've written our claim on [nextStart, nextEnd),
+                             * but we haven't yet guaranteed the absence of a contending claim on
+                             * the same id block from another machine
+                             */
+
+                            if (distributed) {
+                                sleepAndConvertInterrupts(idApplicationWaitMS.plus(waitGracePeriod));
+                            }
+
+                            // Read all id allocation claims on this partition, for the counter value we're claiming
+                            final List<Entry> blocks = BackendOperation.execute(
+                                (BackendOperation.Transactional<List<Entry>>) txh -> idStore.getSlice(new KeySliceQuery(partitionKey, slice[0], slice[1]), txh),this,times);
+                            if (blocks == null) throw new TemporaryBackendException("Could not read from storage");
+                            if (blocks.isEmpty())
+                                throw new PermanentBackendException("It seems there is a race-condition in the block application. " +
+                                        "If you have multiple JanusGraph instances running on one physical machine, ensure that they have unique machine idAuthorities");
+
+                            /* If our claim is the lexicographically first one, then our claim
+                             * is the most senior one and we own this id block
+                             */
+                            if (target.equals(blocks.get(0).getColumnAs(StaticBuffer.STATIC_FACTORY))) {
+
+                                ConsistentKeyIDBlock idBlock = new ConsistentKeyIDBlock(nextStart,blockSize,uniqueIdBitWidth,uniquePID);
+
+                                if (log.isDebugEnabled()) {
+                                    log.debug("Acquired ID block [{}] on partition({})-namespace({}) (my rid is {})",
+                                        idBlock, partition, idNamespace, uid);
+                                }
+
+                                success = true;
+                                return idBlock;
+                            } else {
+                                // Another claimant beat us to this id block -- try again.
+                                log.debug("Failed to acquire ID block [{},{}) (another host claimed it first)", nextStart, nextEnd);
+                            }
+                        }
+                    } finally {
+                        if (!success && null != target) {
+                            //Delete claim to not pollute id space
+                            for (int attempt = 0; attempt < ROLLBACK_ATTEMPTS; attempt++) {
+                                try {
+                                    final StaticBuffer finalTarget = target; // copy for the inner class
+                                    BackendOperation.execute(txh -> {
+                                        idStore.mutate(partitionKey, KeyColumnValueStore.NO_ADDITIONS, Collections.singletonList(finalTarget), txh);
+                                        return true;
+                                    }, new BackendOperation.TransactionalProvider() { //Use normal consistency level for these non-critical delete operations
+                                        @Override
+                                        public StoreTransaction openTx() throws BackendException {
+                                            return manager.beginTransaction(storeTxConfigBuilder.build());
+                                        }
+                                        @Override
+                                        public void close() {}
+                                    },times);
+
+                                    break;
+                                } catch (BackendException e) {
+                                    log.warn("Storage exception while deleting old block application - retrying in {}", rollbackWaitTime, e);
+                                    if (!rollbackWaitTime.isZero())
+                                        sleepAndConvertInterrupts(rollbackWaitTime);
+                                }
                             }
                         }
                     }
+                } finally {
+                    claimKey.lock.unlock();
                 }
             } catch (UniqueIDExhaustedException e) {
                 // No need to increment the backoff wait time or to sleep
@@ -395,6 +494,19 @@ public class ConsistentKeyIDAuthority extends AbstractIDAuthority implements Bac
         }
     }
 
+    private static class ClaimKey {
+
+        private final int uniquePID;
+        private final StaticBuffer partitionKey;
+        private final ReentrantLock lock;
+
+        private ClaimKey(int uniquePID, StaticBuffer partitionKey, ReentrantLock lock) {
+            this.uniquePID = uniquePID;
+            this.partitionKey = partitionKey;
+            this.lock = lock;
+        }
+    }
+
     private static class UniqueIDExhaustedException extends Exception {
 
         private static final long serialVersionUID = 1L;
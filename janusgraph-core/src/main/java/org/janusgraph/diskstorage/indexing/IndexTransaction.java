@@ -25,6 +25,7 @@ import org.janusgraph.graphdb.database.serialize.DataOutput;
 import org.janusgraph.graphdb.tinkerpop.optimize.step.Aggregation;
 
 import java.time.Duration;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -76,6 +77,22 @@ public class IndexTransaction implements BaseTransaction, LoggableTransaction {
         getIndexMutation(store,documentId,false,deleteAll).deletion(new IndexEntry(key,value));
     }
 
+    /**
+     * Replaces the mutation of the given document with one consisting of the given additions and deletions.
+     */
+    public void mutate(String store, String documentId, List<IndexEntry> additions, List<IndexEntry> deletions,
+                       boolean isNew, boolean isDeleted) {
+        mutations.computeIfAbsent(store, k -> new HashMap<>(DEFAULT_INNER_MAP_SIZE))
+            .put(documentId, new IndexMutation(keyInformation.get(store), additions, deletions, isNew, isDeleted));
+    }
+
+    /**
+     * Returns the buffered mutations by store and document id.
+     */
+    public Map<String,Map<String,IndexMutation>> getMutations() {
+        return mutations == null ? Collections.emptyMap() : mutations;
+    }
+
     private IndexMutation getIndexMutation(String store, String documentId, boolean isNew, boolean isDeleted) {
         final Map<String, IndexMutation> storeMutations = mutations.computeIfAbsent(store, k -> new HashMap<>(DEFAULT_INNER_MAP_SIZE));
         IndexMutation m = storeMutations.get(documentId);
@@ -52,6 +52,11 @@ public class KCVSProxy implements KeyColumnValueStore {
         store.acquireLock(key,column,expectedValue,unwrapTx(txh));
     }
 
+    @Override
+    public boolean insertIfAbsent(StaticBuffer key, Entry entry, StoreTransaction txh) throws BackendException {
+        return store.insertIfAbsent(key, entry, unwrapTx(txh));
+    }
+
     @Override
     public KeyIterator getKeys(KeyRangeQuery keyQuery, StoreTransaction txh) throws BackendException {
         return store.getKeys(keyQuery, unwrapTx(txh));
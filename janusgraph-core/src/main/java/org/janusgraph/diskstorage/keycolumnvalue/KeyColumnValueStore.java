@@ -146,6 +146,34 @@ public interface KeyColumnValueStore {
      */
     void acquireLock(StaticBuffer key, StaticBuffer column, StaticBuffer expectedValue, StoreTransaction txh) throws BackendException;
 
+    /**
+     * Atomically inserts the given entry under the given key unless the key
+     * already has a column equal to the entry's column. The existence check
+     * and the insertion are a single operation: of any number of concurrent
+     * calls for the same key and column, at most one succeeds.
+     * <p>
+     * The insertion is part of {@code txh} and must be undone if {@code txh}
+     * is rolled back. Stores with transaction isolation get this for free.
+     * Stores without it, where the insertion becomes visible immediately, must
+     * delete the inserted column themselves when {@code txh} is rolled back.
+     * For example, a Cassandra store could implement this method with a
+     * lightweight transaction ({@code INSERT ... IF NOT EXISTS}) and remember
+     * the inserted cells in its transaction.
+     * <p>
+     * Only supported by stores whose features return true for
+     * {@link StoreFeatures#hasConditionalInsert()}. Other implementations
+     * throw {@link UnsupportedOperationException}.
+     *
+     * @param key   the key under which to insert the entry
+     * @param entry the column and value to insert
+     * @param txh   the transaction to use
+     * @return true if the entry was inserted, false if the column already exists
+     * @throws org.janusgraph.diskstorage.BackendException
+     */
+    default boolean insertIfAbsent(StaticBuffer key, Entry entry, StoreTransaction txh) throws BackendException {
+        throw new UnsupportedOperationException("Conditional inserts are not supported by store " + getName());
+    }
+
     /**
      * Returns a {@link KeyIterator} over all keys that fall within the key-range specified by the given query and have one or more columns matching the column-range.
      * Calling {@link KeyIterator#getEntries()} returns the list of all entries that match the column-range specified by the given query.
@@ -44,6 +44,8 @@ public class StandardStoreFeatures implements StoreFeatures {
     private final Configuration scanTxConfig;
     private final boolean supportsInterruption;
     private final boolean optimisticLocking;
+    private final boolean conditionalInsert;
+    private final boolean threadSafeTransactions;
 
     @Override
     public boolean hasScan() {
@@ -159,6 +161,16 @@ public class StandardStoreFeatures implements StoreFeatures {
         return optimisticLocking;
     }
 
+    @Override
+    public boolean hasConditionalInsert() {
+        return conditionalInsert;
+    }
+
+    @Override
+    public boolean hasThreadSafeTransactions() {
+        return threadSafeTransactions;
+    }
+
     /**
      * The only way to instantiate {@link StandardStoreFeatures}.
      */
@@ -186,6 +198,8 @@ public class StandardStoreFeatures implements StoreFeatures {
         private Configuration scanTxConfig;
         private boolean supportsInterruption = true;
         private boolean optimisticLocking;
+        private boolean conditionalInsert;
+        private boolean threadSafeTransactions;
 
         /**
          * Construct a Builder with everything disabled/unsupported/false/null.
@@ -219,6 +233,8 @@ public class StandardStoreFeatures implements StoreFeatures {
             scanTxConfig(template.getScanTxConfig());
             supportsInterruption(template.supportsInterruption());
             optimisticLocking(template.hasOptimisticLocking());
+            conditionalInsert(template.hasConditionalInsert());
+            threadSafeTransactions(template.hasThreadSafeTransactions());
         }
 
         public Builder optimisticLocking(boolean b) {
@@ -226,6 +242,16 @@ public class StandardStoreFeatures implements StoreFeatures {
             return this;
         }
 
+        public Builder conditionalInsert(boolean b) {
+            conditionalInsert = b;
+            return this;
+        }
+
+        public Builder threadSafeTransactions(boolean b) {
+            threadSafeTransactions = b;
+            return this;
+        }
+
         public Builder consistentScan(boolean consistentScan) {
             this.consistentScan = consistentScan;
             return this;
@@ -343,7 +369,8 @@ public class StandardStoreFeatures implements StoreFeatures {
                     timestamps, preferredTimestamps, cellLevelTTL,
                     storeLevelTTL, visibility, supportsPersist,
                     keyConsistentTxConfig,
-                    localKeyConsistentTxConfig, scanTxConfig, supportsInterruption, optimisticLocking);
+                    localKeyConsistentTxConfig, scanTxConfig, supportsInterruption, optimisticLocking,
+                    conditionalInsert, threadSafeTransactions);
         }
     }
 
@@ -356,7 +383,8 @@ public class StandardStoreFeatures implements StoreFeatures {
                                   boolean visibility, boolean supportsPersist,
                                   Configuration keyConsistentTxConfig,
                                   Configuration localKeyConsistentTxConfig,
-                                  Configuration scanTxConfig, boolean supportsInterruption, boolean optimisticLocking) {
+                                  Configuration scanTxConfig, boolean supportsInterruption, boolean optimisticLocking,
+                                  boolean conditionalInsert, boolean threadSafeTransactions) {
         this.consistentScan = consistentScan;
         this.unorderedScan = unorderedScan;
         this.orderedScan = orderedScan;
@@ -379,5 +407,7 @@ public class StandardStoreFeatures implements StoreFeatures {
         this.scanTxConfig = scanTxConfig;
         this.supportsInterruption = supportsInterruption;
         this.optimisticLocking = optimisticLocking;
+        this.conditionalInsert = conditionalInsert;
+        this.threadSafeTransactions = threadSafeTransactions;
     }
 }
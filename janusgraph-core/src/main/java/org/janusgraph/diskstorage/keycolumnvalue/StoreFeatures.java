@@ -226,4 +226,16 @@ public interface StoreFeatures {
      */
     boolean hasOptimisticLocking();
 
+    /**
+     * Whether this store supports atomically inserting a column only if it does not exist yet via
+     * {@link KeyColumnValueStore#insertIfAbsent(org.janusgraph.diskstorage.StaticBuffer, org.janusgraph.diskstorage.Entry, StoreTransaction)}.
+     */
+    boolean hasConditionalInsert();
+
+    /**
+     * Whether a {@link StoreTransaction} of this store may be used by multiple threads concurrently, in particular to
+     * call {@link KeyColumnValueStoreManager#mutateMany(java.util.Map, StoreTransaction)} from several threads.
+     */
+    boolean hasThreadSafeTransactions();
+
 }
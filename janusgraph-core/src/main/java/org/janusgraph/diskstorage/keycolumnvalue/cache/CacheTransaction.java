@@ -19,6 +19,7 @@ import org.janusgraph.diskstorage.BackendException;
 import org.janusgraph.diskstorage.BaseTransactionConfig;
 import org.janusgraph.diskstorage.Entry;
 import org.janusgraph.diskstorage.LoggableTransaction;
+import org.janusgraph.diskstorage.PermanentBackendException;
 import org.janusgraph.diskstorage.StaticBuffer;
 import org.janusgraph.diskstorage.keycolumnvalue.KCVMutation;
 import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
@@ -29,6 +30,8 @@ import org.janusgraph.diskstorage.util.BufferUtil;
 import org.janusgraph.graphdb.database.idhandling.VariableLong;
 import org.janusgraph.graphdb.database.serialize.DataOutput;
 
+import java.io.File;
+import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -36,6 +39,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * @author Matthias Broecheler (me@matthiasb.com)
@@ -47,9 +56,16 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
     private final boolean batchLoading;
     private final int persistChunkSize;
     private final Duration maxWriteTime;
+    private final long spillThreshold;
+    private final File spillDirectory;
+    private final long persistChunkBytes;
+    private final Executor flushExecutor;
+    private final int maxFlushesInFlight;
 
     private int numMutations;
+    private long numBufferedBytes;
     private final Map<KCVSCache, Map<StaticBuffer, KCVEntryMutation>> mutations;
+    private MutationSpill spill;
 
     public CacheTransaction(StoreTransaction tx, KeyColumnValueStoreManager manager,
                              int persistChunkSize, Duration maxWriteTime, boolean batchLoading) {
@@ -58,7 +74,34 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
 
     public CacheTransaction(StoreTransaction tx, KeyColumnValueStoreManager manager, int persistChunkSize,
                             Duration maxWriteTime, boolean batchLoading, int expectedNumStores) {
+        this(tx, manager, persistChunkSize, maxWriteTime, batchLoading, expectedNumStores, 0, null);
+    }
+
+    /**
+     * @param spillThreshold the number of bytes of buffered mutations beyond which they are spilled to a temporary
+     *                       file until commit, or 0 to keep all mutations in memory
+     * @param spillDirectory the directory for the temporary files, or null for the default temporary directory
+     */
+    public CacheTransaction(StoreTransaction tx, KeyColumnValueStoreManager manager, int persistChunkSize,
+                            Duration maxWriteTime, boolean batchLoading, int expectedNumStores,
+                            long spillThreshold, File spillDirectory) {
+        this(tx, manager, persistChunkSize, maxWriteTime, batchLoading, expectedNumStores, spillThreshold, spillDirectory,
+            0, null, 1);
+    }
+
+    /**
+     * @param persistChunkBytes the maximum number of bytes of mutations persisted in one chunk in addition to the
+     *                          maximum number of mutations, or 0 to only limit the number of mutations
+     * @param flushExecutor the executor to persist chunks of mutations concurrently with, or null to persist them
+     *                      sequentially in the committing thread
+     * @param maxFlushesInFlight the maximum number of chunks persisted concurrently
+     */
+    public CacheTransaction(StoreTransaction tx, KeyColumnValueStoreManager manager, int persistChunkSize,
+                            Duration maxWriteTime, boolean batchLoading, int expectedNumStores,
+                            long spillThreshold, File spillDirectory,
+                            long persistChunkBytes, Executor flushExecutor, int maxFlushesInFlight) {
         Preconditions.checkArgument(tx != null && manager != null && persistChunkSize > 0);
+        Preconditions.checkArgument(persistChunkBytes >= 0 && maxFlushesInFlight > 0);
         this.tx = tx;
         this.manager = manager;
         this.batchLoading = batchLoading;
@@ -66,6 +109,11 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
         this.persistChunkSize = persistChunkSize;
         this.maxWriteTime = maxWriteTime;
         this.mutations = new HashMap<>(expectedNumStores);
+        this.spillThreshold = batchLoading ? 0 : spillThreshold;
+        this.spillDirectory = spillDirectory;
+        this.persistChunkBytes = persistChunkBytes;
+        this.flushExecutor = maxFlushesInFlight > 1 ? flushExecutor : null;
+        this.maxFlushesInFlight = this.flushExecutor == null ? 1 : maxFlushesInFlight;
     }
 
     public StoreTransaction getWrappedTransaction() {
@@ -86,9 +134,101 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
         }
 
         numMutations += m.getTotalMutations();
+        if (spillThreshold > 0 || persistChunkBytes > 0) numBufferedBytes += getByteSize(key, m);
 
-        if (batchLoading && numMutations >= persistChunkSize) {
+        //Batch loading transactions buffer enough mutations to persist as many chunks as may be in flight concurrently
+        if (batchLoading && (numMutations >= persistChunkSize * maxFlushesInFlight
+                || (persistChunkBytes > 0 && numBufferedBytes >= persistChunkBytes * maxFlushesInFlight))) {
             flushInternal();
+        } else if (spillThreshold > 0 && numBufferedBytes >= spillThreshold) {
+            spill();
+        }
+    }
+
+    private static long getByteSize(StaticBuffer key, KCVEntryMutation mutation) {
+        long size = key.length();
+        for (Entry e : mutation.getAdditions()) size += e.length();
+        for (Entry e : mutation.getDeletions()) size += e.length();
+        return size;
+    }
+
+    private void spill() throws BackendException {
+        consolidate();
+        if (spill == null) spill = new MutationSpill(spillDirectory);
+        try {
+            spill.write(mutations);
+        } catch (IOException e) {
+            throw new PermanentBackendException("Could not spill transaction mutations to disk", e);
+        }
+        clear();
+    }
+
+    /**
+     * Whether some of the mutations of this transaction have been spilled to disk.
+     */
+    public boolean hasSpilled() {
+        return spill != null && spill.getNumRuns() > 0;
+    }
+
+    /**
+     * Persists chunks of mutations, either sequentially in the calling thread or concurrently on the flush executor
+     * with at most {@link #maxFlushesInFlight} chunks in flight. Chunks are independent of each other since every key
+     * of a store is only contained in a single chunk. The first chunk is always persisted in the calling thread, so that
+     * the store transaction verifies held locks and expected values before any chunks are persisted concurrently.
+     */
+    private class ChunkFlusher {
+
+        private final List<Future<?>> inFlight = new ArrayList<>();
+        private boolean isFirstChunk = true;
+
+        private void persistChunk(Map<String, Map<StaticBuffer, KCVMutation>> subMutations) throws BackendException {
+            if (flushExecutor == null || isFirstChunk) {
+                isFirstChunk = false;
+                persist(subMutations);
+                return;
+            }
+            final Map<String, Map<StaticBuffer, KCVMutation>> chunk = new HashMap<>(subMutations);
+            subMutations.clear();
+            if (inFlight.size() >= maxFlushesInFlight) await(inFlight.remove(0));
+            try {
+                inFlight.add(CompletableFuture.runAsync(() -> persist(chunk), flushExecutor));
+            } catch (RejectedExecutionException e) {
+                persist(chunk);
+            }
+        }
+
+        /**
+         * Waits for all chunks in flight and rethrows the first failure once all of them completed.
+         */
+        private void awaitAll() throws BackendException {
+            BackendException failure = null;
+            RuntimeException runtimeFailure = null;
+            for (Future<?> chunk : inFlight) {
+                try {
+                    await(chunk);
+                } catch (BackendException e) {
+                    if (failure == null && runtimeFailure == null) failure = e;
+                } catch (RuntimeException e) {
+                    if (failure == null && runtimeFailure == null) runtimeFailure = e;
+                }
+            }
+            inFlight.clear();
+            if (failure != null) throw failure;
+            if (runtimeFailure != null) throw runtimeFailure;
+        }
+
+        private void await(Future<?> chunk) throws BackendException {
+            try {
+                chunk.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PermanentBackendException("Interrupted while persisting mutations", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+                if (cause instanceof BackendException) throw (BackendException) cause;
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                throw new PermanentBackendException("Could not persist mutations", cause);
+            }
         }
     }
 
@@ -126,67 +266,140 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
         return new KCVMutation(mutation.getAdditions(), KeyColumnValueStore.NO_DELETIONS);
     }
 
+    private void consolidate() {
+        //Consolidate all mutations prior to persistence to ensure that no addition accidentally gets swallowed by a delete
+        for (Map<StaticBuffer, KCVEntryMutation> store : mutations.values()) {
+            for (KCVEntryMutation mut : store.values()) mut.consolidate();
+        }
+    }
+
     private void flushInternal() throws BackendException {
-        if (numMutations > 0) {
-            //Consolidate all mutations prior to persistence to ensure that no addition accidentally gets swallowed by a delete
-            for (Map<StaticBuffer, KCVEntryMutation> store : mutations.values()) {
-                for (KCVEntryMutation mut : store.values()) mut.consolidate();
-            }
+        if (hasSpilled()) {
+            flushSpilled();
+        } else if (numMutations > 0) {
+            consolidate();
 
-            //Chunk up mutations
+            //Chunk up mutations by number and size
+            final ChunkFlusher flusher = new ChunkFlusher();
             final Map<String, Map<StaticBuffer, KCVMutation>> subMutations = new HashMap<>(mutations.size());
             int numSubMutations = 0;
-            for (Map.Entry<KCVSCache,Map<StaticBuffer, KCVEntryMutation>> storeMutations : mutations.entrySet()) {
-                final Map<StaticBuffer, KCVMutation> sub = new HashMap<>();
-                subMutations.put(storeMutations.getKey().getName(),sub);
-                for (Map.Entry<StaticBuffer,KCVEntryMutation> mutationsForKey : storeMutations.getValue().entrySet()) {
-                    if (mutationsForKey.getValue().isEmpty()) continue;
-                    sub.put(mutationsForKey.getKey(), convert(mutationsForKey.getValue()));
-                    numSubMutations+=mutationsForKey.getValue().getTotalMutations();
-                    if (numSubMutations>= persistChunkSize) {
-                        numSubMutations = persist(subMutations);
-                        sub.clear();
-                        subMutations.put(storeMutations.getKey().getName(),sub);
-                    }
-                }
-            }
-            if (numSubMutations>0) persist(subMutations);
-
-
-            for (Map.Entry<KCVSCache,Map<StaticBuffer, KCVEntryMutation>> storeMutations : mutations.entrySet()) {
-                final KCVSCache cache = storeMutations.getKey();
-                for (Map.Entry<StaticBuffer,KCVEntryMutation> mutationsForKey : storeMutations.getValue().entrySet()) {
-                    if (cache.hasValidateKeysOnly()) {
-                        cache.invalidate(mutationsForKey.getKey(), Collections.EMPTY_LIST);
-                    } else {
-                        final KCVEntryMutation m = mutationsForKey.getValue();
-                        final List<CachableStaticBuffer> entries = new ArrayList<>(m.getTotalMutations());
-                        for (final Entry e : m.getAdditions()) {
-                            assert e instanceof CachableStaticBuffer;
-                            entries.add((CachableStaticBuffer)e);
-                        }
-                        for (final StaticBuffer e : m.getDeletions()) {
-                            assert e instanceof CachableStaticBuffer;
-                            entries.add((CachableStaticBuffer)e);
+            long numSubBytes = 0;
+            try {
+                for (Map.Entry<KCVSCache,Map<StaticBuffer, KCVEntryMutation>> storeMutations : mutations.entrySet()) {
+                    Map<StaticBuffer, KCVMutation> sub = new HashMap<>();
+                    subMutations.put(storeMutations.getKey().getName(),sub);
+                    for (Map.Entry<StaticBuffer,KCVEntryMutation> mutationsForKey : storeMutations.getValue().entrySet()) {
+                        if (mutationsForKey.getValue().isEmpty()) continue;
+                        sub.put(mutationsForKey.getKey(), convert(mutationsForKey.getValue()));
+                        numSubMutations+=mutationsForKey.getValue().getTotalMutations();
+                        if (persistChunkBytes > 0) numSubBytes += getByteSize(mutationsForKey.getKey(), mutationsForKey.getValue());
+                        if (numSubMutations>= persistChunkSize || (persistChunkBytes > 0 && numSubBytes >= persistChunkBytes)) {
+                            flusher.persistChunk(subMutations);
+                            numSubMutations = 0;
+                            numSubBytes = 0;
+                            sub = new HashMap<>();
+                            subMutations.put(storeMutations.getKey().getName(),sub);
                         }
-                        cache.invalidate(mutationsForKey.getKey(),entries);
                     }
                 }
+                if (numSubMutations>0) flusher.persistChunk(subMutations);
+            } finally {
+                flusher.awaitAll();
             }
+
+            //Only invalidate once all chunks have been persisted
+            invalidateCaches();
             clear();
         }
     }
 
+    /**
+     * Persists the spilled and the remaining in-memory mutations by streaming them in sorted chunks, so that at most
+     * one chunk of spilled mutations is held in memory at any time.
+     */
+    private void flushSpilled() throws BackendException {
+        consolidate();
+        final Map<String, Map<StaticBuffer, KCVMutation>> subMutations = new HashMap<>();
+        final List<MutationSpill.Record> chunk = new ArrayList<>();
+        int numSubMutations = 0;
+        long numSubBytes = 0;
+        try (MutationSpill.Reader reader = spill.merge(mutations)) {
+            MutationSpill.Record record;
+            while ((record = reader.next()) != null) {
+                if (record.mutation.isEmpty()) continue;
+                subMutations.computeIfAbsent(record.store.getName(), k -> new HashMap<>())
+                    .put(record.key, convert(record.mutation));
+                chunk.add(record);
+                numSubMutations += record.mutation.getTotalMutations();
+                if (persistChunkBytes > 0) numSubBytes += getByteSize(record.key, record.mutation);
+                if (numSubMutations >= persistChunkSize || (persistChunkBytes > 0 && numSubBytes >= persistChunkBytes)) {
+                    numSubMutations = persist(subMutations);
+                    numSubBytes = 0;
+                    invalidate(chunk);
+                }
+            }
+            if (numSubMutations > 0) {
+                persist(subMutations);
+                invalidate(chunk);
+            }
+        } catch (IOException e) {
+            throw new PermanentBackendException("Could not read spilled transaction mutations", e);
+        } finally {
+            closeSpill();
+        }
+        clear();
+    }
+
+    private static void invalidate(List<MutationSpill.Record> records) {
+        for (MutationSpill.Record record : records) invalidate(record.store, record.key, record.mutation);
+        records.clear();
+    }
+
+    private void invalidateCaches() {
+        for (Map.Entry<KCVSCache,Map<StaticBuffer, KCVEntryMutation>> storeMutations : mutations.entrySet()) {
+            final KCVSCache cache = storeMutations.getKey();
+            for (Map.Entry<StaticBuffer,KCVEntryMutation> mutationsForKey : storeMutations.getValue().entrySet()) {
+                invalidate(cache, mutationsForKey.getKey(), mutationsForKey.getValue());
+            }
+        }
+    }
+
+    private static void invalidate(KCVSCache cache, StaticBuffer key, KCVEntryMutation m) {
+        if (cache.hasValidateKeysOnly()) {
+            cache.invalidate(key, Collections.EMPTY_LIST);
+        } else {
+            final List<CachableStaticBuffer> entries = new ArrayList<>(m.getTotalMutations());
+            for (final Entry e : m.getAdditions()) {
+                assert e instanceof CachableStaticBuffer;
+                entries.add((CachableStaticBuffer)e);
+            }
+            for (final StaticBuffer e : m.getDeletions()) {
+                assert e instanceof CachableStaticBuffer;
+                entries.add((CachableStaticBuffer)e);
+            }
+            cache.invalidate(key,entries);
+        }
+    }
+
     private void clear() {
         for (Map.Entry<KCVSCache, Map<StaticBuffer, KCVEntryMutation>> entry : mutations.entrySet()) {
             entry.getValue().clear();
         }
         numMutations = 0;
+        numBufferedBytes = 0;
+    }
+
+    private void closeSpill() {
+        if (spill != null) {
+            spill.close();
+            spill = null;
+        }
     }
 
     @Override
     public void logMutations(DataOutput out) {
         Preconditions.checkArgument(!batchLoading,"Cannot log entire mutation set when batch-loading is enabled");
+        Preconditions.checkState(!hasSpilled(),"Cannot log entire mutation set after mutations have been spilled to disk");
         VariableLong.writePositive(out,mutations.size());
         for (Map.Entry<KCVSCache,Map<StaticBuffer, KCVEntryMutation>> storeMutations : mutations.entrySet()) {
             out.writeObjectNotNull(storeMutations.getKey().getName());
@@ -211,9 +424,43 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
         tx.commit();
     }
 
+    /**
+     * Commits this transaction by handing its mutations to the given {@link GroupCommitter} which persists them
+     * together with the mutations of other concurrently committing transactions. The wrapped transaction is only
+     * committed once the mutations have been persisted in a backend transaction of the group committer, so that it
+     * is not committed if they could not be persisted.
+     *
+     * @param groupCommitter the group committer to persist the mutations with, or null to commit normally
+     * @throws BackendException
+     */
+    public void commit(GroupCommitter groupCommitter) throws BackendException {
+        if (groupCommitter == null || numMutations == 0 || hasSpilled()) {
+            commit();
+            return;
+        }
+        Preconditions.checkArgument(!batchLoading, "Cannot group commit when batch-loading is enabled");
+        consolidate();
+        final Map<String, Map<StaticBuffer, KCVMutation>> storeMutations = new HashMap<>(mutations.size());
+        int numConverted = 0;
+        for (Map.Entry<KCVSCache,Map<StaticBuffer, KCVEntryMutation>> entry : mutations.entrySet()) {
+            final Map<StaticBuffer, KCVMutation> sub = new HashMap<>(entry.getValue().size());
+            for (Map.Entry<StaticBuffer,KCVEntryMutation> mutationsForKey : entry.getValue().entrySet()) {
+                if (mutationsForKey.getValue().isEmpty()) continue;
+                sub.put(mutationsForKey.getKey(), convert(mutationsForKey.getValue()));
+                numConverted += mutationsForKey.getValue().getTotalMutations();
+            }
+            if (!sub.isEmpty()) storeMutations.put(entry.getKey().getName(), sub);
+        }
+        if (numConverted > 0) groupCommitter.persist(storeMutations, numConverted, getConfiguration());
+        tx.commit();
+        invalidateCaches();
+        clear();
+    }
+
     @Override
     public void rollback() throws BackendException {
         clear();
+        closeSpill();
         tx.rollback();
     }
 
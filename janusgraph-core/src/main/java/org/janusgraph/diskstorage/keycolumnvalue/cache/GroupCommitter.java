@@ -0,0 +1,287 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.cache;
+
+import com.google.common.base.Preconditions;
+import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.BaseTransactionConfig;
+import org.janusgraph.diskstorage.Entry;
+import org.janusgraph.diskstorage.PermanentBackendException;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.keycolumnvalue.KCVMutation;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStoreManager;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.util.BackendOperation;
+import org.janusgraph.diskstorage.util.StandardBaseTransactionConfig;
+import org.janusgraph.diskstorage.util.time.TimestampProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces the storage mutations of concurrently committing transactions into shared
+ * {@link KeyColumnValueStoreManager#mutateMany(Map, StoreTransaction)} calls.
+ * <p>
+ * Committing transactions hand their mutations to {@link #persist(Map, int, BaseTransactionConfig)} which blocks until
+ * the batch containing them has been persisted. A single flusher thread collects the mutations which arrive within
+ * the configured window, up to the configured number of mutations, and persists them in a backend transaction of its
+ * own.
+ * <p>
+ * All mutations of a batch are written at one commit time assigned by the flusher: the latest commit time of the
+ * participating transactions, but at least one timestamp unit after the commit time of the previous batch. Hence no
+ * mutation is written at an earlier timestamp than the one of its transaction, and mutations of later batches always
+ * supersede those of earlier ones. Mutations of different transactions for the same key are merged, unless a later
+ * transaction adds or deletes a column which an earlier transaction of the batch added: since the backend applies
+ * additions after deletions, such mutations are persisted in consecutive batches in submission order instead.
+ */
+public class GroupCommitter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitter.class);
+
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final KeyColumnValueStoreManager manager;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final Duration maxWriteTime;
+
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    private volatile boolean isOpen = true;
+
+    //Only accessed by the flusher thread
+    private Instant lastBatchTime = null;
+
+    private final AtomicLong numBatches = new AtomicLong();
+    private final AtomicLong numTransactions = new AtomicLong();
+
+    public GroupCommitter(KeyColumnValueStoreManager manager, int maxBatchSize, Duration window, Duration maxWriteTime) {
+        Preconditions.checkArgument(manager != null && maxBatchSize > 0 && !window.isNegative());
+        this.manager = manager;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+        this.maxWriteTime = maxWriteTime;
+        this.flusher = new Thread(this::run, "GroupCommitter-" + manager.getName());
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Persists the given mutations as part of a shared batch and blocks until that batch has been persisted.
+     *
+     * @param mutations the mutations by store name and key
+     * @param numMutations the number of additions and deletions in the mutations
+     * @param config the configuration of the submitting transaction
+     * @throws BackendException if the batch could not be persisted
+     */
+    public void persist(Map<String, Map<StaticBuffer, KCVMutation>> mutations, int numMutations,
+                        BaseTransactionConfig config) throws BackendException {
+        final Request request = new Request(mutations, numMutations, config);
+        synchronized (this) {
+            if (!isOpen) throw new PermanentBackendException("Group commit has already been closed");
+            queue.add(request);
+        }
+        try {
+            request.done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PermanentBackendException("Interrupted while waiting for group commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BackendException) throw (BackendException) e.getCause();
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new PermanentBackendException("Group commit failed", e.getCause());
+        }
+    }
+
+    private void run() {
+        Request pending = null;
+        while (isOpen || pending != null || !queue.isEmpty()) {
+            try {
+                final Request first = pending != null ? pending : queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                pending = null;
+                if (first == null) continue;
+
+                final List<Request> batch = new ArrayList<>();
+                final Map<String, Map<StaticBuffer, KCVMutation>> merged = new HashMap<>();
+                add(first, batch, merged);
+                int batchSize = first.numMutations;
+                final long deadline = System.nanoTime() + windowNanos;
+                while (batchSize < maxBatchSize) {
+                    final long remaining = deadline - System.nanoTime();
+                    final Request next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    if (conflicts(next, merged) || batchSize + next.numMutations > maxBatchSize) {
+                        pending = next;
+                        break;
+                    }
+                    add(next, batch, merged);
+                    batchSize += next.numMutations;
+                }
+                flush(batch, merged);
+            } catch (InterruptedException e) {
+                log.warn("Group commit flusher was interrupted");
+                break;
+            } catch (Throwable e) {
+                log.error("Unexpected failure in group commit flusher", e);
+            }
+        }
+        if (pending != null) pending.done.completeExceptionally(new PermanentBackendException("Group commit has been closed"));
+        for (Request request : queue) request.done.completeExceptionally(new PermanentBackendException("Group commit has been closed"));
+    }
+
+    /**
+     * Whether the request adds or deletes a column which has already been added to the same key in the batch. Such a
+     * mutation cannot be merged since the backend applies the additions of a key after its deletions and does not
+     * define which of two additions of the same column wins.
+     */
+    private static boolean conflicts(Request request, Map<String, Map<StaticBuffer, KCVMutation>> merged) {
+        for (Map.Entry<String, Map<StaticBuffer, KCVMutation>> storeMutations : request.mutations.entrySet()) {
+            final Map<StaticBuffer, KCVMutation> existing = merged.get(storeMutations.getKey());
+            if (existing == null) continue;
+            for (Map.Entry<StaticBuffer, KCVMutation> mutationsForKey : storeMutations.getValue().entrySet()) {
+                final KCVMutation existingMutation = existing.get(mutationsForKey.getKey());
+                if (existingMutation == null || !existingMutation.hasAdditions()) continue;
+                final Set<StaticBuffer> addedColumns = new HashSet<>(existingMutation.getAdditions().size());
+                for (Entry addition : existingMutation.getAdditions()) addedColumns.add(addition.getColumn());
+                final KCVMutation mutation = mutationsForKey.getValue();
+                for (Entry addition : mutation.getAdditions()) {
+                    if (addedColumns.contains(addition.getColumn())) return true;
+                }
+                for (StaticBuffer deletion : mutation.getDeletions()) {
+                    if (addedColumns.contains(deletion)) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void add(Request request, List<Request> batch, Map<String, Map<StaticBuffer, KCVMutation>> merged) {
+        batch.add(request);
+        for (Map.Entry<String, Map<StaticBuffer, KCVMutation>> storeMutations : request.mutations.entrySet()) {
+            final Map<StaticBuffer, KCVMutation> storeMerged = merged.computeIfAbsent(storeMutations.getKey(), k -> new HashMap<>());
+            for (Map.Entry<StaticBuffer, KCVMutation> mutationsForKey : storeMutations.getValue().entrySet()) {
+                //Copy the mutation so that merging does not modify the lists of the submitting transaction
+                final KCVMutation mutation = mutationsForKey.getValue();
+                final KCVMutation copy = new KCVMutation(mutation.getAdditions(), mutation.getDeletions());
+                final KCVMutation existing = storeMerged.putIfAbsent(mutationsForKey.getKey(), copy);
+                if (existing != null) {
+                    existing.merge(copy);
+                    //Deletions of an earlier transaction which a later one adds again are redundant
+                    existing.consolidate();
+                }
+            }
+        }
+    }
+
+    private void flush(List<Request> batch, Map<String, Map<StaticBuffer, KCVMutation>> merged) {
+        StoreTransaction tx = null;
+        try {
+            final StoreTransaction batchTx = manager.beginTransaction(getBatchConfig(batch));
+            tx = batchTx;
+            BackendOperation.executeDirect(() -> {
+                manager.mutateMany(merged, batchTx);
+                return true;
+            }, maxWriteTime);
+            batchTx.commit();
+            numBatches.incrementAndGet();
+            numTransactions.addAndGet(batch.size());
+            for (Request request : batch) request.done.complete(null);
+        } catch (Throwable e) {
+            log.error("Could not persist group commit of {} transactions", batch.size(), e);
+            if (tx != null) {
+                try {
+                    tx.rollback();
+                } catch (Throwable e2) {
+                    log.error("Could not roll back group commit", e2);
+                }
+            }
+            for (Request request : batch) request.done.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Assigns the shared commit time of the batch, which is the latest commit time of its participants but strictly
+     * after the commit time of the previous batch, so that consecutive batches of conflicting mutations are applied
+     * in submission order.
+     */
+    private BaseTransactionConfig getBatchConfig(List<Request> batch) {
+        final BaseTransactionConfig first = batch.get(0).config;
+        final TimestampProvider times = first.getTimestampProvider();
+        Instant batchTime = lastBatchTime == null ? null : times.getTime(times.getTime(lastBatchTime) + 1);
+        for (Request request : batch) {
+            if (!request.config.hasCommitTime()) continue;
+            final Instant commitTime = request.config.getCommitTime();
+            if (batchTime == null || commitTime.isAfter(batchTime)) batchTime = commitTime;
+        }
+        if (batchTime == null) batchTime = times.getTime();
+        lastBatchTime = batchTime;
+        return new StandardBaseTransactionConfig.Builder(first).commitTime(batchTime).build();
+    }
+
+    /**
+     * @return the number of batches which have been persisted
+     */
+    public long getNumBatches() {
+        return numBatches.get();
+    }
+
+    /**
+     * @return the number of transactions whose mutations have been persisted as part of a batch
+     */
+    public long getNumTransactions() {
+        return numTransactions.get();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            isOpen = false;
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Request {
+
+        private final Map<String, Map<StaticBuffer, KCVMutation>> mutations;
+        private final int numMutations;
+        private final BaseTransactionConfig config;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Request(Map<String, Map<StaticBuffer, KCVMutation>> mutations, int numMutations, BaseTransactionConfig config) {
+            this.mutations = mutations;
+            this.numMutations = numMutations;
+            this.config = config;
+        }
+    }
+
+}
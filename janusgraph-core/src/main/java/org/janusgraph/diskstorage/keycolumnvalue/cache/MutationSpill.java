@@ -0,0 +1,331 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.cache;
+
+import com.google.common.base.Preconditions;
+import org.janusgraph.diskstorage.Entry;
+import org.janusgraph.diskstorage.EntryMetaData;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.util.StaticArrayBuffer;
+import org.janusgraph.diskstorage.util.StaticArrayEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Temporary on-disk storage for the mutations of a {@link CacheTransaction} which exceed its memory budget.
+ * <p>
+ * Every call to {@link #write(Map)} writes the given mutations as one run to a temporary file, sorted by store
+ * name and key. {@link #merge(Map)} streams the mutations of all runs and the remaining in-memory mutations back in
+ * the same order, merging the mutations of each key in the order in which they were added to the transaction. This
+ * allows the serialized mutations of a transaction to be persisted in sorted chunks without ever holding all of them on
+ * heap. The graph level state of the transaction, such as its added relations, is not affected.
+ */
+class MutationSpill implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(MutationSpill.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Comparator<Record> RECORD_ORDER =
+        Comparator.comparing((Record r) -> r.store.getName()).thenComparing(r -> r.key);
+
+    private final File directory;
+    private final List<File> runs = new ArrayList<>();
+    private final Map<String, KCVSCache> stores = new HashMap<>();
+
+    /**
+     * @param directory the directory to create the temporary files in, or null for the default temporary directory
+     */
+    MutationSpill(File directory) {
+        this.directory = directory;
+    }
+
+    int getNumRuns() {
+        return runs.size();
+    }
+
+    /**
+     * Writes the given mutations as a new run. The mutations must have been consolidated.
+     */
+    void write(Map<KCVSCache, Map<StaticBuffer, KCVEntryMutation>> mutations) throws IOException {
+        final List<Record> records = sorted(mutations);
+        final File file = File.createTempFile("janusgraph-tx-", ".spill", directory);
+        runs.add(file);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE))) {
+            for (Record record : records) {
+                stores.putIfAbsent(record.store.getName(), record.store);
+                out.writeBoolean(true);
+                out.writeUTF(record.store.getName());
+                writeBytes(out, record.key.as(StaticBuffer.ARRAY_FACTORY));
+                writeEntries(out, record.mutation.getAdditions());
+                writeEntries(out, record.mutation.getDeletions());
+            }
+            out.writeBoolean(false);
+        }
+        log.debug("Spilled {} keys of mutations to {}", records.size(), file);
+    }
+
+    /**
+     * Returns a reader which merges all spilled runs with the given in-memory mutations, which are considered to be
+     * the most recent ones.
+     */
+    Reader merge(Map<KCVSCache, Map<StaticBuffer, KCVEntryMutation>> remaining) throws IOException {
+        final PriorityQueue<Cursor> cursors = new PriorityQueue<>((c1, c2) -> {
+            final int cmp = RECORD_ORDER.compare(c1.current, c2.current);
+            return cmp != 0 ? cmp : Integer.compare(c1.run, c2.run);
+        });
+        final List<Closeable> inputs = new ArrayList<>(runs.size());
+        try {
+            for (int run = 0; run < runs.size(); run++) {
+                final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(runs.get(run)), BUFFER_SIZE));
+                inputs.add(in);
+                final Cursor cursor = new FileCursor(run, in);
+                if (cursor.advance()) cursors.add(cursor);
+            }
+            final Cursor memory = new MemoryCursor(runs.size(), sorted(remaining));
+            if (memory.advance()) cursors.add(memory);
+        } catch (IOException e) {
+            closeAll(inputs);
+            throw e;
+        }
+        return new Reader(cursors, inputs);
+    }
+
+    /**
+     * Deletes all spilled runs.
+     */
+    @Override
+    public void close() {
+        for (File file : runs) {
+            if (!file.delete() && file.exists()) log.warn("Could not delete spilled mutations in {}", file);
+        }
+        runs.clear();
+        stores.clear();
+    }
+
+    private static List<Record> sorted(Map<KCVSCache, Map<StaticBuffer, KCVEntryMutation>> mutations) {
+        final List<Record> records = new ArrayList<>();
+        for (Map.Entry<KCVSCache, Map<StaticBuffer, KCVEntryMutation>> storeMutations : mutations.entrySet()) {
+            for (Map.Entry<StaticBuffer, KCVEntryMutation> mutationsForKey : storeMutations.getValue().entrySet()) {
+                if (mutationsForKey.getValue().isEmpty()) continue;
+                records.add(new Record(storeMutations.getKey(), mutationsForKey.getKey(), mutationsForKey.getValue()));
+            }
+        }
+        records.sort(RECORD_ORDER);
+        return records;
+    }
+
+    private static void closeAll(List<Closeable> inputs) {
+        for (Closeable input : inputs) {
+            try {
+                input.close();
+            } catch (IOException e) {
+                log.warn("Could not close spilled mutations", e);
+            }
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeEntries(DataOutputStream out, List<Entry> entries) throws IOException {
+        out.writeInt(entries.size());
+        for (Entry entry : entries) {
+            writeBytes(out, entry.as(StaticBuffer.ARRAY_FACTORY));
+            out.writeInt(entry.getValuePosition());
+            final Map<EntryMetaData, Object> metaData = entry.hasMetaData() ? entry.getMetaData() : Collections.emptyMap();
+            out.writeByte(metaData.size());
+            for (Map.Entry<EntryMetaData, Object> meta : metaData.entrySet()) {
+                out.writeByte(meta.getKey().ordinal());
+                switch (meta.getKey()) {
+                    case TTL:
+                        out.writeInt((Integer) meta.getValue());
+                        break;
+                    case VISIBILITY:
+                        out.writeUTF((String) meta.getValue());
+                        break;
+                    case TIMESTAMP:
+                        out.writeLong((Long) meta.getValue());
+                        break;
+                    default:
+                        throw new AssertionError("Unexpected meta data: " + meta.getKey());
+                }
+            }
+        }
+    }
+
+    private static List<Entry> readEntries(DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        if (size == 0) return Collections.emptyList();
+        final List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final byte[] bytes = readBytes(in);
+            final StaticArrayEntry entry = new StaticArrayEntry(bytes, in.readInt());
+            final int numMetaData = in.readByte();
+            for (int j = 0; j < numMetaData; j++) {
+                final EntryMetaData meta = EntryMetaData.values()[in.readByte()];
+                switch (meta) {
+                    case TTL:
+                        entry.setMetaData(meta, in.readInt());
+                        break;
+                    case VISIBILITY:
+                        entry.setMetaData(meta, in.readUTF());
+                        break;
+                    case TIMESTAMP:
+                        entry.setMetaData(meta, in.readLong());
+                        break;
+                    default:
+                        throw new AssertionError("Unexpected meta data: " + meta);
+                }
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * The mutations of a single key.
+     */
+    static class Record {
+
+        final KCVSCache store;
+        final StaticBuffer key;
+        final KCVEntryMutation mutation;
+
+        Record(KCVSCache store, StaticBuffer key, KCVEntryMutation mutation) {
+            this.store = store;
+            this.key = key;
+            this.mutation = mutation;
+        }
+    }
+
+    /**
+     * Streams the merged mutations in store name and key order.
+     */
+    static class Reader implements Closeable {
+
+        private final PriorityQueue<Cursor> cursors;
+        private final List<Closeable> inputs;
+
+        private Reader(PriorityQueue<Cursor> cursors, List<Closeable> inputs) {
+            this.cursors = cursors;
+            this.inputs = inputs;
+        }
+
+        /**
+         * Returns the consolidated mutations of the next key, or null if all mutations have been read.
+         */
+        Record next() throws IOException {
+            final Cursor head = cursors.poll();
+            if (head == null) return null;
+            final Record record = head.current;
+            advance(head);
+            while (!cursors.isEmpty() && RECORD_ORDER.compare(cursors.peek().current, record) == 0) {
+                final Cursor next = cursors.poll();
+                record.mutation.merge(next.current.mutation);
+                advance(next);
+            }
+            record.mutation.consolidate();
+            return record;
+        }
+
+        private void advance(Cursor cursor) throws IOException {
+            if (cursor.advance()) cursors.add(cursor);
+        }
+
+        @Override
+        public void close() {
+            closeAll(inputs);
+        }
+    }
+
+    private abstract static class Cursor {
+
+        final int run;
+        Record current;
+
+        Cursor(int run) {
+            this.run = run;
+        }
+
+        abstract boolean advance() throws IOException;
+    }
+
+    private class FileCursor extends Cursor {
+
+        private final DataInputStream in;
+
+        FileCursor(int run, DataInputStream in) {
+            super(run);
+            this.in = in;
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            if (!in.readBoolean()) {
+                current = null;
+                return false;
+            }
+            final KCVSCache store = stores.get(in.readUTF());
+            Preconditions.checkState(store != null, "Unknown store in spilled mutations");
+            final StaticBuffer key = StaticArrayBuffer.of(readBytes(in));
+            current = new Record(store, key, new KCVEntryMutation(readEntries(in), readEntries(in)));
+            return true;
+        }
+    }
+
+    private static class MemoryCursor extends Cursor {
+
+        private final List<Record> records;
+        private int position = 0;
+
+        MemoryCursor(int run, List<Record> records) {
+            super(run);
+            this.records = records;
+        }
+
+        @Override
+        boolean advance() {
+            current = position < records.size() ? records.get(position++) : null;
+            return current != null;
+        }
+    }
+
+}
@@ -40,6 +40,25 @@ public interface OrderedKeyValueStore extends KeyValueStore {
      */
     void insert(StaticBuffer key, StaticBuffer value, StoreTransaction txh, final Integer ttl) throws BackendException;
 
+    /**
+     * Inserts the given key-value pair into the store unless the key already exists, in which case nothing is written.
+     * The existence check and the insertion are executed atomically within the given transaction.
+     *
+     * Only supported when the given store implementation supports conditional inserts, i.e.
+     * {@link org.janusgraph.diskstorage.keycolumnvalue.StoreFeatures#hasConditionalInsert()} return true. Otherwise
+     * this method throws an {@link UnsupportedOperationException}.
+     *
+     * @param key
+     * @param value
+     * @param txh
+     * @param ttl
+     * @return true if the pair was inserted, false if the key already exists
+     * @throws org.janusgraph.diskstorage.BackendException
+     */
+    default boolean insertIfAbsent(StaticBuffer key, StaticBuffer value, StoreTransaction txh, final Integer ttl) throws BackendException {
+        throw new UnsupportedOperationException("Conditional inserts are not supported by store " + getName());
+    }
+
     /**
      * Returns a list of all Key-value pairs ({@link KeyValueEntry} where the keys satisfy the given {@link KVQuery}.
      * That means, the key lies between the query's start and end buffers, satisfied the filter condition (if any) and the position
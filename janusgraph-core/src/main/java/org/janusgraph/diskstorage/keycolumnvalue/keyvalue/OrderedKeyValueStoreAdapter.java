@@ -121,6 +121,12 @@ public class OrderedKeyValueStoreAdapter extends BaseKeyColumnValueAdapter {
     }
 
 
+    @Override
+    public boolean insertIfAbsent(StaticBuffer key, Entry entry, StoreTransaction txh) throws BackendException {
+        return store.insertIfAbsent(concatenate(key, entry.getColumnAs(StaticBuffer.STATIC_FACTORY)),
+            entry.getValueAs(StaticBuffer.STATIC_FACTORY), txh, (Integer) entry.getMetaData().get(EntryMetaData.TTL));
+    }
+
     @Override
     public KeyIterator getKeys(final KeyRangeQuery keyQuery, final StoreTransaction txh) throws BackendException {
         final KVQuery query = new KVQuery(
@@ -0,0 +1,107 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.scan;
+
+import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Predicate;
+
+import static org.janusgraph.diskstorage.keycolumnvalue.scan.StandardScannerExecutor.Row;
+
+/**
+ * Produces the rows of a given set of keys by reading them with multi-key slice queries instead of scanning the
+ * whole store. Keys for which the grounding query returns no entries do not exist and are skipped.
+ */
+class KeysRowsCollector extends RowsCollector {
+
+    private final StoreTransaction storeTx;
+    private final List<SliceQuery> queries;
+    private final List<StaticBuffer> keys;
+    private final Predicate<StaticBuffer> keyFilter;
+    private final int batchSize;
+
+    private volatile boolean interrupted = false;
+
+    KeysRowsCollector(KeyColumnValueStore store, StoreTransaction storeTx, List<SliceQuery> queries,
+                      List<StaticBuffer> keys, Predicate<StaticBuffer> keyFilter, int batchSize,
+                      BlockingQueue<Row> rowQueue) {
+        super(store, rowQueue);
+        this.storeTx = storeTx;
+        this.queries = queries;
+        this.keys = keys;
+        this.keyFilter = keyFilter;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    void run() throws InterruptedException, BackendException {
+        final List<StaticBuffer> batch = new ArrayList<>(Math.min(batchSize, keys.size()));
+        for (StaticBuffer key : keys) {
+            if (interrupted) return;
+            if (!keyFilter.test(key)) continue;
+            batch.add(key);
+            if (batch.size() >= batchSize) {
+                readBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty() && !interrupted) readBatch(batch);
+    }
+
+    private void readBatch(List<StaticBuffer> batch) throws InterruptedException, BackendException {
+        final List<Map<StaticBuffer, EntryList>> results = new ArrayList<>(queries.size());
+        for (SliceQuery query : queries) {
+            long start = System.nanoTime();
+            results.add(store.getSlice(batch, query, storeTx));
+            recordReadLatency(System.nanoTime() - start);
+        }
+        for (StaticBuffer key : batch) {
+            final EntryList ground = results.get(0).get(key);
+            if (ground == null || ground.isEmpty()) continue;
+            final Map<SliceQuery, EntryList> entries = new HashMap<>(queries.size());
+            for (int i = 0; i < queries.size(); i++) {
+                final EntryList entryList = results.get(i).get(key);
+                entries.put(queries.get(i), entryList == null ? EntryList.EMPTY_LIST : entryList);
+            }
+            put(new Row(key, entries));
+        }
+    }
+
+    @Override
+    void join() {
+        //no need to wait
+    }
+
+    @Override
+    void interrupt() {
+        interrupted = true;
+    }
+
+    @Override
+    void cleanup() {
+        //nothing to release
+    }
+
+}
@@ -23,9 +23,11 @@ import org.janusgraph.diskstorage.configuration.Configuration;
 import org.janusgraph.diskstorage.keycolumnvalue.KCVSUtil;
 import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
 import org.janusgraph.diskstorage.keycolumnvalue.KeyIterator;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyRangeQuery;
 import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
 import org.janusgraph.diskstorage.keycolumnvalue.StoreFeatures;
 import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.util.BufferUtil;
 import org.janusgraph.diskstorage.util.EntryArrayList;
 import org.janusgraph.diskstorage.util.RecordIterator;
 import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
@@ -62,6 +64,7 @@ class MultiThreadsRowsCollector extends RowsCollector {
     private final List<SliceQuery> queries;
     private final Predicate<StaticBuffer> keyFilter;
     private final Configuration graphConfiguration;
+    private final StaticBuffer startKey;
     private final DataPuller[] pullThreads;
     private final BlockingQueue<SliceResult>[] dataQueues;
     private boolean interrupted = false;
@@ -73,7 +76,8 @@ class MultiThreadsRowsCollector extends RowsCollector {
         List<SliceQuery> queries,
         Predicate<StaticBuffer> keyFilter,
         BlockingQueue<Row> rowQueue,
-        Configuration graphConfiguration) throws BackendException {
+        Configuration graphConfiguration,
+        StaticBuffer startKey) throws BackendException {
 
         super(store, rowQueue);
         this.storeFeatures = storeFeatures;
@@ -81,6 +85,7 @@ class MultiThreadsRowsCollector extends RowsCollector {
         this.queries = queries;
         this.keyFilter = keyFilter;
         this.graphConfiguration = graphConfiguration;
+        this.startKey = startKey;
 
         this.dataQueues = new BlockingQueue[queries.size()];
         this.pullThreads = new DataPuller[queries.size()];
@@ -109,7 +114,7 @@ class MultiThreadsRowsCollector extends RowsCollector {
 
             Row e = buildRow(numQueries, currentResults, key);
 
-            rowQueue.put(e);
+            put(e);
         }
     }
 
@@ -189,14 +194,20 @@ class MultiThreadsRowsCollector extends RowsCollector {
             this.graphConfiguration.get(GraphDatabaseConfiguration.PAGE_SIZE));
         dataQueues[pos] = queue;
 
-        DataPuller dp = new DataPuller(sq, queue,
-            KCVSUtil.getKeys(store,sq,storeFeatures, MAX_KEY_LENGTH,stx), keyFilter);
+        KeyIterator keyIterator;
+        if (startKey != null && storeFeatures.hasOrderedScan()) {
+            //only read the keys from the start key onwards
+            keyIterator = store.getKeys(new KeyRangeQuery(startKey, BufferUtil.oneBuffer(MAX_KEY_LENGTH), sq), stx);
+        } else {
+            keyIterator = KCVSUtil.getKeys(store, sq, storeFeatures, MAX_KEY_LENGTH, stx);
+        }
+        DataPuller dp = new DataPuller(sq, queue, keyIterator, keyFilter);
         pullThreads[pos] = dp;
         dp.setName("data-puller-" + pos); // setting the name for thread dumps!
         dp.start();
     }
 
-    private static class DataPuller extends Thread {
+    private class DataPuller extends Thread {
 
         private final BlockingQueue<SliceResult> queue;
         private final KeyIterator keyIterator;
@@ -216,7 +227,7 @@ class MultiThreadsRowsCollector extends RowsCollector {
         @Override
         public void run() {
             try {
-                while (keyIterator.hasNext()) {
+                while (hasNext()) {
                     StaticBuffer key = keyIterator.next();
                     RecordIterator<Entry> entries = keyIterator.getEntries();
                     if (!keyFilter.test(key)) continue;
@@ -237,6 +248,13 @@ class MultiThreadsRowsCollector extends RowsCollector {
             }
         }
 
+        private boolean hasNext() {
+            long start = System.nanoTime();
+            boolean hasNext = keyIterator.hasNext();
+            recordReadLatency(System.nanoTime() - start);
+            return hasNext;
+        }
+
         public boolean isFinished() {
             return finished;
         }
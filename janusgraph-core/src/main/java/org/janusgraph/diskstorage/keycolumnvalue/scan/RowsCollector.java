@@ -14,8 +14,8 @@
 
 package org.janusgraph.diskstorage.keycolumnvalue.scan;
 
+import org.janusgraph.diskstorage.BackendException;
 import org.janusgraph.diskstorage.PermanentBackendException;
-import org.janusgraph.diskstorage.TemporaryBackendException;
 import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
 
 import java.util.concurrent.BlockingQueue;
@@ -38,7 +38,41 @@ abstract class RowsCollector {
         this.rowQueue = rowQueue;
     }
 
-    abstract void run() throws InterruptedException, TemporaryBackendException;
+    /**
+     * Tracks the progress of the scan for checkpoints, or null if the scan is not checkpointed
+     */
+    private ScanCheckpointer checkpointer;
+
+    /**
+     * Limits the rate at which rows are read from the store, or null if the scan is not throttled
+     */
+    private volatile ScanThrottle throttle;
+
+    void setCheckpointer(ScanCheckpointer checkpointer) {
+        this.checkpointer = checkpointer;
+    }
+
+    void setThrottle(ScanThrottle throttle) {
+        this.throttle = throttle;
+    }
+
+    /**
+     * Hands the row over to the processors, unless it has already been processed before the scan was resumed
+     */
+    void put(Row row) throws InterruptedException {
+        if (throttle != null) throttle.acquire(row);
+        if (checkpointer == null || checkpointer.emit(row)) rowQueue.put(row);
+    }
+
+    /**
+     * Records the time a read from the store took, which the throttle of the scan may adapt its rate to
+     */
+    void recordReadLatency(long latencyNanos) {
+        final ScanThrottle throttle = this.throttle;
+        if (throttle != null) throttle.recordReadLatency(latencyNanos);
+    }
+
+    abstract void run() throws InterruptedException, BackendException;
 
     abstract void join() throws InterruptedException;
 
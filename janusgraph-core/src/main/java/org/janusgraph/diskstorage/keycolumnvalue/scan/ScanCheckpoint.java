@@ -0,0 +1,168 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.scan;
+
+import com.google.common.base.Preconditions;
+import org.janusgraph.core.JanusGraphException;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.configuration.ReadConfiguration;
+import org.janusgraph.diskstorage.configuration.WriteConfiguration;
+import org.janusgraph.diskstorage.util.StaticArrayBuffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Progress of a {@link ScanJob} which is recorded periodically while the job runs, so that a job which did not
+ * complete, e.g. because the process died, can be resumed where it left off.
+ * See {@link StandardScanner.Builder#setCheckpoint(WriteConfiguration, String, java.time.Duration)}.
+ * <p>
+ * A scan hands over the rows in the order in which the store iterates its keys. The checkpoint records the number of
+ * rows at the start of this order which have all been processed, together with the key of the last of these rows.
+ * The metrics are those of the rows up to the checkpointed position, so that they are not counted twice when the
+ * rows beyond it are processed again after the job is resumed.
+ */
+public class ScanCheckpoint {
+
+    private static final byte VERSION = 1;
+
+    private final long position;
+    private final StaticBuffer key;
+    private final Map<ScanMetrics.Metric, Long> metrics;
+    private final Map<String, Long> customMetrics;
+
+    ScanCheckpoint(long position, StaticBuffer key, Map<ScanMetrics.Metric, Long> metrics,
+                   Map<String, Long> customMetrics) {
+        Preconditions.checkArgument(position >= 0 && (position == 0) == (key == null));
+        this.position = position;
+        this.key = key;
+        this.metrics = metrics;
+        this.customMetrics = customMetrics;
+    }
+
+    /**
+     * Returns the number of rows from the start of the scan which have all been processed
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the key of the last row counted by {@link #getPosition()}, or null if no row has been processed
+     */
+    public StaticBuffer getKey() {
+        return key;
+    }
+
+    public long get(ScanMetrics.Metric metric) {
+        return metrics.getOrDefault(metric, 0L);
+    }
+
+    public long getCustom(String metric) {
+        return customMetrics.getOrDefault(metric, 0L);
+    }
+
+    void restoreMetrics(StandardScanMetrics scanMetrics) {
+        metrics.forEach(scanMetrics::increment);
+        customMetrics.forEach(scanMetrics::incrementCustom);
+    }
+
+    static ScanCheckpoint of(long position, StaticBuffer key, StandardScanMetrics scanMetrics) {
+        Map<ScanMetrics.Metric, Long> metrics = new EnumMap<>(ScanMetrics.Metric.class);
+        for (ScanMetrics.Metric metric : ScanMetrics.Metric.values()) {
+            metrics.put(metric, scanMetrics.get(metric));
+        }
+        return new ScanCheckpoint(position, key, metrics, scanMetrics.getCustomMetrics());
+    }
+
+    /**
+     * Returns the checkpoint stored under the given name, or null if there is none
+     */
+    public static ScanCheckpoint read(ReadConfiguration checkpoints, String name) {
+        byte[] bytes = checkpoints.get(name, byte[].class);
+        return bytes == null ? null : fromBytes(bytes);
+    }
+
+    void write(WriteConfiguration checkpoints, String name) {
+        checkpoints.set(name, toBytes());
+    }
+
+    static void remove(WriteConfiguration checkpoints, String name) {
+        checkpoints.remove(name);
+    }
+
+    byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(position);
+            if (position > 0) {
+                out.writeInt(key.length());
+                out.write(key.as(StaticBuffer.ARRAY_FACTORY));
+            }
+            out.writeInt(metrics.size());
+            for (Map.Entry<ScanMetrics.Metric, Long> metric : metrics.entrySet()) {
+                out.writeUTF(metric.getKey().name());
+                out.writeLong(metric.getValue());
+            }
+            out.writeInt(customMetrics.size());
+            for (Map.Entry<String, Long> metric : customMetrics.entrySet()) {
+                out.writeUTF(metric.getKey());
+                out.writeLong(metric.getValue());
+            }
+        } catch (IOException e) {
+            throw new JanusGraphException("Could not write scan checkpoint", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static ScanCheckpoint fromBytes(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            Preconditions.checkArgument(version == VERSION, "Unsupported scan checkpoint version: %s", version);
+            long position = in.readLong();
+            StaticBuffer key = null;
+            if (position > 0) {
+                byte[] keyBytes = new byte[in.readInt()];
+                in.readFully(keyBytes);
+                key = StaticArrayBuffer.of(keyBytes);
+            }
+            Map<ScanMetrics.Metric, Long> metrics = new EnumMap<>(ScanMetrics.Metric.class);
+            for (int i = in.readInt(); i > 0; i--) {
+                metrics.put(ScanMetrics.Metric.valueOf(in.readUTF()), in.readLong());
+            }
+            int numCustomMetrics = in.readInt();
+            Map<String, Long> customMetrics = numCustomMetrics == 0 ? Collections.emptyMap() : new HashMap<>(numCustomMetrics);
+            for (int i = 0; i < numCustomMetrics; i++) {
+                customMetrics.put(in.readUTF(), in.readLong());
+            }
+            return new ScanCheckpoint(position, key, metrics, customMetrics);
+        } catch (IOException e) {
+            throw new JanusGraphException("Could not read scan checkpoint", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ScanCheckpoint[position=" + position + ", key=" + key + "]";
+    }
+}
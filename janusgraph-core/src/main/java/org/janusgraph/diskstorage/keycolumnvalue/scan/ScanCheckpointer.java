@@ -0,0 +1,227 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.scan;
+
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.configuration.WriteConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.janusgraph.diskstorage.keycolumnvalue.scan.StandardScannerExecutor.Row;
+
+/**
+ * Tracks which rows of a scan have been processed and periodically writes a {@link ScanCheckpoint} of the rows at
+ * the start of the scan which have all been processed. Rows are processed concurrently, so the checkpoint only
+ * advances over a row once all rows handed over before it have been processed as well. Jobs may buffer their writes
+ * until the end of a work block, see {@link ScanJob#workerIterationEnd(ScanMetrics)}, so rows only count as
+ * processed once their work block has ended.
+ * <p>
+ * The metrics of a checkpoint are those of the rows it covers: the increments made while processing a row are
+ * recorded with the row, and those made at the start and end of a work block with the last row of the block.
+ * <p>
+ * When resuming from a checkpoint on a store which does not iterate its keys in order, the rows up to the
+ * checkpointed position are skipped by counting them. This relies on the store iterating its keys in the same order
+ * as before.
+ */
+class ScanCheckpointer {
+
+    private static final Logger log = LoggerFactory.getLogger(ScanCheckpointer.class);
+
+    private final WriteConfiguration checkpoints;
+    private final String name;
+    private final long intervalNanos;
+    private final StandardScanMetrics checkpointMetrics = new StandardScanMetrics();
+    private final long numRowsToSkip;
+    private final StaticBuffer lastSkippedKey;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final TreeMap<Long, StaticBuffer> pending = new TreeMap<>();
+    private final Map<Long, RecordingMetrics> processed = new HashMap<>();
+    private long numRowsSkipped = 0;
+    private long nextPosition;
+    private long position;
+    private StaticBuffer key;
+
+    private volatile long nextCheckpointTime;
+
+    /**
+     * @param resumeFrom the checkpoint the scan resumes from, or null if it starts from the beginning
+     * @param skipByCount whether the rows up to the checkpoint are to be skipped by counting them rather than by not
+     *                    reading their keys
+     */
+    ScanCheckpointer(WriteConfiguration checkpoints, String name, Duration interval, ScanCheckpoint resumeFrom,
+                     boolean skipByCount) {
+        this.checkpoints = checkpoints;
+        this.name = name;
+        this.intervalNanos = interval.toNanos();
+        if (resumeFrom != null) {
+            position = resumeFrom.getPosition();
+            key = resumeFrom.getKey();
+            resumeFrom.restoreMetrics(checkpointMetrics);
+        }
+        this.nextPosition = position;
+        this.numRowsToSkip = skipByCount ? position : 0;
+        this.lastSkippedKey = key;
+        this.nextCheckpointTime = System.nanoTime() + intervalNanos;
+    }
+
+    /**
+     * Assigns the row its position in the scan, or returns false if the row is to be skipped because it has been
+     * processed before the scan was resumed.
+     */
+    synchronized boolean emit(Row row) {
+        if (numRowsSkipped < numRowsToSkip) {
+            numRowsSkipped++;
+            if (numRowsSkipped == numRowsToSkip && !row.key.equals(lastSkippedKey)) {
+                log.warn("Scan [{}] resumed at key [{}] rather than at the checkpointed key [{}], the store was modified " +
+                    "since the checkpoint or does not iterate its keys in the same order", name, row.key, lastSkippedKey);
+            }
+            return false;
+        }
+        row.position = nextPosition++;
+        pending.put(row.position, row.key);
+        return true;
+    }
+
+    /**
+     * Marks the rows at the given positions as processed, together with the metrics recorded for them, and writes a
+     * checkpoint if the checkpoint interval has elapsed. Must only be called once the writes of the rows are durable.
+     */
+    void processed(Map<Long, RecordingMetrics> rows) {
+        synchronized (this) {
+            processed.putAll(rows);
+            Map.Entry<Long, StaticBuffer> first;
+            RecordingMetrics rowMetrics;
+            while ((first = pending.firstEntry()) != null && (rowMetrics = processed.remove(first.getKey())) != null) {
+                pending.pollFirstEntry();
+                position = first.getKey() + 1;
+                key = first.getValue();
+                rowMetrics.addTo(checkpointMetrics);
+            }
+        }
+        if (System.nanoTime() - nextCheckpointTime >= 0 && writeLock.tryLock()) {
+            try {
+                checkpoint();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes a checkpoint of the current progress of the scan
+     */
+    void checkpoint() {
+        writeLock.lock();
+        try {
+            final ScanCheckpoint checkpoint;
+            synchronized (this) {
+                checkpoint = ScanCheckpoint.of(position, key, checkpointMetrics);
+            }
+            checkpoint.write(checkpoints, name);
+            log.debug("Recorded checkpoint {} of scan [{}]", checkpoint, name);
+        } catch (RuntimeException e) {
+            log.warn("Could not record checkpoint of scan [{}]", name, e);
+        } finally {
+            nextCheckpointTime = System.nanoTime() + intervalNanos;
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the checkpoint once the scan has completed
+     */
+    void complete() {
+        writeLock.lock();
+        try {
+            ScanCheckpoint.remove(checkpoints, name);
+        } catch (RuntimeException e) {
+            log.warn("Could not remove checkpoint of scan [{}]", name, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    synchronized long getPosition() {
+        return position;
+    }
+
+    /**
+     * {@link ScanMetrics} which passes all increments on to the metrics of the scan and records them, such that they
+     * can be attributed to the rows they were made for. Not thread-safe.
+     */
+    static class RecordingMetrics implements ScanMetrics {
+
+        private final ScanMetrics metrics;
+        private final EnumMap<Metric, Long> increments = new EnumMap<>(Metric.class);
+        private Map<String, Long> customIncrements;
+
+        RecordingMetrics(ScanMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public long getCustom(String metric) {
+            return metrics.getCustom(metric);
+        }
+
+        @Override
+        public void incrementCustom(String metric, long delta) {
+            metrics.incrementCustom(metric, delta);
+            if (customIncrements == null) customIncrements = new HashMap<>();
+            customIncrements.merge(metric, delta, Long::sum);
+        }
+
+        @Override
+        public void incrementCustom(String metric) {
+            incrementCustom(metric, 1);
+        }
+
+        @Override
+        public long get(Metric metric) {
+            return metrics.get(metric);
+        }
+
+        @Override
+        public void increment(Metric metric) {
+            metrics.increment(metric);
+            increments.merge(metric, 1L, Long::sum);
+        }
+
+        /**
+         * Records the increments of the given metrics as if they had been made on these metrics, without passing them
+         * on again
+         */
+        void add(RecordingMetrics other) {
+            other.increments.forEach((metric, delta) -> increments.merge(metric, delta, Long::sum));
+            if (other.customIncrements != null) {
+                if (customIncrements == null) customIncrements = new HashMap<>();
+                other.customIncrements.forEach((metric, delta) -> customIncrements.merge(metric, delta, Long::sum));
+            }
+        }
+
+        private void addTo(StandardScanMetrics scanMetrics) {
+            increments.forEach(scanMetrics::increment);
+            if (customIncrements != null) customIncrements.forEach(scanMetrics::incrementCustom);
+        }
+    }
+}
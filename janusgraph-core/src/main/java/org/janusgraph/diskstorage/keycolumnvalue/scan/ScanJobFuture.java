@@ -41,5 +41,18 @@ public interface ScanJobFuture extends Future<ScanMetrics> {
      * @throws ExecutionException if the job threw an exception
      */
     ScanMetrics getIntermediateResult() throws ExecutionException;
+
+    /**
+     * Returns the throttle which limits the rate at which this job reads from the storage backend. The limits of
+     * the throttle can be changed while the job is running and take effect immediately.
+     * <p>
+     * Jobs which do not read from the storage backend, e.g. because they have already completed, return a throttle
+     * which has no effect.
+     *
+     * @return throttle of this job
+     */
+    default ScanThrottle getThrottle() {
+        return new ScanThrottle();
+    }
 }
 
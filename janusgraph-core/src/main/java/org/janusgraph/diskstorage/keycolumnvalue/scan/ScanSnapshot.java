@@ -0,0 +1,366 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.scan;
+
+import com.google.common.base.Preconditions;
+import org.janusgraph.diskstorage.Entry;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
+import org.janusgraph.diskstorage.util.EntryArrayList;
+import org.janusgraph.diskstorage.util.StaticArrayBuffer;
+import org.janusgraph.diskstorage.util.StaticArrayEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.janusgraph.diskstorage.keycolumnvalue.scan.StandardScannerExecutor.Row;
+
+/**
+ * Copy of the rows read by a scan, which allows later scans for the same queries to be served without reading the
+ * store again. This pays off for jobs which scan a store over and over, such as the iterations of a vertex program.
+ * <p>
+ * Rows are laid out back to back in large byte segments: every row holds its key followed by the number of entries
+ * and the serialized entries of each query, such that the snapshot holds no objects per row or entry. Replayed keys
+ * and entries are views into the segments. Once the segments held on heap exceed the configured budget, further
+ * segments are written to temporary files which are memory-mapped. Every thread of a scan appends the rows it
+ * processes to segments of its own, which are merged once the scan completes, and a replay decodes the segments on
+ * several threads.
+ * <p>
+ * A snapshot serves scans whose grounding query and remaining queries were all part of the last completed scan
+ * recorded into it, see {@link StandardScanner.Builder#setSnapshot(ScanSnapshot)}. Entry metadata such as TTLs and
+ * timestamps is not retained.
+ */
+public class ScanSnapshot implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ScanSnapshot.class);
+
+    static final int SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    private final long maxHeapBytes;
+    private final File spillDirectory;
+
+    private List<SliceQuery> queries;
+    private Content content;
+
+    /**
+     * @param maxHeapBytes the number of bytes of rows kept on heap, beyond which rows are spilled to disk
+     * @param spillDirectory the directory to create the spill files in, or null for the default temporary directory
+     */
+    public ScanSnapshot(long maxHeapBytes, File spillDirectory) {
+        Preconditions.checkArgument(maxHeapBytes >= 0, "Invalid heap size: %s", maxHeapBytes);
+        this.maxHeapBytes = maxHeapBytes;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Whether this snapshot holds the rows for the given queries, the first of which grounds the scan.
+     */
+    public synchronized boolean covers(List<SliceQuery> queries) {
+        return content != null && !queries.isEmpty() && this.queries.get(0).equals(queries.get(0))
+            && this.queries.containsAll(queries);
+    }
+
+    public synchronized long getNumRows() {
+        return content == null ? 0 : content.numRows;
+    }
+
+    public synchronized long getHeapBytes() {
+        return content == null ? 0 : content.heapBytes;
+    }
+
+    public synchronized long getSpilledBytes() {
+        return content == null ? 0 : content.spilledBytes;
+    }
+
+    /**
+     * Starts recording the rows of a scan for the given queries. The recorded rows replace the current content of this
+     * snapshot once the recording completes.
+     */
+    synchronized Recorder record(List<SliceQuery> queries) {
+        return new Recorder(queries);
+    }
+
+    /**
+     * Returns a reader over all rows of this snapshot, restricted to the given queries which must be covered.
+     */
+    RowReader read(List<SliceQuery> queries) {
+        return read(queries, 1).get(0);
+    }
+
+    /**
+     * Returns the given number of readers which split the rows of this snapshot among them, such that the rows can
+     * be decoded by several threads. The readers are restricted to the given queries which must be covered.
+     */
+    synchronized List<RowReader> read(List<SliceQuery> queries, int numReaders) {
+        Preconditions.checkArgument(covers(queries), "Snapshot does not cover queries: %s", queries);
+        Preconditions.checkArgument(numReaders > 0, "Invalid number of readers: %s", numReaders);
+        final AtomicInteger nextSegment = new AtomicInteger();
+        final List<RowReader> readers = new ArrayList<>(numReaders);
+        for (int i = 0; i < numReaders; i++) {
+            readers.add(new RowReader(this.queries, queries, content.segments, nextSegment));
+        }
+        return readers;
+    }
+
+    private synchronized void install(List<SliceQuery> queries, Content content) {
+        if (this.content != null) this.content.close();
+        this.queries = queries;
+        this.content = content;
+        log.debug("Recorded snapshot of {} rows with {} bytes on heap and {} bytes spilled",
+            content.numRows, content.heapBytes, content.spilledBytes);
+    }
+
+    /**
+     * Discards all rows and deletes the spill files.
+     */
+    @Override
+    public synchronized void close() {
+        if (content != null) content.close();
+        content = null;
+        queries = null;
+    }
+
+    private static class Content {
+
+        private final List<ByteBuffer> segments = new ArrayList<>();
+        private final List<File> files = new ArrayList<>();
+        private long numRows;
+        private long heapBytes;
+        private long spilledBytes;
+
+        private void close() {
+            segments.clear();
+            for (File file : files) {
+                if (!file.delete() && file.exists()) log.warn("Could not delete scan snapshot file {}", file);
+            }
+            files.clear();
+        }
+    }
+
+    /**
+     * Collects the rows of a recording into a new content. Every thread which adds rows does so through its own
+     * {@link Writer}, such that the threads do not contend on the recorder except when a segment is full.
+     */
+    class Recorder {
+
+        private final List<SliceQuery> queries;
+        private final Content content = new Content();
+        private final List<Writer> writers = new ArrayList<>();
+        private volatile boolean failed;
+
+        private Recorder(List<SliceQuery> queries) {
+            this.queries = Collections.unmodifiableList(new ArrayList<>(queries));
+        }
+
+        /**
+         * Returns a new writer for the rows of a single thread.
+         */
+        synchronized Writer newWriter() {
+            final Writer writer = new Writer();
+            writers.add(writer);
+            return writer;
+        }
+
+        private synchronized void seal(ByteBuffer segment) throws IOException {
+            if (failed) return;
+            segment.flip();
+            if (content.heapBytes + segment.limit() <= maxHeapBytes) {
+                content.heapBytes += segment.limit();
+                content.segments.add(segment);
+            } else {
+                final File file = File.createTempFile("janusgraph-scan-", ".snapshot", spillDirectory);
+                content.files.add(file);
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    while (segment.hasRemaining()) channel.write(segment);
+                    content.segments.add(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+                }
+                content.spilledBytes += file.length();
+            }
+        }
+
+        private synchronized void fail(IOException e) {
+            if (failed) return;
+            log.warn("Could not spill scan snapshot, scans will not be served from it", e);
+            abort();
+        }
+
+        /**
+         * Merges the rows of all writers and makes them the content of the snapshot. The writers must no longer be
+         * in use.
+         */
+        synchronized void complete() {
+            if (!failed) {
+                try {
+                    for (Writer writer : writers) {
+                        writer.seal();
+                        content.numRows += writer.numRows;
+                    }
+                    install(queries, content);
+                    return;
+                } catch (IOException e) {
+                    log.warn("Could not spill scan snapshot, scans will not be served from it", e);
+                }
+            }
+            abort();
+        }
+
+        /**
+         * Discards the recorded rows.
+         */
+        synchronized void abort() {
+            failed = true;
+            content.close();
+        }
+
+        /**
+         * Appends the rows of a single thread to segments of its own. Not thread-safe.
+         */
+        class Writer {
+
+            private ByteBuffer current;
+            private long numRows;
+
+            private Writer() {
+            }
+
+            void add(StaticBuffer key, Map<SliceQuery, EntryList> entries) {
+                if (failed) return;
+                int size = 2 * Integer.BYTES + key.length();
+                for (SliceQuery query : queries) {
+                    size += Integer.BYTES;
+                    final EntryList entryList = entries.get(query);
+                    if (entryList == null) continue;
+                    for (Entry entry : entryList) size += 2 * Integer.BYTES + entry.length();
+                }
+                if (current == null || current.remaining() < size) {
+                    try {
+                        seal();
+                    } catch (IOException e) {
+                        fail(e);
+                        return;
+                    }
+                    current = ByteBuffer.allocate(Math.max(SEGMENT_SIZE, size));
+                }
+                current.putInt(size);
+                current.putInt(key.length());
+                put(key);
+                for (SliceQuery query : queries) {
+                    final EntryList entryList = entries.get(query);
+                    if (entryList == null) {
+                        current.putInt(0);
+                        continue;
+                    }
+                    current.putInt(entryList.size());
+                    for (Entry entry : entryList) {
+                        current.putInt(entry.length());
+                        current.putInt(entry.getValuePosition());
+                        put(entry);
+                    }
+                }
+                numRows++;
+            }
+
+            private void put(StaticBuffer buffer) {
+                buffer.as((array, offset, limit) -> current.put(array, offset, limit - offset));
+            }
+
+            private void seal() throws IOException {
+                if (current == null) return;
+                final ByteBuffer segment = current;
+                current = null;
+                Recorder.this.seal(segment);
+            }
+        }
+    }
+
+    /**
+     * Reads the rows of a snapshot one after another. Readers which share the segment counter read disjoint segments.
+     * Not thread-safe.
+     */
+    static class RowReader {
+
+        private final List<SliceQuery> recordedQueries;
+        private final boolean[] isRead;
+        private final List<ByteBuffer> segments;
+        private final AtomicInteger nextSegment;
+        private ByteBuffer segment;
+
+        private RowReader(List<SliceQuery> recordedQueries, List<SliceQuery> queries, List<ByteBuffer> segments,
+                          AtomicInteger nextSegment) {
+            this.recordedQueries = recordedQueries;
+            this.isRead = new boolean[recordedQueries.size()];
+            for (int i = 0; i < isRead.length; i++) isRead[i] = queries.contains(recordedQueries.get(i));
+            this.segments = segments;
+            this.nextSegment = nextSegment;
+        }
+
+        /**
+         * Returns the next row, or null if all rows have been read.
+         */
+        Row next() {
+            while (segment == null || !segment.hasRemaining()) {
+                final int segmentIndex = nextSegment.getAndIncrement();
+                if (segmentIndex >= segments.size()) return null;
+                segment = segments.get(segmentIndex).duplicate();
+            }
+            final int size = segment.getInt() - Integer.BYTES;
+            final byte[] array;
+            final int offset;
+            if (segment.hasArray()) {
+                array = segment.array();
+                offset = segment.arrayOffset() + segment.position();
+                segment.position(segment.position() + size);
+            } else {
+                array = new byte[size];
+                segment.get(array);
+                offset = 0;
+            }
+
+            final ByteBuffer row = ByteBuffer.wrap(array, offset, size);
+            final int keyLength = row.getInt();
+            final StaticBuffer key = new StaticArrayBuffer(array, row.position(), row.position() + keyLength);
+            row.position(row.position() + keyLength);
+            final Map<SliceQuery, EntryList> entries = new HashMap<>(isRead.length);
+            for (int i = 0; i < isRead.length; i++) {
+                final int numEntries = row.getInt();
+                final EntryArrayList entryList = isRead[i] ? new EntryArrayList() : null;
+                if (entryList != null) entryList.ensureCapacity(numEntries);
+                for (int j = 0; j < numEntries; j++) {
+                    final int length = row.getInt();
+                    final int valuePosition = row.getInt();
+                    if (entryList != null) {
+                        entryList.add(new StaticArrayEntry(array, row.position(), row.position() + length, valuePosition));
+                    }
+                    row.position(row.position() + length);
+                }
+                if (entryList != null) entries.put(recordedQueries.get(i), entryList);
+            }
+            return new Row(key, entries);
+        }
+    }
+}
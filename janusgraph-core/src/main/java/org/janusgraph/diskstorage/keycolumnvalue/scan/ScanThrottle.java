@@ -0,0 +1,264 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.scan;
+
+import com.google.common.base.Preconditions;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.configuration.Configuration;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.janusgraph.diskstorage.keycolumnvalue.scan.StandardScannerExecutor.Row;
+
+/**
+ * Limits the rate at which a scan reads rows from the storage backend, so that scans such as index repairs do not
+ * saturate the backend at the expense of the latency of transactional workloads. The number of rows and the number
+ * of bytes read per second are each limited by a token bucket which holds up to one second worth of tokens.
+ * <p>
+ * Optionally, the scan adapts its rate to the latency of the reads from the storage backend: whenever the slowest
+ * read in an interval exceeds the target latency, the rate of rows is halved, and it is raised again gradually once
+ * the reads are fast enough.
+ * <p>
+ * All limits can be changed while the scan is running, see {@link ScanJobFuture#getThrottle()}.
+ */
+public class ScanThrottle {
+
+    private static final Logger log = LoggerFactory.getLogger(ScanThrottle.class);
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final Duration DEFAULT_ADAPTATION_INTERVAL = Duration.ofSeconds(1);
+    private static final double MIN_ROWS_PER_SECOND = 1.0;
+    private static final double BACKOFF_FACTOR = 0.5;
+    private static final double RECOVERY_FACTOR = 1.1;
+
+    private final TokenBucket rows = new TokenBucket();
+    private final TokenBucket bytes = new TokenBucket();
+    private final long adaptationIntervalNanos;
+
+    private double maxRowsPerSecond = 0;
+    private long maxBytesPerSecond = 0;
+    private volatile long targetReadLatencyNanos = 0;
+    private volatile boolean interrupted = false;
+
+    private double adaptiveRowsPerSecond = 0;
+    private long intervalStart;
+    private long intervalRows;
+    private long intervalMaxLatency;
+
+    /**
+     * Creates a throttle which does not limit the scan
+     */
+    public ScanThrottle() {
+        this(DEFAULT_ADAPTATION_INTERVAL);
+    }
+
+    ScanThrottle(Duration adaptationInterval) {
+        this.adaptationIntervalNanos = adaptationInterval.toNanos();
+        this.intervalStart = System.nanoTime();
+    }
+
+    /**
+     * Creates a throttle with the limits configured for scans in the given graph configuration
+     */
+    static ScanThrottle of(Configuration graphConfiguration) {
+        ScanThrottle throttle = new ScanThrottle();
+        throttle.setMaxRowsPerSecond(graphConfiguration.get(GraphDatabaseConfiguration.SCAN_MAX_ROWS_PER_SECOND));
+        throttle.setMaxBytesPerSecond(graphConfiguration.get(GraphDatabaseConfiguration.SCAN_MAX_BYTES_PER_SECOND));
+        throttle.setTargetReadLatency(graphConfiguration.get(GraphDatabaseConfiguration.SCAN_TARGET_READ_LATENCY));
+        return throttle;
+    }
+
+    /**
+     * Limits the number of rows read per second, 0 removes the limit
+     */
+    public synchronized void setMaxRowsPerSecond(double rowsPerSecond) {
+        Preconditions.checkArgument(rowsPerSecond >= 0, "Invalid number of rows per second: %s", rowsPerSecond);
+        this.maxRowsPerSecond = rowsPerSecond;
+        updateRowRate();
+    }
+
+    public synchronized double getMaxRowsPerSecond() {
+        return maxRowsPerSecond;
+    }
+
+    /**
+     * Limits the number of bytes of keys and entries read per second, 0 removes the limit
+     */
+    public synchronized void setMaxBytesPerSecond(long bytesPerSecond) {
+        Preconditions.checkArgument(bytesPerSecond >= 0, "Invalid number of bytes per second: %s", bytesPerSecond);
+        this.maxBytesPerSecond = bytesPerSecond;
+        bytes.setRate(bytesPerSecond, System.nanoTime());
+    }
+
+    public synchronized long getMaxBytesPerSecond() {
+        return maxBytesPerSecond;
+    }
+
+    /**
+     * Adapts the rate of rows to keep the latency of reads from the storage backend below the given target. A target
+     * of null or zero disables the adaptation.
+     */
+    public synchronized void setTargetReadLatency(Duration target) {
+        Preconditions.checkArgument(target == null || !target.isNegative(), "Invalid target latency: %s", target);
+        targetReadLatencyNanos = target == null ? 0 : target.toNanos();
+        adaptiveRowsPerSecond = 0;
+        startInterval(System.nanoTime());
+        updateRowRate();
+    }
+
+    public Duration getTargetReadLatency() {
+        return Duration.ofNanos(targetReadLatencyNanos);
+    }
+
+    /**
+     * Returns the number of rows per second the scan is currently limited to, which is below
+     * {@link #getMaxRowsPerSecond()} while the scan backs off from a high read latency, or 0 if it is not limited
+     */
+    public synchronized double getRowsPerSecond() {
+        return rows.getRate();
+    }
+
+    /**
+     * Waits until the row may be handed over to the processors of the scan
+     */
+    void acquire(Row row) throws InterruptedException {
+        await(rows, 1);
+        if (bytes.isLimited()) await(bytes, getByteSize(row));
+        if (targetReadLatencyNanos > 0) {
+            synchronized (this) {
+                intervalRows++;
+            }
+        }
+    }
+
+    /**
+     * Records the time a read from the storage backend took, for the adaptation of the rate to the read latency
+     */
+    void recordReadLatency(long latencyNanos) {
+        if (targetReadLatencyNanos <= 0) return;
+        long now = System.nanoTime();
+        synchronized (this) {
+            intervalMaxLatency = Math.max(intervalMaxLatency, latencyNanos);
+            if (now - intervalStart >= adaptationIntervalNanos) adapt(now);
+        }
+    }
+
+    /**
+     * Stops waiting for tokens, so that an interrupted scan is not held up by its throttle
+     */
+    void interrupt() {
+        interrupted = true;
+    }
+
+    private void await(TokenBucket bucket, long permits) throws InterruptedException {
+        long waitNanos;
+        while (!interrupted && (waitNanos = bucket.tryAcquire(permits, System.nanoTime())) > 0) {
+            //wake up regularly so that changes of the rate take effect
+            TimeUnit.NANOSECONDS.sleep(Math.min(waitNanos, MAX_WAIT_NANOS));
+        }
+    }
+
+    private void adapt(long now) {
+        double observedRowsPerSecond = intervalRows * NANOS_PER_SECOND / (now - intervalStart);
+        if (intervalMaxLatency > targetReadLatencyNanos) {
+            double rate = adaptiveRowsPerSecond;
+            if (observedRowsPerSecond > 0 && (rate == 0 || observedRowsPerSecond < rate)) rate = observedRowsPerSecond;
+            if (rate > 0) {
+                adaptiveRowsPerSecond = Math.max(MIN_ROWS_PER_SECOND, rate * BACKOFF_FACTOR);
+                log.debug("Read latency of {} ms exceeds the target, backing off to {} rows per second",
+                    TimeUnit.NANOSECONDS.toMillis(intervalMaxLatency), adaptiveRowsPerSecond);
+            }
+        } else if (adaptiveRowsPerSecond > 0) {
+            adaptiveRowsPerSecond *= RECOVERY_FACTOR;
+            //stop adapting once the rate is no longer what limits the scan
+            if ((maxRowsPerSecond > 0 && adaptiveRowsPerSecond >= maxRowsPerSecond)
+                    || adaptiveRowsPerSecond >= 2 * observedRowsPerSecond) {
+                adaptiveRowsPerSecond = 0;
+            }
+        }
+        startInterval(now);
+        updateRowRate();
+    }
+
+    private void startInterval(long now) {
+        intervalStart = now;
+        intervalRows = 0;
+        intervalMaxLatency = 0;
+    }
+
+    private void updateRowRate() {
+        double rate = maxRowsPerSecond;
+        if (adaptiveRowsPerSecond > 0 && (rate == 0 || adaptiveRowsPerSecond < rate)) rate = adaptiveRowsPerSecond;
+        rows.setRate(rate, System.nanoTime());
+    }
+
+    private static long getByteSize(Row row) {
+        long size = row.key.length();
+        for (EntryList entries : row.entries.values()) {
+            for (int i = 0; i < entries.size(); i++) {
+                size += entries.get(i).length();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Token bucket which is refilled at the given rate and holds up to one second worth of tokens. Permits are
+     * handed out as long as the bucket is not empty, so that requests for more permits than the bucket holds
+     * put it into debt instead of waiting forever.
+     */
+    private static class TokenBucket {
+
+        private double rate = 0;
+        private double tokens = 0;
+        private long lastRefillTime;
+
+        synchronized void setRate(double rate, long now) {
+            refill(now);
+            this.rate = rate;
+            tokens = rate > 0 ? Math.min(tokens, rate) : 0;
+        }
+
+        synchronized double getRate() {
+            return rate;
+        }
+
+        synchronized boolean isLimited() {
+            return rate > 0;
+        }
+
+        /**
+         * Takes the permits and returns 0 if the bucket is not in debt, otherwise returns the time in nanoseconds
+         * until it is not
+         */
+        synchronized long tryAcquire(long permits, long now) {
+            if (rate <= 0) return 0;
+            refill(now);
+            if (tokens < 0) return Math.max(1, (long) Math.ceil(-tokens / rate * NANOS_PER_SECOND));
+            tokens -= permits;
+            return 0;
+        }
+
+        private void refill(long now) {
+            if (rate > 0) tokens = Math.min(rate, tokens + (now - lastRefillTime) * rate / NANOS_PER_SECOND);
+            lastRefillTime = now;
+        }
+    }
+}
@@ -74,13 +74,13 @@ class SingleThreadRowsCollector extends RowsCollector {
 
     void run()  {
         try {
-            while (!interrupted && keyIterator.hasNext()) {
+            while (!interrupted && hasNext()) {
                 StaticBuffer key = keyIterator.next();
                 Map<SliceQuery, RecordIterator<Entry>> sliceToEntriesMap = keyIterator.getEntries();
                 if (!keyFilter.test(key)) continue;
                 Map<SliceQuery, EntryList> rowEntries = new HashMap<>(sliceToEntriesMap.size());
                 sliceToEntriesMap.forEach((sliceQuery, entryList) -> rowEntries.put(sliceQuery, EntryArrayList.of(entryList)));
-                rowQueue.put(new Row(key, rowEntries));
+                put(new Row(key, rowEntries));
             }
         } catch (InterruptedException e) {
             log.error("Data-pulling thread interrupted while waiting on queue or data", e);
@@ -95,6 +95,13 @@ class SingleThreadRowsCollector extends RowsCollector {
         }
     }
 
+    private boolean hasNext() {
+        long start = System.nanoTime();
+        boolean hasNext = keyIterator.hasNext();
+        recordReadLatency(System.nanoTime() - start);
+        return hasNext;
+    }
+
     @Override
     void join() {
         //no need to wait
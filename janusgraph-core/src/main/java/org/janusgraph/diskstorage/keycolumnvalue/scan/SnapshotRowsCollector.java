@@ -0,0 +1,88 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.scan;
+
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Predicate;
+
+import static org.janusgraph.diskstorage.keycolumnvalue.scan.StandardScannerExecutor.Row;
+
+/**
+ * Produces the rows of a {@link ScanSnapshot} instead of reading them from the store. The segments of the snapshot are
+ * decoded by several threads, so that a replay keeps up with the processors of the scan.
+ */
+class SnapshotRowsCollector extends RowsCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotRowsCollector.class);
+
+    private final List<ScanSnapshot.RowReader> readers;
+    private final Predicate<StaticBuffer> keyFilter;
+
+    private volatile boolean interrupted = false;
+
+    SnapshotRowsCollector(ScanSnapshot snapshot, List<SliceQuery> queries, Predicate<StaticBuffer> keyFilter,
+                          int numThreads, BlockingQueue<Row> rowQueue) {
+        super(null, rowQueue);
+        this.readers = snapshot.read(queries, numThreads);
+        this.keyFilter = keyFilter;
+    }
+
+    @Override
+    void run() throws InterruptedException {
+        final Thread[] readThreads = new Thread[readers.size() - 1];
+        for (int i = 0; i < readThreads.length; i++) {
+            final ScanSnapshot.RowReader reader = readers.get(i + 1);
+            readThreads[i] = new Thread(() -> read(reader), "SnapshotReader-" + i);
+            readThreads[i].setDaemon(true);
+            readThreads[i].start();
+        }
+        read(readers.get(0));
+        for (Thread readThread : readThreads) readThread.join();
+    }
+
+    private void read(ScanSnapshot.RowReader reader) {
+        try {
+            Row row;
+            while (!interrupted && (row = reader.next()) != null) {
+                if (!keyFilter.test(row.key)) continue;
+                put(row);
+            }
+        } catch (InterruptedException e) {
+            log.error("Data-pulling thread interrupted while waiting on queue", e);
+        }
+    }
+
+    @Override
+    void join() {
+        //the reading threads have completed in run()
+    }
+
+    @Override
+    void interrupt() {
+        interrupted = true;
+    }
+
+    @Override
+    void cleanup() {
+        //nothing to release
+    }
+
+}
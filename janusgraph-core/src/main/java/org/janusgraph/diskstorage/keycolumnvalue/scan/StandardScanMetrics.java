@@ -18,6 +18,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -84,5 +86,18 @@ public class StandardScanMetrics implements ScanMetrics {
         metrics.get(metric).incrementAndGet();
     }
 
+    public void increment(Metric metric, long delta) {
+        metrics.get(metric).addAndGet(delta);
+    }
+
+    /**
+     * Returns the current values of all custom counters which have been incremented
+     */
+    public Map<String,Long> getCustomMetrics() {
+        Map<String,Long> values = new HashMap<>(customMetrics.size());
+        customMetrics.forEach((metric, counter) -> values.put(metric, counter.get()));
+        return values;
+    }
+
 
 }
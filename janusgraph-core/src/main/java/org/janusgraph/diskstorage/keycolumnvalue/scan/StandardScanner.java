@@ -17,8 +17,10 @@ package org.janusgraph.diskstorage.keycolumnvalue.scan;
 import com.google.common.base.Preconditions;
 import org.apache.commons.lang3.StringUtils;
 import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.StaticBuffer;
 import org.janusgraph.diskstorage.configuration.Configuration;
 import org.janusgraph.diskstorage.configuration.MergedConfiguration;
+import org.janusgraph.diskstorage.configuration.WriteConfiguration;
 import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
 import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStoreManager;
 import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
@@ -26,7 +28,9 @@ import org.janusgraph.diskstorage.util.StandardBaseTransactionConfig;
 import org.janusgraph.diskstorage.util.time.TimestampProvider;
 import org.janusgraph.util.datastructures.ExceptionWrapper;
 
+import java.time.Duration;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -101,6 +105,12 @@ public class StandardScanner  {
         private String dbName;
         private Consumer<ScanMetrics> finishJob;
         private Object jobId;
+        private ScanSnapshot snapshot;
+        private List<StaticBuffer> keys;
+        private WriteConfiguration checkpoints;
+        private String checkpointName;
+        private Duration checkpointInterval;
+        private boolean resume;
 
         private Builder() {
             numProcessingThreads = 1;
@@ -112,6 +122,12 @@ public class StandardScanner  {
             dbName = null;
             jobId = jobCounter.incrementAndGet();
             finishJob = m -> {} ;
+            snapshot = null;
+            keys = null;
+            checkpoints = null;
+            checkpointName = null;
+            checkpointInterval = null;
+            resume = false;
         }
 
         public Builder setNumProcessingThreads(int numThreads) {
@@ -171,10 +187,56 @@ public class StandardScanner  {
             return this;
         }
 
+        /**
+         * Serves the scan from the given snapshot if it holds the rows for the queries of the job. Otherwise, the rows
+         * of the scan are recorded into the snapshot so that later scans for the same queries can be served from it.
+         */
+        public Builder setSnapshot(ScanSnapshot snapshot) {
+            this.snapshot = Preconditions.checkNotNull(snapshot);
+            return this;
+        }
+
+        /**
+         * Restricts the scan to the given keys, which are read with multi-key slice queries instead of scanning the
+         * whole store. This is cheaper than a full scan when only a small fraction of the keys needs to be processed.
+         * Keys which do not exist in the store are skipped.
+         */
+        public Builder setKeys(List<StaticBuffer> keys) {
+            this.keys = Preconditions.checkNotNull(keys);
+            return this;
+        }
+
+        /**
+         * Records the progress of the scan as a {@link ScanCheckpoint} under the given name in the checkpoint store
+         * every interval, and when the scan is interrupted or fails. The checkpoint is removed once the scan completes.
+         * A scan which did not complete can be resumed from its checkpoint with {@link #setResume(boolean)}.
+         */
+        public Builder setCheckpoint(WriteConfiguration checkpoints, String name, Duration interval) {
+            Preconditions.checkArgument(StringUtils.isNotBlank(name), "Invalid checkpoint name: %s", name);
+            Preconditions.checkArgument(interval != null && !interval.isNegative() && !interval.isZero(),
+                "Need to specify a positive checkpoint interval: %s", interval);
+            this.checkpoints = Preconditions.checkNotNull(checkpoints);
+            this.checkpointName = name;
+            this.checkpointInterval = interval;
+            return this;
+        }
+
+        /**
+         * Whether the scan resumes from the checkpoint recorded under its checkpoint name, skipping the rows which
+         * have already been processed. If there is no such checkpoint, the scan starts from the beginning.
+         */
+        public Builder setResume(boolean resume) {
+            this.resume = resume;
+            return this;
+        }
+
         public ScanJobFuture execute() throws BackendException {
             Preconditions.checkNotNull(job,"Need to specify a job to execute");
             Preconditions.checkArgument(StringUtils.isNotBlank(dbName),"Need to specify a database to execute against");
             Preconditions.checkNotNull(times,"Need to configure the timestamp provider for this job");
+            Preconditions.checkArgument(!resume || checkpointName != null, "Need to configure a checkpoint to resume from");
+            Preconditions.checkArgument(checkpointName == null || (snapshot == null && keys == null),
+                "Scans restricted to a snapshot or to given keys cannot be checkpointed");
             StandardBaseTransactionConfig.Builder txBuilder = new StandardBaseTransactionConfig.Builder();
             txBuilder.timestampProvider(times);
 
@@ -194,7 +256,8 @@ public class StandardScanner  {
             openStores.add(kcvs);
             try {
                 StandardScannerExecutor executor = new StandardScannerExecutor(job, finishJob, kcvs, storeTx,
-                        manager.getFeatures(), numProcessingThreads, workBlockSize, jobConfiguration, graphConfiguration);
+                        manager.getFeatures(), numProcessingThreads, workBlockSize, jobConfiguration, graphConfiguration, snapshot, keys,
+                        checkpoints, checkpointName, checkpointInterval, resume);
                 addJob(jobId,executor);
                 new Thread(executor).start();
                 return executor;
@@ -20,6 +20,7 @@ import org.janusgraph.diskstorage.BackendException;
 import org.janusgraph.diskstorage.EntryList;
 import org.janusgraph.diskstorage.StaticBuffer;
 import org.janusgraph.diskstorage.configuration.Configuration;
+import org.janusgraph.diskstorage.configuration.WriteConfiguration;
 import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
 import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
 import org.janusgraph.diskstorage.keycolumnvalue.StoreFeatures;
@@ -30,12 +31,16 @@ import org.janusgraph.util.system.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * @author Matthias Broecheler (me@matthiasb.com)
@@ -57,7 +62,16 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Sca
     private final int workBlockSize;
     private final Configuration jobConfiguration;
     private final Configuration graphConfiguration;
-    private final ScanMetrics metrics;
+    private final StandardScanMetrics metrics;
+    private final ScanSnapshot snapshot;
+    private final List<StaticBuffer> keys;
+    private final WriteConfiguration checkpoints;
+    private final String checkpointName;
+    private final Duration checkpointInterval;
+    private final boolean resume;
+    private final ScanThrottle throttle;
+    private volatile ScanSnapshot.Recorder recorder;
+    private volatile ScanCheckpointer checkpointer;
 
     private boolean hasCompleted = false;
     private boolean interrupted = false;
@@ -69,7 +83,13 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Sca
                             final StoreFeatures storeFeatures,
                             final int numProcessors, final int workBlockSize,
                             final Configuration jobConfiguration,
-                            final Configuration graphConfiguration) {
+                            final Configuration graphConfiguration,
+                            final ScanSnapshot snapshot,
+                            final List<StaticBuffer> keys,
+                            final WriteConfiguration checkpoints,
+                            final String checkpointName,
+                            final Duration checkpointInterval,
+                            final boolean resume) {
         this.job = job;
         this.finishJob = finishJob;
         this.store = store;
@@ -79,8 +99,15 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Sca
         this.workBlockSize = workBlockSize;
         this.jobConfiguration = jobConfiguration;
         this.graphConfiguration = graphConfiguration;
+        this.snapshot = snapshot;
+        this.keys = keys;
+        this.checkpoints = checkpoints;
+        this.checkpointName = checkpointName;
+        this.checkpointInterval = checkpointInterval;
+        this.resume = resume;
 
         metrics = new StandardScanMetrics();
+        throttle = ScanThrottle.of(graphConfiguration);
     }
 
 
@@ -111,7 +138,18 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Sca
                         "Expected end of first query to be all 1s: %s",end);
             }
 
-            rowsCollector = buildScanner(processorQueue, queries);
+            if (snapshot != null && snapshot.covers(queries)) {
+                Predicate<StaticBuffer> keyFilter = job.getKeyFilter();
+                if (keys != null) keyFilter = keyFilter.and(new HashSet<>(keys)::contains);
+                rowsCollector = new SnapshotRowsCollector(snapshot, queries, keyFilter, numProcessors, processorQueue);
+            } else if (keys != null) {
+                rowsCollector = new KeysRowsCollector(store, storeTx, queries, keys, job.getKeyFilter(),
+                    graphConfiguration.get(GraphDatabaseConfiguration.PAGE_SIZE), processorQueue);
+                rowsCollector.setThrottle(throttle);
+            } else {
+                rowsCollector = buildScanner(processorQueue, queries);
+                if (snapshot != null) recorder = snapshot.record(queries);
+            }
 
         }  catch (Throwable e) {
             log.error("Exception trying to setup the job:", e);
@@ -146,13 +184,19 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Sca
             }
 
             if (interrupted) {
+                abortRecording();
+                if (checkpointer != null) checkpointer.checkpoint();
                 setException(new InterruptedException("Scanner got interrupted"));
             } else {
+                if (recorder != null) recorder.complete();
+                if (checkpointer != null) checkpointer.complete();
                 finishJob.accept(metrics);
                 set(metrics);
             }
         } catch (Throwable e) {
             log.error("Exception occurred during job execution:", e);
+            abortRecording();
+            if (checkpointer != null) checkpointer.checkpoint();
             job.workerIterationEnd(metrics);
             setException(e);
         } finally {
@@ -162,18 +206,46 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Sca
     }
 
     private RowsCollector buildScanner(BlockingQueue<Row> processorQueue, List<SliceQuery> queries) throws BackendException {
+        Predicate<StaticBuffer> keyFilter = job.getKeyFilter();
+        StaticBuffer startKey = null;
+        if (checkpointName != null) {
+            ScanCheckpoint resumeFrom = resume ? ScanCheckpoint.read(checkpoints, checkpointName) : null;
+            //keys up to the checkpoint need not be read if the store iterates its keys in order
+            boolean skipByKey = resumeFrom != null && resumeFrom.getKey() != null && storeFeatures.isKeyOrdered();
+            if (resumeFrom != null) {
+                log.info("Resuming scan [{}] from {}", checkpointName, resumeFrom);
+                resumeFrom.restoreMetrics(metrics);
+            }
+            if (skipByKey) {
+                final StaticBuffer lastKey = resumeFrom.getKey();
+                keyFilter = keyFilter.and(key -> key.compareTo(lastKey) > 0);
+                startKey = lastKey;
+            }
+            checkpointer = new ScanCheckpointer(checkpoints, checkpointName, checkpointInterval, resumeFrom,
+                !skipByKey);
+        }
+
+        RowsCollector collector;
         if(!storeFeatures.hasConsistentScan()) {
-            return new SingleThreadRowsCollector(store, storeTx, queries,
-                job.getKeyFilter(), processorQueue);
+            collector = new SingleThreadRowsCollector(store, storeTx, queries,
+                keyFilter, processorQueue);
         } else {
-            return new MultiThreadsRowsCollector(store, storeFeatures, storeTx, queries,
-                job.getKeyFilter(), processorQueue, graphConfiguration);
+            collector = new MultiThreadsRowsCollector(store, storeFeatures, storeTx, queries,
+                keyFilter, processorQueue, graphConfiguration, startKey);
         }
+        collector.setCheckpointer(checkpointer);
+        collector.setThrottle(throttle);
+        return collector;
+    }
+
+    private void abortRecording() {
+        if (recorder != null) recorder.abort();
     }
 
     @Override
     protected void interruptTask() {
         interrupted = true;
+        throttle.interrupt();
         rowsCollector.interrupt();
     }
 
@@ -200,10 +272,19 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Sca
         return metrics;
     }
 
+    @Override
+    public ScanThrottle getThrottle() {
+        return throttle;
+    }
+
     static class Row {
 
         final StaticBuffer key;
         final Map<SliceQuery,EntryList> entries;
+        /**
+         * Position of the row in the scan, only assigned if the scan is checkpointed
+         */
+        long position = -1;
 
         Row(StaticBuffer key, Map<SliceQuery, EntryList> entries) {
             this.key = key;
@@ -217,14 +298,24 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Sca
 
         private ScanJob job;
         private final BlockingQueue<Row> processorQueue;
+        private final ScanSnapshot.Recorder.Writer snapshotWriter;
 
         private volatile boolean finished;
         private int numProcessed;
 
+        /**
+         * Metrics recorded per processed row of the current work block, which are handed over to the checkpointer once
+         * the block has ended. Only used if the scan is checkpointed.
+         */
+        private Map<Long, ScanCheckpointer.RecordingMetrics> blockRows = new HashMap<>();
+        private ScanCheckpointer.RecordingMetrics blockMetrics;
+        private long lastPosition = -1;
+
 
         private Processor(ScanJob job, BlockingQueue<Row> processorQueue) {
             this.job = job;
             this.processorQueue = processorQueue;
+            this.snapshotWriter = recorder == null ? null : recorder.newWriter();
 
             this.finished = false;
             this.numProcessed = 0;
@@ -233,23 +324,33 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Sca
         @Override
         public void run() {
             try {
-                job.workerIterationStart(jobConfiguration, graphConfiguration, metrics);
+                startBlock();
                 while (!finished || !processorQueue.isEmpty()) {
                     Row row;
                     while ((row=processorQueue.poll(TIME_PER_TRY,TimeUnit.MILLISECONDS))!=null) {
                         if (numProcessed>=workBlockSize) {
                             //Setup new chunk of work
-                            job.workerIterationEnd(metrics);
+                            endBlock();
                             job = job.clone();
-                            job.workerIterationStart(jobConfiguration, graphConfiguration, metrics);
+                            startBlock();
                             numProcessed=0;
                         }
+                        if (snapshotWriter != null) snapshotWriter.add(row.key, row.entries);
+                        final ScanMetrics rowMetrics;
+                        if (checkpointer != null) {
+                            final ScanCheckpointer.RecordingMetrics recording = new ScanCheckpointer.RecordingMetrics(metrics);
+                            blockRows.put(row.position, recording);
+                            lastPosition = row.position;
+                            rowMetrics = recording;
+                        } else {
+                            rowMetrics = metrics;
+                        }
                         try {
-                            job.process(row.key,row.entries,metrics);
-                            metrics.increment(ScanMetrics.Metric.SUCCESS);
+                            job.process(row.key,row.entries,rowMetrics);
+                            rowMetrics.increment(ScanMetrics.Metric.SUCCESS);
                         } catch (Throwable ex) {
                             log.error("Exception processing row ["+row.key+"]: ",ex);
-                            metrics.increment(ScanMetrics.Metric.FAILURE);
+                            rowMetrics.increment(ScanMetrics.Metric.FAILURE);
                         }
                         numProcessed++;
                     }
@@ -259,7 +360,26 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Sca
             } catch (Throwable e) {
                 log.error("Unexpected error processing data",e);
             } finally {
-                job.workerIterationEnd(metrics);
+                endBlock();
+            }
+        }
+
+        private void startBlock() {
+            blockMetrics = checkpointer == null ? null : new ScanCheckpointer.RecordingMetrics(metrics);
+            job.workerIterationStart(jobConfiguration, graphConfiguration, blockMetrics == null ? metrics : blockMetrics);
+        }
+
+        /**
+         * Ends the current work block and, once the job has completed it without failure, hands the rows of the block
+         * over to the checkpointer. The increments made at the start and end of the block count with its last row.
+         */
+        private void endBlock() {
+            final Map<Long, ScanCheckpointer.RecordingMetrics> rows = blockRows;
+            blockRows = new HashMap<>();
+            job.workerIterationEnd(blockMetrics == null ? metrics : blockMetrics);
+            if (checkpointer != null && !rows.isEmpty()) {
+                rows.get(lastPosition).add(blockMetrics);
+                checkpointer.processed(rows);
             }
         }
 
@@ -21,6 +21,7 @@ import org.janusgraph.diskstorage.keycolumnvalue.KCVSProxy;
 import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
 import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -41,4 +42,10 @@ public class TTLKCVS extends KCVSProxy {
         store.mutate(key, additions, deletions, unwrapTx(txh));
     }
 
+    @Override
+    public boolean insertIfAbsent(StaticBuffer key, Entry entry, StoreTransaction txh) throws BackendException {
+        TTLKCVSManager.applyTTL(Collections.singletonList(entry), ttl);
+        return store.insertIfAbsent(key, entry, unwrapTx(txh));
+    }
+
 }
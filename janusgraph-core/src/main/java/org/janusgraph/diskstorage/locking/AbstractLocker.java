@@ -344,9 +344,7 @@ public abstract class AbstractLocker<S extends LockStatus> implements Locker {
         // interrupt
         boolean ok = false;
         try {
-            for (final Map.Entry<KeyColumn, S> entry : m.entrySet()) {
-                checkSingleLock(entry.getKey(), entry.getValue(), tx);
-            }
+            checkAllLocks(m, tx);
             ok = true;
         } catch (TemporaryLockingException | PermanentLockingException | AssertionError tle) {
             throw tle;
@@ -369,7 +367,34 @@ public abstract class AbstractLocker<S extends LockStatus> implements Locker {
 
         Map<KeyColumn, S> m = lockState.getLocksForTx(tx);
 
-        final Iterator<Map.Entry<KeyColumn, S>> iterator = m.entrySet().iterator();
+        deleteAllLocks(m, tx);
+    }
+
+    /**
+     * Verify all locks written on behalf of {@code tx}. The default implementation calls
+     * {@link #checkSingleLock(KeyColumn, LockStatus, StoreTransaction)} for each lock in turn. Implementations which
+     * can verify several locks with fewer storage round trips may override this method.
+     *
+     * @param locks the locks held by {@code tx} and their statuses
+     * @param tx    identifies the process claiming the locks
+     * @throws Throwable if any lock fails the check or if the attempted check encountered an error
+     */
+    protected void checkAllLocks(Map<KeyColumn, S> locks, StoreTransaction tx) throws Throwable {
+        for (final Map.Entry<KeyColumn, S> entry : locks.entrySet()) {
+            checkSingleLock(entry.getKey(), entry.getValue(), tx);
+        }
+    }
+
+    /**
+     * Release all locks held by {@code tx}, both in storage and in the local mediator, and remove them from
+     * {@code locks}. Failures to delete a lock from storage are logged instead of thrown. The default implementation
+     * calls {@link #deleteSingleLock(KeyColumn, LockStatus, StoreTransaction)} for each lock in turn.
+     *
+     * @param locks the locks held by {@code tx} and their statuses
+     * @param tx    identifies the process holding the locks
+     */
+    protected void deleteAllLocks(Map<KeyColumn, S> locks, StoreTransaction tx) {
+        final Iterator<Map.Entry<KeyColumn, S>> iterator = locks.entrySet().iterator();
         while (iterator.hasNext()) {
             final Map.Entry<KeyColumn, S> entry = iterator.next();
             final KeyColumn kc = entry.getKey();
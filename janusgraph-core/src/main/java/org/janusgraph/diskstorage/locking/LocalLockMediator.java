@@ -22,7 +22,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This class resolves lock contention between two transactions on the same JVM.
@@ -33,6 +38,13 @@ import java.util.concurrent.ConcurrentHashMap;
  * transaction in a process holds any given lock. This class prevents two
  * transactions in a single process from concurrently writing the same lock to a
  * distributed key-value store.
+ * <p>
+ * Lock records are spread over a fixed number of stripes by the hash of their
+ * {@link KeyColumn}, so transactions locking different key-columns rarely
+ * contend with each other. Each stripe keeps a small timing wheel of its lock
+ * records, which is advanced whenever the stripe is accessed and at least one
+ * tick has passed, so that locks of transactions which never released them are
+ * eventually discarded instead of accumulating until they are contended.
  *
  * @author Dan LaRocque (dalaro@hopcount.org)
  */
@@ -42,6 +54,21 @@ public class LocalLockMediator<T> {
     private static final Logger log = LoggerFactory
             .getLogger(LocalLockMediator.class);
 
+    /**
+     * Default number of stripes, must be a power of two
+     */
+    public static final int DEFAULT_STRIPES = 64;
+
+    /**
+     * Number of slots of the timing wheel of each stripe, must be a power of two
+     */
+    private static final int WHEEL_SLOTS = 64;
+
+    /**
+     * Duration of a single tick of the timing wheels
+     */
+    private static final long TICK_MILLIS = 1000;
+
     /**
      * Namespace for which this mediator is responsible
      *
@@ -53,18 +80,33 @@ public class LocalLockMediator<T> {
 
     /**
      * Maps a ({@code key}, {@code column}) pair to the local transaction
-     * holding a lock on that pair. Values in this map may have already expired
-     * according to {@link AuditRecord#expires}, in which case the lock should
-     * be considered invalid.
+     * holding a lock on that pair, partitioned by the hash of the pair.
+     * Records may have already expired according to {@link AuditRecord#expires},
+     * in which case the lock should be considered invalid.
      */
-    private final ConcurrentHashMap<KeyColumn, AuditRecord<T>> locks = new ConcurrentHashMap<>();
+    private final Stripe<T>[] stripes;
+
+    private final int stripeMask;
 
     public LocalLockMediator(String name, TimestampProvider times) {
+        this(name, times, DEFAULT_STRIPES);
+    }
+
+    @SuppressWarnings("unchecked")
+    public LocalLockMediator(String name, TimestampProvider times, int numStripes) {
         this.name = name;
         this.times = times;
 
         Preconditions.checkNotNull(name);
         Preconditions.checkNotNull(times);
+        Preconditions.checkArgument(numStripes > 0 && Integer.bitCount(numStripes) == 1,
+            "Number of stripes must be a positive power of two: %s", numStripes);
+
+        stripes = new Stripe[numStripes];
+        for (int i = 0; i < numStripes; i++) {
+            stripes[i] = new Stripe<>();
+        }
+        stripeMask = numStripes - 1;
     }
 
     /**
@@ -99,50 +141,62 @@ public class LocalLockMediator<T> {
         assert null != kc;
         assert null != requester;
 
-        final StackTraceElement[] acquiredAt = log.isTraceEnabled() ?
-                new Throwable("Lock acquisition by " + requester).getStackTrace() : null;
-
-        final AuditRecord<T> audit = new AuditRecord<>(requester, expires, acquiredAt);
-        final AuditRecord<T> inMap = locks.putIfAbsent(kc, audit);
+        final Stripe<T> stripe = stripeOf(kc);
+        stripe.lock.lock();
+        try {
+            expire(stripe);
+            final AuditRecord<T> inMap = stripe.locks.get(kc);
+            if (!isAvailable(kc, inMap, requester)) {
+                return false;
+            }
+            acquire(stripe, kc, inMap, requester, expires);
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
 
-        boolean success = false;
+    /**
+     * Acquire the locks specified by {@code kcs} at once. Either all locks are
+     * acquired or none of them is, in which case locks which {@code requester}
+     * already held are left unchanged. Each lock behaves as if it had been
+     * acquired by {@link #lock(KeyColumn, Object, Instant)}, and may be released
+     * individually or by {@link #unlockAll(Collection, Object)}.
+     * <p>
+     * The stripes holding the locks are locked in ascending order, so concurrent
+     * batches cannot deadlock.
+     *
+     * @param kcs       lock identifiers
+     * @param requester the object locking {@code kcs}
+     * @param expires   instant at which these locks will automatically expire
+     * @return true if all locks are acquired, false if none was acquired
+     */
+    public boolean lockAll(Collection<KeyColumn> kcs, T requester, Instant expires) {
+        assert null != requester;
 
-        if (null == inMap) {
-            // Uncontended lock succeeded
-            if (log.isTraceEnabled()) {
-                log.trace("New local lock created: {} namespace={} txn={}",
-                    kc, name, requester);
+        final int[] indexes = stripeIndexes(kcs);
+        int locked = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].lock.lock();
+                locked++;
+                expire(stripes[index]);
             }
-            success = true;
-        } else if (inMap.equals(audit)) {
-            // requester has already locked kc; update expiresAt
-            success = locks.replace(kc, inMap, audit);
-            if (log.isTraceEnabled()) {
-                if (success) {
-                    log.trace("Updated local lock expiration: {} namespace={} txn={} oldexp={} newexp={}",
-                        kc, name, requester, inMap.expires, audit.expires);
-                } else {
-                    log.trace("Failed to update local lock expiration: {} namespace={} txn={} oldexp={} newexp={}",
-                        kc, name, requester, inMap.expires, audit.expires);
+            for (KeyColumn kc : kcs) {
+                if (!isAvailable(kc, stripeOf(kc).locks.get(kc), requester)) {
+                    return false;
                 }
             }
-        } else if (0 > inMap.expires.compareTo(times.getTime())) {
-            // the recorded lock has expired; replace it
-            success = locks.replace(kc, inMap, audit);
-            if (log.isTraceEnabled()) {
-                log.trace("Discarding expired lock: {} namespace={} txn={} expired={}",
-                    kc, name, inMap.holder, inMap.expires);
+            for (KeyColumn kc : kcs) {
+                final Stripe<T> stripe = stripeOf(kc);
+                acquire(stripe, kc, stripe.locks.get(kc), requester, expires);
             }
-        } else {
-            // we lost to a valid lock
-            if (log.isTraceEnabled()) {
-                log.trace("Local lock failed: {} namespace={} txn={} (already owned by {})",
-                    kc, name, requester, inMap);
-                log.trace("Owner stacktrace:\n        {}", StringUtils.join(inMap.acquiredAt,"\n        "));
+            return true;
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[indexes[i]].lock.unlock();
             }
         }
-
-        return success;
     }
 
     /**
@@ -153,114 +207,292 @@ public class LocalLockMediator<T> {
      * @param requester the object which previously locked {@code kc}
      */
     public boolean unlock(KeyColumn kc, T requester) {
+        final Stripe<T> stripe = stripeOf(kc);
+        stripe.lock.lock();
+        try {
+            return release(stripe, kc, requester);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
 
-        if (!locks.containsKey(kc)) {
-            log.error("Local unlock failed: no locks found for {}", kc);
-            return false;
+    /**
+     * Release the locks specified by {@code kcs} which were previously locked
+     * by {@code requester}, locking each stripe only once.
+     *
+     * @param kcs       lock identifiers
+     * @param requester the object which previously locked {@code kcs}
+     * @return true if all locks were released, false if any of them was not held by {@code requester}
+     */
+    public boolean unlockAll(Collection<KeyColumn> kcs, T requester) {
+        final int[] indexes = stripeIndexes(kcs);
+        int locked = 0;
+        boolean success = true;
+        try {
+            for (int index : indexes) {
+                stripes[index].lock.lock();
+                locked++;
+            }
+            for (KeyColumn kc : kcs) {
+                success &= release(stripeOf(kc), kc, requester);
+            }
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[indexes[i]].lock.unlock();
+            }
         }
+        return success;
+    }
 
-        final AuditRecord<T> unlocker = new AuditRecord<>(requester, null, null);
+    private Stripe<T> stripeOf(KeyColumn kc) {
+        return stripes[stripeIndex(kc)];
+    }
 
-        final AuditRecord<T> holder = locks.get(kc);
+    private int stripeIndex(KeyColumn kc) {
+        final int h = kc.hashCode();
+        return (h ^ (h >>> 16)) & stripeMask;
+    }
 
-        if (!holder.equals(unlocker)) {
-            log.error("Local unlock of {} by {} failed: it is held by {}",
-                kc, unlocker, holder);
-            return false;
+    /**
+     * Returns the distinct stripes of {@code kcs} in ascending order.
+     */
+    private int[] stripeIndexes(Collection<KeyColumn> kcs) {
+        final int[] indexes = new int[kcs.size()];
+        int i = 0;
+        for (KeyColumn kc : kcs) {
+            indexes[i++] = stripeIndex(kc);
+        }
+        Arrays.sort(indexes);
+        int distinct = 0;
+        for (int j = 0; j < indexes.length; j++) {
+            if (j == 0 || indexes[j] != indexes[distinct - 1]) {
+                indexes[distinct++] = indexes[j];
+            }
         }
+        return distinct == indexes.length ? indexes : Arrays.copyOf(indexes, distinct);
+    }
 
-        boolean removed = locks.remove(kc, unlocker);
+    /**
+     * Whether {@code requester} may take the lock on {@code kc} whose current
+     * record is {@code inMap}. Must be called with the stripe of {@code kc} locked.
+     */
+    private boolean isAvailable(KeyColumn kc, AuditRecord<T> inMap, T requester) {
+        if (null == inMap || inMap.holder.equals(requester)) {
+            return true;
+        }
+        if (0 > inMap.expires.compareTo(times.getTime())) {
+            // the recorded lock has expired; it may be replaced
+            if (log.isTraceEnabled()) {
+                log.trace("Discarding expired lock: {} namespace={} txn={} expired={}",
+                    kc, name, inMap.holder, inMap.expires);
+            }
+            return true;
+        }
+        // we lost to a valid lock
+        if (log.isTraceEnabled()) {
+            log.trace("Local lock failed: {} namespace={} txn={} (already owned by {})",
+                kc, name, requester, inMap);
+            log.trace("Owner stacktrace:\n        {}", StringUtils.join(inMap.acquiredAt, "\n        "));
+        }
+        return false;
+    }
 
-        if (removed) {
+    /**
+     * Record {@code requester} as holder of the lock on {@code kc}, reusing the
+     * existing record if there is one. Must be called with the stripe of
+     * {@code kc} locked and after {@link #isAvailable} returned true.
+     */
+    private void acquire(Stripe<T> stripe, KeyColumn kc, AuditRecord<T> inMap, T requester, Instant expires) {
+        final StackTraceElement[] acquiredAt = log.isTraceEnabled() ?
+                new Throwable("Lock acquisition by " + requester).getStackTrace() : null;
+
+        if (null == inMap) {
+            // Uncontended lock succeeded
+            final AuditRecord<T> audit = new AuditRecord<>(kc, requester, expires, acquiredAt);
+            stripe.locks.put(kc, audit);
+            stripe.schedule(audit);
             if (log.isTraceEnabled()) {
-                log.trace("Local unlock succeeded: {} namespace={} txn={}",
+                log.trace("New local lock created: {} namespace={} txn={}",
                     kc, name, requester);
             }
+        } else if (inMap.holder.equals(requester)) {
+            // requester has already locked kc; update expiresAt
+            if (log.isTraceEnabled()) {
+                log.trace("Updated local lock expiration: {} namespace={} txn={} oldexp={} newexp={}",
+                    kc, name, requester, inMap.expires, expires);
+            }
+            inMap.expires = expires;
         } else {
-            log.warn("Local unlock warning: lock record for {} disappeared "
-                    + "during removal; this suggests the lock either expired "
-                    + "while we were removing it, or that it was erroneously "
-                    + "unlocked multiple times.", kc);
+            // take over the expired lock; the record stays scheduled in the wheel
+            inMap.holder = requester;
+            inMap.expires = expires;
+            inMap.acquiredAt = acquiredAt;
+        }
+    }
+
+    /**
+     * Must be called with the stripe of {@code kc} locked.
+     */
+    private boolean release(Stripe<T> stripe, KeyColumn kc, T requester) {
+        final AuditRecord<T> holder = stripe.locks.get(kc);
+
+        if (null == holder) {
+            log.error("Local unlock failed: no locks found for {}", kc);
+            return false;
+        }
+
+        if (!holder.holder.equals(requester)) {
+            log.error("Local unlock of {} by {} failed: it is held by {}",
+                kc, requester, holder);
+            return false;
         }
 
-        // Even if !removed, we're finished unlocking, so return true
+        stripe.locks.remove(kc);
+        if (log.isTraceEnabled()) {
+            log.trace("Local unlock succeeded: {} namespace={} txn={}",
+                kc, name, requester);
+        }
         return true;
     }
 
+    /**
+     * Advance the timing wheel of {@code stripe} and discard the lock records
+     * which have expired in the meantime. A slot is only visited once its tick
+     * has passed entirely according to the {@link TimestampProvider} of this
+     * mediator, so that all records of the tick have expired by then. This is
+     * a no-op unless another tick has passed since the wheel was last advanced.
+     * Must be called with the stripe locked.
+     */
+    private void expire(Stripe<T> stripe) {
+        final Instant now = times.getTime();
+        final long lastPassedTick = tickOf(now) - 1;
+        if (lastPassedTick <= stripe.currentTick) {
+            return;
+        }
+        if (stripe.currentTick < 0 || lastPassedTick - stripe.currentTick >= WHEEL_SLOTS) {
+            stripe.currentTick = lastPassedTick - WHEEL_SLOTS;
+        }
+        int discarded = 0;
+        while (stripe.currentTick < lastPassedTick) {
+            stripe.currentTick++;
+            discarded += stripe.advance(stripe.wheel[(int) (stripe.currentTick & (WHEEL_SLOTS - 1))], now);
+        }
+        if (0 < discarded) {
+            log.debug("Discarded {} expired local locks in namespace {}", discarded, name);
+        }
+    }
+
+    private static long tickOf(Instant instant) {
+        final long seconds = instant.getEpochSecond();
+        if (seconds >= Long.MAX_VALUE / 1000) {
+            return Long.MAX_VALUE / TICK_MILLIS;
+        }
+        return instant.toEpochMilli() / TICK_MILLIS;
+    }
+
     public String toString() {
-        return "LocalLockMediator [" + name + ",  ~" + locks.size()
+        int size = 0;
+        for (Stripe<T> stripe : stripes) {
+            size += stripe.locks.size();
+        }
+        return "LocalLockMediator [" + name + ",  ~" + size
                 + " current locks]";
     }
 
+    /**
+     * A partition of the lock records of a mediator, guarded by its own lock.
+     */
+    private static class Stripe<T> {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final HashMap<KeyColumn, AuditRecord<T>> locks = new HashMap<>();
+
+        /**
+         * Each slot holds the records expiring in any tick which is congruent to
+         * the slot modulo {@link #WHEEL_SLOTS}.
+         */
+        @SuppressWarnings("unchecked")
+        private final List<AuditRecord<T>>[] wheel = new List[WHEEL_SLOTS];
+
+        /**
+         * The last tick whose slot has been visited
+         */
+        private long currentTick = -1;
+
+        private void schedule(AuditRecord<T> record) {
+            final int slot = (int) (tickOf(record.expires) & (WHEEL_SLOTS - 1));
+            if (null == wheel[slot]) {
+                wheel[slot] = new ArrayList<>();
+            }
+            wheel[slot].add(record);
+        }
+
+        /**
+         * Discards the expired records of {@code slot} and moves the records
+         * whose expiration was updated to their current slot.
+         *
+         * @return the number of discarded locks
+         */
+        private int advance(List<AuditRecord<T>> slot, Instant now) {
+            if (null == slot || slot.isEmpty()) {
+                return 0;
+            }
+            int discarded = 0;
+            int retained = 0;
+            final int size = slot.size();
+            for (int i = 0; i < size; i++) {
+                final AuditRecord<T> record = slot.get(i);
+                if (locks.get(record.kc) != record) {
+                    // released
+                    continue;
+                }
+                if (0 > record.expires.compareTo(now)) {
+                    locks.remove(record.kc);
+                    discarded++;
+                } else if (wheel[(int) (tickOf(record.expires) & (WHEEL_SLOTS - 1))] == slot) {
+                    slot.set(retained++, record);
+                } else {
+                    schedule(record);
+                }
+            }
+            slot.subList(retained, size).clear();
+            return discarded;
+        }
+    }
+
     /**
      * A record containing the local transaction that holds a lock and the
-     * lock's expiration time.
+     * lock's expiration time. Records are only accessed while holding the lock
+     * of their stripe.
      */
     private static class AuditRecord<T> {
 
         /**
-         * The local transaction that holds/held the lock.
+         * The locked key-column.
          */
-        private final T holder;
+        private final KeyColumn kc;
         /**
-         * The expiration time of a the lock.
+         * The local transaction that holds/held the lock.
          */
-        private final Instant expires;
+        private T holder;
         /**
-         * Cached hashCode.
+         * The expiration time of a the lock.
          */
-        private int hashCode;
+        private Instant expires;
 
         /**
          * A optional call trace generated when the lock was acquired.
          */
-        private final StackTraceElement[] acquiredAt;
+        private StackTraceElement[] acquiredAt;
 
-        private AuditRecord(T holder, Instant expires, StackTraceElement[] acquiredAt) {
+        private AuditRecord(KeyColumn kc, T holder, Instant expires, StackTraceElement[] acquiredAt) {
+            this.kc = kc;
             this.holder = holder;
             this.expires = expires;
             this.acquiredAt = acquiredAt;
         }
 
-        /**
-         * This implementation depends only on the lock holder and not on the
-         * lock expiration time.
-         */
-        @Override
-        public int hashCode() {
-            if (0 == hashCode)
-                hashCode = holder.hashCode();
-
-            return hashCode;
-        }
-
-        /**
-         * This implementation depends only on the lock holder and not on the
-         * lock expiration time.
-         */
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj)
-                return true;
-            if (obj == null)
-                return false;
-            if (getClass() != obj.getClass())
-                return false;
-            /*
-             * This warning suppression is harmless because we are only going to
-             * call other.holder.equals(...), and since equals(...) is part of
-             * Object, it is guaranteed to be defined no matter the concrete
-             * type of parameter T.
-             */
-            @SuppressWarnings("rawtypes")
-            AuditRecord other = (AuditRecord) obj;
-            if (holder == null) {
-                return other.holder == null;
-            } else {
-                return holder.equals(other.holder);
-            }
-        }
-
         @Override
         public String toString() {
             return "AuditRecord [txn=" + holder + ", expires=" + expires + "]";
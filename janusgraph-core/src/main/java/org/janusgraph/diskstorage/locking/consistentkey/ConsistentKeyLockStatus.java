@@ -22,6 +22,10 @@ import java.time.Instant;
 /**
  * The timestamps of a lock held by a {@link ConsistentKeyLocker}
  * and whether the held lock has or has not been checked.
+ * <p>
+ * A {@link ConsistentKeyLocker} which batches its lock writes hands out
+ * statuses without a write timestamp until the lock claim has actually
+ * been written to the store; see {@link #isWritten()}.
  *
  */
 public class ConsistentKeyLockStatus implements LockStatus {
@@ -46,6 +50,13 @@ public class ConsistentKeyLockStatus implements LockStatus {
         return write;
     }
 
+    /**
+     * @return whether the lock claim has been written to the store
+     */
+    public boolean isWritten() {
+        return write != null;
+    }
+
     public boolean isChecked() {
         return checked;
     }
@@ -24,8 +24,12 @@ import org.janusgraph.diskstorage.StaticBuffer;
 import org.janusgraph.diskstorage.TemporaryBackendException;
 import org.janusgraph.diskstorage.configuration.ConfigElement;
 import org.janusgraph.diskstorage.configuration.Configuration;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.keycolumnvalue.KCVMutation;
 import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStoreManager;
 import org.janusgraph.diskstorage.keycolumnvalue.KeySliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
 import org.janusgraph.diskstorage.keycolumnvalue.StoreManager;
 import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
 import org.janusgraph.diskstorage.locking.AbstractLocker;
@@ -50,7 +54,10 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.janusgraph.util.encoding.StringEncoding.UTF8_CHARSET;
 
@@ -127,6 +134,18 @@ import static org.janusgraph.util.encoding.StringEncoding.UTF8_CHARSET;
  * {@code rid} is only unique at the process level.  Without a mediator, distinct
  * threads could write lock columns with the same {@code rid} and be unable to
  * tell their lock claims apart.
+ * <p>
+ * <h4>Batched locking</h4>
+ * <p>
+ * When {@link Builder#batchLocks(boolean)} is enabled, {@link #writeLock(KeyColumn, StoreTransaction)}
+ * only claims the lock in the local mediator and defers all storage I/O to
+ * {@link #checkLocks(StoreTransaction)}. The latter then runs the sequence
+ * above once for all locks of the transaction: the claims are written with a
+ * single timestamp in one batched mutation, the locker waits {@code lockWait}
+ * once, and all claims are read back with a single multi-key slice query.
+ * Releasing the locks likewise deletes all claims in one batched mutation.
+ * This reduces the number of storage round trips and waits from one per lock
+ * to a constant per transaction.
  */
 public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus> implements Locker {
 
@@ -144,6 +163,11 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
 
     private final int lockRetryCount;
 
+    /**
+     * Whether lock claims are written, checked and deleted in batches.
+     */
+    private final boolean batchLocks;
+
     /**
      * Expired lock cleaner in charge of {@link #store}.
      */
@@ -191,6 +215,7 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
         // Optional (has default)
         private Duration lockWait;
         private int lockRetryCount;
+        private boolean batchLocks;
 
         private enum CleanerConfig {
             NONE,
@@ -206,6 +231,7 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
             this.manager = manager;
             this.lockWait = GraphDatabaseConfiguration.LOCK_WAIT.getDefaultValue();
             this.lockRetryCount = GraphDatabaseConfiguration.LOCK_RETRY.getDefaultValue();
+            this.batchLocks = GraphDatabaseConfiguration.LOCK_BATCH.getDefaultValue();
         }
 
         public Builder lockWait(Duration d) {
@@ -218,6 +244,11 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
             return self();
         }
 
+        public Builder batchLocks(boolean batch) {
+            this.batchLocks = batch;
+            return self();
+        }
+
         public Builder standardCleaner() {
             this.cleanerConfig = CleanerConfig.STANDARD;
             this.customCleanerService = null;
@@ -247,6 +278,8 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
 
             lockExpire(config.get(GraphDatabaseConfiguration.LOCK_EXPIRE));
 
+            batchLocks(config.get(GraphDatabaseConfiguration.LOCK_BATCH));
+
             if (config.get(GraphDatabaseConfiguration.LOCK_CLEAN_EXPIRED)) {
                 standardCleaner();
             }
@@ -276,6 +309,7 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
                     serializer, llm,
                     lockWait,
                     lockRetryCount,
+                    batchLocks,
                     lockExpire,
                     lockState, cleaner);
         }
@@ -298,7 +332,7 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
     private ConsistentKeyLocker(KeyColumnValueStore store, StoreManager manager, StaticBuffer rid,
                                 TimestampProvider times, ConsistentKeyLockerSerializer serializer,
                                 LocalLockMediator<StoreTransaction> llm, Duration lockWait,
-                                int lockRetryCount, Duration lockExpire,
+                                int lockRetryCount, boolean batchLocks, Duration lockExpire,
                                 LockerState<ConsistentKeyLockStatus> lockState,
                                 LockCleanerService cleanerService) {
         super(rid, times, serializer, llm, lockState, lockExpire, log);
@@ -306,6 +340,7 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
         this.manager = manager;
         this.lockWait = lockWait;
         this.lockRetryCount = lockRetryCount;
+        this.batchLocks = batchLocks;
         this.cleanerService = cleanerService;
     }
 
@@ -330,6 +365,11 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
     @Override
     protected ConsistentKeyLockStatus writeSingleLock(KeyColumn lockID, StoreTransaction txh) throws Throwable {
 
+        if (batchLocks) {
+            // The claim is written together with all other claims of txh in checkAllLocks
+            return new ConsistentKeyLockStatus(null, times.getTime().plus(lockExpire));
+        }
+
         final StaticBuffer lockKey = serializer.toLockKey(lockID.getKey(), lockID.getColumn());
         StaticBuffer oldLockCol = null;
 
@@ -390,6 +430,138 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
         }
     }
 
+    /**
+     * Write all pending lock claims in {@code locks} with a single timestamp in
+     * one batched mutation, retrying like
+     * {@link #writeSingleLock(KeyColumn, StoreTransaction)} does for a single
+     * claim. On success, the pending statuses in {@code locks} are replaced by
+     * the written ones.
+     */
+    private void writeLocksInBatch(Map<KeyColumn, ConsistentKeyLockStatus> locks,
+                                   StoreTransaction txh) throws Throwable {
+
+        final Map<KeyColumn, StaticBuffer> lockKeys = new LinkedHashMap<>();
+        for (Map.Entry<KeyColumn, ConsistentKeyLockStatus> entry : locks.entrySet()) {
+            if (!entry.getValue().isWritten()) {
+                final KeyColumn kc = entry.getKey();
+                lockKeys.put(kc, serializer.toLockKey(kc.getKey(), kc.getColumn()));
+            }
+        }
+        if (lockKeys.isEmpty())
+            return;
+
+        StaticBuffer oldLockCol = null;
+
+        for (int i = 0; i < lockRetryCount; i++) {
+            WriteResult wr = tryWriteLocksOnce(lockKeys.values(), oldLockCol, txh);
+            if (wr.isSuccessful() && wr.getDuration().compareTo(lockWait) <= 0) {
+                final Instant writeInstant = wr.getWriteTimestamp();
+                final Instant expireInstant = writeInstant.plus(lockExpire);
+                // update local lock expiration times, which fails if a local lock expired and was taken over meanwhile
+                if (!llm.lockAll(lockKeys.keySet(), txh, expireInstant)) {
+                    WriteResult dwr = tryDeleteLocksOnce(lockKeys.values(), wr.getLockCol(), txh);
+                    if (!dwr.isSuccessful()) {
+                        log.warn("Failed to delete lock writes: abandoning potentially-unreleased locks on {}",
+                            lockKeys.keySet(), dwr.getThrowable());
+                    }
+                    throw new PermanentLockingException("Local lock contention");
+                }
+                for (KeyColumn kc : lockKeys.keySet()) {
+                    locks.put(kc, new ConsistentKeyLockStatus(writeInstant, expireInstant));
+                }
+                log.debug("Wrote {} lock claims in one batch", lockKeys.size());
+                return;
+            }
+            oldLockCol = wr.getLockCol();
+            Throwable error = wr.getThrowable();
+            if (null != error) {
+                if (error instanceof TemporaryBackendException) {
+                    log.warn("Temporary exception during batched lock write", error);
+                } else {
+                    log.error("Fatal exception encountered during attempted batched lock write", error);
+                    WriteResult dwr = tryDeleteLocksOnce(lockKeys.values(), oldLockCol, txh);
+                    if (!dwr.isSuccessful()) {
+                        log.warn("Failed to delete lock writes: abandoning potentially-unreleased locks on {}",
+                            lockKeys.keySet(), dwr.getThrowable());
+                    }
+                    throw error;
+                }
+            } else {
+                log.warn("Batched lock write succeeded but took too long: duration {} exceeded limit {}",
+                    wr.getDuration(), lockWait);
+            }
+        }
+        tryDeleteLocksOnce(lockKeys.values(), oldLockCol, txh);
+        throw new TemporaryBackendException("Lock write retry count exceeded");
+    }
+
+    private WriteResult tryWriteLocksOnce(Iterable<StaticBuffer> keys, StaticBuffer del, StoreTransaction txh) {
+        Throwable t = null;
+        final Timer writeTimer = times.getTimer().start();
+        StaticBuffer newLockCol = serializer.toLockCol(writeTimer.getStartTime(), rid, times);
+        Entry newLockEntry = StaticArrayEntry.of(newLockCol, zeroBuf);
+        final KCVMutation mutation = new KCVMutation(Collections.singletonList(newLockEntry),
+            null == del ? KeyColumnValueStore.NO_DELETIONS : Collections.singletonList(del));
+        StoreTransaction newTx = null;
+        try {
+            newTx = overrideTimestamp(txh, writeTimer.getStartTime());
+
+            mutateMany(keys, mutation, newTx);
+
+            newTx.commit();
+            newTx = null;
+        } catch (BackendException e) {
+            log.debug("Batched lock write attempt failed with exception", e);
+            t = e;
+        } finally {
+            rollbackIfNotNull(newTx);
+        }
+        writeTimer.stop();
+
+        return new WriteResult(writeTimer.elapsed(), writeTimer.getStartTime(), newLockCol, t);
+    }
+
+    private WriteResult tryDeleteLocksOnce(Iterable<StaticBuffer> keys, StaticBuffer col, StoreTransaction txh) {
+        Throwable t = null;
+        final Timer delTimer = times.getTimer().start();
+        StoreTransaction newTx = null;
+        try {
+            newTx = overrideTimestamp(txh, delTimer.getStartTime());
+
+            mutateMany(keys, new KCVMutation(Collections.emptyList(), Collections.singletonList(col)), newTx);
+
+            newTx.commit();
+            newTx = null;
+        } catch (BackendException e) {
+            t = e;
+        } finally {
+            rollbackIfNotNull(newTx);
+        }
+        delTimer.stop();
+
+        return new WriteResult(delTimer.elapsed(), delTimer.getStartTime(), null, t);
+    }
+
+    /**
+     * Apply {@code mutation} to every key in {@code keys}, using a single
+     * {@link KeyColumnValueStoreManager#mutateMany(Map, StoreTransaction)}
+     * call if the store manager supports it.
+     */
+    private void mutateMany(Iterable<StaticBuffer> keys, KCVMutation mutation,
+                            StoreTransaction tx) throws BackendException {
+        if (manager instanceof KeyColumnValueStoreManager) {
+            final Map<StaticBuffer, KCVMutation> mutations = new HashMap<>();
+            for (StaticBuffer key : keys) {
+                mutations.put(key, mutation);
+            }
+            ((KeyColumnValueStoreManager) manager).mutateMany(Collections.singletonMap(store.getName(), mutations), tx);
+        } else {
+            for (StaticBuffer key : keys) {
+                store.mutate(key, mutation.getAdditions(), mutation.getDeletions(), tx);
+            }
+        }
+    }
+
     private WriteResult tryWriteLockOnce(StaticBuffer key, StaticBuffer del, StoreTransaction txh) {
         Throwable t = null;
         final Timer writeTimer = times.getTimer().start();
@@ -452,6 +624,49 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
             LOCK_COL_END);
         List<Entry> claimEntries = getSliceWithRetries(ksq, tx);
 
+        checkClaims(kc, ls, claimEntries, now, tx);
+    }
+
+    @Override
+    protected void checkAllLocks(Map<KeyColumn, ConsistentKeyLockStatus> locks,
+                                 StoreTransaction tx) throws Throwable {
+
+        if (!batchLocks) {
+            super.checkAllLocks(locks, tx);
+            return;
+        }
+
+        writeLocksInBatch(locks, tx);
+
+        final Map<KeyColumn, StaticBuffer> lockKeys = new LinkedHashMap<>();
+        Instant latestWrite = null;
+        for (Map.Entry<KeyColumn, ConsistentKeyLockStatus> entry : locks.entrySet()) {
+            final ConsistentKeyLockStatus ls = entry.getValue();
+            if (ls.isChecked())
+                continue;
+            final KeyColumn kc = entry.getKey();
+            lockKeys.put(kc, serializer.toLockKey(kc.getKey(), kc.getColumn()));
+            if (null == latestWrite || latestWrite.isBefore(ls.getWriteTimestamp()))
+                latestWrite = ls.getWriteTimestamp();
+        }
+        if (lockKeys.isEmpty())
+            return;
+
+        // Sleep once for all claims, then read them back in a single multi-key slice
+        final Instant now = times.sleepPast(latestWrite.plus(lockWait));
+        final Map<StaticBuffer, EntryList> claims = getSliceWithRetries(new ArrayList<>(lockKeys.values()),
+            new SliceQuery(LOCK_COL_START, LOCK_COL_END), tx);
+
+        for (Map.Entry<KeyColumn, StaticBuffer> entry : lockKeys.entrySet()) {
+            final List<Entry> claimEntries = claims.get(entry.getValue());
+            checkClaims(entry.getKey(), locks.get(entry.getKey()),
+                null == claimEntries ? Collections.emptyList() : claimEntries, now, tx);
+        }
+    }
+
+    private void checkClaims(final KeyColumn kc, final ConsistentKeyLockStatus ls, final List<Entry> claimEntries,
+                             final Instant now, final StoreTransaction tx) throws BackendException {
+
         // Extract timestamp and rid from the column in each returned Entry...
         final Iterable<TimestampRid> iterable = Iterables.transform(claimEntries,
             e -> serializer.fromLockColumn(e.getColumnAs(StaticBuffer.STATIC_FACTORY), times));
@@ -500,6 +715,23 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
         throw new TemporaryBackendException("Maximum retries (" + lockRetryCount + ") exceeded while checking locks");
     }
 
+    private Map<StaticBuffer, EntryList> getSliceWithRetries(List<StaticBuffer> keys, SliceQuery query,
+                                                             StoreTransaction tx) throws BackendException {
+
+        for (int i = 0; i < lockRetryCount; i++) {
+            try {
+                return store.getSlice(keys, query, tx);
+            } catch (PermanentBackendException e) {
+                log.error("Failed to check locks", e);
+                throw new PermanentLockingException(e);
+            } catch (TemporaryBackendException e) {
+                log.warn("Temporary storage failure while checking locks", e);
+            }
+        }
+
+        throw new TemporaryBackendException("Maximum retries (" + lockRetryCount + ") exceeded while checking locks");
+    }
+
     private void checkSeniority(KeyColumn target, ConsistentKeyLockStatus ls,
                                 Iterable<TimestampRid> claimTRs) throws BackendException {
 
@@ -580,6 +812,45 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
         }
     }
 
+    @Override
+    protected void deleteAllLocks(Map<KeyColumn, ConsistentKeyLockStatus> locks, StoreTransaction tx) {
+
+        if (!batchLocks) {
+            super.deleteAllLocks(locks, tx);
+            return;
+        }
+
+        // All claims written in one batch share their lock column, so group the keys by column
+        final Map<StaticBuffer, List<StaticBuffer>> keysByCol = new LinkedHashMap<>();
+        for (Map.Entry<KeyColumn, ConsistentKeyLockStatus> entry : locks.entrySet()) {
+            final ConsistentKeyLockStatus ls = entry.getValue();
+            if (!ls.isWritten())
+                continue;
+            final KeyColumn kc = entry.getKey();
+            keysByCol.computeIfAbsent(serializer.toLockCol(ls.getWriteTimestamp(), rid, times), c -> new ArrayList<>())
+                .add(serializer.toLockKey(kc.getKey(), kc.getColumn()));
+        }
+
+        for (Map.Entry<StaticBuffer, List<StaticBuffer>> entry : keysByCol.entrySet()) {
+            for (int i = 0; i < lockRetryCount; i++) {
+                final WriteResult dwr = tryDeleteLocksOnce(entry.getValue(), entry.getKey(), tx);
+                if (dwr.isSuccessful())
+                    break;
+                if (dwr.getThrowable() instanceof TemporaryBackendException) {
+                    log.warn("Temporary storage exception while deleting locks", dwr.getThrowable());
+                    // iterate and retry
+                } else {
+                    log.error("Storage exception while deleting locks", dwr.getThrowable());
+                    break; // give up on these locks
+                }
+            }
+        }
+
+        // Regardless of whether we successfully deleted the locks from storage, take them out of the local mediator
+        llm.unlockAll(locks.keySet(), tx);
+        locks.clear();
+    }
+
     private StoreTransaction overrideTimestamp(final StoreTransaction tx,
                                                final Instant commitTime) throws BackendException {
         StandardBaseTransactionConfig newCfg = new StandardBaseTransactionConfig.Builder(tx.getConfiguration())
@@ -106,6 +106,18 @@ public class ExpectedValueCheckingStore extends KCVSProxy {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The insertion does not need a lock: it is executed on the strongly
+     * consistent transaction so that the store's atomic check-and-insert
+     * arbitrates between concurrent writers.
+     */
+    @Override
+    public boolean insertIfAbsent(StaticBuffer key, Entry entry, StoreTransaction txh) throws BackendException {
+        return store.insertIfAbsent(key, entry, getConsistentTx(txh));
+    }
+
     Locker getLocker() {
         return locker;
     }
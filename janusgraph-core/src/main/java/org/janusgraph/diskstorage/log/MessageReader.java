@@ -14,6 +14,8 @@
 
 package org.janusgraph.diskstorage.log;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Implementations of this interface are used to process messages read from the log.
  *
@@ -27,6 +29,23 @@ public interface MessageReader {
      */
     void read(Message message);
 
+    /**
+     * Processes the given message like {@link #read(Message)}, but allows the reader to finish processing it
+     * asynchronously, e.g. by buffering messages and processing them in batches. The returned future completes once
+     * the message has been processed.
+     * <p>
+     * Logs read with a {@link ReadMarker#fromIdentifierOrTimeAfterProcessing(String, java.time.Instant)} marker only
+     * advance its recorded point past messages whose processing has completed. A message whose future never
+     * completes is therefore read again once the log is reopened.
+     *
+     * @param message
+     * @return a future which completes once the message has been processed
+     */
+    default CompletableFuture<Void> readAsync(Message message) {
+        read(message);
+        return CompletableFuture.completedFuture(null);
+    }
+
     /**
      * Updates the state of the MessageReader.
      */
@@ -26,12 +26,18 @@ public class ReadMarker {
 
     private final String identifier;
     private Instant startTime;
+    private final boolean afterProcessing;
 
 
 
     private ReadMarker(String identifier, Instant startTime) {
+        this(identifier, startTime, false);
+    }
+
+    private ReadMarker(String identifier, Instant startTime, boolean afterProcessing) {
         this.identifier = identifier;
         this.startTime = startTime;
+        this.afterProcessing = afterProcessing;
     }
 
     /**
@@ -51,6 +57,14 @@ public class ReadMarker {
         return identifier;
     }
 
+    /**
+     * Whether the recorded point of this marker only advances past messages whose processing has completed
+     * @return
+     */
+    public boolean isAfterProcessing() {
+        return afterProcessing;
+    }
+
     public boolean hasStartTime() {
         return startTime!=null;
     }
@@ -73,7 +87,7 @@ public class ReadMarker {
      */
     public boolean isCompatible(ReadMarker newMarker) {
         if (newMarker.hasIdentifier()) {
-            return hasIdentifier() && identifier.equals(newMarker.identifier);
+            return hasIdentifier() && identifier.equals(newMarker.identifier) && afterProcessing == newMarker.afterProcessing;
         }
         return !newMarker.hasStartTime();
     }
@@ -113,6 +127,20 @@ public class ReadMarker {
         return new ReadMarker(id, timestamp);
     }
 
+    /**
+     * Like {@link #fromIdentifierOrTime(String id, Instant timestamp)} but the recorded point only advances past
+     * messages whose processing has completed, as signaled by the future returned from
+     * {@link MessageReader#readAsync(Message)}. Messages which are still being processed when the log fails are
+     * hence read again once reading resumes for the given id.
+     *
+     * @param id
+     * @param timestamp
+     * @return
+     */
+    public static ReadMarker fromIdentifierOrTimeAfterProcessing(String id, Instant timestamp) {
+        return new ReadMarker(id, timestamp, true);
+    }
+
     /**
      * Like {@link #fromIdentifierOrTime(String id, Instant timestamp)} but uses the current time point
      * as the starting timestamp if the log has no record of the id.
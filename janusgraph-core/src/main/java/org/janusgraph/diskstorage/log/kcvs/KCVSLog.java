@@ -57,14 +57,17 @@ import org.slf4j.LoggerFactory;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -716,6 +719,24 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
         }
     }
 
+    /**
+     * A time window read by a {@link MessagePuller} and the processing of the messages read in it.
+     */
+    private static class ReadWindow {
+
+        private final Instant start;
+        private final List<CompletableFuture<Void>> processing;
+
+        private ReadWindow(Instant start, List<CompletableFuture<Void>> processing) {
+            this.start = start;
+            this.processing = processing;
+        }
+
+        private boolean isProcessed() {
+            return processing.stream().allMatch(CompletableFuture::isDone);
+        }
+    }
+
     /**
      * Thread which runs to read all messages from a particular partition id and bucket up to the next timeslice
      * or current timestamp minus the configured read lag time {@link #LOG_READ_LAG_TIME}.
@@ -729,6 +750,12 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
 
         private Instant messageTimeStart;
 
+        /**
+         * The time windows read so far whose messages may not have been processed completely, in the order
+         * they were read. Only tracked for read markers which advance after processing, see {@link #setReadMarker()}.
+         */
+        private final Deque<ReadWindow> unprocessedWindows = new ArrayDeque<>();
+
         private MessagePuller(final int partitionId, final int bucketId) {
             this.bucketId = bucketId;
             this.partitionId = partitionId;
@@ -737,9 +764,21 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
 
         @Override
         public void run() {
-            try {
-                setReadMarker();
+            setReadMarker();
+            //Read the following time slices right away while the puller lags behind, e.g. after starting from an
+            //early read marker, instead of reading a single time slice per polling interval
+            while (readTimeWindow() && isOpen) {
+                log.debug("MessagePuller lags behind, continuing with the next time slice at {}", messageTimeStart);
+            }
+        }
 
+        /**
+         * Reads the messages of the next time window.
+         *
+         * @return whether the window ended at the end of its time slice and later time slices can be read already
+         */
+        private boolean readTimeWindow() {
+            try {
                 final int timeslice = getTimeSlice(messageTimeStart);
 
                 // Setup time range we're about to query
@@ -775,7 +814,7 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
                         log.debug("MessagePuller configured with ReadMarker timestamp slightly ahead of read lag time; waiting for the clock to catch up");
                     }
 
-                    return;
+                    return false;
                 }
                 Preconditions.checkState(messageTimeStart.compareTo(messageTimeEnd) < 0);
                 Preconditions.checkState(messageTimeEnd.compareTo(currentTime) <= 0, "Attempting to read messages from the future: messageTimeEnd=% vs currentTime=%s", messageTimeEnd, currentTime);
@@ -785,8 +824,9 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
                 query.setLimit(maxReadMsg);
                 log.trace("Converted MessagePuller time window to {}", query);
 
+                final List<CompletableFuture<Void>> processing = readMarker.isAfterProcessing() ? new ArrayList<>() : null;
                 List<Entry> entries= BackendOperation.execute(getOperation(query),KCVSLog.this,times,maxReadTime);
-                prepareMessageProcessing(entries);
+                prepareMessageProcessing(entries, processing);
                 if (entries.size()>=maxReadMsg) {
                     /*Read another set of messages to ensure that we have exhausted all messages to the next timestamp.
                     Since we have reached the request limit, it may be possible that there are additional messages
@@ -799,14 +839,19 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
                     query = new KeySliceQuery(logKey, BufferUtil.nextBiggerBuffer(lastEntry.getColumn()), BufferUtil.getLongBuffer(times.getTime(messageTimeEnd)));
                     log.debug("Converted extended MessagePuller time window to {}", query);
                     List<Entry> extraEntries = BackendOperation.execute(getOperation(query),KCVSLog.this,times,maxReadTime);
-                    prepareMessageProcessing(extraEntries);
+                    prepareMessageProcessing(extraEntries, processing);
+                }
+                if (processing != null && !processing.isEmpty()) {
+                    unprocessedWindows.addLast(new ReadWindow(messageTimeStart, processing));
                 }
                 messageTimeStart = messageTimeEnd;
+                return !messageTimeStart.isBefore(timesliceEnd) && timesliceEnd.isBefore(maxSafeMessageTime);
             } catch (Throwable e) {
                 if (e.getCause() instanceof PermanentBackendException) {
                     throw e;
                 }
                 log.warn("Could not read messages for timestamp [{}] (this read will be retried)",messageTimeStart,e);
+                return false;
             }
         }
 
@@ -823,23 +868,37 @@ public class KCVSLog implements Log, BackendOperation.TransactionalProvider {
             }
         }
 
-        private void prepareMessageProcessing(List<Entry> entries) {
+        private void prepareMessageProcessing(List<Entry> entries, List<CompletableFuture<Void>> processing) {
             for (Entry entry : entries) {
                 KCVSMessage message = parseMessage(entry);
                 log.debug("Parsed message {}, about to submit this message to the reader executor", message);
                 for (MessageReader reader : readers) {
-                    readExecutor.submit(new ProcessMessageJob(message,reader));
+                    if (processing == null) {
+                        readExecutor.submit(new ProcessMessageJob(message,reader));
+                    } else {
+                        final CompletableFuture<Void> processed = new CompletableFuture<>();
+                        processing.add(processed);
+                        readExecutor.submit(new ProcessMessageJob(message,reader,processed));
+                    }
                 }
             }
         }
 
+        /**
+         * Persists the read marker at the start of the earliest time window whose messages have not all been
+         * processed yet, so that no message is skipped when reading resumes from the marker.
+         */
         private void setReadMarker() {
             if (readMarker.hasIdentifier()) {
+                while (!unprocessedWindows.isEmpty() && unprocessedWindows.peekFirst().isProcessed()) {
+                    unprocessedWindows.removeFirst();
+                }
+                final Instant markerTime = unprocessedWindows.isEmpty() ? messageTimeStart : unprocessedWindows.peekFirst().start;
                 try {
                     log.debug("Attempting to persist read marker with identifier {}", readMarker.getIdentifier());
-                    writeSetting(readMarker.getIdentifier(), getMarkerColumn(partitionId, bucketId), times.getTime(messageTimeStart));
+                    writeSetting(readMarker.getIdentifier(), getMarkerColumn(partitionId, bucketId), times.getTime(markerTime));
                     log.debug("Persisted read marker: identifier={} partitionId={} buckedId={} nextTimepoint={}",
-                            readMarker.getIdentifier(), partitionId, bucketId, messageTimeStart);
+                            readMarker.getIdentifier(), partitionId, bucketId, markerTime);
                 } catch (Throwable e) {
                     log.error("Could not persist read marker [{}] on bucket [{}] + partition [{}]",readMarker.getIdentifier(),bucketId,partitionId,e);
                 }
@@ -20,6 +20,8 @@ import org.janusgraph.diskstorage.log.MessageReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Helper class for processing read messages with the registered message readers.
  * Simple implementation of a {@link Runnable}.
@@ -32,20 +34,37 @@ public class ProcessMessageJob implements Runnable {
 
     private final Message message;
     private final MessageReader reader;
+    private final CompletableFuture<Void> processed;
 
     public ProcessMessageJob(final Message message, final MessageReader reader) {
+        this(message, reader, null);
+    }
+
+    /**
+     * @param processed completed once the reader has finished processing the message, successfully or not
+     */
+    public ProcessMessageJob(final Message message, final MessageReader reader, final CompletableFuture<Void> processed) {
         Preconditions.checkArgument(message!=null && reader!=null);
         this.message = message;
         this.reader = reader;
+        this.processed = processed;
     }
 
     @Override
     public void run() {
         try {
             log.debug("Passing {} to {}", message, reader);
-            reader.read(message);
+            reader.readAsync(message).whenComplete((result, e) -> {
+                if (e != null) logFailure(e);
+                if (processed != null) processed.complete(null);
+            });
         } catch (Throwable e) {
-            log.error("Encountered exception when processing message ["+message+"] by reader ["+reader+"]:",e);
+            logFailure(e);
+            if (processed != null) processed.complete(null);
         }
     }
+
+    private void logFailure(Throwable e) {
+        log.error("Encountered exception when processing message ["+message+"] by reader ["+reader+"]:",e);
+    }
 }
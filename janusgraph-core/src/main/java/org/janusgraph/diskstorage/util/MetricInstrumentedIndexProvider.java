@@ -46,6 +46,7 @@ public class MetricInstrumentedIndexProvider implements IndexProvider {
     public static final String M_MIXED_AGG_QUERY = "mixedIndexAggregationQuery";
     public static final String M_RAW_QUERY = "rawQuery";
     public static final String M_TOTALS = "totals";
+    public static final String M_COMMIT = "commit";
     public static final String M_CALLS = "calls";
     public static final String M_TIME = "time";
     public static final String M_EXCEPTIONS = "exceptions";
@@ -79,12 +79,13 @@ public class MetricInstrumentedStore implements KeyColumnValueStore {
     public static final String M_GET_SLICE = "getSlice";
     public static final String M_MUTATE = "mutate";
     public static final String M_ACQUIRE_LOCK = "acquireLock";
+    public static final String M_INSERT_IF_ABSENT = "insertIfAbsent";
     public static final String M_GET_KEYS = "getKeys";
     public static final String M_GET_PART = "getLocalKeyPartition";
     public static final String M_CLOSE = "close";
 
     public static final List<String> OPERATION_NAMES = Collections.unmodifiableList(
-        Arrays.asList(M_CONTAINS_KEY,M_GET_SLICE,M_MUTATE,M_ACQUIRE_LOCK,M_GET_KEYS));
+        Arrays.asList(M_CONTAINS_KEY,M_GET_SLICE,M_MUTATE,M_ACQUIRE_LOCK,M_INSERT_IF_ABSENT,M_GET_KEYS));
 
     public static final String M_CALLS = "calls";
     public static final String M_TIME = "time";
@@ -150,6 +151,13 @@ public class MetricInstrumentedStore implements KeyColumnValueStore {
         });
     }
 
+    @Override
+    public boolean insertIfAbsent(final StaticBuffer key,
+                                  final Entry entry,
+                                  final StoreTransaction txh) throws BackendException {
+        return runWithMetrics(txh, metricsStoreName, M_INSERT_IF_ABSENT, () -> backend.insertIfAbsent(key, entry, txh));
+    }
+
     @Override
     public KeyIterator getKeys(final KeyRangeQuery query, final StoreTransaction txh) throws BackendException {
         return runWithMetrics(txh, metricsStoreName, M_GET_KEYS, () -> {
@@ -211,6 +211,48 @@ public class GraphDatabaseConfiguration {
             "How the graph computer should return the computed results. 'persist' for writing them into the graph, " +
                     "'localtx' for writing them into the local transaction, or 'none' (default)", ConfigOption.Type.MASKABLE, "none");
 
+    public static final ConfigOption<Boolean> COMPUTER_SNAPSHOT = new ConfigOption<>(COMPUTER_NS,"snapshot",
+            "Whether the graph computer keeps a compact copy of the rows it scans from the storage backend, so that later " +
+                    "iterations of a vertex program and the map phase which read the same data are served from that copy " +
+                    "instead of scanning the storage backend again. Modifications made to the graph by others while the " +
+                    "computation runs are not seen by iterations served from the copy.",
+            ConfigOption.Type.MASKABLE, false);
+
+    public static final ConfigOption<Long> COMPUTER_SNAPSHOT_HEAP_SIZE = new ConfigOption<>(COMPUTER_NS,"snapshot-heap-size",
+            "Number of bytes of the snapshot of scanned rows (see `" + COMPUTER_SNAPSHOT.toStringWithoutRoot() + "`) kept on " +
+                    "heap. Rows beyond that are written to temporary files which are memory-mapped.",
+            ConfigOption.Type.MASKABLE, 256L * 1024 * 1024, v -> v != null && v >= 0);
+
+    public static final ConfigOption<String> COMPUTER_SNAPSHOT_DIRECTORY = new ConfigOption<>(COMPUTER_NS,"snapshot-directory",
+            "Directory in which the graph computer creates the temporary files of its snapshot of scanned rows (see `" +
+                    COMPUTER_SNAPSHOT_HEAP_SIZE.toStringWithoutRoot() + "`). Defaults to the temporary directory of the JVM.",
+            ConfigOption.Type.MASKABLE, String.class);
+
+    public static final ConfigOption<Boolean> COMPUTER_COLUMNAR_VERTEX_MEMORY = new ConfigOption<>(COMPUTER_NS,"columnar-vertex-memory",
+            "Whether the graph computer keeps the vertex compute keys and messages of vertex programs in columns indexed by " +
+                    "a dense vertex ordinal instead of in an object per vertex. Numeric values are stored as primitives, which " +
+                    "takes far less memory for vertex programs with numeric compute keys and combinable numeric messages. " +
+                    "Supports at most 2147483647 vertices. Not used for graphs which allow custom vertex id types.",
+            ConfigOption.Type.MASKABLE, false);
+
+    public static final ConfigOption<Boolean> COMPUTER_COLUMNAR_VERTEX_MEMORY_OFF_HEAP = new ConfigOption<>(COMPUTER_NS,"columnar-vertex-memory-off-heap",
+            "Whether the columns of the columnar vertex memory (see `" + COMPUTER_COLUMNAR_VERTEX_MEMORY.toStringWithoutRoot() +
+                    "`) and the mapping from vertex ids to their ordinals are allocated outside of the Java heap.",
+            ConfigOption.Type.MASKABLE, false);
+
+    public static final ConfigOption<Boolean> COMPUTER_FRONTIER = new ConfigOption<>(COMPUTER_NS,"frontier",
+            "Whether the graph computer tracks the vertices which are sent a message in an iteration of a vertex program, " +
+                    "and runs the next iteration only on those vertices by reading them from the storage backend instead of " +
+                    "scanning all vertices. Only enable this for vertex programs which neither change the state of nor send " +
+                    "messages from vertices which did not receive a message, as is typical for breadth-first searches. " +
+                    "Gremlin traversals and the shortest path vertex program always run on all vertices.",
+            ConfigOption.Type.MASKABLE, false);
+
+    public static final ConfigOption<Long> COMPUTER_FRONTIER_MAX_SIZE = new ConfigOption<>(COMPUTER_NS,"frontier-max-size",
+            "Maximum number of vertices which are sent a message in an iteration (see `" + COMPUTER_FRONTIER.toStringWithoutRoot() +
+                    "`) for the next iteration to read only those vertices. Beyond that, the next iteration scans all vertices.",
+            ConfigOption.Type.MASKABLE, 100000L, v -> v != null && v >= 0);
+
 
     // ################ Transaction #######################
     // ################################################
@@ -228,6 +270,50 @@ public class GraphDatabaseConfiguration {
                     "Must be longer than the maximum allowed write time.",
             ConfigOption.Type.GLOBAL, Duration.ofSeconds(10));
 
+    public static final ConfigOption<Long> TX_MUTATION_SPILL_THRESHOLD = new ConfigOption<>(TRANSACTION_NS,"mutation-spill-threshold",
+            "Number of bytes of serialized storage mutations a transaction buffers in memory during commit before it spills " +
+                    "them to a temporary file. Spilled mutations are persisted in sorted chunks streamed back from disk. This " +
+                    "only bounds the memory of the serialized mutation buffer: the added relations, the vertex cache and the " +
+                    "elements collected for the commit stay in memory for the lifetime of the transaction. Can be overridden " +
+                    "for individual transactions as a custom option. Has no effect when batch loading or `" +
+                    SYSTEM_LOG_TRANSACTIONS.toStringWithoutRoot() + "` is enabled. 0 disables spilling.",
+            ConfigOption.Type.MASKABLE, 0L);
+
+    public static final ConfigOption<String> TX_MUTATION_SPILL_DIRECTORY = new ConfigOption<>(TRANSACTION_NS,"mutation-spill-directory",
+            "Directory in which transactions create the temporary files for their spilled mutations (see `" +
+                    TX_MUTATION_SPILL_THRESHOLD.toStringWithoutRoot() + "`). Defaults to the temporary directory of the JVM.",
+            ConfigOption.Type.MASKABLE, String.class);
+
+    public static final ConfigNamespace INDEX_QUEUE_NS = new ConfigNamespace(TRANSACTION_NS,"index-queue",
+            "Configuration options for the asynchronous delivery of mixed index updates");
+
+    public static final ConfigOption<Boolean> INDEX_QUEUE = new ConfigOption<>(INDEX_QUEUE_NS,"enabled",
+            "Whether mixed index updates are appended to a durable log as part of the storage commit instead of being " +
+                    "written to the indexing backends at the end of the commit. Transactions then no longer wait on the " +
+                    "indexing backends and the updates still get delivered after a crash, but mixed index queries lag " +
+                    "behind the storage backend. The log is configured in the `log.indexqueue` namespace and its read lag " +
+                    "time must exceed the time it takes to commit to the storage backend. The log must use a single partition " +
+                    "and bucket read by a single thread (`log.indexqueue.max-partitions` = 1, `log.indexqueue.num-buckets` = 1, " +
+                    "`log.indexqueue.read-threads` = 1) for the updates of a document to be delivered in commit order. Unless configured otherwise, its entries expire after 7 days on storage backends supporting " +
+                    "TTL, hence updates not delivered by then are lost.",
+            ConfigOption.Type.MASKABLE, false);
+
+    public static final ConfigOption<Integer> INDEX_QUEUE_WRITERS = new ConfigOption<>(INDEX_QUEUE_NS,"writers",
+            "Number of threads of this instance that deliver queued mixed index updates to the indexing backends. " +
+                    "The writers of all instances share a single read position in the log, hence writers must be enabled " +
+                    "on exactly one instance. 0 disables delivery on this instance. When delivery is enabled for the first time, " +
+                    "it starts with the updates queued within the TTL of the log, or the last 7 days if no TTL is configured.",
+            ConfigOption.Type.MASKABLE, 0, ConfigOption.nonnegativeInt());
+
+    public static final ConfigOption<Integer> INDEX_QUEUE_BATCH_SIZE = new ConfigOption<>(INDEX_QUEUE_NS,"batch-size",
+            "Number of coalesced documents at which a writer sends the queued mixed index updates in one bulk request",
+            ConfigOption.Type.MASKABLE, 1000, ConfigOption.positiveInt());
+
+    public static final ConfigOption<Duration> INDEX_QUEUE_MAX_DELAY = new ConfigOption<>(INDEX_QUEUE_NS,"max-delay",
+            "Maximum time in ms that a writer buffers queued mixed index updates before sending them even if fewer than `" +
+                    INDEX_QUEUE_BATCH_SIZE.toStringWithoutRoot() + "` documents are pending",
+            ConfigOption.Type.MASKABLE, Duration.ofMillis(100L));
+
 
     public static final ConfigNamespace TRANSACTION_RECOVERY_NS = new ConfigNamespace(TRANSACTION_NS,"recovery",
             "Configuration options for transaction recovery processes");
@@ -293,6 +379,13 @@ public class GraphDatabaseConfiguration {
             "Notice, value `"+Integer.MAX_VALUE+"` is considered to be unlimited.",
         ConfigOption.Type.MASKABLE, 2500);
 
+    public static final ConfigOption<Integer> COMPOSITE_INDEX_BATCH_SIZE = new ConfigOption<>(QUERY_NS,"composite-index-batch-size",
+        "Maximum number of composite index keys which are retrieved from the storage backend in a single call when a query " +
+            "looks up multiple values of a composite index, e.g. for a `within` condition. Storage backends which support " +
+            "multi-queries retrieve all keys of a batch at once. Further batches are only retrieved while the query limit " +
+            "has not been reached.",
+        ConfigOption.Type.MASKABLE, 1000, ConfigOption.positiveInt());
+
     public static final ConfigOption<String> INDEX_SELECT_STRATEGY = new ConfigOption<>(QUERY_NS, "index-select-strategy",
             String.format("Name of the index selection strategy or full class name. Following shorthands can be used: <br>" +
                     "- `%s` (Try all combinations of index candidates and pick up optimal one)<br>" +
@@ -313,6 +406,14 @@ public class GraphDatabaseConfiguration {
                     "lead to significant performance improvement if there are many edges to adjacent vertices and there is a non-trivial latency to the backend.",
             ConfigOption.Type.MASKABLE, false);
 
+    public static final ConfigOption<Boolean> ADJACENCY_SUMMARY = new ConfigOption<>(QUERY_NS,"adjacency-summary",
+            "Whether to maintain a Bloom filter summary of the adjacent vertex ids per edge label and direction on every vertex. " +
+                    "Adjacency checks against a vertex which was created with this option enabled can then be answered negatively " +
+                    "without reading the edges from the storage backend, at the expense of additional writes on commit. " +
+                    "Can only be set when the graph is created, since edges added while the option is disabled would be " +
+                    "missing from the summaries.",
+            ConfigOption.Type.FIXED, false);
+
     // ################ SCHEMA #######################
     // ################################################
 
@@ -531,6 +632,31 @@ public class GraphDatabaseConfiguration {
             "Size of the batch in which mutations are persisted",
             ConfigOption.Type.MASKABLE, 1024, ConfigOption.positiveInt());
 
+    public static final ConfigOption<Long> BUFFER_SIZE_BYTES = new ConfigOption<>(STORAGE_NS,"buffer-size-bytes",
+            "Maximum size in bytes of the serialized mutations in a batch in addition to the maximum number of mutations " +
+            "given by `" + BUFFER_SIZE.toStringWithoutRoot() + "`. Should be set below the batch size limit of the storage " +
+            "backend, e.g. `batch_size_fail_threshold` of Cassandra. 0 disables the limit.",
+            ConfigOption.Type.MASKABLE, 0L, v -> v != null && v >= 0);
+
+    public static final ConfigOption<Integer> FLUSH_PARALLELISM = new ConfigOption<>(STORAGE_NS,"flush-parallelism",
+            "Maximum number of batches of a transaction's mutations which are persisted concurrently when it commits. " +
+            "Batch loading transactions buffer this many batches before persisting them. Only applies to storage " +
+            "backends without transaction isolation whose transactions are thread-safe, such as CQL. Other backends and 1 " +
+            "persist batches sequentially.",
+            ConfigOption.Type.MASKABLE, 1, ConfigOption.positiveInt());
+
+    public static final ConfigOption<Boolean> GROUP_COMMIT = new ConfigOption<>(STORAGE_NS,"group-commit",
+            "Whether the storage mutations of transactions which commit concurrently are persisted together in shared batches " +
+            "of at most `" + BUFFER_SIZE.toStringWithoutRoot() + "` mutations. All mutations of a batch are written at one shared " +
+            "commit time which is never earlier than the commit time of any of its transactions. Transactions which acquired " +
+            "locks, contain schema elements or use batch-loading are always persisted on their own.",
+            ConfigOption.Type.MASKABLE, false);
+
+    public static final ConfigOption<Duration> GROUP_COMMIT_WINDOW = new ConfigOption<>(STORAGE_NS,"group-commit-window",
+            "Maximum time (in ms) to wait for further committing transactions before a group commit batch is persisted. " +
+            "Only applies when `" + GROUP_COMMIT.toStringWithoutRoot() + "` is enabled.",
+            ConfigOption.Type.MASKABLE, Duration.ofMillis(5L));
+
     public static final ConfigOption<Duration> STORAGE_WRITE_WAITTIME = new ConfigOption<>(STORAGE_NS,"write-time",
             "Maximum time (in ms) to wait for a backend write operation to complete successfully. If a backend write operation " +
             "fails temporarily, JanusGraph will backoff exponentially and retry the operation until the wait time has been exhausted. ",
@@ -662,6 +788,27 @@ public class GraphDatabaseConfiguration {
             "up to this many elements.",
             ConfigOption.Type.MASKABLE, 100);
 
+    public static final ConfigOption<Duration> SCAN_CHECKPOINT_INTERVAL = new ConfigOption<>(STORAGE_NS,"scan-checkpoint-interval",
+            "Time (in ms) between checkpoints of the progress of index repair and removal jobs. A job which did not complete, " +
+            "e.g. because the process died, can be resumed from its last checkpoint through `JanusGraphManagement.updateIndex`.",
+            ConfigOption.Type.MASKABLE, Duration.ofMinutes(1L));
+
+    public static final ConfigOption<Integer> SCAN_MAX_ROWS_PER_SECOND = new ConfigOption<>(STORAGE_NS,"scan-max-rows-per-second",
+            "Maximum number of rows per second which scan jobs, e.g. index repair and removal jobs, read from the storage backend. " +
+            "0 means unlimited. The limit of a running job can be changed through its `ScanJobFuture`.",
+            ConfigOption.Type.MASKABLE, 0, ConfigOption.nonnegativeInt());
+
+    public static final ConfigOption<Long> SCAN_MAX_BYTES_PER_SECOND = new ConfigOption<>(STORAGE_NS,"scan-max-bytes-per-second",
+            "Maximum number of bytes of keys and entries per second which scan jobs, e.g. index repair and removal jobs, read " +
+            "from the storage backend. 0 means unlimited. The limit of a running job can be changed through its `ScanJobFuture`.",
+            ConfigOption.Type.MASKABLE, 0L, ConfigOption.nonnegativeLong());
+
+    public static final ConfigOption<Duration> SCAN_TARGET_READ_LATENCY = new ConfigOption<>(STORAGE_NS,"scan-target-read-latency",
+            "Time (in ms) which reads of scan jobs from the storage backend should not exceed. Scan jobs halve their rate of rows " +
+            "whenever the slowest read in a second exceeds this latency, and raise it gradually once the reads are fast again. " +
+            "0 disables this adaptation.",
+            ConfigOption.Type.MASKABLE, Duration.ZERO);
+
     public static final ConfigOption<Boolean> DROP_ON_CLEAR = new ConfigOption<>(STORAGE_NS, "drop-on-clear",
             "Whether to drop the graph database (true) or delete rows (false) when clearing storage. " +
             "Note that some backends always drop the graph database when clearing storage. Also note that indices are " +
@@ -710,6 +857,31 @@ public class GraphDatabaseConfiguration {
             "Whether to delete expired locks from the storage backend",
             ConfigOption.Type.MASKABLE, false);
 
+    /**
+     * Whether the consistent key locker writes, checks and deletes all lock claims of a transaction in batches
+     * instead of one lock claim at a time.
+     *
+     * @see org.janusgraph.diskstorage.locking.consistentkey.ConsistentKeyLocker
+     */
+    public static final ConfigOption<Boolean> LOCK_BATCH = new ConfigOption<>(LOCK_NS, "batch",
+            "Whether to write all lock applications of a transaction in a single batch when the locks are checked " +
+            "at commit time, wait once and verify all applications with a single multi-key read, instead of " +
+            "writing, waiting for and verifying every lock application separately. This reduces the commit latency " +
+            "of transactions which acquire many locks. Only applies to the consistentkey locker.",
+            ConfigOption.Type.MASKABLE, false);
+
+    /**
+     * Whether composite index entries guarded by locks are claimed with a conditional insert instead of a lock.
+     *
+     * @see org.janusgraph.diskstorage.keycolumnvalue.StoreFeatures#hasConditionalInsert()
+     */
+    public static final ConfigOption<Boolean> LOCK_CONDITIONAL_INSERT = new ConfigOption<>(LOCK_NS, "conditional-insert",
+            "Whether to enforce the uniqueness of new composite index entries with a single conditional insert " +
+            "instead of the locking protocol, if the storage backend supports atomic conditional inserts. This avoids " +
+            "waiting for `" + LOCK_WAIT.toStringWithoutRoot() + "` when adding unique values. Removed and changed " +
+            "index entries are still locked.",
+            ConfigOption.Type.MASKABLE, false);
+
     /**
      * Locker type to use.  The supported types are in {@link org.janusgraph.diskstorage.Backend}.
      */
@@ -820,6 +992,48 @@ public class GraphDatabaseConfiguration {
             "This helps avoid transaction commits waiting on ID reservation even if the block size is relatively small.",
             ConfigOption.Type.MASKABLE, 0.3);
 
+    /**
+     * Number of id blocks an id pool acquires ahead of time. Bulk loads which consume a block faster than it takes to
+     * acquire a new one should prefetch several blocks, which are then acquired concurrently.
+     */
+    public static final ConfigOption<Integer> IDS_PREFETCH_BLOCKS = new ConfigOption<>(IDS_NS,"prefetch-blocks",
+            "Number of ID blocks every ID pool reserves ahead of time once its current block has been consumed down " +
+            "to `ids.renew-percentage`. The reservations run concurrently, which helps bulk loads that consume IDs faster " +
+            "than a single block can be reserved. Reservations of the same pool only run concurrently with the " +
+            "`GLOBAL_AUTO` conflict avoidance mode, which spreads them over distinct unique ids.",
+            ConfigOption.Type.MASKABLE, 1, ConfigOption.positiveInt());
+
+    /**
+     * Number of ids each thread claims at once from the id block of a partition, see
+     * {@link org.janusgraph.graphdb.database.idassigner.LeasingIDPool}.
+     */
+    public static final ConfigOption<Integer> IDS_LEASE_SIZE = new ConfigOption<>(IDS_NS,"lease-size",
+            "Number of IDs every thread claims at once from the current ID block of a partition in order to assign them " +
+            "without contending with other threads. IDs a thread has claimed but not assigned when it terminates are " +
+            "skipped. Setting this to 1 disables leasing.",
+            ConfigOption.Type.MASKABLE, 1, ConfigOption.positiveInt());
+
+    public static final ConfigNamespace IDS_ADAPTIVE_NS = new ConfigNamespace(IDS_NS,"adaptive",
+            "Configuration options for adapting the size of reserved ID blocks to the rate at which IDs are consumed");
+
+    public static final ConfigOption<Boolean> IDS_ADAPTIVE = new ConfigOption<>(IDS_ADAPTIVE_NS,"enabled",
+            "Whether the size of the ID blocks reserved for vertices and relations is adapted to the rate at which every " +
+            "ID pool consumes IDs, so that a block lasts about `ids.adaptive.block-duration`. The first block of " +
+            "every pool is sized according to `ids.block-size`.",
+            ConfigOption.Type.MASKABLE, false);
+
+    public static final ConfigOption<Integer> IDS_ADAPTIVE_MIN_BLOCK_SIZE = new ConfigOption<>(IDS_ADAPTIVE_NS,"min-block-size",
+            "Smallest size of an adaptively sized ID block",
+            ConfigOption.Type.MASKABLE, 1000, ConfigOption.positiveInt());
+
+    public static final ConfigOption<Integer> IDS_ADAPTIVE_MAX_BLOCK_SIZE = new ConfigOption<>(IDS_ADAPTIVE_NS,"max-block-size",
+            "Largest size of an adaptively sized ID block",
+            ConfigOption.Type.MASKABLE, 1000000, ConfigOption.positiveInt());
+
+    public static final ConfigOption<Duration> IDS_ADAPTIVE_BLOCK_DURATION = new ConfigOption<>(IDS_ADAPTIVE_NS,"block-duration",
+            "Time in ms an adaptively sized ID block should last at the rate at which its ID pool consumed IDs so far",
+            ConfigOption.Type.MASKABLE, Duration.ofMinutes(1));
+
     // ################ IDAUTHORITY ###################
     // ################################################
 
@@ -833,6 +1047,17 @@ public class GraphDatabaseConfiguration {
             "The number of milliseconds the system waits for an ID block reservation to be acknowledged by the storage backend",
             ConfigOption.Type.GLOBAL_OFFLINE, Duration.ofMillis(300L));
 
+    /**
+     * Whether {@link ConsistentKeyIDAuthority} claims id blocks with a single conditional insert instead of writing an
+     * application and waiting for {@link #IDAUTHORITY_WAIT} before verifying it. Requires a storage backend which
+     * supports conditional inserts. Claims of both protocols are stored differently, hence this cannot be changed.
+     */
+    public static final ConfigOption<Boolean> IDAUTHORITY_CONDITIONAL_INSERT = new ConfigOption<>(IDAUTHORITY_NS,"conditional-insert",
+            "Whether ID blocks are reserved with a single conditional insert instead of writing a reservation and waiting " +
+            "for it to be acknowledged. This avoids the wait time of every reservation but requires a storage backend " +
+            "which supports conditional inserts.",
+            ConfigOption.Type.FIXED, false);
+
     /**
      * Sets the strategy used by {@link ConsistentKeyIDAuthority} to avoid
      * contention in ID block allocation between JanusGraph instances concurrently
@@ -955,10 +1180,13 @@ public class GraphDatabaseConfiguration {
     public static final String MANAGEMENT_LOG = "janusgraph";
     public static final String TRANSACTION_LOG = "tx";
     public static final String USER_LOG = "user";
+    public static final String INDEX_QUEUE_LOG = "indexqueue";
     public static final String USER_LOG_PREFIX = "ulog_";
 
     public static final Duration TRANSACTION_LOG_DEFAULT_TTL = Duration.ofDays(7);
 
+    public static final Duration INDEX_QUEUE_LOG_DEFAULT_TTL = Duration.ofDays(7);
+
     public static final ConfigOption<String> LOG_BACKEND = new ConfigOption<>(LOG_NS,"backend",
             "Define the log backend to use. A reserved shortcut `default` can be used to use graph's storage backend to manage logs. " +
                 "A custom log implementation can be specified by providing " +
@@ -1247,6 +1475,7 @@ public class GraphDatabaseConfiguration {
     public static final String SYSTEM_PROPERTIES_STORE_NAME = "system_properties";
     public static final String SYSTEM_CONFIGURATION_IDENTIFIER = "configuration";
     public static final String USER_CONFIGURATION_IDENTIFIER = "userconfig";
+    public static final String SCAN_CHECKPOINT_IDENTIFIER = "scancheckpoints";
 
     private static final Map<String, String> REGISTERED_INDEX_SELECTION_STRATEGIES = new HashMap() {{
         put(ThresholdBasedIndexSelectionStrategy.NAME, ThresholdBasedIndexSelectionStrategy.class.getName());
@@ -1275,9 +1504,11 @@ public class GraphDatabaseConfiguration {
     private Boolean useMultiQuery;
     private boolean limitedBatch;
     private int limitedBatchSize;
+    private int compositeIndexBatchSize;
     private boolean optimizerBackendAccess;
     private IndexSelectionStrategy indexSelectionStrategy;
     private Boolean batchPropertyPrefetching;
+    private boolean adjacencySummary;
     private boolean allowVertexIdSetting;
     private boolean allowCustomVertexIdType;
     private boolean logTransactions;
@@ -1385,6 +1616,10 @@ public class GraphDatabaseConfiguration {
         return limitedBatchSize;
     }
 
+    public int getCompositeIndexBatchSize() {
+        return compositeIndexBatchSize;
+    }
+
     public boolean optimizerBackendAccess() {
         return optimizerBackendAccess;
     }
@@ -1397,6 +1632,10 @@ public class GraphDatabaseConfiguration {
         return batchPropertyPrefetching;
     }
 
+    public boolean hasAdjacencySummary() {
+        return adjacencySummary;
+    }
+
     public boolean adjustQueryLimit() {
         return adjustQueryLimit;
     }
@@ -1523,10 +1762,12 @@ public class GraphDatabaseConfiguration {
         useMultiQuery = configuration.get(USE_MULTIQUERY);
         limitedBatch = configuration.get(LIMITED_BATCH);
         limitedBatchSize = configuration.get(LIMITED_BATCH_SIZE);
+        compositeIndexBatchSize = configuration.get(COMPOSITE_INDEX_BATCH_SIZE);
         indexSelectionStrategy = Backend.getImplementationClass(configuration, configuration.get(INDEX_SELECT_STRATEGY),
             REGISTERED_INDEX_SELECTION_STRATEGIES);
         optimizerBackendAccess = configuration.get(OPTIMIZER_BACKEND_ACCESS);
         batchPropertyPrefetching = configuration.get(BATCH_PROPERTY_PREFETCHING);
+        adjacencySummary = configuration.get(ADJACENCY_SUMMARY);
         adjustQueryLimit = configuration.get(ADJUST_LIMIT);
         hardMaxLimit = configuration.get(HARD_MAX_LIMIT);
 
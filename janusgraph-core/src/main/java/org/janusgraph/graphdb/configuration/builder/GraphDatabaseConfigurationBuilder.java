@@ -40,7 +40,12 @@ import org.janusgraph.graphdb.idmanagement.UniqueInstanceIdRetriever;
 import java.time.Duration;
 import java.util.Map;
 
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.INDEX_QUEUE;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.INDEX_QUEUE_LOG;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.INDEX_QUEUE_LOG_DEFAULT_TTL;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.LOG_BACKEND;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.LOG_NUM_BUCKETS;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.LOG_READ_THREADS;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.LOG_SEND_DELAY;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.LOG_STORE_TTL;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.MANAGEMENT_LOG;
@@ -80,6 +85,9 @@ public class GraphDatabaseConfigurationBuilder {
 
         checkAndOverwriteTransactionLogConfiguration(combinedConfig, overwrite, storeFeatures);
         checkAndOverwriteSystemManagementLogConfiguration(combinedConfig, overwrite);
+        if (combinedConfig.get(INDEX_QUEUE)) {
+            checkAndOverwriteIndexQueueLogConfiguration(combinedConfig, overwrite, storeFeatures);
+        }
 
         MergedConfiguration configuration = new MergedConfiguration(overwrite,combinedConfig);
 
@@ -107,6 +115,24 @@ public class GraphDatabaseConfigurationBuilder {
         }
     }
 
+    private void checkAndOverwriteIndexQueueLogConfiguration(Configuration combinedConfig, ModifiableConfiguration overwrite, StoreFeatures storeFeatures){
+
+        //INDEX QUEUE LOG: read-threads=1, max-partitions=1 and num-buckets=1 so that all messages are read in
+        //order by a single thread and the updates of a document are hence delivered in commit order, ttl=7days
+        Preconditions.checkArgument(!combinedConfig.has(LOG_READ_THREADS,INDEX_QUEUE_LOG) ||
+            combinedConfig.get(LOG_READ_THREADS,INDEX_QUEUE_LOG)==1,"Index queue log must be read by a single thread");
+        overwrite.set(LOG_READ_THREADS,1,INDEX_QUEUE_LOG);
+        Preconditions.checkArgument(!combinedConfig.has(KCVSLogManager.LOG_MAX_PARTITIONS,INDEX_QUEUE_LOG) ||
+            combinedConfig.get(KCVSLogManager.LOG_MAX_PARTITIONS,INDEX_QUEUE_LOG)==1,"Index queue log must use a single partition");
+        overwrite.set(KCVSLogManager.LOG_MAX_PARTITIONS,1,INDEX_QUEUE_LOG);
+        Preconditions.checkArgument(!combinedConfig.has(LOG_NUM_BUCKETS,INDEX_QUEUE_LOG) ||
+            combinedConfig.get(LOG_NUM_BUCKETS,INDEX_QUEUE_LOG)==1,"Index queue log must use a single bucket");
+        overwrite.set(LOG_NUM_BUCKETS,1,INDEX_QUEUE_LOG);
+        if (!combinedConfig.has(LOG_STORE_TTL,INDEX_QUEUE_LOG) && TTLKCVSManager.supportsAnyTTL(storeFeatures)) {
+            overwrite.set(LOG_STORE_TTL,INDEX_QUEUE_LOG_DEFAULT_TTL,INDEX_QUEUE_LOG);
+        }
+    }
+
     private void checkAndOverwriteSystemManagementLogConfiguration(Configuration combinedConfig, ModifiableConfiguration overwrite){
 
         //SYSTEM MANAGEMENT LOG: backend=default and send_delay=0 and key_consistent=true and fixed-partitions=true
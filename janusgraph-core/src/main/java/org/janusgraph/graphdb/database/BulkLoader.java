@@ -0,0 +1,595 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.database;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.janusgraph.core.Cardinality;
+import org.janusgraph.core.EdgeLabel;
+import org.janusgraph.core.JanusGraphException;
+import org.janusgraph.core.JanusGraphVertex;
+import org.janusgraph.core.PropertyKey;
+import org.janusgraph.core.VertexLabel;
+import org.janusgraph.diskstorage.Backend;
+import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.Entry;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.keycolumnvalue.KCVMutation;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStoreManager;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.KCVSCache;
+import org.janusgraph.diskstorage.util.BackendOperation;
+import org.janusgraph.diskstorage.util.StandardBaseTransactionConfig;
+import org.janusgraph.diskstorage.util.time.TimestampProvider;
+import org.janusgraph.graphdb.database.index.IndexUpdate;
+import org.janusgraph.graphdb.idmanagement.IDManager;
+import org.janusgraph.graphdb.internal.ElementLifeCycle;
+import org.janusgraph.graphdb.internal.InternalRelation;
+import org.janusgraph.graphdb.internal.InternalVertex;
+import org.janusgraph.graphdb.internal.InternalVertexLabel;
+import org.janusgraph.graphdb.internal.JanusGraphSchemaCategory;
+import org.janusgraph.graphdb.query.QueryUtil;
+import org.janusgraph.graphdb.relations.StandardEdge;
+import org.janusgraph.graphdb.relations.StandardVertexProperty;
+import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
+import org.janusgraph.graphdb.types.IndexType;
+import org.janusgraph.graphdb.types.system.BaseKey;
+import org.janusgraph.graphdb.types.system.BaseLabel;
+import org.janusgraph.graphdb.types.system.BaseVertexLabel;
+import org.janusgraph.graphdb.types.vertices.JanusGraphSchemaVertex;
+import org.janusgraph.graphdb.vertices.StandardVertex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Loads large amounts of new vertices and edges directly into the storage backend without going through a
+ * {@link StandardJanusGraphTx}.
+ * <p>
+ * Vertices and edges are identified by external ids which are mapped to the JanusGraph ids assigned by the loader.
+ * The loader collects them in batches which are serialized into entries, grouped and sorted by row key, and persisted
+ * with {@link KeyColumnValueStoreManager#mutateMany(Map, StoreTransaction)} by a pool of worker threads. The number of
+ * batches which are buffered at any time is bounded, so that adding elements blocks while the workers fall behind.
+ * <p>
+ * Like batch-loading, the loader performs no locking and no consistency checks: the schema has to exist, uniqueness
+ * constraints are not verified and edges may only connect vertices which have been added through the same loader.
+ * Composite indexes are updated. If the schema contains mixed indexes, the loader can only be opened with
+ * {@link Builder#skipMixedIndexes(boolean)} and the mixed indexes have to be reindexed once loading has completed.
+ * Only vertex labels with default configuration are supported.
+ * <p>
+ * Elements may be added from multiple threads. Since the written rows are new, the loader invalidates them in the
+ * database caches after writing instead of updating the caches.
+ */
+public class BulkLoader implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkLoader.class);
+
+    private final StandardJanusGraph graph;
+    private final KeyColumnValueStoreManager storeManager;
+    private final IDManager idManager;
+    private final TimestampProvider times;
+    private final Duration maxWriteTime;
+    private final boolean allowVertexIdSetting;
+
+    private final int batchSize;
+    private final int maxPendingBatches;
+    private final long reportIntervalMs;
+
+    private final ExecutorService workers;
+    private final Semaphore pendingBatches;
+    private final StandardJanusGraphTx schemaTx;
+    private final Map<Object, Object> vertexIds = new ConcurrentHashMap<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final Metrics metrics = new Metrics();
+
+    private final AtomicLong temporaryIds = new AtomicLong();
+    private List<Element> batch;
+    private volatile boolean isOpen = true;
+
+    private BulkLoader(Builder builder) {
+        this.graph = builder.graph;
+        this.storeManager = (KeyColumnValueStoreManager) graph.getBackend().getStoreManager();
+        this.idManager = graph.getIDManager();
+        this.times = graph.getConfiguration().getTimestampProvider();
+        this.maxWriteTime = graph.getConfiguration().getMaxWriteTime();
+        this.allowVertexIdSetting = graph.getConfiguration().allowVertexIdSetting();
+        this.batchSize = builder.batchSize;
+        this.maxPendingBatches = builder.numWorkers * builder.maxPendingBatchesPerWorker;
+        this.reportIntervalMs = builder.reportInterval.toMillis();
+        this.schemaTx = (StandardJanusGraphTx) graph.buildTransaction().readOnly().start();
+        if (!builder.skipMixedIndexes) verifyNoMixedIndexes();
+        this.workers = Executors.newFixedThreadPool(builder.numWorkers,
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("BulkLoader[%02d]").build());
+        this.pendingBatches = new Semaphore(maxPendingBatches);
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * Adds a new vertex.
+     *
+     * @param externalId the id by which edges added to this loader refer to the vertex
+     * @param label the name of the vertex label, or null for the default label
+     * @param properties the properties of the vertex by key name. For keys with {@link Cardinality#LIST} or
+     *                   {@link Cardinality#SET} a collection of values may be given.
+     * @return the id assigned to the vertex
+     */
+    public Object addVertex(Object externalId, String label, Map<String, ?> properties) {
+        verifyOpen();
+        Preconditions.checkNotNull(externalId, "Need to provide an external id");
+        final VertexLabel vertexLabel = label == null ? BaseVertexLabel.DEFAULT_VERTEXLABEL : schemaTx.getVertexLabel(label);
+        Preconditions.checkArgument(vertexLabel != null, "Vertex label does not exist: %s", label);
+        Preconditions.checkArgument(((InternalVertexLabel) vertexLabel).hasDefaultConfiguration(),
+            "Bulk loading only supports vertex labels with default configuration: %s", label);
+        verifyPropertyKeys(properties);
+
+        final Object vertexId;
+        if (allowVertexIdSetting) {
+            Preconditions.checkArgument(IDManager.VertexIDType.NormalVertex.is(externalId), "Not a valid vertex id: %s", externalId);
+            vertexId = externalId;
+        } else {
+            final StandardVertex vertex = new StandardVertex(schemaTx,
+                IDManager.getTemporaryVertexID(IDManager.VertexIDType.NormalVertex, temporaryIds.incrementAndGet()), ElementLifeCycle.New);
+            graph.assignID(vertex, vertexLabel);
+            vertexId = vertex.id();
+        }
+        Preconditions.checkArgument(vertexIds.putIfAbsent(externalId, vertexId) == null,
+            "Vertex with external id has already been added: %s", externalId);
+        add(new Element(vertexId, null, vertexLabel.name(), properties));
+        return vertexId;
+    }
+
+    /**
+     * Adds a new edge between two vertices which have been added to this loader.
+     *
+     * @param outExternalId the external id of the out-vertex
+     * @param inExternalId the external id of the in-vertex
+     * @param label the name of the edge label
+     * @param properties the properties of the edge by key name
+     */
+    public void addEdge(Object outExternalId, Object inExternalId, String label, Map<String, ?> properties) {
+        verifyOpen();
+        final Object outId = vertexIds.get(outExternalId);
+        final Object inId = vertexIds.get(inExternalId);
+        Preconditions.checkArgument(outId != null, "Unknown external vertex id: %s", outExternalId);
+        Preconditions.checkArgument(inId != null, "Unknown external vertex id: %s", inExternalId);
+        Preconditions.checkArgument(schemaTx.getEdgeLabel(label) != null, "Edge label does not exist: %s", label);
+        verifyPropertyKeys(properties);
+        add(new Element(outId, inId, label, properties));
+    }
+
+    /**
+     * Adds all vertices of the given stream.
+     */
+    public void addVertices(Stream<VertexRecord> vertices) {
+        vertices.forEachOrdered(v -> addVertex(v.externalId, v.label, v.properties));
+    }
+
+    /**
+     * Adds all edges of the given stream. The vertices of the edges have to be added before.
+     */
+    public void addEdges(Stream<EdgeRecord> edges) {
+        edges.forEachOrdered(e -> addEdge(e.outExternalId, e.inExternalId, e.label, e.properties));
+    }
+
+    /**
+     * Persists all elements which have been added so far and blocks until they have been written.
+     *
+     * @throws JanusGraphException if any batch could not be persisted
+     */
+    public synchronized void flush() {
+        verifyOpen();
+        dispatch();
+        try {
+            //Wait for all pending batches by acquiring every permit
+            pendingBatches.acquire(maxPendingBatches);
+            pendingBatches.release(maxPendingBatches);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JanusGraphException("Interrupted while waiting for bulk loading", e);
+        }
+        verifyNoFailure();
+        metrics.report();
+    }
+
+    /**
+     * Flushes all added elements and releases the resources of this loader.
+     */
+    @Override
+    public synchronized void close() {
+        if (!isOpen) return;
+        try {
+            flush();
+        } finally {
+            isOpen = false;
+            workers.shutdown();
+            schemaTx.rollback();
+        }
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    private void verifyOpen() {
+        Preconditions.checkState(isOpen, "Bulk loader has been closed");
+        verifyNoFailure();
+    }
+
+    private void verifyNoFailure() {
+        final Throwable e = failure.get();
+        if (e != null) throw new JanusGraphException("Bulk loading failed", e);
+    }
+
+    private void verifyNoMixedIndexes() {
+        final List<String> mixedIndexes = new ArrayList<>();
+        for (JanusGraphVertex v : QueryUtil.getVertices(schemaTx, BaseKey.SchemaCategory, JanusGraphSchemaCategory.GRAPHINDEX)) {
+            final IndexType index = ((JanusGraphSchemaVertex) v).asIndexType();
+            if (index.isMixedIndex()) mixedIndexes.add(index.getName());
+        }
+        if (!mixedIndexes.isEmpty()) {
+            schemaTx.rollback();
+            throw new IllegalArgumentException("Bulk loading does not support mixed indexes. Enable skipping of mixed " +
+                "indexes and reindex " + mixedIndexes + " after loading");
+        }
+    }
+
+    private void verifyPropertyKeys(Map<String, ?> properties) {
+        if (properties == null) return;
+        for (String key : properties.keySet()) {
+            Preconditions.checkArgument(schemaTx.getPropertyKey(key) != null, "Property key does not exist: %s", key);
+        }
+    }
+
+    private synchronized void add(Element element) {
+        batch.add(element);
+        if (batch.size() >= batchSize) dispatch();
+    }
+
+    private void dispatch() {
+        if (batch.isEmpty()) return;
+        final List<Element> elements = batch;
+        batch = new ArrayList<>(batchSize);
+        try {
+            pendingBatches.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JanusGraphException("Interrupted while waiting for bulk loading", e);
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    if (failure.get() == null) persist(elements);
+                } catch (Throwable e) {
+                    log.error("Could not persist bulk loading batch of {} elements", elements.size(), e);
+                    failure.compareAndSet(null, e);
+                } finally {
+                    pendingBatches.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingBatches.release();
+            throw e;
+        }
+    }
+
+    private void persist(List<Element> elements) throws BackendException {
+        final Map<StaticBuffer, List<Entry>> edgeStore = new TreeMap<>();
+        final Map<StaticBuffer, List<Entry>> indexStore = new TreeMap<>();
+        final StandardJanusGraphTx tx = (StandardJanusGraphTx) graph.buildTransaction().readOnly().start();
+        long numVertices = 0, numEdges = 0;
+        try {
+            long tempIds = 0;
+            for (Element element : elements) {
+                final List<IndexUpdate> indexUpdates = new ArrayList<>();
+                final InternalVertex vertex = new StandardVertex(tx, element.vertexId, ElementLifeCycle.New);
+                if (element.isEdge()) {
+                    final EdgeLabel label = tx.getEdgeLabel(element.label);
+                    final InternalVertex in = element.inVertexId.equals(element.vertexId) ? vertex
+                        : new StandardVertex(tx, element.inVertexId, ElementLifeCycle.New);
+                    final StandardEdge edge = new StandardEdge(IDManager.getTemporaryRelationID(++tempIds), label, vertex, in, ElementLifeCycle.New);
+                    if (element.properties != null) {
+                        for (Map.Entry<String, ?> property : element.properties.entrySet()) {
+                            final PropertyKey key = tx.getPropertyKey(property.getKey());
+                            edge.setPropertyDirect(key, tx.verifyAttribute(key, property.getValue()));
+                        }
+                    }
+                    graph.assignID(edge);
+                    addEntries(edgeStore, edge, vertex.id(), tx);
+                    if (!edge.isLoop()) addEntries(edgeStore, edge, in.id(), tx);
+                    indexUpdates.addAll(graph.getIndexSerializer().getIndexUpdates(edge));
+                    numEdges++;
+                } else {
+                    final List<InternalRelation> relations = new ArrayList<>();
+                    final List<InternalRelation> properties = new ArrayList<>();
+                    properties.add(new StandardVertexProperty(IDManager.getTemporaryRelationID(++tempIds), BaseKey.VertexExists,
+                        vertex, Boolean.TRUE, ElementLifeCycle.New));
+                    final VertexLabel label = tx.getVertexLabel(element.label);
+                    if (label != BaseVertexLabel.DEFAULT_VERTEXLABEL) {
+                        relations.add(new StandardEdge(IDManager.getTemporaryRelationID(++tempIds), BaseLabel.VertexLabelEdge,
+                            vertex, (InternalVertex) label, ElementLifeCycle.New));
+                    }
+                    if (element.properties != null) {
+                        for (Map.Entry<String, ?> property : element.properties.entrySet()) {
+                            final PropertyKey key = tx.getPropertyKey(property.getKey());
+                            for (Object value : values(key, property.getValue())) {
+                                properties.add(new StandardVertexProperty(IDManager.getTemporaryRelationID(++tempIds), key,
+                                    vertex, tx.verifyAttribute(key, value), ElementLifeCycle.New));
+                            }
+                        }
+                    }
+                    relations.addAll(properties);
+                    for (InternalRelation relation : relations) {
+                        graph.assignID(relation);
+                        //Connect the relations so that the index updates can be computed from the vertex
+                        vertex.addRelation(relation);
+                        addEntries(edgeStore, relation, vertex.id(), tx);
+                    }
+                    indexUpdates.addAll(graph.getIndexSerializer().getIndexUpdates(vertex, properties));
+                    numVertices++;
+                }
+
+                for (IndexUpdate update : indexUpdates) {
+                    //Mixed indexes have been verified to be skipped when the loader was opened
+                    if (update.isCompositeIndex()) {
+                        indexStore.computeIfAbsent((StaticBuffer) update.getKey(), k -> new ArrayList<>()).add((Entry) update.getEntry());
+                    }
+                }
+            }
+        } finally {
+            tx.rollback();
+        }
+
+        final Map<String, Map<StaticBuffer, KCVMutation>> mutations = new HashMap<>(2);
+        final long numEntries = toMutations(Backend.EDGESTORE_NAME, edgeStore, mutations)
+            + toMutations(Backend.INDEXSTORE_NAME, indexStore, mutations);
+        final StoreTransaction storeTx = storeManager.beginTransaction(new StandardBaseTransactionConfig.Builder()
+            .timestampProvider(times).commitTime(times.getTime()).build());
+        try {
+            BackendOperation.execute(() -> {
+                storeManager.mutateMany(mutations, storeTx);
+                return true;
+            }, maxWriteTime);
+            storeTx.commit();
+        } catch (Throwable e) {
+            storeTx.rollback();
+            throw e;
+        }
+        //The mutations bypass the cache transaction, hence rows which have been read before are invalidated here
+        invalidate(graph.getBackend().getEdgeStoreCache(), edgeStore.keySet());
+        invalidate(graph.getBackend().getIndexStoreCache(), indexStore.keySet());
+        metrics.update(numVertices, numEdges, numEntries);
+        if (metrics.shouldReport(reportIntervalMs)) metrics.report();
+    }
+
+    private void addEntries(Map<StaticBuffer, List<Entry>> edgeStore, InternalRelation relation, Object vertexId,
+                            StandardJanusGraphTx tx) {
+        graph.writeRelationEntries(relation, vertexId,
+            edgeStore.computeIfAbsent(idManager.getKey(vertexId), k -> new ArrayList<>()), KCVSCache.NO_DELETIONS, tx);
+    }
+
+    private static void invalidate(KCVSCache cache, Collection<StaticBuffer> keys) {
+        for (StaticBuffer key : keys) cache.invalidate(key, Collections.emptyList());
+    }
+
+    private static Collection<?> values(PropertyKey key, Object value) {
+        if (key.cardinality() != Cardinality.SINGLE && value instanceof Collection) return (Collection<?>) value;
+        return Collections.singletonList(value);
+    }
+
+    private static long toMutations(String storeName, Map<StaticBuffer, List<Entry>> entries,
+                                    Map<String, Map<StaticBuffer, KCVMutation>> mutations) {
+        if (entries.isEmpty()) return 0;
+        final Map<StaticBuffer, KCVMutation> storeMutations = new TreeMap<>();
+        long numEntries = 0;
+        for (Map.Entry<StaticBuffer, List<Entry>> entry : entries.entrySet()) {
+            storeMutations.put(entry.getKey(), new KCVMutation(entry.getValue(), KeyColumnValueStore.NO_DELETIONS));
+            numEntries += entry.getValue().size();
+        }
+        mutations.put(storeName, storeMutations);
+        return numEntries;
+    }
+
+    private static class Element {
+
+        private final Object vertexId;
+        private final Object inVertexId;
+        private final String label;
+        private final Map<String, ?> properties;
+
+        private Element(Object vertexId, Object inVertexId, String label, Map<String, ?> properties) {
+            this.vertexId = vertexId;
+            this.inVertexId = inVertexId;
+            this.label = label;
+            this.properties = properties;
+        }
+
+        private boolean isEdge() {
+            return inVertexId != null;
+        }
+    }
+
+    /**
+     * A vertex to be loaded by {@link #addVertices(Stream)}
+     */
+    public static class VertexRecord {
+
+        private final Object externalId;
+        private final String label;
+        private final Map<String, ?> properties;
+
+        public VertexRecord(Object externalId, String label, Map<String, ?> properties) {
+            this.externalId = externalId;
+            this.label = label;
+            this.properties = properties;
+        }
+    }
+
+    /**
+     * An edge to be loaded by {@link #addEdges(Stream)}
+     */
+    public static class EdgeRecord {
+
+        private final Object outExternalId;
+        private final Object inExternalId;
+        private final String label;
+        private final Map<String, ?> properties;
+
+        public EdgeRecord(Object outExternalId, Object inExternalId, String label, Map<String, ?> properties) {
+            this.outExternalId = outExternalId;
+            this.inExternalId = inExternalId;
+            this.label = label;
+            this.properties = properties;
+        }
+    }
+
+    /**
+     * Throughput statistics of a {@link BulkLoader} which are updated as batches are persisted
+     */
+    public static class Metrics {
+
+        private final long startTime = System.currentTimeMillis();
+        private final AtomicLong vertices = new AtomicLong();
+        private final AtomicLong edges = new AtomicLong();
+        private final AtomicLong entries = new AtomicLong();
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong lastReport = new AtomicLong(startTime);
+
+        private void update(long numVertices, long numEdges, long numEntries) {
+            vertices.addAndGet(numVertices);
+            edges.addAndGet(numEdges);
+            entries.addAndGet(numEntries);
+            batches.incrementAndGet();
+        }
+
+        private boolean shouldReport(long intervalMs) {
+            final long now = System.currentTimeMillis();
+            final long last = lastReport.get();
+            return now - last >= intervalMs && lastReport.compareAndSet(last, now);
+        }
+
+        private void report() {
+            log.info("Bulk loaded {} vertices and {} edges ({} entries in {} batches) at {} elements/s",
+                getVertexCount(), getEdgeCount(), getEntryCount(), getBatchCount(), (long) getElementsPerSecond());
+        }
+
+        public long getVertexCount() {
+            return vertices.get();
+        }
+
+        public long getEdgeCount() {
+            return edges.get();
+        }
+
+        /**
+         * @return the number of edge store and composite index entries which have been written
+         */
+        public long getEntryCount() {
+            return entries.get();
+        }
+
+        public long getBatchCount() {
+            return batches.get();
+        }
+
+        public double getElementsPerSecond() {
+            final long elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+            return (getVertexCount() + getEdgeCount()) * 1000.0 / elapsed;
+        }
+    }
+
+    /**
+     * Configures and opens a {@link BulkLoader}
+     */
+    public static class Builder {
+
+        private final StandardJanusGraph graph;
+        private int batchSize = 10000;
+        private int numWorkers = Runtime.getRuntime().availableProcessors();
+        private int maxPendingBatchesPerWorker = 2;
+        private boolean skipMixedIndexes = false;
+        private Duration reportInterval = Duration.ofSeconds(10);
+
+        Builder(StandardJanusGraph graph) {
+            this.graph = graph;
+        }
+
+        /**
+         * The number of vertices and edges which are persisted together in one batch
+         */
+        public Builder batchSize(int batchSize) {
+            Preconditions.checkArgument(batchSize > 0);
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * The number of threads which serialize and persist batches
+         */
+        public Builder numWorkers(int numWorkers) {
+            Preconditions.checkArgument(numWorkers > 0);
+            this.numWorkers = numWorkers;
+            return this;
+        }
+
+        /**
+         * The number of batches per worker which may be buffered before adding elements blocks
+         */
+        public Builder maxPendingBatchesPerWorker(int maxPendingBatches) {
+            Preconditions.checkArgument(maxPendingBatches > 0);
+            this.maxPendingBatchesPerWorker = maxPendingBatches;
+            return this;
+        }
+
+        /**
+         * Whether mixed indexes are skipped instead of failing the load. Skipped indexes need to be reindexed.
+         */
+        public Builder skipMixedIndexes(boolean skipMixedIndexes) {
+            this.skipMixedIndexes = skipMixedIndexes;
+            return this;
+        }
+
+        /**
+         * How often the throughput is logged while loading
+         */
+        public Builder reportInterval(Duration reportInterval) {
+            Preconditions.checkArgument(reportInterval != null && !reportInterval.isNegative());
+            this.reportInterval = reportInterval;
+            return this;
+        }
+
+        public BulkLoader open() {
+            Preconditions.checkState(graph.isOpen(), "Graph has been closed");
+            return new BulkLoader(this);
+        }
+    }
+
+}
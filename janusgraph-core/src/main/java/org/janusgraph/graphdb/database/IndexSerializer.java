@@ -120,12 +120,15 @@ public class IndexSerializer {
 
     private final boolean hashKeys;
     private final HashingUtil.HashLength hashLength = HashingUtil.HashLength.SHORT;
+    private final int compositeIndexBatchSize;
 
-    public IndexSerializer(Configuration config, Serializer serializer, Map<String, ? extends IndexInformation> indexes, final boolean hashKeys) {
+    public IndexSerializer(Configuration config, Serializer serializer, Map<String, ? extends IndexInformation> indexes,
+                           final boolean hashKeys, final int compositeIndexBatchSize) {
         this.serializer = serializer;
         this.configuration = config;
         this.mixedIndexes = indexes;
         this.hashKeys=hashKeys;
+        this.compositeIndexBatchSize = compositeIndexBatchSize;
         if (hashKeys) log.info("Hashing index keys");
     }
 
@@ -319,7 +322,7 @@ public class IndexSerializer {
         final IndexType index = query.getIndex();
         if (index.isCompositeIndex()) {
             final MultiKeySliceQuery sq = query.getCompositeQuery();
-            final List<EntryList> rs = sq.execute(tx);
+            final List<EntryList> rs = sq.execute(tx, compositeIndexBatchSize, query.getProfiler());
             final List<Object> results = new ArrayList<>(rs.get(0).size());
             for (final EntryList r : rs) {
                 for (final java.util.Iterator<Entry> iterator = r.reuseIterator(); iterator.hasNext(); ) {
@@ -56,6 +56,7 @@ import org.janusgraph.diskstorage.log.Log;
 import org.janusgraph.diskstorage.log.Message;
 import org.janusgraph.diskstorage.log.ReadMarker;
 import org.janusgraph.diskstorage.log.kcvs.KCVSLog;
+import org.janusgraph.diskstorage.util.KeyColumn;
 import org.janusgraph.diskstorage.util.RecordIterator;
 import org.janusgraph.diskstorage.util.StaticArrayEntry;
 import org.janusgraph.diskstorage.util.time.TimestampProvider;
@@ -69,6 +70,7 @@ import org.janusgraph.graphdb.tinkerpop.optimize.strategy.JanusGraphUnusedMultiQ
 import org.janusgraph.util.IDUtils;
 import org.janusgraph.graphdb.database.index.IndexInfoRetriever;
 import org.janusgraph.graphdb.database.index.IndexUpdate;
+import org.janusgraph.graphdb.database.log.IndexUpdateQueue;
 import org.janusgraph.graphdb.database.log.LogTxStatus;
 import org.janusgraph.graphdb.database.log.TransactionLogHeader;
 import org.janusgraph.graphdb.database.management.ManagementLogger;
@@ -94,6 +96,7 @@ import org.janusgraph.graphdb.tinkerpop.optimize.strategy.JanusGraphMixedIndexAg
 import org.janusgraph.graphdb.tinkerpop.optimize.strategy.JanusGraphMixedIndexCountStrategy;
 import org.janusgraph.graphdb.tinkerpop.optimize.strategy.JanusGraphMultiQueryStrategy;
 import org.janusgraph.graphdb.tinkerpop.optimize.strategy.JanusGraphStepStrategy;
+import org.janusgraph.graphdb.tinkerpop.optimize.strategy.JanusGraphVertexCountStrategy;
 import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
 import org.janusgraph.graphdb.transaction.StandardTransactionBuilder;
 import org.janusgraph.graphdb.transaction.TransactionConfiguration;
@@ -127,6 +130,8 @@ import java.util.function.Predicate;
 import javax.script.Bindings;
 import javax.script.ScriptException;
 
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.INDEX_QUEUE;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.LOCK_CONDITIONAL_INSERT;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.REGISTRATION_TIME;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.REPLACE_INSTANCE_IF_EXISTS;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.SCRIPT_EVAL_ENABLED;
@@ -149,6 +154,7 @@ public class StandardJanusGraph extends JanusGraphBlueprintsGraph {
                                AdjacentVertexIsOptimizerStrategy.instance(),
                                AdjacentVertexHasUniquePropertyOptimizerStrategy.instance(),
                                JanusGraphLocalQueryOptimizerStrategy.instance(),
+                               JanusGraphVertexCountStrategy.instance(),
                                JanusGraphMultiQueryStrategy.instance(),
                                JanusGraphUnusedMultiQueryRemovalStrategy.instance(),
                                JanusGraphMixedIndexAggStrategy.instance(),
@@ -241,6 +247,16 @@ public class StandardJanusGraph extends JanusGraphBlueprintsGraph {
 
     private final String name;
 
+    /**
+     * Whether new index entries guarded by locks are claimed with a conditional insert instead of a lock
+     */
+    private final boolean conditionalIndexInserts;
+
+    /**
+     * Queue that mixed index updates are delivered through, or null if they are committed directly
+     */
+    private final IndexUpdateQueue indexUpdateQueue;
+
     public StandardJanusGraph(GraphDatabaseConfiguration configuration) {
 
         this.config = configuration;
@@ -258,13 +274,20 @@ public class StandardJanusGraph extends JanusGraphBlueprintsGraph {
         this.serializer = config.getSerializer();
         StoreFeatures storeFeatures = backend.getStoreFeatures();
         this.indexSerializer = new IndexSerializer(configuration.getConfiguration(), this.serializer,
-                this.backend.getIndexInformation(), storeFeatures.isDistributed() && storeFeatures.isKeyOrdered());
+                this.backend.getIndexInformation(), storeFeatures.isDistributed() && storeFeatures.isKeyOrdered(),
+                configuration.getCompositeIndexBatchSize());
         this.edgeSerializer = new EdgeSerializer(this.serializer);
         this.vertexExistenceQuery = edgeSerializer.getQuery(BaseKey.VertexExists, Direction.OUT, new EdgeSerializer.TypedInterval[0]).setLimit(1);
         this.queryCache = new RelationQueryCache(this.edgeSerializer);
         this.schemaCache = configuration.getTypeCache(typeCacheRetrieval);
         this.times = configuration.getTimestampProvider();
         this.indexSelector = getConfiguration().getIndexSelectionStrategy();
+        this.conditionalIndexInserts = configuration.getConfiguration().get(LOCK_CONDITIONAL_INSERT)
+            && storeFeatures.hasConditionalInsert();
+        if (configuration.getConfiguration().get(LOCK_CONDITIONAL_INSERT) && !conditionalIndexInserts) {
+            log.warn("Storage backend does not support conditional inserts, falling back to locking for " +
+                LOCK_CONDITIONAL_INSERT.toStringWithoutRoot());
+        }
 
         if (configuration.hasScriptEval()) {
             log.info("Gremlin script evaluation is enabled");
@@ -297,6 +320,9 @@ public class StandardJanusGraph extends JanusGraphBlueprintsGraph {
         managementLogger = new ManagementLogger(this, managementLog, schemaCache, this.times);
         managementLog.registerReader(ReadMarker.fromNow(), managementLogger);
 
+        indexUpdateQueue = configuration.getConfiguration().get(INDEX_QUEUE)
+            ? new IndexUpdateQueue(this, configuration.getConfiguration()) : null;
+
         shutdownHook = new ShutdownThread(this);
         Runtime.getRuntime().addShutdownHook(shutdownHook);
         log.debug("Installed shutdown hook {}", shutdownHook, new Throwable("Hook creation trace"));
@@ -399,6 +425,7 @@ public class StandardJanusGraph extends JanusGraphBlueprintsGraph {
 
             super.close();
 
+            IOUtils.closeQuietly(indexUpdateQueue);
             IOUtils.closeQuietly(idAssigner);
             IOUtils.closeQuietly(backend);
             IOUtils.closeQuietly(queryCache);
@@ -506,6 +533,14 @@ public class StandardJanusGraph extends JanusGraphBlueprintsGraph {
         return buildTransaction().threadBound().start();
     }
 
+    /**
+     * Returns a builder for a {@link BulkLoader} which loads new vertices and edges directly into the storage backend
+     */
+    public BulkLoader.Builder buildBulkLoader() {
+        if (!isOpen) ExceptionFactory.graphShutdown();
+        return new BulkLoader.Builder(this);
+    }
+
     /**
      * Tạo transaction
      */
@@ -637,6 +672,10 @@ public class StandardJanusGraph extends JanusGraphBlueprintsGraph {
         idAssigner.assignID(vertex,label);
     }
 
+    public void assignIDs(Iterable<InternalRelation> addedRelations) {
+        idAssigner.assignIDs(addedRelations);
+    }
+
     public static boolean acquireLock(InternalRelation relation, int pos, boolean acquireLocksConfig) {
         InternalRelationType type = (InternalRelationType)relation.getType();
         return acquireLocksConfig && type.getConsistencyModifier()== ConsistencyModifier.LOCK &&
@@ -784,23 +823,34 @@ public class StandardJanusGraph extends JanusGraphBlueprintsGraph {
     }
 
     /**
-     * Acquire index locks (deletions first)
+     * Acquire index locks (deletions first). If the storage backend supports it, new index entries which are not also
+     * deleted by this transaction are claimed with a conditional insert instead of a lock.
      */
     private void prepareCommitAcquireIndexLocks(final List<IndexUpdate> indexUpdates,
                                                 final BackendTransaction mutator,
                                                 final boolean acquireLocks) throws BackendException {
+        final Set<KeyColumn> lockedDeletions = conditionalIndexInserts ? new HashSet<>() : null;
         for (IndexUpdate update : indexUpdates) {
             if (!update.isCompositeIndex() || !update.isDeletion()) continue;
             CompositeIndexType iIndex = (CompositeIndexType) update.getIndex();
             if (acquireLock(iIndex,acquireLocks)) {
                 mutator.acquireIndexLock((StaticBuffer)update.getKey(), (Entry)update.getEntry());
+                if (lockedDeletions != null) {
+                    lockedDeletions.add(new KeyColumn((StaticBuffer)update.getKey(), ((Entry)update.getEntry()).getColumn()));
+                }
             }
         }
         for (IndexUpdate update : indexUpdates) {
             if (!update.isCompositeIndex() || !update.isAddition()) continue;
             CompositeIndexType iIndex = (CompositeIndexType) update.getIndex();
             if (acquireLock(iIndex,acquireLocks)) {
-                mutator.acquireIndexLock((StaticBuffer)update.getKey(), ((Entry)update.getEntry()).getColumn());
+                final StaticBuffer key = (StaticBuffer)update.getKey();
+                final Entry entry = (Entry)update.getEntry();
+                if (lockedDeletions != null && !lockedDeletions.contains(new KeyColumn(key, entry.getColumn()))) {
+                    mutator.insertIndexIfAbsent(key, entry);
+                } else {
+                    mutator.acquireIndexLock(key, entry.getColumn());
+                }
             }
         }
     }
@@ -817,29 +867,7 @@ public class StandardJanusGraph extends JanusGraphBlueprintsGraph {
             final List<Entry> additions = new ArrayList<>(edges.size());
             final List<Entry> deletions = new ArrayList<>(Math.max(10, edges.size() / 10));
             for (final InternalRelation edge : edges) {
-                final InternalRelationType baseType = (InternalRelationType) edge.getType();
-                assert baseType.getBaseType()==null;
-
-                for (InternalRelationType type : baseType.getRelationIndexes()) {
-                    if (type.getStatus()== SchemaStatus.DISABLED) continue;
-                    for (int pos = 0; pos < edge.getArity(); pos++) {
-                        if (!type.isUnidirected(Direction.BOTH) && !type.isUnidirected(EdgeDirection.fromPosition(pos)))
-                            continue; //Directionality is not covered
-                        if (edge.getVertex(pos).id().equals(vertexId)) {
-                            StaticArrayEntry entry = edgeSerializer.writeRelation(edge, type, pos, tx);
-                            if (edge.isRemoved()) {
-                                deletions.add(entry);
-                            } else {
-                                Preconditions.checkArgument(edge.isNew());
-                                int ttl = getTTL(edge);
-                                if (ttl > 0) {
-                                    entry.setMetaData(EntryMetaData.TTL, ttl);
-                                }
-                                additions.add(entry);
-                            }
-                        }
-                    }
-                }
+                writeRelationEntries(edge, vertexId, additions, deletions, tx);
             }
 
             StaticBuffer vertexKey = idManager.getKey(vertexId);
@@ -847,6 +875,37 @@ public class StandardJanusGraph extends JanusGraphBlueprintsGraph {
         }
     }
 
+    /**
+     * Serializes the relation into the entries of all of its relation indexes which belong to the vertex with the given id
+     */
+    void writeRelationEntries(final InternalRelation edge, final Object vertexId,
+                              final List<Entry> additions, final List<Entry> deletions,
+                              final StandardJanusGraphTx tx) {
+        final InternalRelationType baseType = (InternalRelationType) edge.getType();
+        assert baseType.getBaseType()==null;
+
+        for (InternalRelationType type : baseType.getRelationIndexes()) {
+            if (type.getStatus()== SchemaStatus.DISABLED) continue;
+            for (int pos = 0; pos < edge.getArity(); pos++) {
+                if (!type.isUnidirected(Direction.BOTH) && !type.isUnidirected(EdgeDirection.fromPosition(pos)))
+                    continue; //Directionality is not covered
+                if (edge.getVertex(pos).id().equals(vertexId)) {
+                    StaticArrayEntry entry = edgeSerializer.writeRelation(edge, type, pos, tx);
+                    if (edge.isRemoved()) {
+                        deletions.add(entry);
+                    } else {
+                        Preconditions.checkArgument(edge.isNew());
+                        int ttl = getTTL(edge);
+                        if (ttl > 0) {
+                            entry.setMetaData(EntryMetaData.TTL, ttl);
+                        }
+                        additions.add(entry);
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Add index updates
      *
@@ -969,8 +1028,17 @@ public class StandardJanusGraph extends JanusGraphBlueprintsGraph {
                             txLogHeader.getLogKey(),mutator.getTxLogPersistor());
                 }
 
+                //1b. Queue mixed index updates such that they are persisted atomically with all transactional changes
+                final boolean queueIndexUpdates = indexUpdateQueue != null && commitSummary.has2iModifications;
+                if (queueIndexUpdates) {
+                    indexUpdateQueue.enqueue(mutator, txLogHeader.getLogKey());
+                }
+
                 try {
-                    mutator.commitStorage();
+                    //Mutations guarded by locks or belonging to schema elements need to be persisted by their own transaction
+                    final boolean groupCommit = !hasSchemaElements && !mutator.hasAcquiredLock()
+                        && !tx.getConfiguration().hasEnabledBatchLoading();
+                    mutator.commitStorage(groupCommit ? backend.getGroupCommitter() : null);
                 } catch (Throwable e) {
                     //[FAILURE] If primary storage persistence fails abort directly (only schema could have been persisted)
                     log.error("Could not commit transaction ["+transactionId+"] due to storage exception in commit",e);
@@ -984,7 +1052,12 @@ public class StandardJanusGraph extends JanusGraphBlueprintsGraph {
 
                     try {
                         //2. Commit indexes - [FAILURE] all exceptions are collected and logged but nothing is aborted
-                        indexFailures = mutator.commitIndexes();
+                        //   Queued index updates are delivered asynchronously instead
+                        if (queueIndexUpdates) {
+                            mutator.rollbackIndexes();
+                        } else {
+                            indexFailures = mutator.commitIndexes();
+                        }
                         if (!indexFailures.isEmpty()) {
                             status = LogTxStatus.SECONDARY_FAILURE;
                             for (Map.Entry<String,Throwable> entry : indexFailures.entrySet()) {
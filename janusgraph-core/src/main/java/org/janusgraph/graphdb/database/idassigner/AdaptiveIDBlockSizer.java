@@ -0,0 +1,136 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.database.idassigner;
+
+import com.codahale.metrics.Histogram;
+import com.google.common.base.Preconditions;
+import org.janusgraph.util.stats.MetricManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link IDBlockSizer} which adapts the block size of every id pool, i.e. of every partition and id namespace, to the
+ * rate at which the pool consumes ids. The pools report how many ids they handed out of their current block and how
+ * long that took through {@link #recordConsumption(int, int, long, Duration)}. The next block is sized so that it lasts
+ * for the target duration at the last reported rate, changing by at most a factor of {@link #MAX_STEP} per block and
+ * bounded by the configured minimum and maximum block size. Pools which have not reported their consumption yet keep
+ * their block size.
+ * <p>
+ * Only the given id namespaces are adapted, all others use the block size of the wrapped sizer. The chosen block sizes
+ * are recorded in a histogram per adapted id namespace.
+ */
+public class AdaptiveIDBlockSizer implements IDBlockSizer {
+
+    public static final String METRICS_NAME = "idblocksizer";
+    public static final String M_BLOCK_SIZE = "blocksize";
+
+    static final int MAX_STEP = 2;
+
+    private final IDBlockSizer baseSizer;
+    private final long minBlockSize;
+    private final long maxBlockSize;
+    private final long targetDurationNanos;
+
+    private final Map<Integer, Histogram> blockSizeHistograms;
+    private final ConcurrentMap<Long, PoolConsumption> pools = new ConcurrentHashMap<>();
+
+    /**
+     * @param baseSizer the sizer providing the initial block size and the id upper bound of every id namespace
+     * @param adaptedNamespaces the id namespaces to adapt, mapped to the name under which their block sizes are recorded
+     * @param minBlockSize the smallest block size handed out for adapted id namespaces
+     * @param maxBlockSize the largest block size handed out for adapted id namespaces
+     * @param targetDuration the time a block should last at the observed consumption rate
+     * @param metricsPrefix the prefix of the block size histograms
+     */
+    public AdaptiveIDBlockSizer(IDBlockSizer baseSizer, Map<Integer, String> adaptedNamespaces,
+                                long minBlockSize, long maxBlockSize, Duration targetDuration, String metricsPrefix) {
+        Preconditions.checkNotNull(baseSizer);
+        Preconditions.checkArgument(minBlockSize > 0 && maxBlockSize >= minBlockSize,
+            "Invalid block size bounds [%s,%s]", minBlockSize, maxBlockSize);
+        Preconditions.checkArgument(targetDuration != null && !targetDuration.isNegative() && !targetDuration.isZero(),
+            "Target duration must be positive");
+        this.baseSizer = baseSizer;
+        this.minBlockSize = minBlockSize;
+        this.maxBlockSize = maxBlockSize;
+        this.targetDurationNanos = targetDuration.toNanos();
+        this.blockSizeHistograms = new HashMap<>(adaptedNamespaces.size());
+        for (Map.Entry<Integer, String> namespace : adaptedNamespaces.entrySet()) {
+            blockSizeHistograms.put(namespace.getKey(),
+                MetricManager.INSTANCE.getHistogram(metricsPrefix, METRICS_NAME, namespace.getValue(), M_BLOCK_SIZE));
+        }
+    }
+
+    @Override
+    public long getBlockSize(int idNamespace) {
+        return baseSizer.getBlockSize(idNamespace);
+    }
+
+    @Override
+    public long getBlockSize(int partition, int idNamespace) {
+        final Histogram histogram = blockSizeHistograms.get(idNamespace);
+        if (histogram == null) return baseSizer.getBlockSize(partition, idNamespace);
+
+        final PoolConsumption pool = getPool(partition, idNamespace);
+        final long blockSize;
+        synchronized (pool) {
+            if (pool.lastBlockSize == 0) {
+                blockSize = bound(baseSizer.getBlockSize(partition, idNamespace), idNamespace);
+            } else if (pool.idsPerNano > 0) {
+                final double targetSize = pool.idsPerNano * targetDurationNanos;
+                final double steppedSize = Math.max(pool.lastBlockSize / (double) MAX_STEP,
+                    Math.min(pool.lastBlockSize * (double) MAX_STEP, targetSize));
+                blockSize = bound(Math.round(steppedSize), idNamespace);
+            } else {
+                blockSize = pool.lastBlockSize;
+            }
+            pool.lastBlockSize = blockSize;
+        }
+        histogram.update(blockSize);
+        return blockSize;
+    }
+
+    @Override
+    public void recordConsumption(int partition, int idNamespace, long numIds, Duration duration) {
+        if (numIds <= 0 || !blockSizeHistograms.containsKey(idNamespace)) return;
+        final PoolConsumption pool = getPool(partition, idNamespace);
+        synchronized (pool) {
+            pool.idsPerNano = numIds / (double) Math.max(1, duration.toNanos());
+        }
+    }
+
+    private PoolConsumption getPool(int partition, int idNamespace) {
+        return pools.computeIfAbsent(((long) partition << Integer.SIZE) | idNamespace, k -> new PoolConsumption());
+    }
+
+    private long bound(long blockSize, int idNamespace) {
+        final long upperBound = Math.min(maxBlockSize, getIdUpperBound(idNamespace) - 1);
+        return Math.max(Math.min(minBlockSize, upperBound), Math.min(upperBound, blockSize));
+    }
+
+    @Override
+    public long getIdUpperBound(int idNamespace) {
+        return baseSizer.getIdUpperBound(idNamespace);
+    }
+
+    private static class PoolConsumption {
+
+        private double idsPerNano;
+        private long lastBlockSize;
+    }
+}
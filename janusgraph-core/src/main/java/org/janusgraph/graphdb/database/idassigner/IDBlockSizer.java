@@ -33,6 +33,32 @@ public interface IDBlockSizer {
      */
     long getBlockSize(int idNamespace);
 
+    /**
+     * The size of the id block to be returned by calls {@link org.janusgraph.diskstorage.IDAuthority#getIDBlock(int, int, Duration)}
+     * for the given partition and id namespace. Block sizers which adapt the block size to the consumption of
+     * individual id pools override this method, by default it returns {@link #getBlockSize(int)}.
+     *
+     * @param partition
+     * @param idNamespace
+     * @return
+     */
+    default long getBlockSize(int partition, int idNamespace) {
+        return getBlockSize(idNamespace);
+    }
+
+    /**
+     * Records that the id pool of the given partition and id namespace handed out the given number of ids within the
+     * given time. Block sizers which adapt the block size to the consumption of individual id pools override this
+     * method, by default the consumption is ignored.
+     *
+     * @param partition
+     * @param idNamespace
+     * @param numIds
+     * @param duration
+     */
+    default void recordConsumption(int partition, int idNamespace, long numIds, Duration duration) {
+    }
+
     /**
      * Returns the upper bound for any id block returned by {@link org.janusgraph.diskstorage.IDAuthority#getIDBlock(int, int, Duration)}
      * for the given id namespace.
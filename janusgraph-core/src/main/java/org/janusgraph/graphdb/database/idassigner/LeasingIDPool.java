@@ -0,0 +1,59 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.database.idassigner;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * {@link IDPool} which leases small ranges of ids from a shared {@link StandardIDPool} to every thread, such that
+ * threads hand out ids from their own range without contending on the shared pool.
+ * <p>
+ * Leased ids which have not been handed out when a thread terminates are discarded, as are the unused ids of a
+ * block when an id pool is closed. Hence, a small lease size keeps the number of skipped ids low. Closing the pool
+ * invalidates the leases of all threads, not only the lease of the closing thread.
+ */
+public class LeasingIDPool implements IDPool {
+
+    private final StandardIDPool pool;
+    private final long leaseSize;
+    private final ThreadLocal<StandardIDPool.IDLease> leases = new ThreadLocal<>();
+    private volatile boolean closed = false;
+
+    public LeasingIDPool(StandardIDPool pool, long leaseSize) {
+        Preconditions.checkNotNull(pool);
+        Preconditions.checkArgument(leaseSize > 0, "Invalid lease size: %s", leaseSize);
+        this.pool = pool;
+        this.leaseSize = leaseSize;
+    }
+
+    @Override
+    public long nextID() {
+        //leases of other threads remain in their thread locals after the pool has been closed, so check every time
+        Preconditions.checkState(!closed, "ID pool has been closed");
+        StandardIDPool.IDLease lease = leases.get();
+        if (lease == null || !lease.hasNext()) {
+            lease = pool.leaseIDs(leaseSize);
+            leases.set(lease);
+        }
+        return lease.nextID();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        leases.remove();
+        pool.close();
+    }
+}
@@ -14,6 +14,7 @@
 
 package org.janusgraph.graphdb.database.idassigner;
 
+import com.codahale.metrics.Timer;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
@@ -21,11 +22,14 @@ import org.janusgraph.core.JanusGraphException;
 import org.janusgraph.diskstorage.BackendException;
 import org.janusgraph.diskstorage.IDAuthority;
 import org.janusgraph.diskstorage.IDBlock;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.util.stats.MetricManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
 import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
@@ -35,6 +39,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Matthias Broecheler (me@matthiasb.com)
@@ -72,6 +77,9 @@ public class StandardIDPool implements IDPool {
 
     private static final int RENEW_ID_COUNT = 100;
 
+    public static final String METRICS_NAME = "idpool";
+    public static final String M_STALL = "stall";
+
     private final IDAuthority idAuthority;
     private final long idUpperBound; //exclusive
     private final int partition;
@@ -79,14 +87,14 @@ public class StandardIDPool implements IDPool {
 
     private final Duration renewTimeout;
     private final double renewBufferPercentage;
+    private final int prefetchBlocks;
+    private final Timer stallTimer;
+    private final IDBlockSizer consumptionRecorder;
 
-    private IDBlock currentBlock;
-    private long currentIndex;
-    private long renewBlockIndex;
+    private volatile CurrentBlock currentBlock;
 
-    private volatile IDBlock nextBlock;
-    private Future<IDBlock> idBlockFuture;
-    private IDBlockGetter idBlockGetter;
+    private final Queue<PendingBlock> pendingBlocks;
+    private boolean exhausted;
     private final ThreadPoolExecutor exec;
 
     private volatile boolean closed;
@@ -94,6 +102,26 @@ public class StandardIDPool implements IDPool {
     private final Queue<Future<?>> closeBlockers;
 
     public StandardIDPool(IDAuthority idAuthority, int partition, int idNamespace, long idUpperBound, Duration renewTimeout, double renewBufferPercentage) {
+        this(idAuthority, partition, idNamespace, idUpperBound, renewTimeout, renewBufferPercentage, 1, null);
+    }
+
+    public StandardIDPool(IDAuthority idAuthority, int partition, int idNamespace, long idUpperBound, Duration renewTimeout,
+                          double renewBufferPercentage, int prefetchBlocks, String metricsName) {
+        this(idAuthority, partition, idNamespace, idUpperBound, renewTimeout, renewBufferPercentage, prefetchBlocks,
+            metricsName, null);
+    }
+
+    /**
+     * @param prefetchBlocks the number of id blocks that are acquired ahead of time once the current block is mostly
+     *                       consumed, acquisitions of these blocks run concurrently
+     * @param metricsName the name under which the time threads wait for the next id block is recorded, or null to not
+     *                    record it
+     * @param consumptionRecorder the block sizer to report the number of ids handed out per block and the time it took
+     *                            to, or null to not report it
+     */
+    public StandardIDPool(IDAuthority idAuthority, int partition, int idNamespace, long idUpperBound, Duration renewTimeout,
+                          double renewBufferPercentage, int prefetchBlocks, String metricsName,
+                          IDBlockSizer consumptionRecorder) {
         Preconditions.checkArgument(idUpperBound > 0);
         this.idAuthority = idAuthority;
         Preconditions.checkArgument(partition>=0);
@@ -105,121 +133,183 @@ public class StandardIDPool implements IDPool {
         this.renewTimeout = renewTimeout;
         Preconditions.checkArgument(renewBufferPercentage>0.0 && renewBufferPercentage<=1.0,"Renew-buffer percentage must be in (0.0,1.0]");
         this.renewBufferPercentage = renewBufferPercentage;
+        Preconditions.checkArgument(prefetchBlocks>0,"Number of prefetched blocks must be positive");
+        this.prefetchBlocks = prefetchBlocks;
+        this.stallTimer = metricsName == null ? null : MetricManager.INSTANCE.getTimer(
+            GraphDatabaseConfiguration.METRICS_SYSTEM_PREFIX_DEFAULT, METRICS_NAME, metricsName, M_STALL);
+        this.consumptionRecorder = consumptionRecorder;
 
-        currentBlock = UNINITIALIZED_BLOCK;
-        currentIndex = 0;
-        renewBlockIndex = 0;
+        currentBlock = new CurrentBlock(UNINITIALIZED_BLOCK, 0);
 
-        nextBlock = null;
+        pendingBlocks = new ArrayDeque<>(prefetchBlocks);
+        exhausted = false;
 
-        // daemon=true would probably be fine too
-        exec = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+        exec = new ThreadPoolExecutor(prefetchBlocks, prefetchBlocks, 0L, TimeUnit.MILLISECONDS,
                 new LinkedBlockingQueue<>(), new ThreadFactoryBuilder()
-                        .setDaemon(false)
+                        .setDaemon(true)
                         .setNameFormat("JanusGraphID(" + partition + ")("+idNamespace+")[%d]")
                         .build());
-        idBlockFuture = null;
 
         closeBlockers = new ArrayDeque<>(4);
 
         closed = false;
     }
 
-    private synchronized void waitForIDBlockGetter() throws InterruptedException {
+    /**
+     * Waits for the oldest pending id block acquisition and returns its block.
+     */
+    private synchronized IDBlock waitForIDBlockGetter(boolean recordStall) throws InterruptedException {
+        final PendingBlock pending = pendingBlocks.remove();
         Stopwatch sw = Stopwatch.createStarted();
-        if (null != idBlockFuture) {
-            try {
-                nextBlock = idBlockFuture.get(renewTimeout.toMillis(), TimeUnit.MILLISECONDS);
-            } catch (ExecutionException e) {
-                String msg = String.format("ID block allocation on partition(%d)-namespace(%d) failed with an exception in %s",
-                        partition, idNamespace, sw.stop());
-                throw new JanusGraphException(msg, e);
-            } catch (TimeoutException e) {
-                String msg = String.format("ID block allocation on partition(%d)-namespace(%d) timed out in %s",
-                        partition, idNamespace, sw.stop());
-                // Attempt to cancel the renewer
-                idBlockGetter.stopRequested();
-                if (idAuthority.supportsInterruption()) {
-                    idBlockFuture.cancel(true);
-                } else {
-                    // Attempt to clean one dead element out of closeBlockers every time we append to it
-                    if (!closeBlockers.isEmpty()) {
-                        Future<?> f = closeBlockers.peek();
-                        if (null != f && f.isDone())
-                            closeBlockers.remove();
-                    }
-                    closeBlockers.add(idBlockFuture);
+        final boolean stalled = recordStall && stallTimer != null && !pending.future.isDone();
+        try {
+            return pending.future.get(renewTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            String msg = String.format("ID block allocation on partition(%d)-namespace(%d) failed with an exception in %s",
+                    partition, idNamespace, sw.stop());
+            throw new JanusGraphException(msg, e);
+        } catch (TimeoutException e) {
+            String msg = String.format("ID block allocation on partition(%d)-namespace(%d) timed out in %s",
+                    partition, idNamespace, sw.stop());
+            // Attempt to cancel the renewer
+            pending.getter.stopRequested();
+            if (idAuthority.supportsInterruption()) {
+                pending.future.cancel(true);
+            } else {
+                // Attempt to clean one dead element out of closeBlockers every time we append to it
+                if (!closeBlockers.isEmpty()) {
+                    Future<?> f = closeBlockers.peek();
+                    if (null != f && f.isDone())
+                        closeBlockers.remove();
                 }
-                throw new JanusGraphException(msg, e);
-            } catch (CancellationException e) {
-                String msg = String.format("ID block allocation on partition(%d)-namespace(%d) was cancelled after %s",
-                        partition, idNamespace, sw.stop());
-                throw new JanusGraphException(msg, e);
-            } finally {
-                idBlockFuture = null;
+                closeBlockers.add(pending.future);
             }
-            // Allow InterruptedException to propagate up the stack
+            throw new JanusGraphException(msg, e);
+        } catch (CancellationException e) {
+            String msg = String.format("ID block allocation on partition(%d)-namespace(%d) was cancelled after %s",
+                    partition, idNamespace, sw.stop());
+            throw new JanusGraphException(msg, e);
+        } finally {
+            if (stalled) stallTimer.update(sw.elapsed(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
         }
+        // Allow InterruptedException to propagate up the stack
     }
 
-    private synchronized void nextBlock() throws InterruptedException {
-        assert currentIndex == currentBlock.numIds();
+    /**
+     * Replaces the given exhausted block with the next block unless another thread already did so.
+     */
+    private synchronized void nextBlock(CurrentBlock exhaustedBlock) throws InterruptedException {
+        if (currentBlock != exhaustedBlock) return;
         Preconditions.checkState(!closed,"ID Pool has been closed for partition(%s)-namespace(%s) - cannot apply for new id block",
                 partition,idNamespace);
+        recordConsumption(exhaustedBlock, exhaustedBlock.numIds);
 
-        if (null == nextBlock && null == idBlockFuture) {
+        if (!exhausted && pendingBlocks.isEmpty()) {
             startIDBlockGetter();
         }
 
-        if (null == nextBlock) {
-            waitForIDBlockGetter();
-        }
+        final IDBlock nextBlock = exhausted ? ID_POOL_EXHAUSTION : waitForIDBlockGetter(true);
 
-        if (nextBlock == ID_POOL_EXHAUSTION)
+        if (nextBlock == ID_POOL_EXHAUSTION) {
+            exhausted = true;
             throw new IDPoolExhaustedException("Exhausted ID Pool for partition(" + partition+")-namespace("+idNamespace+")");
+        }
 
-        currentBlock = nextBlock;
-        currentIndex = 0;
-
-        log.debug("ID partition({})-namespace({}) acquired block: [{}]", partition, idNamespace, currentBlock);
-
-        assert currentBlock.numIds()>0;
+        log.debug("ID partition({})-namespace({}) acquired block: [{}]", partition, idNamespace, nextBlock);
 
-        nextBlock = null;
+        assert nextBlock.numIds()>0;
 
         assert RENEW_ID_COUNT>0;
-        renewBlockIndex = Math.max(0,currentBlock.numIds()-Math.max(RENEW_ID_COUNT, Math.round(currentBlock.numIds()*renewBufferPercentage)));
-        assert renewBlockIndex<currentBlock.numIds() && renewBlockIndex>=currentIndex;
+        final long renewBlockIndex = Math.max(0,nextBlock.numIds()-Math.max(RENEW_ID_COUNT, Math.round(nextBlock.numIds()*renewBufferPercentage)));
+        assert renewBlockIndex<nextBlock.numIds();
+        currentBlock = new CurrentBlock(nextBlock, renewBlockIndex);
     }
 
+    /**
+     * Hands out the ids of the current block without locking. Every index of the current block is claimed by exactly
+     * one thread, so the renewal of the block is started exactly once. Threads only synchronize once the current block
+     * is exhausted.
+     */
     @Override
-    public synchronized long nextID() {
-        assert currentIndex <= currentBlock.numIds();
+    public long nextID() {
+        while (true) {
+            final CurrentBlock block = currentBlock;
+            final long index = block.nextIndex.getAndIncrement();
+            if (index >= block.numIds) {
+                try {
+                    nextBlock(block);
+                } catch (InterruptedException e) {
+                    throw new JanusGraphException("Could not renew id block due to interruption", e);
+                }
+                continue;
+            }
 
-        if (currentIndex == currentBlock.numIds()) {
-            try {
-                nextBlock();
-            } catch (InterruptedException e) {
-                throw new JanusGraphException("Could not renew id block due to interruption", e);
+            if (index == block.renewBlockIndex) {
+                renewBlock(block);
             }
+
+            long returnId = block.block.getId(index);
+            if (returnId >= idUpperBound) throw new IDPoolExhaustedException("Reached id upper bound of " + idUpperBound);
+            log.trace("partition({})-namespace({}) Returned id: {}", partition, idNamespace, returnId);
+            return returnId;
         }
+    }
 
-        if (currentIndex == renewBlockIndex) {
+    /**
+     * Claims up to the given number of consecutive ids of the current block at once, so that the calling thread can
+     * hand them out without touching the shared state of this pool. The lease holds fewer ids if the current block has
+     * fewer ids left.
+     */
+    public IDLease leaseIDs(long maxIds) {
+        Preconditions.checkArgument(maxIds > 0, "Invalid number of ids to lease: %s", maxIds);
+        while (true) {
+            final CurrentBlock block = currentBlock;
+            final long startIndex = block.nextIndex.getAndAdd(maxIds);
+            if (startIndex >= block.numIds) {
+                try {
+                    nextBlock(block);
+                } catch (InterruptedException e) {
+                    throw new JanusGraphException("Could not renew id block due to interruption", e);
+                }
+                continue;
+            }
+
+            final long endIndex = Math.min(block.numIds, startIndex + maxIds);
+            if (startIndex <= block.renewBlockIndex && block.renewBlockIndex < endIndex) {
+                renewBlock(block);
+            }
+            log.trace("partition({})-namespace({}) Leased ids [{},{}) of block [{}]", partition, idNamespace,
+                startIndex, endIndex, block.block);
+            return new IDLease(block.block, startIndex, endIndex, idUpperBound);
+        }
+    }
+
+    /**
+     * Starts acquiring blocks until the configured number of blocks is pending, unless the given block has been
+     * replaced in the meantime.
+     */
+    private synchronized void renewBlock(CurrentBlock block) {
+        if (currentBlock != block || exhausted) return;
+        recordConsumption(block, block.renewBlockIndex);
+        while (!closed && pendingBlocks.size() < prefetchBlocks) {
             startIDBlockGetter();
         }
+    }
 
-        long returnId = currentBlock.getId(currentIndex);
-        currentIndex++;
-        if (returnId >= idUpperBound) throw new IDPoolExhaustedException("Reached id upper bound of " + idUpperBound);
-        log.trace("partition({})-namespace({}) Returned id: {}", partition, idNamespace, returnId);
-        return returnId;
+    /**
+     * Reports the given number of ids handed out of the given block since it became the current block.
+     */
+    private void recordConsumption(CurrentBlock block, long numIds) {
+        if (consumptionRecorder == null || numIds <= 0) return;
+        consumptionRecorder.recordConsumption(partition, idNamespace, numIds,
+            Duration.ofNanos(System.nanoTime() - block.startTime));
     }
 
     @Override
     public synchronized void close() {
         closed=true;
         try {
-            waitForIDBlockGetter();
+            while (!pendingBlocks.isEmpty()) waitForIDBlockGetter(false);
         } catch (InterruptedException e) {
             throw new JanusGraphException("Interrupted while waiting for id renewer thread to finish", e);
         }
@@ -237,12 +327,68 @@ public class StandardIDPool implements IDPool {
     }
 
     private synchronized void startIDBlockGetter() {
-        Preconditions.checkArgument(idBlockFuture == null, idBlockFuture);
+        Preconditions.checkArgument(pendingBlocks.size() < prefetchBlocks, pendingBlocks);
         if (closed) return; //Don't renew anymore if closed
         //Renew buffer
-        log.debug("Starting id block renewal thread upon {}", currentIndex);
-        idBlockGetter = new IDBlockGetter(idAuthority, partition, idNamespace, renewTimeout);
-        idBlockFuture = exec.submit(idBlockGetter);
+        log.debug("Starting id block renewal thread upon {}", currentBlock.nextIndex.get());
+        final IDBlockGetter idBlockGetter = new IDBlockGetter(idAuthority, partition, idNamespace, renewTimeout);
+        pendingBlocks.add(new PendingBlock(idBlockGetter, exec.submit(idBlockGetter)));
+    }
+
+    /**
+     * Consecutive ids of a block which have been leased to a single thread. A lease does not reference the pool it was
+     * leased from, so that a lease kept in a thread local does not keep a closed pool reachable. Not thread-safe.
+     */
+    public static final class IDLease {
+
+        private final IDBlock block;
+        private final long endIndex;
+        private final long idUpperBound;
+        private long nextIndex;
+
+        private IDLease(IDBlock block, long startIndex, long endIndex, long idUpperBound) {
+            this.block = block;
+            this.nextIndex = startIndex;
+            this.endIndex = endIndex;
+            this.idUpperBound = idUpperBound;
+        }
+
+        public boolean hasNext() {
+            return nextIndex < endIndex;
+        }
+
+        public long nextID() {
+            if (!hasNext()) throw new NoSuchElementException();
+            long returnId = block.getId(nextIndex++);
+            if (returnId >= idUpperBound) throw new IDPoolExhaustedException("Reached id upper bound of " + idUpperBound);
+            return returnId;
+        }
+    }
+
+    private static class PendingBlock {
+
+        private final IDBlockGetter getter;
+        private final Future<IDBlock> future;
+
+        private PendingBlock(IDBlockGetter getter, Future<IDBlock> future) {
+            this.getter = getter;
+            this.future = future;
+        }
+    }
+
+    private static class CurrentBlock {
+
+        private final IDBlock block;
+        private final long numIds;
+        private final long renewBlockIndex;
+        private final long startTime = System.nanoTime();
+        private final AtomicLong nextIndex = new AtomicLong();
+
+        private CurrentBlock(IDBlock block, long renewBlockIndex) {
+            this.block = block;
+            this.numIds = block.numIds();
+            this.renewBlockIndex = renewBlockIndex;
+        }
     }
 
     private static class IDBlockGetter implements Callable<IDBlock> {
@@ -54,10 +54,17 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.CLUSTER_MAX_PARTITIONS;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDS_ADAPTIVE;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDS_ADAPTIVE_BLOCK_DURATION;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDS_ADAPTIVE_MAX_BLOCK_SIZE;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDS_ADAPTIVE_MIN_BLOCK_SIZE;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDS_BLOCK_SIZE;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDS_LEASE_SIZE;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDS_NS;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDS_PREFETCH_BLOCKS;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDS_RENEW_BUFFER_PERCENTAGE;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.IDS_RENEW_TIMEOUT;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.METRICS_SYSTEM_PREFIX_DEFAULT;
 
 @PreInitializeConfigOptions
 public class VertexIDAssigner implements AutoCloseable {
@@ -77,12 +84,15 @@ public class VertexIDAssigner implements AutoCloseable {
     final StandardIDPool partitionVertexIdPool;
 
     private final IDAuthority idAuthority;
+    private final IDBlockSizer blockSizer;
     private final IDManager idManager;
     private final IDPlacementStrategy placementStrategy;
 
     //For StandardIDPool
     private final Duration renewTimeoutMS;
     private final double renewBufferPercentage;
+    private final int prefetchBlocks;
+    private final int leaseSize;
 
     private final int partitionIdBound;
     private final boolean hasLocalPartitions;
@@ -110,16 +120,29 @@ public class VertexIDAssigner implements AutoCloseable {
         log.debug("Partition IDs? [{}], Local Partitions? [{}]",true,hasLocalPartitions);
 
         long baseBlockSize = config.get(IDS_BLOCK_SIZE);
-        idAuthority.setIDBlockSizer(new SimpleVertexIDBlockSizer(baseBlockSize));
+        IDBlockSizer blockSizer = new SimpleVertexIDBlockSizer(baseBlockSize);
+        if (config.get(IDS_ADAPTIVE)) {
+            final Map<Integer, String> adaptedNamespaces = new HashMap<>();
+            for (PoolType type : PoolType.values()) {
+                if (type.hasOnePerPartition()) adaptedNamespaces.put(type.getIDNamespace(), type.getMetricsName());
+            }
+            blockSizer = new AdaptiveIDBlockSizer(blockSizer, adaptedNamespaces, config.get(IDS_ADAPTIVE_MIN_BLOCK_SIZE),
+                config.get(IDS_ADAPTIVE_MAX_BLOCK_SIZE), config.get(IDS_ADAPTIVE_BLOCK_DURATION), METRICS_SYSTEM_PREFIX_DEFAULT);
+        }
+        idAuthority.setIDBlockSizer(blockSizer);
+        this.blockSizer = blockSizer;
 
         renewTimeoutMS = config.get(IDS_RENEW_TIMEOUT);
         renewBufferPercentage = config.get(IDS_RENEW_BUFFER_PERCENTAGE);
+        prefetchBlocks = config.get(IDS_PREFETCH_BLOCKS);
+        leaseSize = config.get(IDS_LEASE_SIZE);
 
         idPools = new ConcurrentHashMap<>(partitionIdBound);
         schemaIdPool = new StandardIDPool(idAuthority, IDManager.SCHEMA_PARTITION, PoolType.SCHEMA.getIDNamespace(),
-                IDManager.getSchemaCountBound(), renewTimeoutMS, renewBufferPercentage);
+                IDManager.getSchemaCountBound(), renewTimeoutMS, renewBufferPercentage, prefetchBlocks, PoolType.SCHEMA.getMetricsName());
         partitionVertexIdPool = new StandardIDPool(idAuthority, IDManager.PARTITIONED_VERTEX_PARTITION, PoolType.PARTITIONED_VERTEX.getIDNamespace(),
-                PoolType.PARTITIONED_VERTEX.getCountBound(idManager), renewTimeoutMS, renewBufferPercentage);
+                PoolType.PARTITIONED_VERTEX.getCountBound(idManager), renewTimeoutMS, renewBufferPercentage, prefetchBlocks,
+                PoolType.PARTITIONED_VERTEX.getMetricsName());
         setLocalPartitions(partitionBits);
     }
 
@@ -336,7 +359,7 @@ public class VertexIDAssigner implements AutoCloseable {
         } else {
             PartitionIDPool partitionPool = idPools.get(partitionID);
             if (partitionPool == null) {
-                partitionPool = new PartitionIDPool(partitionID, idAuthority, idManager, renewTimeoutMS, renewBufferPercentage);
+                partitionPool = new PartitionIDPool(partitionID, idAuthority, idManager, renewTimeoutMS, renewBufferPercentage, prefetchBlocks, leaseSize, blockSizer);
                 idPools.putIfAbsent(partitionID,partitionPool);
                 partitionPool = idPools.get(partitionID);
             }
@@ -438,6 +461,10 @@ public class VertexIDAssigner implements AutoCloseable {
             return ordinal();
         }
 
+        public String getMetricsName() {
+            return name().toLowerCase();
+        }
+
         public long getCountBound(IDManager idManager) {
             switch (this) {
                 case NORMAL_VERTEX:
@@ -480,11 +507,14 @@ public class VertexIDAssigner implements AutoCloseable {
         private volatile long lastAccess;
         private volatile boolean exhausted;
 
-        PartitionIDPool(int partitionID, IDAuthority idAuthority, IDManager idManager, Duration renewTimeoutMS, double renewBufferPercentage) {
+        PartitionIDPool(int partitionID, IDAuthority idAuthority, IDManager idManager, Duration renewTimeoutMS, double renewBufferPercentage,
+                        int prefetchBlocks, int leaseSize, IDBlockSizer blockSizer) {
             super(PoolType.class);
             for (PoolType type : PoolType.values()) {
                 if (!type.hasOnePerPartition()) continue;
-                put(type,new StandardIDPool(idAuthority, partitionID, type.getIDNamespace(), type.getCountBound(idManager), renewTimeoutMS, renewBufferPercentage));
+                StandardIDPool pool = new StandardIDPool(idAuthority, partitionID, type.getIDNamespace(), type.getCountBound(idManager),
+                    renewTimeoutMS, renewBufferPercentage, prefetchBlocks, type.getMetricsName(), blockSizer);
+                put(type, leaseSize > 1 ? new LeasingIDPool(pool, leaseSize) : pool);
             }
         }
 
@@ -0,0 +1,477 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.database.log;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.BackendTransaction;
+import org.janusgraph.diskstorage.EntryMetaData;
+import org.janusgraph.diskstorage.ReadBuffer;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.configuration.Configuration;
+import org.janusgraph.diskstorage.indexing.IndexEntry;
+import org.janusgraph.diskstorage.indexing.IndexMutation;
+import org.janusgraph.diskstorage.indexing.IndexTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.KCVSCache;
+import org.janusgraph.diskstorage.log.Message;
+import org.janusgraph.diskstorage.log.MessageReader;
+import org.janusgraph.diskstorage.log.ReadMarker;
+import org.janusgraph.diskstorage.log.kcvs.KCVSLog;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.graphdb.database.StandardJanusGraph;
+import org.janusgraph.graphdb.database.idhandling.VariableLong;
+import org.janusgraph.graphdb.database.serialize.DataOutput;
+import org.janusgraph.graphdb.database.serialize.Serializer;
+import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
+import org.janusgraph.util.stats.MetricManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.INDEX_QUEUE_BATCH_SIZE;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.INDEX_QUEUE_LOG;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.INDEX_QUEUE_LOG_DEFAULT_TTL;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.INDEX_QUEUE_MAX_DELAY;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.INDEX_QUEUE_WRITERS;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.LOG_STORE_TTL;
+
+/**
+ * Queues the mixed index updates of committing transactions in a durable {@link KCVSLog} and delivers them to the
+ * indexing backends in the background.
+ * <p>
+ * The updates of a transaction are added to the log as part of its storage commit such that they are persisted
+ * atomically with the transaction. Writer threads read them back from the log, coalesce the updates to the same
+ * document and send them to the indexing backends in bulk. The log has a single partition and bucket which is read by a
+ * single thread and every document is handled by the same writer, hence the updates of a document are delivered in
+ * commit order. The read position of the log only advances past messages whose updates have been delivered, so that
+ * updates pending when an instance fails are delivered after it restarts. When no read position has been recorded yet,
+ * reading starts at the beginning of the retention period of the log such that the updates queued by other instances
+ * before delivery was first enabled are delivered as well.
+ * <p>
+ * Failures of the indexing backends are retried until the updates are delivered, whereas updates failing for other
+ * reasons are dropped and counted.
+ */
+public class IndexUpdateQueue implements MessageReader, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexUpdateQueue.class);
+
+    public static final String READ_MARKER_ID = "indexqueue";
+
+    public static final String METRICS_NAME = "indexqueue";
+    public static final String M_LAG = "lag";
+    public static final String M_DOCUMENTS = "documents";
+    public static final String M_FAILURES = "failures";
+
+    private static final byte STATUS_UPDATE = 0;
+    private static final byte STATUS_NEW = 1;
+    private static final byte STATUS_DELETED = 2;
+
+    private static final long MIN_RETRY_DELAY_MS = 100;
+    private static final long MAX_RETRY_DELAY_MS = 30000;
+    /**
+     * Number of batches that may be pending per writer before reading from the log blocks
+     */
+    private static final int MAX_PENDING_BATCHES = 10;
+
+    private final StandardJanusGraph graph;
+    private final Serializer serializer;
+    private final KCVSLog queueLog;
+    private final KCVSCache queueStore;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final Writer[] writers;
+    private final ExecutorService writerPool;
+
+    private volatile boolean closed = false;
+
+    public IndexUpdateQueue(StandardJanusGraph graph, Configuration configuration) {
+        this.graph = graph;
+        this.serializer = graph.getDataSerializer();
+        this.queueLog = graph.getBackend().getIndexQueueLog();
+        this.queueStore = graph.getBackend().getIndexQueueStore();
+        Preconditions.checkNotNull(queueLog, "Index queue log has not been opened");
+        this.batchSize = configuration.get(INDEX_QUEUE_BATCH_SIZE);
+        this.maxDelayNanos = configuration.get(INDEX_QUEUE_MAX_DELAY).toNanos();
+        final int numWriters = configuration.get(INDEX_QUEUE_WRITERS);
+        this.writers = new Writer[numWriters];
+        if (numWriters > 0) {
+            writerPool = Executors.newFixedThreadPool(numWriters,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("IndexUpdateQueue[%02d]").build());
+            for (int i = 0; i < numWriters; i++) {
+                writers[i] = new Writer();
+                writerPool.execute(writers[i]);
+            }
+            //Without a recorded read position, start with the oldest messages which may still be retained
+            final Duration retention = configuration.has(LOG_STORE_TTL, INDEX_QUEUE_LOG)
+                ? configuration.get(LOG_STORE_TTL, INDEX_QUEUE_LOG) : INDEX_QUEUE_LOG_DEFAULT_TTL;
+            queueLog.registerReader(ReadMarker.fromIdentifierOrTimeAfterProcessing(READ_MARKER_ID,
+                graph.getConfiguration().getTimestampProvider().getTime().minus(retention)), this);
+        } else {
+            writerPool = null;
+        }
+    }
+
+    /**
+     * Adds the mixed index mutations of the given transaction to the queue. The message is persisted as part of the
+     * storage mutations of the transaction and hence only becomes visible to the writers once it commits.
+     *
+     * @param mutator the transaction whose index mutations are queued
+     * @param logKey the key of the message
+     */
+    public void enqueue(BackendTransaction mutator, StaticBuffer logKey) {
+        final Map<String, Map<String, Map<String, IndexMutation>>> indexMutations = new HashMap<>();
+        for (Map.Entry<String, IndexTransaction> itx : mutator.getIndexTransactions().entrySet()) {
+            final Map<String, Map<String, IndexMutation>> mutations = itx.getValue().getMutations();
+            if (!mutations.isEmpty()) indexMutations.put(itx.getKey(), mutations);
+        }
+        if (indexMutations.isEmpty()) return;
+
+        final DataOutput out = serializer.getDataOutput(256);
+        VariableLong.writePositive(out, indexMutations.size());
+        for (Map.Entry<String, Map<String, Map<String, IndexMutation>>> index : indexMutations.entrySet()) {
+            out.writeObjectNotNull(index.getKey());
+            VariableLong.writePositive(out, index.getValue().size());
+            for (Map.Entry<String, Map<String, IndexMutation>> store : index.getValue().entrySet()) {
+                out.writeObjectNotNull(store.getKey());
+                VariableLong.writePositive(out, store.getValue().size());
+                for (Map.Entry<String, IndexMutation> doc : store.getValue().entrySet()) {
+                    final IndexMutation mutation = doc.getValue();
+                    mutation.consolidate();
+                    out.writeObjectNotNull(doc.getKey());
+                    out.putByte(mutation.isNew() ? STATUS_NEW : (mutation.isDeleted() ? STATUS_DELETED : STATUS_UPDATE));
+                    writeIndexEntries(out, mutation.getAdditions());
+                    writeIndexEntries(out, mutation.getDeletions());
+                }
+            }
+        }
+        queueLog.add(out.getStaticBuffer(), logKey, mutator.getLogPersistor(queueStore));
+    }
+
+    private void writeIndexEntries(DataOutput out, List<IndexEntry> entries) {
+        VariableLong.writePositive(out, entries.size());
+        for (IndexEntry entry : entries) {
+            out.writeObjectNotNull(entry.field);
+            out.writeClassAndObject(entry.value);
+            final Map<EntryMetaData, Object> metaData = entry.getMetaData();
+            VariableLong.writePositive(out, metaData.size());
+            for (Map.Entry<EntryMetaData, Object> meta : metaData.entrySet()) {
+                out.putByte((byte) meta.getKey().ordinal());
+                out.writeClassAndObject(meta.getValue());
+            }
+        }
+    }
+
+    private List<IndexEntry> readIndexEntries(ReadBuffer in) {
+        final int size = (int) VariableLong.readPositive(in);
+        final List<IndexEntry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final String field = serializer.readObjectNotNull(in, String.class);
+            final Object value = serializer.readClassAndObject(in);
+            final IndexEntry entry = new IndexEntry(field, value);
+            final long numMetaData = VariableLong.readPositive(in);
+            for (int j = 0; j < numMetaData; j++) {
+                final EntryMetaData meta = EntryMetaData.values()[in.getByte()];
+                entry.setMetaData(meta, serializer.readClassAndObject(in));
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    @Override
+    public void read(Message message) {
+        readAsync(message);
+    }
+
+    @Override
+    public CompletableFuture<Void> readAsync(Message message) {
+        if (closed || writers.length == 0) {
+            //Never acknowledge such that the message is read again once the queue is reopened
+            return new CompletableFuture<>();
+        }
+        final List<List<DocumentUpdate>> updatesByWriter = new ArrayList<>(writers.length);
+        for (int i = 0; i < writers.length; i++) updatesByWriter.add(new ArrayList<>());
+
+        final ReadBuffer in = message.getContent().asReadBuffer();
+        final long numIndexes = VariableLong.readPositive(in);
+        for (int i = 0; i < numIndexes; i++) {
+            final String index = serializer.readObjectNotNull(in, String.class);
+            final long numStores = VariableLong.readPositive(in);
+            for (int j = 0; j < numStores; j++) {
+                final String store = serializer.readObjectNotNull(in, String.class);
+                final long numDocs = VariableLong.readPositive(in);
+                for (int k = 0; k < numDocs; k++) {
+                    final String documentId = serializer.readObjectNotNull(in, String.class);
+                    final byte status = in.getByte();
+                    final List<IndexEntry> additions = readIndexEntries(in);
+                    final List<IndexEntry> deletions = readIndexEntries(in);
+                    final PendingDocument document = new PendingDocument(status == STATUS_NEW, status == STATUS_DELETED,
+                        additions, deletions);
+                    final int writer = Math.floorMod(Objects.hash(index, store, documentId), writers.length);
+                    updatesByWriter.get(writer).add(new DocumentUpdate(index, store, documentId, document));
+                }
+            }
+        }
+
+        final List<CompletableFuture<Void>> delivered = new ArrayList<>(writers.length);
+        for (int i = 0; i < writers.length; i++) {
+            if (!updatesByWriter.get(i).isEmpty()) {
+                delivered.add(writers[i].add(updatesByWriter.get(i), message.getTimestamp()));
+            }
+        }
+        return CompletableFuture.allOf(delivered.toArray(new CompletableFuture[0]));
+    }
+
+    @Override
+    public void updateState() {}
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        if (writerPool == null) return;
+        queueLog.unregisterReader(this);
+        for (Writer writer : writers) {
+            synchronized (writer) {
+                writer.notifyAll();
+            }
+        }
+        writerPool.shutdownNow();
+        try {
+            if (!writerPool.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Index update queue writers did not terminate in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean isBackendFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BackendException) return true;
+        }
+        return false;
+    }
+
+    private static class DocumentUpdate {
+
+        private final String index;
+        private final String store;
+        private final String documentId;
+        private final PendingDocument document;
+
+        private DocumentUpdate(String index, String store, String documentId, PendingDocument document) {
+            this.index = index;
+            this.store = store;
+            this.documentId = documentId;
+            this.document = document;
+        }
+    }
+
+    /**
+     * The coalesced updates to a single document
+     */
+    static class PendingDocument {
+
+        boolean isNew;
+        boolean isDeleted;
+        final List<IndexEntry> additions;
+        final List<IndexEntry> deletions;
+
+        PendingDocument(boolean isNew, boolean isDeleted, List<IndexEntry> additions, List<IndexEntry> deletions) {
+            this.isNew = isNew;
+            this.isDeleted = isDeleted;
+            this.additions = new ArrayList<>(additions);
+            this.deletions = new ArrayList<>(deletions);
+        }
+
+        /**
+         * Applies the given later update of the document on top of this one
+         */
+        void apply(PendingDocument later) {
+            if (later.isNew || later.isDeleted) {
+                //The later update replaces the entire document
+                isNew = later.isNew;
+                isDeleted = later.isDeleted;
+                additions.clear();
+                additions.addAll(later.additions);
+                deletions.clear();
+                deletions.addAll(later.deletions);
+                return;
+            }
+            for (IndexEntry deletion : later.deletions) {
+                additions.removeIf(addition -> addition.field.equals(deletion.field) && addition.value.equals(deletion.value));
+            }
+            if (isDeleted) {
+                //The document is recreated by the later update
+                isDeleted = false;
+                isNew = true;
+                deletions.clear();
+            }
+            if (!isNew) deletions.addAll(later.deletions);
+            additions.addAll(later.additions);
+        }
+    }
+
+    private static class PendingMessage {
+
+        private final Instant timestamp;
+        private final CompletableFuture<Void> delivered = new CompletableFuture<>();
+
+        private PendingMessage(Instant timestamp) {
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * Buffers and coalesces the updates of the documents assigned to it and delivers them in batches
+     */
+    private class Writer implements Runnable {
+
+        //index -> store -> document id -> document
+        private Map<String, Map<String, Map<String, PendingDocument>>> pending = new HashMap<>();
+        private List<PendingMessage> messages = new ArrayList<>();
+        private int numDocuments = 0;
+        private long pendingSince = 0;
+
+        private synchronized CompletableFuture<Void> add(List<DocumentUpdate> updates, Instant timestamp) {
+            try {
+                while (numDocuments >= MAX_PENDING_BATCHES * batchSize && !closed) wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new CompletableFuture<>();
+            }
+            if (closed) return new CompletableFuture<>();
+            if (numDocuments == 0) pendingSince = System.nanoTime();
+            for (DocumentUpdate update : updates) {
+                final Map<String, PendingDocument> documents = pending
+                    .computeIfAbsent(update.index, k -> new HashMap<>())
+                    .computeIfAbsent(update.store, k -> new HashMap<>());
+                final PendingDocument document = documents.get(update.documentId);
+                if (document == null) {
+                    documents.put(update.documentId, update.document);
+                    numDocuments++;
+                } else {
+                    document.apply(update.document);
+                }
+            }
+            final PendingMessage message = new PendingMessage(timestamp);
+            messages.add(message);
+            notifyAll();
+            return message.delivered;
+        }
+
+        @Override
+        public void run() {
+            while (!closed) {
+                final Map<String, Map<String, Map<String, PendingDocument>>> batch;
+                final List<PendingMessage> batchMessages;
+                final int batchDocuments;
+                synchronized (this) {
+                    try {
+                        while (!closed) {
+                            if (numDocuments >= batchSize) break;
+                            if (numDocuments == 0) {
+                                wait();
+                            } else {
+                                final long remaining = maxDelayNanos - (System.nanoTime() - pendingSince);
+                                if (remaining <= 0) break;
+                                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    if (closed) return;
+                    batch = pending;
+                    batchMessages = messages;
+                    batchDocuments = numDocuments;
+                    pending = new HashMap<>();
+                    messages = new ArrayList<>();
+                    numDocuments = 0;
+                    notifyAll();
+                }
+                for (Map.Entry<String, Map<String, Map<String, PendingDocument>>> index : batch.entrySet()) {
+                    if (!deliver(index.getKey(), index.getValue())) return;
+                }
+                final Instant now = graph.getConfiguration().getTimestampProvider().getTime();
+                final MetricManager metrics = MetricManager.INSTANCE;
+                metrics.getCounter(GraphDatabaseConfiguration.METRICS_SYSTEM_PREFIX_DEFAULT, METRICS_NAME, M_DOCUMENTS)
+                    .inc(batchDocuments);
+                for (PendingMessage message : batchMessages) {
+                    metrics.getHistogram(GraphDatabaseConfiguration.METRICS_SYSTEM_PREFIX_DEFAULT, METRICS_NAME, M_LAG)
+                        .update(Math.max(0, now.toEpochMilli() - message.timestamp.toEpochMilli()));
+                    message.delivered.complete(null);
+                }
+            }
+        }
+
+        /**
+         * Sends the given documents to the index, retrying failures of the indexing backend.
+         *
+         * @return false if the queue was closed before the documents could be delivered
+         */
+        private boolean deliver(String index, Map<String, Map<String, PendingDocument>> documents) {
+            long retryDelay = MIN_RETRY_DELAY_MS;
+            while (!closed) {
+                final StandardJanusGraphTx tx = (StandardJanusGraphTx) graph.newTransaction();
+                try {
+                    final IndexTransaction itx = tx.getTxHandle().getIndexTransaction(index);
+                    for (Map.Entry<String, Map<String, PendingDocument>> store : documents.entrySet()) {
+                        for (Map.Entry<String, PendingDocument> doc : store.getValue().entrySet()) {
+                            final PendingDocument document = doc.getValue();
+                            itx.mutate(store.getKey(), doc.getKey(), document.additions, document.deletions,
+                                document.isNew, document.isDeleted);
+                        }
+                    }
+                    itx.commit();
+                    return true;
+                } catch (Throwable e) {
+                    final long numDocuments = documents.values().stream().mapToLong(Map::size).sum();
+                    MetricManager.INSTANCE.getCounter(GraphDatabaseConfiguration.METRICS_SYSTEM_PREFIX_DEFAULT,
+                        METRICS_NAME, M_FAILURES).inc();
+                    if (!isBackendFailure(e)) {
+                        log.error("Dropping queued updates of {} documents on index {}", numDocuments, index, e);
+                        return true;
+                    }
+                    log.warn("Could not deliver queued updates of {} documents to index {}, retrying in {} ms",
+                        numDocuments, index, retryDelay, e);
+                } finally {
+                    if (tx.isOpen()) tx.rollback();
+                }
+                try {
+                    Thread.sleep(retryDelay);
+                } catch (InterruptedException e) {
+                    return false;
+                }
+                retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MS);
+            }
+            return false;
+        }
+    }
+}
@@ -121,6 +121,7 @@ import java.util.stream.Collectors;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.REGISTRATION_NS;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.REGISTRATION_TIME;
 import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.ROOT_NS;
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.SCAN_CHECKPOINT_INTERVAL;
 import static org.janusgraph.graphdb.database.management.RelationTypeIndexWrapper.RELATION_INDEX_SEPARATOR;
 
 /**
@@ -847,6 +848,11 @@ public class ManagementSystem implements JanusGraphManagement {
 
     @Override
     public ScanJobFuture updateIndex(Index index, SchemaAction updateAction, int numOfThreads) {
+        return updateIndex(index, updateAction, numOfThreads, false);
+    }
+
+    @Override
+    public ScanJobFuture updateIndex(Index index, SchemaAction updateAction, int numOfThreads, boolean resume) {
         Preconditions.checkArgument(index != null, "Need to provide an index");
         Preconditions.checkArgument(updateAction != null, "Need to provide update action");
 
@@ -895,6 +901,7 @@ public class ManagementSystem implements JanusGraphManagement {
                 builder.setFinishJob(indexId.getIndexJobFinisher(graph, SchemaAction.ENABLE_INDEX));
                 builder.setJobId(indexId);
                 builder.setNumProcessingThreads(numOfThreads);
+                setCheckpoint(builder, indexId, updateAction, resume);
                 builder.setJob(VertexJobConverter.convert(graph, new IndexRepairJob(indexId.indexName, indexId.relationTypeName)));
                 try {
                     future = builder.execute();
@@ -944,6 +951,7 @@ public class ManagementSystem implements JanusGraphManagement {
                 builder.setFinishJob(indexId.getIndexJobFinisher(graph, SchemaAction.MARK_DISCARDED));
                 builder.setJobId(indexId);
                 builder.setNumProcessingThreads(numOfThreads);
+                setCheckpoint(builder, indexId, updateAction, resume);
                 builder.setJob(new IndexRemoveJob(graph, indexId.indexName, indexId.relationTypeName));
                 try {
                     future = builder.execute();
@@ -963,6 +971,13 @@ public class ManagementSystem implements JanusGraphManagement {
         return future;
     }
 
+    private void setCheckpoint(StandardScanner.Builder builder, IndexIdentifier indexId, SchemaAction updateAction,
+                               boolean resume) {
+        builder.setCheckpoint(graph.getBackend().getScanCheckpoints(), updateAction + ":" + indexId,
+            graph.getConfiguration().getConfiguration().get(SCAN_CHECKPOINT_INTERVAL));
+        builder.setResume(resume);
+    }
+
     /**
      * Upon the open managementsystem's commit, this graph will be asynchronously evicted from the cache on all JanusGraph nodes in your
      * cluster, once there are no open transactions on this graph on each respective JanusGraph node
@@ -57,6 +57,17 @@ public interface InternalVertex extends JanusGraphVertex, InternalElement {
      */
     Iterable<InternalRelation> getAddedRelations(Predicate<InternalRelation> query);
 
+    /**
+     * Returns an iterable over all newly added relations of the relation type with the given id incident on this vertex
+     * that match the given predicate
+     * @param typeId
+     * @param query
+     * @return
+     */
+    default Iterable<InternalRelation> getAddedRelations(long typeId, Predicate<InternalRelation> query) {
+        return getAddedRelations(relation -> relation.getType().longId() == typeId && query.apply(relation));
+    }
+
     /**
      * Returns all relations that match the given query. If these matching relations are not currently
      * held in memory, it uses the given {@link Retriever} to retrieve the edges from backend storage.
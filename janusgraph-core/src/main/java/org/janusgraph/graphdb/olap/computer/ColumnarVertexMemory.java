@@ -0,0 +1,228 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.olap.computer;
+
+import com.google.common.base.Preconditions;
+import org.apache.tinkerpop.gremlin.process.computer.MessageCombiner;
+import org.apache.tinkerpop.gremlin.process.computer.MessageScope;
+import org.apache.tinkerpop.gremlin.process.computer.VertexComputeKey;
+import org.apache.tinkerpop.gremlin.process.computer.VertexProgram;
+import org.janusgraph.graphdb.idmanagement.IDManager;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * {@link FulgoraVertexMemory} which keeps the vertex compute keys and messages in columns indexed by a dense vertex
+ * ordinal instead of in a {@link VertexState} per vertex. Numeric values are stored as primitives, such that vertex
+ * programs with numeric compute keys and combinable numeric messages, like PageRank, allocate no objects per vertex,
+ * see {@link VertexColumn}. The columns can be allocated outside of the heap.
+ * <p>
+ * Every message scope has a column for the messages sent in the current iteration and one for the messages received
+ * from the previous iteration. The columns are swapped when an iteration completes, and the column of the previous
+ * iteration is cleared and reused for the next one.
+ * <p>
+ * Vertex ids must be numeric.
+ */
+public class ColumnarVertexMemory<M> extends FulgoraVertexMemory<M> {
+
+    private static final int NUM_MESSAGE_LOCKS = 1024;
+
+    private final boolean offHeap;
+    private final VertexOrdinals ordinals;
+    private final Map<String, VertexColumn> properties;
+    private final MessageCombiner<M> combiner;
+    private final Object[] messageLocks = new Object[NUM_MESSAGE_LOCKS];
+
+    private Map<MessageScope, VertexColumn> previousMessages = Collections.emptyMap();
+    private Map<MessageScope, VertexColumn> currentMessages = Collections.emptyMap();
+    private final List<VertexColumn> spareMessageColumns = new ArrayList<>();
+
+    public ColumnarVertexMemory(int numVertices, final IDManager idManager, final VertexProgram<M> vertexProgram,
+                                boolean offHeap) {
+        // all vertex state is held in the columns of this class
+        super(0, idManager, vertexProgram);
+        Preconditions.checkArgument(numVertices >= 0);
+        this.offHeap = offHeap;
+        this.ordinals = new VertexOrdinals(numVertices, offHeap);
+        this.combiner = vertexProgram.getMessageCombiner().orElse(null);
+        this.properties = new HashMap<>();
+        for (VertexComputeKey key : vertexProgram.getVertexComputeKeys()) {
+            properties.put(key.getKey(), new VertexColumn(offHeap));
+        }
+        for (int i = 0; i < NUM_MESSAGE_LOCKS; i++) messageLocks[i] = new Object();
+    }
+
+    private static long getId(Object vertexId) {
+        Preconditions.checkArgument(vertexId instanceof Number, "Vertex id must be numeric: %s", vertexId);
+        return ((Number) vertexId).longValue();
+    }
+
+    @Override
+    public <V> void setProperty(Object vertexId, String key, V value) {
+        final VertexColumn column = properties.get(key);
+        assert column != null;
+        column.set(ordinals.getOrCreate(getId(vertexId)), value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> V getProperty(Object vertexId, String key) {
+        final VertexColumn column = properties.get(key);
+        assert column != null;
+        return (V) column.get(ordinals.get(getId(vertexId)));
+    }
+
+    @Override
+    void sendMessage(Object vertexId, M message, MessageScope scope) {
+        assert message != null;
+        final VertexColumn column = currentMessages.get(normalizeScope(scope));
+        Preconditions.checkArgument(column != null, "Provided scope was not declared in the VertexProgram: %s", scope);
+        final int ordinal = ordinals.getOrCreate(getId(vertexId));
+        synchronized (messageLocks[ordinal & (NUM_MESSAGE_LOCKS - 1)]) {
+            final Object existing = scope instanceof MessageScope.Global ? column.get(ordinal) : null;
+            column.set(ordinal, existing == null ? message : VertexState.combineMessages(combiner, message, existing));
+        }
+    }
+
+    @Override
+    Stream<M> getMessage(Object vertexId, MessageScope scope) {
+        final VertexColumn column = previousMessages.get(normalizeScope(scope));
+        if (column == null) return Stream.empty();
+        return VertexState.toStream(column.get(ordinals.get(getId(vertexId))));
+    }
+
+    @Override
+    void completeIteration() {
+        super.completeIteration();
+        for (VertexColumn column : previousMessages.values()) {
+            column.clear();
+            spareMessageColumns.add(column);
+        }
+        previousMessages = currentMessages;
+        currentMessages = Collections.emptyMap();
+    }
+
+    @Override
+    void nextIteration(Set<MessageScope> scopes) {
+        super.nextIteration(scopes);
+        final Map<MessageScope, VertexColumn> columns = new HashMap<>();
+        for (MessageScope scope : normalizeScopes(scopes)) {
+            if (columns.containsKey(scope)) continue;
+            columns.put(scope, spareMessageColumns.isEmpty() ? new VertexColumn(offHeap)
+                                                             : spareMessageColumns.remove(spareMessageColumns.size() - 1));
+        }
+        currentMessages = columns;
+    }
+
+    @Override
+    public Map<Object, Map<String, Object>> getMutableVertexProperties() {
+        return new AbstractMap<Object, Map<String, Object>>() {
+
+            @Override
+            public Map<String, Object> get(Object vertexId) {
+                if (!(vertexId instanceof Number)) return null;
+                final int ordinal = ordinals.get(((Number) vertexId).longValue());
+                return ordinal < 0 ? null : getProperties(ordinal);
+            }
+
+            @Override
+            public boolean containsKey(Object vertexId) {
+                return get(vertexId) != null;
+            }
+
+            @Override
+            public Set<Entry<Object, Map<String, Object>>> entrySet() {
+                return new AbstractSet<Entry<Object, Map<String, Object>>>() {
+
+                    @Override
+                    public Iterator<Entry<Object, Map<String, Object>>> iterator() {
+                        final int size = ordinals.size();
+                        return new Iterator<Entry<Object, Map<String, Object>>>() {
+
+                            private int ordinal = 0;
+
+                            @Override
+                            public boolean hasNext() {
+                                return ordinal < size;
+                            }
+
+                            @Override
+                            public Entry<Object, Map<String, Object>> next() {
+                                if (!hasNext()) throw new NoSuchElementException();
+                                final int current = ordinal++;
+                                return new SimpleImmutableEntry<>(ordinals.getVertexId(current), getProperties(current));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return ordinals.size();
+                    }
+                };
+            }
+        };
+    }
+
+    private Map<String, Object> getProperties(int ordinal) {
+        final Map<String, Object> map = new HashMap<>(properties.size());
+        for (Map.Entry<String, VertexColumn> property : properties.entrySet()) {
+            final Object value = property.getValue().get(ordinal);
+            if (value != null) map.put(property.getKey(), value);
+        }
+        return map;
+    }
+
+    /**
+     * Returns the number of vertices which have been assigned an ordinal
+     */
+    public int getNumVertices() {
+        return ordinals.size();
+    }
+
+    /**
+     * Returns the number of bytes allocated for the columns and the vertex ordinals
+     */
+    public long getAllocatedBytes() {
+        long bytes = ordinals.getAllocatedBytes();
+        for (VertexColumn column : properties.values()) bytes += column.getAllocatedBytes();
+        for (VertexColumn column : previousMessages.values()) bytes += column.getAllocatedBytes();
+        for (VertexColumn column : currentMessages.values()) bytes += column.getAllocatedBytes();
+        for (VertexColumn column : spareMessageColumns) bytes += column.getAllocatedBytes();
+        return bytes;
+    }
+
+    /**
+     * Returns the number of values held as objects rather than primitives, because their type does not match the
+     * type of the first value of their column
+     */
+    public int getNumObjectValues() {
+        int num = 0;
+        for (VertexColumn column : properties.values()) num += column.getOverflowSize();
+        for (VertexColumn column : previousMessages.values()) num += column.getOverflowSize();
+        for (VertexColumn column : currentMessages.values()) num += column.getOverflowSize();
+        return num;
+    }
+}
@@ -45,8 +45,10 @@ import org.janusgraph.core.JanusGraphException;
 import org.janusgraph.core.JanusGraphTransaction;
 import org.janusgraph.core.schema.JanusGraphManagement;
 import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.StaticBuffer;
 import org.janusgraph.diskstorage.configuration.Configuration;
 import org.janusgraph.diskstorage.keycolumnvalue.scan.ScanMetrics;
+import org.janusgraph.diskstorage.keycolumnvalue.scan.ScanSnapshot;
 import org.janusgraph.diskstorage.keycolumnvalue.scan.StandardScanner;
 import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
 import org.janusgraph.graphdb.database.StandardJanusGraph;
@@ -54,7 +56,9 @@ import org.janusgraph.graphdb.util.WorkerPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -86,6 +90,10 @@ public class FulgoraGraphComputer implements JanusGraphComputer {
     private int numThreads = Runtime.getRuntime().availableProcessors();
     private final int readBatchSize;
     private final int writeBatchSize;
+    private final ScanSnapshot snapshot;
+    private final boolean columnarVertexMemory;
+    private final boolean offHeapVertexMemory;
+    private final long frontierMaxSize;
 
     private ResultGraph resultGraphMode = null;
     private Persist persistMode = null;
@@ -101,6 +109,17 @@ public class FulgoraGraphComputer implements JanusGraphComputer {
         this.writeBatchSize = configuration.get(GraphDatabaseConfiguration.BUFFER_SIZE);
         this.readBatchSize = this.writeBatchSize * 10;
         this.name = "compute" + computerCounter.incrementAndGet();
+        if (configuration.get(GraphDatabaseConfiguration.COMPUTER_SNAPSHOT)) {
+            this.snapshot = new ScanSnapshot(configuration.get(GraphDatabaseConfiguration.COMPUTER_SNAPSHOT_HEAP_SIZE),
+                configuration.has(GraphDatabaseConfiguration.COMPUTER_SNAPSHOT_DIRECTORY) ?
+                    new File(configuration.get(GraphDatabaseConfiguration.COMPUTER_SNAPSHOT_DIRECTORY)) : null);
+        } else {
+            this.snapshot = null;
+        }
+        this.columnarVertexMemory = configuration.get(GraphDatabaseConfiguration.COMPUTER_COLUMNAR_VERTEX_MEMORY);
+        this.offHeapVertexMemory = configuration.get(GraphDatabaseConfiguration.COMPUTER_COLUMNAR_VERTEX_MEMORY_OFF_HEAP);
+        this.frontierMaxSize = configuration.get(GraphDatabaseConfiguration.COMPUTER_FRONTIER) ?
+            configuration.get(GraphDatabaseConfiguration.COMPUTER_FRONTIER_MAX_SIZE) : -1;
     }
 
     @Override
@@ -193,10 +212,14 @@ public class FulgoraGraphComputer implements JanusGraphComputer {
 
     private ComputerResult submitAsync() {
         final long time = System.currentTimeMillis();
-        executeVertexProgram();
+        try {
+            executeVertexProgram();
 
-        Map<MapReduce, FulgoraMapEmitter> mapJobs = collectMapJobs();
-        executeMapJobs(mapJobs);
+            Map<MapReduce, FulgoraMapEmitter> mapJobs = collectMapJobs();
+            executeMapJobs(mapJobs);
+        } finally {
+            if (snapshot != null) snapshot.close();
+        }
 
         Graph resultgraph = writeMutatedPropertiesBackIntoGraph();
         // update runtime and return the newly computed graph
@@ -208,7 +231,22 @@ public class FulgoraGraphComputer implements JanusGraphComputer {
     private void executeVertexProgram() {
         if (null == vertexProgram) return;
 
-        vertexMemory = new FulgoraVertexMemory(expectedNumVertices, graph.getIDManager(), vertexProgram);
+        if (columnarVertexMemory && !graph.getConfiguration().allowCustomVertexIdType()) {
+            vertexMemory = new ColumnarVertexMemory<>(expectedNumVertices, graph.getIDManager(), vertexProgram, offHeapVertexMemory);
+        } else {
+            if (columnarVertexMemory) {
+                log.info("Columnar vertex memory is not supported for custom vertex id types, keeping vertex state per vertex");
+            }
+            vertexMemory = new FulgoraVertexMemory(expectedNumVertices, graph.getIDManager(), vertexProgram);
+        }
+        if (frontierMaxSize >= 0) {
+            //traversals keep halted traversers on vertices which do not receive messages
+            if (vertexProgram instanceof TraversalVertexProgram || vertexProgram instanceof ShortestPathVertexProgram) {
+                log.debug("Vertex program {} is executed on all vertices in every iteration", vertexProgram);
+            } else {
+                vertexMemory.trackActiveVertices(frontierMaxSize);
+            }
+        }
         vertexProgram.setup(memory);
 
         try (VertexProgramScanJob.Executor job = VertexProgramScanJob.getVertexProgramScanJob(graph, memory, vertexMemory, vertexProgram)) {
@@ -230,6 +268,15 @@ public class FulgoraGraphComputer implements JanusGraphComputer {
     private void executeIterationOfJob(VertexProgramScanJob.Executor job, int iteration) {
         initializeVertexMemoryForIteration();
         StandardScanner.Builder scanBuilder = createScanBuilderForJob(job, iteration);
+        Set<Long> activeVertices = vertexMemory.getActiveVertices();
+        if (activeVertices != null) {
+            //Only the vertices which received a message in the previous iteration are read and processed
+            List<StaticBuffer> keys = new ArrayList<>(activeVertices.size());
+            for (Long vertexId : activeVertices) keys.add(graph.getIDManager().getKey(vertexId));
+            Collections.sort(keys);
+            scanBuilder.setKeys(keys);
+            log.debug("Running iteration {} of {} on {} active vertices", iteration, name, keys.size());
+        }
         PartitionedVertexProgramExecutor programExecutor = new PartitionedVertexProgramExecutor(graph, memory, vertexMemory, vertexProgram);
         try {
             //Iterates over all vertices and computes the vertex program on all non-partitioned vertices. For partitioned ones, the data is aggregated
@@ -261,6 +308,7 @@ public class FulgoraGraphComputer implements JanusGraphComputer {
         scanBuilder.setNumProcessingThreads(numThreads);
         scanBuilder.setWorkBlockSize(readBatchSize);
         scanBuilder.setJob(job);
+        if (snapshot != null) scanBuilder.setSnapshot(snapshot);
         return scanBuilder;
     }
 
@@ -309,6 +357,7 @@ public class FulgoraGraphComputer implements JanusGraphComputer {
         scanBuilder.setNumProcessingThreads(numThreads);
         scanBuilder.setWorkBlockSize(readBatchSize);
         scanBuilder.setJob(job);
+        if (snapshot != null) scanBuilder.setSnapshot(snapshot);
         try {
             ScanMetrics jobResult = scanBuilder.execute().get();
             long failures = jobResult.get(ScanMetrics.Metric.FAILURE);
@@ -46,7 +46,22 @@ public class FulgoraUtil {
 
     public static JanusGraphVertexStep<Vertex> getReverseJanusGraphVertexStep(final MessageScope.Local<?> scope,
                                                                        final JanusGraphTransaction graph) {
-        FulgoraElementTraversal<Vertex,Edge> result = getReverseTraversal(scope,graph,null);
+        return getJanusGraphVertexStep(scope, graph, true);
+    }
+
+    /**
+     * Returns the step which reads the edges along which a vertex sends messages in the given scope, as opposed to
+     * {@link #getReverseJanusGraphVertexStep(MessageScope.Local, JanusGraphTransaction)} which reads the edges
+     * along which a vertex receives them.
+     */
+    public static JanusGraphVertexStep<Vertex> getIncidentJanusGraphVertexStep(final MessageScope.Local<?> scope,
+                                                                        final JanusGraphTransaction graph) {
+        return getJanusGraphVertexStep(scope, graph, false);
+    }
+
+    private static JanusGraphVertexStep<Vertex> getJanusGraphVertexStep(final MessageScope.Local<?> scope,
+                                                                 final JanusGraphTransaction graph, boolean reverse) {
+        FulgoraElementTraversal<Vertex,Edge> result = getTraversal(scope,graph,null,reverse);
         result.asAdmin().applyStrategies();
         verifyIncidentTraversal(result);
         return (JanusGraphVertexStep)result.getStartStep();
@@ -55,18 +70,25 @@ public class FulgoraUtil {
     public static Traversal<Vertex,Edge> getReverseElementTraversal(final MessageScope.Local<?> scope,
                                                                     final Vertex start,
                                                                     final JanusGraphTransaction graph) {
-        return getReverseTraversal(scope,graph,start);
+        return getTraversal(scope,graph,start,true);
+    }
+
+    public static Traversal<Vertex,Edge> getIncidentElementTraversal(final MessageScope.Local<?> scope,
+                                                                     final Vertex start,
+                                                                     final JanusGraphTransaction graph) {
+        return getTraversal(scope,graph,start,false);
     }
 
-    private static FulgoraElementTraversal<Vertex,Edge> getReverseTraversal(final MessageScope.Local<?> scope,
-                                                      final JanusGraphTransaction graph, @Nullable final Vertex start) {
+    private static FulgoraElementTraversal<Vertex,Edge> getTraversal(final MessageScope.Local<?> scope,
+                                                      final JanusGraphTransaction graph, @Nullable final Vertex start,
+                                                      boolean reverse) {
         Traversal.Admin<Vertex,Edge> incident = scope.getIncidentTraversal().get().asAdmin();
         FulgoraElementTraversal<Vertex,Edge> result = FulgoraElementTraversal.of(graph);
 
         for (Step step : incident.getSteps()) result.addStep(step);
         Step<Vertex,?> startStep = result.getStartStep();
         assert startStep instanceof VertexStep;
-        ((VertexStep) startStep).reverseDirection();
+        if (reverse) ((VertexStep) startStep).reverseDirection();
 
         if (start!=null) result.addStep(0, new StartStep<>(incident, start));
         result.asAdmin().setStrategies(FULGORA_STRATEGIES);
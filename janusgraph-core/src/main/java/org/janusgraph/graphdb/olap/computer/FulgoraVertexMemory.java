@@ -31,6 +31,8 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -54,6 +56,11 @@ public class FulgoraVertexMemory<M> {
 
     private final NonBlockingHashMapLong<PartitionVertexAggregate<M>> partitionVertices;
 
+    private long maxActiveVertices = -1;
+    private volatile Set<Long> activeVertices;
+    private final AtomicLong numActiveVertices = new AtomicLong();
+    private Set<Long> previousActiveVertices;
+
     public FulgoraVertexMemory(int numVertices, final IDManager idManager, final VertexProgram<M> vertexProgram) {
         Preconditions.checkArgument(numVertices>=0 && vertexProgram!=null && idManager!=null);
         vertexStates = new NonBlockingHashMap<>(numVertices);
@@ -107,15 +114,71 @@ public class FulgoraVertexMemory<M> {
         for (VertexState<M> state : vertexStates.values()) state.completeIteration();
         partitionVertices.clear();
         previousScopes = currentScopes;
+        previousActiveVertices = activeVertices;
+        activeVertices = null;
         inExecute = false;
     }
 
     void nextIteration(Set<MessageScope> scopes) {
         currentScopes = getIdMap(normalizeScopes(scopes));
         partitionVertices.clear();
+        if (isTrackingActiveVertices()) {
+            activeVertices = ConcurrentHashMap.newKeySet();
+            numActiveVertices.set(0);
+        }
         inExecute = true;
     }
 
+    Set<MessageScope> getCurrentScopes() {
+        return currentScopes.keySet();
+    }
+
+    //######## Active Vertices ##########
+
+    /**
+     * Tracks the vertices which are sent a message in the following iterations, as long as their number does not
+     * exceed the given maximum, see {@link #getActiveVertices()}.
+     */
+    public void trackActiveVertices(long maxActiveVertices) {
+        Preconditions.checkArgument(maxActiveVertices >= 0, "Invalid maximum: %s", maxActiveVertices);
+        this.maxActiveVertices = maxActiveVertices;
+    }
+
+    public boolean isTrackingActiveVertices() {
+        return maxActiveVertices >= 0;
+    }
+
+    /**
+     * Marks the given vertex as active in the next iteration.
+     */
+    public void markActive(Object vertexId) {
+        final Set<Long> active = activeVertices;
+        if (active == null) return;
+        vertexId = getCanonicalId(vertexId);
+        if (!(vertexId instanceof Number) || idManager.isPartitionedVertex(vertexId)) {
+            // partitioned vertices are processed as part of a full scan only
+            markAllActive();
+        } else if (active.add(((Number) vertexId).longValue()) && numActiveVertices.incrementAndGet() > maxActiveVertices) {
+            markAllActive();
+        }
+    }
+
+    /**
+     * Marks all vertices as active in the next iteration, which stops tracking individual vertices for this iteration.
+     */
+    public void markAllActive() {
+        activeVertices = null;
+    }
+
+    /**
+     * Returns the vertices which were sent a message in the previous iteration, or null if these were not tracked,
+     * e.g. because they exceeded the maximum number of tracked vertices, in which case all vertices must be
+     * considered active.
+     */
+    public Set<Long> getActiveVertices() {
+        return previousActiveVertices;
+    }
+
     public Map<Object,Map<String,Object>> getMutableVertexProperties() {
         return Maps.transformValues(vertexStates, vs -> {
             Map<String,Object> map = new HashMap<>(elementKeyMap.size());
@@ -131,12 +194,12 @@ public class FulgoraVertexMemory<M> {
         return computeKeys.stream().filter(key -> inExecute || !key.isTransient()).map(VertexComputeKey::getKey).collect(Collectors.toSet());
     }
 
-    private static MessageScope normalizeScope(MessageScope scope) {
+    static MessageScope normalizeScope(MessageScope scope) {
         if (scope instanceof MessageScope.Global) return GLOBAL_SCOPE;
         else return scope;
     }
 
-    private static Iterable<MessageScope> normalizeScopes(Iterable<MessageScope> scopes) {
+    static Iterable<MessageScope> normalizeScopes(Iterable<MessageScope> scopes) {
         return Iterables.transform(scopes, FulgoraVertexMemory::normalizeScope);
     }
 
@@ -0,0 +1,132 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.olap.computer;
+
+import com.google.common.base.Preconditions;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Dense array of primitive longs which grows in fixed-size pages as higher indexes are written, such that growing
+ * never copies values. Pages are either long arrays on the heap or direct byte buffers outside of the heap. Indexes
+ * which have never been written read as 0.
+ * <p>
+ * Plain reads and writes of distinct indexes may happen concurrently, bitwise updates are atomic.
+ */
+class LongColumn {
+
+    static final int PAGE_BITS = 16;
+    static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final VarHandle HEAP_PAGE = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle DIRECT_PAGE = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final boolean offHeap;
+    // pages are only added by replacing the whole array, such that pages are always read through a volatile read
+    private volatile Object[] pages;
+
+    LongColumn(boolean offHeap) {
+        this.offHeap = offHeap;
+        this.pages = new Object[0];
+    }
+
+    boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Returns the number of bytes allocated for pages
+     */
+    long getAllocatedBytes() {
+        long numPages = 0;
+        for (Object page : pages) {
+            if (page != null) numPages++;
+        }
+        return numPages * PAGE_SIZE * Long.BYTES;
+    }
+
+    long get(int index) {
+        final Object page = getPage(index);
+        if (page == null) return 0;
+        if (offHeap) return ((ByteBuffer) page).getLong(offset(index));
+        else return ((long[]) page)[index & PAGE_MASK];
+    }
+
+    void set(int index, long value) {
+        final Object page = getOrCreatePage(index);
+        if (offHeap) ((ByteBuffer) page).putLong(offset(index), value);
+        else ((long[]) page)[index & PAGE_MASK] = value;
+    }
+
+    void setBits(int index, long bits) {
+        final Object page = getOrCreatePage(index);
+        if (offHeap) DIRECT_PAGE.getAndBitwiseOr((ByteBuffer) page, offset(index), bits);
+        else HEAP_PAGE.getAndBitwiseOr((long[]) page, index & PAGE_MASK, bits);
+    }
+
+    void clearBits(int index, long bits) {
+        final Object page = getPage(index);
+        if (page == null) return;
+        if (offHeap) DIRECT_PAGE.getAndBitwiseAnd((ByteBuffer) page, offset(index), ~bits);
+        else HEAP_PAGE.getAndBitwiseAnd((long[]) page, index & PAGE_MASK, ~bits);
+    }
+
+    /**
+     * Sets all values to 0 while keeping the pages allocated. Must not be called concurrently with writes.
+     */
+    void clear() {
+        for (Object page : pages) {
+            if (page == null) continue;
+            if (offHeap) {
+                final ByteBuffer buffer = (ByteBuffer) page;
+                for (int i = 0; i < PAGE_SIZE; i++) buffer.putLong(i * Long.BYTES, 0L);
+            } else {
+                Arrays.fill((long[]) page, 0L);
+            }
+        }
+    }
+
+    private static int offset(int index) {
+        return (index & PAGE_MASK) * Long.BYTES;
+    }
+
+    private Object getPage(int index) {
+        assert index >= 0;
+        final Object[] current = pages;
+        final int pageIndex = index >>> PAGE_BITS;
+        return pageIndex < current.length ? current[pageIndex] : null;
+    }
+
+    private Object getOrCreatePage(int index) {
+        final Object page = getPage(index);
+        if (page != null) return page;
+        Preconditions.checkArgument(index >= 0, "Invalid index: %s", index);
+        synchronized (this) {
+            final int pageIndex = index >>> PAGE_BITS;
+            final Object[] current = pages;
+            if (pageIndex < current.length && current[pageIndex] != null) return current[pageIndex];
+            final Object[] grown = Arrays.copyOf(current, Math.max(current.length, pageIndex + 1));
+            grown[pageIndex] = offHeap ? ByteBuffer.allocateDirect(PAGE_SIZE * Long.BYTES).order(ByteOrder.nativeOrder())
+                                       : new long[PAGE_SIZE];
+            pages = grown;
+            return grown[pageIndex];
+        }
+    }
+}
@@ -0,0 +1,183 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.olap.computer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * One value per vertex ordinal, such as a vertex compute key or the messages of one message scope.
+ * <p>
+ * The type of the first value written determines the kind of the column. Values of a numeric kind are stored as
+ * primitive longs in a {@link LongColumn} together with a bitmap marking which ordinals hold a value. Values of any
+ * other type, as well as numeric values of a different type than the column's kind, are held in an overflow map,
+ * such that the column accepts any value but only numeric values avoid an object per vertex.
+ * <p>
+ * Distinct ordinals may be written concurrently. Writes to the same ordinal must be serialized by the caller.
+ */
+class VertexColumn {
+
+    private final LongColumn values;
+    private final LongColumn present;
+    private final ConcurrentMap<Integer, Object> overflow = new ConcurrentHashMap<>();
+    private volatile Kind kind;
+
+    VertexColumn(boolean offHeap) {
+        values = new LongColumn(offHeap);
+        present = new LongColumn(offHeap);
+    }
+
+    Object get(int ordinal) {
+        if (ordinal < 0) return null;
+        final Kind k = kind;
+        if (k != null && (present.get(ordinal >>> 6) & (1L << ordinal)) != 0) {
+            return k.decode(values.get(ordinal));
+        }
+        return overflow.isEmpty() ? null : overflow.get(ordinal);
+    }
+
+    void set(int ordinal, Object value) {
+        final Kind k = value == null ? kind : getKind(value);
+        if (value != null && k.matches(value)) {
+            values.set(ordinal, k.encode(value));
+            present.setBits(ordinal >>> 6, 1L << ordinal);
+            if (!overflow.isEmpty()) overflow.remove(ordinal);
+        } else {
+            present.clearBits(ordinal >>> 6, 1L << ordinal);
+            if (value == null) overflow.remove(ordinal);
+            else overflow.put(ordinal, value);
+        }
+    }
+
+    private Kind getKind(Object value) {
+        Kind k = kind;
+        if (k == null) {
+            synchronized (this) {
+                if (kind == null) kind = Kind.of(value);
+                k = kind;
+            }
+        }
+        return k;
+    }
+
+    /**
+     * Removes all values and resets the kind of this column while keeping its memory allocated. Must not be called
+     * concurrently with writes.
+     */
+    void clear() {
+        present.clear();
+        overflow.clear();
+        kind = null;
+    }
+
+    long getAllocatedBytes() {
+        return values.getAllocatedBytes() + present.getAllocatedBytes();
+    }
+
+    int getOverflowSize() {
+        return overflow.size();
+    }
+
+    enum Kind {
+
+        DOUBLE(Double.class) {
+            @Override
+            long encode(Object value) {
+                return Double.doubleToRawLongBits((Double) value);
+            }
+
+            @Override
+            Object decode(long bits) {
+                return Double.longBitsToDouble(bits);
+            }
+        },
+        FLOAT(Float.class) {
+            @Override
+            long encode(Object value) {
+                return Float.floatToRawIntBits((Float) value);
+            }
+
+            @Override
+            Object decode(long bits) {
+                return Float.intBitsToFloat((int) bits);
+            }
+        },
+        LONG(Long.class) {
+            @Override
+            long encode(Object value) {
+                return (Long) value;
+            }
+
+            @Override
+            Object decode(long bits) {
+                return bits;
+            }
+        },
+        INTEGER(Integer.class) {
+            @Override
+            long encode(Object value) {
+                return (Integer) value;
+            }
+
+            @Override
+            Object decode(long bits) {
+                return (int) bits;
+            }
+        },
+        BOOLEAN(Boolean.class) {
+            @Override
+            long encode(Object value) {
+                return (Boolean) value ? 1 : 0;
+            }
+
+            @Override
+            Object decode(long bits) {
+                return bits != 0;
+            }
+        },
+        OBJECT(null) {
+            @Override
+            long encode(Object value) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            Object decode(long bits) {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        private final Class<?> type;
+
+        Kind(Class<?> type) {
+            this.type = type;
+        }
+
+        boolean matches(Object value) {
+            return type != null && value.getClass() == type;
+        }
+
+        abstract long encode(Object value);
+
+        abstract Object decode(long bits);
+
+        static Kind of(Object value) {
+            for (Kind kind : values()) {
+                if (kind.matches(value)) return kind;
+            }
+            return OBJECT;
+        }
+    }
+}
@@ -151,14 +151,28 @@ class VertexMemoryHandler<M> implements PreloadedVertex.PropertyMixing, Messenge
     public void sendMessage(MessageScope messageScope, M m) {
         if (messageScope instanceof MessageScope.Local) {
             vertexMemory.sendMessage(vertexId, m, messageScope);
+            if (vertexMemory.isTrackingActiveVertices()) markReceiversActive((MessageScope.Local<?>) messageScope);
         } else {
             ((MessageScope.Global) messageScope).vertices().forEach(v -> {
                 long vertexId = ((Number) v.id()).longValue();
                 vertexMemory.sendMessage(vertexMemory.getCanonicalId(vertexId), m, messageScope);
+                vertexMemory.markActive(vertexId);
             });
         }
     }
 
+    /**
+     * Marks the vertices which receive the local message of this vertex active, i.e. the adjacent vertices along the
+     * incident traversal of the message scope.
+     */
+    void markReceiversActive(MessageScope.Local<?> messageScope) {
+        try (final Traversal<Vertex, Edge> incident = FulgoraUtil.getIncidentElementTraversal(messageScope,vertex,vertex.tx())) {
+            incident.forEachRemaining(e -> vertexMemory.markActive(((JanusGraphEdge) e).otherVertex(vertex).id()));
+        } catch (Exception e) {
+            throw new JanusGraphException("Unable to close traversal", e);
+        }
+    }
+
     static class Partition<M> extends VertexMemoryHandler<M> {
 
         Partition(FulgoraVertexMemory<M> vertexMemory, PreloadedVertex vertex) {
@@ -174,5 +188,11 @@ class VertexMemoryHandler<M> implements PreloadedVertex.PropertyMixing, Messenge
                 return vertexMemory.getAggregateMessage(((Number) vertexId).longValue(), localMessageScope);
             }
         }
+
+        @Override
+        void markReceiversActive(MessageScope.Local<?> messageScope) {
+            // the edges of a partitioned vertex are spread across its partitions
+            vertexMemory.markAllActive();
+        }
     }
 }
@@ -0,0 +1,182 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.olap.computer;
+
+import com.carrotsearch.hppc.BitMixer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Assigns dense ordinals 0, 1, 2, ... to vertex ids in the order in which they are first seen, to index the columns of
+ * a {@link ColumnarVertexMemory}. The reverse mapping is held in a {@link LongColumn}, and the mapping itself in open
+ * addressing hash tables, each guarding a stripe of the vertex ids. The slots of the tables only hold ordinals, whose
+ * vertex ids are looked up in the reverse mapping, and are allocated outside of the heap like the columns if requested.
+ * <p>
+ * Ordinals are ints, so at most {@link #MAX_VERTICES} vertices can be assigned an ordinal.
+ */
+class VertexOrdinals {
+
+    static final int MAX_VERTICES = Integer.MAX_VALUE;
+
+    private static final int STRIPE_BITS = 6;
+    private static final int NUM_STRIPES = 1 << STRIPE_BITS;
+
+    private final OrdinalTable[] stripes = new OrdinalTable[NUM_STRIPES];
+    private final LongColumn vertexIds;
+    private int size;
+
+    VertexOrdinals(int expectedNumVertices, boolean offHeap) {
+        for (int i = 0; i < NUM_STRIPES; i++) stripes[i] = new OrdinalTable(expectedNumVertices / NUM_STRIPES, offHeap);
+        vertexIds = new LongColumn(offHeap);
+    }
+
+    private OrdinalTable getStripe(long vertexId) {
+        // use the upper bits of a different mixing function than the one the tables use for their slots
+        return stripes[(int) (BitMixer.mix64(vertexId) >>> (Long.SIZE - STRIPE_BITS))];
+    }
+
+    /**
+     * Returns the ordinal of the given vertex id, or -1 if it has none.
+     */
+    int get(long vertexId) {
+        final OrdinalTable stripe = getStripe(vertexId);
+        synchronized (stripe) {
+            return stripe.get(vertexId);
+        }
+    }
+
+    int getOrCreate(long vertexId) {
+        final OrdinalTable stripe = getStripe(vertexId);
+        synchronized (stripe) {
+            final int ordinal = stripe.get(vertexId);
+            if (ordinal >= 0) return ordinal;
+            final int next = nextOrdinal();
+            vertexIds.set(next, vertexId);
+            stripe.put(vertexId, next);
+            return next;
+        }
+    }
+
+    private synchronized int nextOrdinal() {
+        if (size == MAX_VERTICES) {
+            throw new IllegalStateException("The columnar vertex memory supports at most " + MAX_VERTICES
+                + " vertices, disable it for larger graphs");
+        }
+        return size++;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    long getVertexId(int ordinal) {
+        assert ordinal >= 0 && ordinal < size();
+        return vertexIds.get(ordinal);
+    }
+
+    long getAllocatedBytes() {
+        long bytes = vertexIds.getAllocatedBytes();
+        for (OrdinalTable stripe : stripes) {
+            synchronized (stripe) {
+                bytes += stripe.getAllocatedBytes();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Open addressing hash table with linear probing from vertex ids to ordinals. A slot holds the ordinal plus one,
+     * such that 0 marks an empty slot. Not thread-safe.
+     */
+    private class OrdinalTable {
+
+        private static final int MIN_CAPACITY = 16;
+        // direct buffers are indexed by int, which bounds the capacity of a table outside of the heap
+        private static final int MAX_CAPACITY = 1 << 29;
+        private static final double LOAD_FACTOR = 0.75;
+
+        private final boolean offHeap;
+        private int[] heapSlots;
+        private ByteBuffer directSlots;
+        private int mask;
+        private int size;
+        private int resizeAt;
+
+        private OrdinalTable(int expectedSize, boolean offHeap) {
+            this.offHeap = offHeap;
+            final long minCapacity = (long) Math.ceil(expectedSize / LOAD_FACTOR);
+            allocate((int) Math.min(MAX_CAPACITY, Math.max(MIN_CAPACITY, Long.highestOneBit(minCapacity - 1) << 1)));
+        }
+
+        private void allocate(int capacity) {
+            if (offHeap) directSlots = ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder());
+            else heapSlots = new int[capacity];
+            mask = capacity - 1;
+            resizeAt = capacity == MAX_CAPACITY ? capacity - 1
+                                                : (int) Math.ceil(capacity * LOAD_FACTOR);
+        }
+
+        private int getSlot(int index) {
+            return offHeap ? directSlots.getInt(index * Integer.BYTES) : heapSlots[index];
+        }
+
+        private void setSlot(int index, int value) {
+            if (offHeap) directSlots.putInt(index * Integer.BYTES, value);
+            else heapSlots[index] = value;
+        }
+
+        private int get(long vertexId) {
+            for (int index = BitMixer.mixPhi(vertexId) & mask; ; index = (index + 1) & mask) {
+                final int slot = getSlot(index);
+                if (slot == 0) return -1;
+                if (vertexIds.get(slot - 1) == vertexId) return slot - 1;
+            }
+        }
+
+        private void put(long vertexId, int ordinal) {
+            if (size >= resizeAt) {
+                if (mask + 1 == MAX_CAPACITY) {
+                    throw new IllegalStateException("The columnar vertex memory supports at most " + MAX_CAPACITY
+                        + " vertices per stripe of its ordinal table, disable it for larger graphs");
+                }
+                resize((mask + 1) * 2);
+            }
+            insert(vertexId, ordinal + 1);
+            size++;
+        }
+
+        private void insert(long vertexId, int slot) {
+            int index = BitMixer.mixPhi(vertexId) & mask;
+            while (getSlot(index) != 0) index = (index + 1) & mask;
+            setSlot(index, slot);
+        }
+
+        private void resize(int capacity) {
+            final int oldCapacity = mask + 1;
+            final int[] oldHeapSlots = heapSlots;
+            final ByteBuffer oldDirectSlots = directSlots;
+            allocate(capacity);
+            for (int index = 0; index < oldCapacity; index++) {
+                final int slot = offHeap ? oldDirectSlots.getInt(index * Integer.BYTES) : oldHeapSlots[index];
+                if (slot != 0) insert(vertexIds.get(slot - 1), slot);
+            }
+        }
+
+        private long getAllocatedBytes() {
+            return (long) (mask + 1) * Integer.BYTES;
+        }
+    }
+}
@@ -112,8 +112,9 @@ public class VertexProgramScanJob<M> implements VertexScanJob {
     @Override
     public void getQueries(QueryContainer queries) {
         Set<MessageScope> previousScopes = vertexMemory.getPreviousScopes();
-        if (vertexProgram instanceof TraversalVertexProgram || vertexProgram instanceof ShortestPathVertexProgram ||
-            vertexProgram instanceof ConnectedComponentVertexProgram || previousScopes.contains(globalScope)) {
+        boolean allEdges = vertexProgram instanceof TraversalVertexProgram || vertexProgram instanceof ShortestPathVertexProgram ||
+            vertexProgram instanceof ConnectedComponentVertexProgram || previousScopes.contains(globalScope);
+        if (allEdges) {
             //TraversalVertexProgram currently makes the assumption that the entire star-graph around a vertex
             //is available (in-memory). Hence, this special treatment here.
             //TODO: After TraversalVertexProgram is adjusted, remove this
@@ -131,6 +132,21 @@ public class VertexProgramScanJob<M> implements VertexScanJob {
                 qb.edges();
             }
         }
+
+        if (vertexMemory.isTrackingActiveVertices() && !allEdges) {
+            //The receivers of local messages are found along the incident edges of the sending vertex, which only
+            //need to be loaded in addition if they differ from the edges along which messages are received
+            for (MessageScope scope : vertexMemory.getCurrentScopes()) {
+                if (scope instanceof MessageScope.Local) {
+                    JanusGraphVertexStep<Vertex> startStep =
+                        FulgoraUtil.getIncidentJanusGraphVertexStep((MessageScope.Local) scope, queries.getTransaction());
+                    if (startStep.getDirection() == Direction.BOTH && previousScopes.contains(scope)) continue;
+                    QueryContainer.QueryBuilder qb = queries.addQuery();
+                    startStep.makeQuery(qb);
+                    qb.edges();
+                }
+            }
+        }
     }
 
     public static<M> Executor getVertexProgramScanJob(StandardJanusGraph graph, FulgoraMemory memory,
@@ -95,7 +95,7 @@ public class VertexState<M> {
         }
     }
 
-    private Object combineMessages(MessageCombiner<M> combiner, M messageA, Object messageB) {
+    static <M> Object combineMessages(MessageCombiner<M> combiner, M messageA, Object messageB) {
         Object combinedMessage;
         if (combiner != null) {
             combinedMessage = combiner.combine(messageA, (M) messageB);
@@ -122,6 +122,14 @@ public class VertexState<M> {
         } else {
             message = null;
         }
+        return toStream(message);
+    }
+
+    /**
+     * Returns the messages held in a message slot, i.e. either a single or combined message or a list of messages
+     * which could not be combined.
+     */
+    static <M> Stream<M> toStream(Object message) {
         if (message instanceof ObjectArrayList) {
             Iterator<M> transform = Iterators.transform(((ObjectArrayList<M>) message).iterator(), e -> e.value);
             return StreamSupport.stream(
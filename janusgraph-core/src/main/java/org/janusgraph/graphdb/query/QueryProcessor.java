@@ -23,9 +23,11 @@ import org.janusgraph.graphdb.util.CloseableIteratorUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 /**
@@ -75,11 +77,13 @@ public class QueryProcessor<Q extends ElementQuery<R, B>, R extends JanusGraphEl
         if (query.isSorted()) {
             for (int i = query.numSubQueries() - 1; i >= 0; i--) {
                 BackendQueryHolder<B> subquery = query.getSubQuery(i);
-                CloseableIterator<R> subqueryIterator = getFilterIterator((subquery.isSorted())
-                                                            ? new LimitAdjustingIterator(subquery)
-                                                            : new PreSortingIterator(subquery),
-                                                         hasDeletions,
-                                                         !subquery.isFitted());
+                CloseableIterator<R> subqueryIterator = (subquery.isSorted())
+                                                            ? getFilterIterator(new LimitAdjustingIterator(subquery),
+                                                                                hasDeletions,
+                                                                                !subquery.isFitted())
+                                                            : new PreSortingIterator(subquery,
+                                                                                     hasDeletions,
+                                                                                     !subquery.isFitted());
 
                 iterator = (iterator == null)
                         ? subqueryIterator
@@ -135,27 +139,55 @@ public class QueryProcessor<Q extends ElementQuery<R, B>, R extends JanusGraphEl
 
     private CloseableIterator<R> getFilterIterator(final CloseableIterator<R> iterator, final boolean filterDeletions, final boolean filterMatches) {
         if (filterDeletions || filterMatches) {
-            return CloseableIteratorUtils.filter(iterator, r -> (!filterDeletions || !executor.isDeleted(query, r)) && (!filterMatches || query.matches(r)));
+            return CloseableIteratorUtils.filter(iterator, r -> isValid(r, filterDeletions, filterMatches));
         } else {
             return iterator;
         }
     }
 
+    private boolean isValid(final R result, final boolean filterDeletions, final boolean filterMatches) {
+        return (!filterDeletions || !executor.isDeleted(query, result)) && (!filterMatches || query.matches(result));
+    }
+
+    /**
+     * Iterates out the result set of a sub-query which is not sorted in the required order and sorts it in memory.
+     * Filtering happens before sorting so that, if the query has a limit, only the top elements up to that limit
+     * need to be retained in a bounded heap instead of materializing and sorting the entire result set.
+     */
     private final class PreSortingIterator implements CloseableIterator<R> {
 
         private final Iterator<R> iterator;
 
-        private PreSortingIterator(BackendQueryHolder<B> backendQueryHolder) {
-            List<R> all = new ArrayList<>();
-            executor.execute(query,
+        private PreSortingIterator(BackendQueryHolder<B> backendQueryHolder, boolean filterDeletions, boolean filterMatches) {
+            final Iterator<R> results = executor.execute(query,
                 backendQueryHolder.getBackendQuery().updateLimit(MAX_SORT_ITERATION),
-                backendQueryHolder.getExecutionInfo(),backendQueryHolder.getProfiler())
-                .forEachRemaining(all::add);
-            if (all.size() >= MAX_SORT_ITERATION)
+                backendQueryHolder.getExecutionInfo(),backendQueryHolder.getProfiler());
+            final Comparator<R> sortOrder = query.getSortOrder();
+            //Only bound the result set if merging sub-queries cannot remove duplicates from the top elements
+            final boolean topK = query.hasLimit() && query.getLimit() < MAX_SORT_ITERATION && !query.hasDuplicateResults();
+            final PriorityQueue<R> heap = topK ? new PriorityQueue<>(query.getLimit(), sortOrder.reversed()) : null;
+            final List<R> all = topK ? null : new ArrayList<>();
+            int fetched = 0;
+            while (results.hasNext()) {
+                final R result = results.next();
+                fetched++;
+                if (!isValid(result, filterDeletions, filterMatches)) continue;
+                if (!topK) {
+                    all.add(result);
+                } else if (heap.size() < query.getLimit()) {
+                    heap.add(result);
+                } else if (sortOrder.compare(result, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(result);
+                }
+            }
+            CloseableIterator.closeIterator(results);
+            if (fetched >= MAX_SORT_ITERATION)
                 throw new QueryException("Could not execute query since pre-sorting requires fetching more than " +
                         MAX_SORT_ITERATION + " elements. Consider rewriting the query to exploit sort orders");
-            all.sort(query.getSortOrder());
-            iterator = all.iterator();
+            final List<R> sorted = topK ? new ArrayList<>(heap) : all;
+            sorted.sort(sortOrder);
+            iterator = sorted.iterator();
         }
 
         @Override
@@ -17,12 +17,18 @@ package org.janusgraph.graphdb.query.graph;
 import com.google.common.base.Preconditions;
 import org.janusgraph.diskstorage.BackendTransaction;
 import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.StaticBuffer;
 import org.janusgraph.diskstorage.keycolumnvalue.KeySliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
+import org.janusgraph.diskstorage.util.EntryArrayList;
 import org.janusgraph.graphdb.query.BackendQuery;
 import org.janusgraph.graphdb.query.BaseQuery;
+import org.janusgraph.graphdb.query.profile.QueryProfiler;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -44,18 +50,61 @@ public class MultiKeySliceQuery extends BaseQuery implements BackendQuery<MultiK
         return newQuery;
     }
 
-    public List<EntryList> execute(final BackendTransaction tx) {
+    /**
+     * Executes the key slice queries in the order in which they were given. Identical queries are only executed once
+     * and consecutive queries with the same slice are sent to the backend in batches of at most {@code batchSize}
+     * keys. Further batches are only retrieved while the limit has not been reached.
+     *
+     * @param tx the transaction to execute the queries in
+     * @param batchSize the maximum number of keys to retrieve in a single backend call
+     * @param profiler profiler which is annotated if multiple keys were retrieved in a single backend call
+     * @return the results of the distinct queries in input order
+     */
+    public List<EntryList> execute(final BackendTransaction tx, final int batchSize, final QueryProfiler profiler) {
+        Preconditions.checkArgument(batchSize > 0, "Invalid batch size: %s", batchSize);
+        final List<KeySliceQuery> distinctQueries = new ArrayList<>(new LinkedHashSet<>(queries));
         int total = 0;
-        final List<EntryList> result = new ArrayList<>(Math.min(getLimit(), queries.size()));
-        for (KeySliceQuery ksq : queries) {
-            EntryList next =tx.indexQuery(ksq.updateLimit(getLimit()-total));
-            result.add(next);
-            total+=next.size();
+        int numCalls = 0;
+        final List<EntryList> result = new ArrayList<>(Math.min(getLimit(), distinctQueries.size()));
+        int pos = 0;
+        while (pos < distinctQueries.size()) {
+            final KeySliceQuery first = distinctQueries.get(pos);
+            //Keys without index entries yield no results, but every other key yields at least one, hence retrieving
+            //more keys than the remaining limit would mostly fetch results which are discarded
+            final int maxKeys = hasLimit() ? Math.min(batchSize, getLimit() - total) : batchSize;
+            int end = pos + 1;
+            while (end < distinctQueries.size() && end - pos < maxKeys && hasSameSlice(first, distinctQueries.get(end))) end++;
+            numCalls++;
+            if (end - pos == 1) {
+                final EntryList next = tx.indexQuery(first.updateLimit(getLimit()-total));
+                result.add(next);
+                total+=next.size();
+            } else {
+                final List<StaticBuffer> keys = new ArrayList<>(end - pos);
+                for (int i = pos; i < end; i++) keys.add(distinctQueries.get(i).getKey());
+                final Map<StaticBuffer,EntryList> batch = tx.indexMultiQuery(keys, new SliceQuery(first).updateLimit(getLimit()-total));
+                //The slice limit applies to each key, so the batch as a whole can exceed the remaining limit
+                for (StaticBuffer key : keys) {
+                    EntryList next = batch.get(key);
+                    if (hasLimit() && total + next.size() > getLimit()) {
+                        next = EntryArrayList.of(next.subList(0, getLimit() - total));
+                    }
+                    result.add(next);
+                    total+=next.size();
+                    if (total>=getLimit() && hasLimit()) break;
+                }
+            }
             if (total>=getLimit() && hasLimit()) break;
+            pos = end;
         }
+        if (numCalls < distinctQueries.size()) profiler.setAnnotation(QueryProfiler.MULTIQUERY_ANNOTATION, true);
         return result;
     }
 
+    private static boolean hasSameSlice(KeySliceQuery query, KeySliceQuery other) {
+        return query.getSliceStart().equals(other.getSliceStart()) && query.getSliceEnd().equals(other.getSliceEnd());
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(queries, getLimit());
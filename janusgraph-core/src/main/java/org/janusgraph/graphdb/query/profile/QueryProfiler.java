@@ -33,6 +33,7 @@ public interface QueryProfiler {
     String MULTIPREFETCH_ANNOTATION = "multiPreFetch";
     String NUMVERTICES_ANNOTATION = "vertices";
     String PARTITIONED_VERTEX_ANNOTATION = "partitioned";
+    String ADJACENCY_SUMMARY_ANNOTATION = "adjacencySummary";
 
     String FITTED_ANNOTATION = "isFitted";
     String ORDERED_ANNOTATION = "isOrdered";
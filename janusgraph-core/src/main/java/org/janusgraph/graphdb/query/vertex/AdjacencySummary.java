@@ -0,0 +1,197 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.query.vertex;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.PrimitiveSink;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.janusgraph.core.JanusGraphException;
+import org.janusgraph.core.JanusGraphVertexProperty;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bloom filter summary of the adjacent vertex ids of a vertex, grouped by edge label and direction.
+ * <p>
+ * The summary is persisted as a list of {@link org.janusgraph.graphdb.types.system.BaseKey#AdjacencySummary} properties
+ * on the vertex. Each property holds the filter for the edges of one label and direction that were added in a single
+ * transaction, so that concurrent transactions never need to read and rewrite the same value. The filters are merged
+ * by rebuilding them from the adjacency list once there are more than {@link #COMPACTION_THRESHOLD} of them.
+ * <p>
+ * Since edges which were added before summaries got enabled are not covered, a vertex only has a usable summary
+ * if it carries the (empty) completeness marker which is written when the vertex is created.
+ * A summary can only ever report false positives, hence it is safe to skip an adjacency lookup when
+ * {@link #mightBeAdjacent(long, Direction, Object)} returns false.
+ */
+public class AdjacencySummary {
+
+    /**
+     * The number of summary entries for a label and direction after which they are rebuilt into a single one
+     */
+    public static final int COMPACTION_THRESHOLD = 16;
+
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+    private static final int MIN_EXPECTED_INSERTIONS = 16;
+
+    private static final byte[] COMPLETE_MARKER = new byte[0];
+
+    public static final AdjacencySummary EMPTY = new AdjacencySummary(false, Collections.emptyMap());
+
+    private final boolean complete;
+    private final Map<FilterKey, List<BloomFilter<Object>>> filters;
+
+    private AdjacencySummary(boolean complete, Map<FilterKey, List<BloomFilter<Object>>> filters) {
+        this.complete = complete;
+        this.filters = filters;
+    }
+
+    /**
+     * Whether the summary covers all edges of the vertex and can therefore be used to rule out adjacency.
+     *
+     * @return true if the vertex was created with adjacency summaries enabled
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Checks whether the vertex might have an edge of the given type in the given direction to the given vertex.
+     *
+     * @param typeId id of the edge label
+     * @param dir {@link Direction#OUT} or {@link Direction#IN}
+     * @param adjacentId id of the adjacent vertex
+     * @return false if the vertex is certainly not adjacent, true if it might be
+     */
+    public boolean mightBeAdjacent(long typeId, Direction dir, Object adjacentId) {
+        List<BloomFilter<Object>> candidates = filters.get(new FilterKey(typeId, dir));
+        if (candidates == null) return false;
+        for (BloomFilter<Object> filter : candidates) {
+            if (filter.mightContain(adjacentId)) return true;
+        }
+        return false;
+    }
+
+    public static AdjacencySummary of(Iterable<? extends JanusGraphVertexProperty> entries) {
+        boolean complete = false;
+        Map<FilterKey, List<BloomFilter<Object>>> filters = new HashMap<>();
+        for (JanusGraphVertexProperty entry : entries) {
+            byte[] value = (byte[]) entry.value();
+            if (isCompleteMarker(value)) {
+                complete = true;
+                continue;
+            }
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(value))) {
+                FilterKey key = new FilterKey(in.readLong(), directionOf(in.readByte()));
+                filters.computeIfAbsent(key, k -> new ArrayList<>(1)).add(BloomFilter.readFrom(in, IdFunnel.INSTANCE));
+            } catch (IOException e) {
+                throw new JanusGraphException("Could not read adjacency summary", e);
+            }
+        }
+        return new AdjacencySummary(complete, filters);
+    }
+
+    public static byte[] completeMarker() {
+        return COMPLETE_MARKER;
+    }
+
+    public static boolean isCompleteMarker(byte[] value) {
+        return value.length == 0;
+    }
+
+    /**
+     * Whether the given serialized summary entry belongs to the given edge label and direction.
+     */
+    public static boolean isSummaryOf(byte[] value, long typeId, Direction dir) {
+        if (isCompleteMarker(value)) return false;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(value))) {
+            return in.readLong() == typeId && directionOf(in.readByte()) == dir;
+        } catch (IOException e) {
+            throw new JanusGraphException("Could not read adjacency summary", e);
+        }
+    }
+
+    public static byte[] encode(long typeId, Direction dir, Collection<Object> adjacentIds) {
+        Preconditions.checkArgument(dir == Direction.OUT || dir == Direction.IN, "Invalid direction: %s", dir);
+        BloomFilter<Object> filter = BloomFilter.create(IdFunnel.INSTANCE,
+            Math.max(MIN_EXPECTED_INSERTIONS, adjacentIds.size()), FALSE_POSITIVE_PROBABILITY);
+        for (Object id : adjacentIds) filter.put(id);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(typeId);
+            out.writeByte(dir == Direction.OUT ? 0 : 1);
+            filter.writeTo(out);
+        } catch (IOException e) {
+            throw new JanusGraphException("Could not write adjacency summary", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Direction directionOf(byte b) {
+        switch (b) {
+            case 0: return Direction.OUT;
+            case 1: return Direction.IN;
+            default: throw new JanusGraphException("Invalid direction in adjacency summary: " + b);
+        }
+    }
+
+    private static class FilterKey {
+
+        private final long typeId;
+        private final Direction dir;
+
+        private FilterKey(long typeId, Direction dir) {
+            this.typeId = typeId;
+            this.dir = dir;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(typeId) * 31 + dir.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            else if (other == null || !getClass().isInstance(other)) return false;
+            FilterKey oth = (FilterKey) other;
+            return typeId == oth.typeId && dir == oth.dir;
+        }
+    }
+
+    private enum IdFunnel implements Funnel<Object> {
+
+        INSTANCE;
+
+        @Override
+        public void funnel(Object id, PrimitiveSink into) {
+            if (id instanceof Number) into.putLong(((Number) id).longValue());
+            else into.putString(id.toString(), StandardCharsets.UTF_8);
+        }
+    }
+
+}
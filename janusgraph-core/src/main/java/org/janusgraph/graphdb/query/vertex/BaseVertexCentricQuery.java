@@ -21,12 +21,16 @@ import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
 import org.janusgraph.graphdb.internal.OrderList;
 import org.janusgraph.graphdb.query.BackendQueryHolder;
 import org.janusgraph.graphdb.query.BaseQuery;
+import org.janusgraph.graphdb.query.condition.And;
 import org.janusgraph.graphdb.query.condition.Condition;
 import org.janusgraph.graphdb.query.condition.FixedCondition;
+import org.janusgraph.graphdb.query.condition.Or;
+import org.janusgraph.graphdb.query.condition.RelationTypeCondition;
 import org.janusgraph.graphdb.query.profile.ProfileObservable;
 import org.janusgraph.graphdb.query.profile.QueryProfiler;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -61,6 +65,9 @@ public class BaseVertexCentricQuery extends BaseQuery implements ProfileObservab
 
     private QueryProfiler profiler = QueryProfiler.NO_OP;
 
+    private long[] relationTypeIds;
+    private boolean hasComputedRelationTypeIds = false;
+
     public BaseVertexCentricQuery(Condition<JanusGraphRelation> condition, Direction direction,
                                   List<BackendQueryHolder<SliceQuery>> queries, OrderList orders,
                                   int limit) {
@@ -128,6 +135,44 @@ public class BaseVertexCentricQuery extends BaseQuery implements ProfileObservab
         return condition.evaluate(relation);
     }
 
+    /**
+     * Returns the ids of the relation types that all relations matching this query must have, or null if the
+     * condition of this query does not restrict the relation types.
+     *
+     * @return
+     */
+    public long[] getRelationTypeIds() {
+        if (!hasComputedRelationTypeIds) {
+            relationTypeIds = getRelationTypeIds(condition);
+            hasComputedRelationTypeIds = true;
+        }
+        return relationTypeIds;
+    }
+
+    private static long[] getRelationTypeIds(Condition<JanusGraphRelation> condition) {
+        if (condition instanceof RelationTypeCondition) {
+            return new long[]{((RelationTypeCondition<JanusGraphRelation>) condition).getRelationType().longId()};
+        } else if (condition instanceof And) {
+            //Any restricted child restricts the conjunction
+            for (Condition<JanusGraphRelation> child : condition.getChildren()) {
+                long[] ids = getRelationTypeIds(child);
+                if (ids != null) return ids;
+            }
+        } else if (condition instanceof Or && ((Or<JanusGraphRelation>) condition).hasChildren()) {
+            //The disjunction is only restricted if all its children are
+            long[] ids = new long[0];
+            for (Condition<JanusGraphRelation> child : condition.getChildren()) {
+                long[] childIds = getRelationTypeIds(child);
+                if (childIds == null) return null;
+                int offset = ids.length;
+                ids = Arrays.copyOf(ids, offset + childIds.length);
+                System.arraycopy(childIds, 0, ids, offset, childIds.length);
+            }
+            return ids;
+        }
+        return null;
+    }
+
     @Override
     public String toString() {
         String s = "["+condition.toString()+"]";
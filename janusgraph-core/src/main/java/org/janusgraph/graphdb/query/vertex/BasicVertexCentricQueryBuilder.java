@@ -287,6 +287,20 @@ public abstract class BasicVertexCentricQueryBuilder<Q extends BaseVertexQuery<Q
 
     }
 
+    protected class RelationCountConstructor implements ResultConstructor<Long> {
+
+        @Override
+        public Long getResult(InternalVertex v, BaseVertexCentricQuery bq) {
+            return executeRelationCount(v,bq);
+        }
+
+        @Override
+        public Long emptyResult() {
+            return 0L;
+        }
+
+    }
+
     protected List<InternalVertex> allRequiredRepresentatives(InternalVertex partitionedVertex) {
         if (hasAllCanonicalTypes()) {
             return ImmutableList.of(tx.getCanonicalVertex(partitionedVertex));
@@ -298,6 +312,43 @@ public abstract class BasicVertexCentricQueryBuilder<Q extends BaseVertexQuery<Q
         return !queryOnlyGivenVertex && tx.isPartitionedVertex(vertex);
     }
 
+    /**
+     * Whether this is an adjacency check for which the adjacency summaries of the queried vertices can be consulted.
+     */
+    protected final boolean hasAdjacencySummaryCheck() {
+        if (adjacentVertex == null || !hasTypes() || !tx.getGraph().getConfiguration().hasAdjacencySummary()) return false;
+        InternalVertex adjacent = (InternalVertex) adjacentVertex;
+        return adjacent.hasId() && !adjacent.isNew() && !tx.isPartitionedVertex(adjacent);
+    }
+
+    protected final boolean hasAdjacencySummary(InternalVertex vertex) {
+        return !vertex.isNew() && !vertex.hasAddedRelations() && !isPartitionedVertex(vertex);
+    }
+
+    /**
+     * Determines whether the adjacency summary of the given vertex rules out that it has an edge of the queried types
+     * to the adjacent vertex, in which case the edges don't need to be retrieved.
+     * Requires {@link #hasAdjacencySummaryCheck()}.
+     *
+     * @param vertex
+     * @return true if the query is guaranteed to have an empty result for the given vertex
+     */
+    protected boolean isExcludedByAdjacencySummary(InternalVertex vertex) {
+        if (!hasAdjacencySummary(vertex)) return false;
+        AdjacencySummary summary = tx.getAdjacencySummary(vertex);
+        if (!summary.isComplete()) return false;
+        Object adjacentId = adjacentVertex.id();
+        for (String typeName : types) {
+            InternalRelationType type = QueryUtil.getType(tx, typeName);
+            if (type == null) continue;
+            if (!type.isEdgeLabel() || type.isInvisibleType()) return false;
+            for (Direction d : dir == Direction.BOTH ? Direction.proper : new Direction[]{dir}) {
+                if (summary.mightBeAdjacent(type.longId(), d, adjacentId)) return false;
+            }
+        }
+        return true;
+    }
+
     protected boolean useSimpleQueryProcessor(BaseVertexCentricQuery query, InternalVertex... vertices) {
         assert vertices.length > 0;
         if (!query.isSimple()) return false;
@@ -338,6 +389,24 @@ public abstract class BasicVertexCentricQueryBuilder<Q extends BaseVertexQuery<Q
         else return new QueryProcessor<>(query, tx.edgeProcessor);
     }
 
+    /**
+     * Counts the relations matching the given query. For simple queries against a loaded vertex the matching
+     * entries are counted as they come from the backend without constructing any relation objects. All other
+     * cases fall back to counting the result of {@link #executeRelations(InternalVertex, BaseVertexCentricQuery)}.
+     *
+     * @param vertex
+     * @param baseQuery
+     * @return
+     */
+    public long executeRelationCount(InternalVertex vertex, BaseVertexCentricQuery baseQuery) {
+        if (!isPartitionedVertex(vertex)) {
+            VertexCentricQuery query = constructQuery(vertex, baseQuery);
+            if (useSimpleQueryProcessor(query, vertex)) return new SimpleVertexQueryProcessor(query,tx).count();
+            return Iterables.size(executeIndividualRelations(vertex, query));
+        }
+        return Iterables.size(executeRelations(vertex,baseQuery));
+    }
+
     public Iterable<JanusGraphVertex> executeVertices(InternalVertex vertex, BaseVertexCentricQuery baseQuery) {
         if (isPartitionedVertex(vertex)) {
             //If there is a sort order, we need to first merge the relations (and sort) and then compute vertices
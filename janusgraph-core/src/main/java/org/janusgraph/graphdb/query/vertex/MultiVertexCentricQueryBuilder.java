@@ -31,9 +31,12 @@ import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of {@link JanusGraphMultiVertexQuery} that extends {@link BasicVertexCentricQueryBuilder}
@@ -111,14 +114,19 @@ public class MultiVertexCentricQueryBuilder extends BasicVertexCentricQueryBuild
         profiler.setAnnotation(QueryProfiler.MULTIQUERY_ANNOTATION,true);
         profiler.setAnnotation(QueryProfiler.NUMVERTICES_ANNOTATION,vertices.size());
         if (!bq.isEmpty()) {
+            Set<InternalVertex> excluded = returnType==RelationCategory.EDGE && hasAdjacencySummaryCheck()
+                ? getExcludedByAdjacencySummary() : Collections.emptySet();
             for (BackendQueryHolder<SliceQuery> sq : bq.getQueries()) {
                 Collection<InternalVertex> adjVertices = getResolvedAdjVertices();
+                if (!excluded.isEmpty()) {
+                    adjVertices = adjVertices.stream().filter(v -> !excluded.contains(v)).collect(Collectors.toList());
+                }
                 //Overwrite with more accurate size accounting for partitioned vertices
                 profiler.setAnnotation(QueryProfiler.NUMVERTICES_ANNOTATION,adjVertices.size());
-                tx.executeMultiQuery(adjVertices, sq.getBackendQuery(), sq.getProfiler());
+                if (!adjVertices.isEmpty()) tx.executeMultiQuery(adjVertices, sq.getBackendQuery(), sq.getProfiler());
             }
             for (InternalVertex v : vertices) {
-                result.put(v, resultConstructor.getResult(v, bq));
+                result.put(v, excluded.contains(v) ? resultConstructor.emptyResult() : resultConstructor.getResult(v, bq));
             }
         } else {
             for (JanusGraphVertex v : vertices)
@@ -127,6 +135,19 @@ public class MultiVertexCentricQueryBuilder extends BasicVertexCentricQueryBuild
         return result;
     }
 
+    /**
+     * Loads the adjacency summaries of all vertices in a single backend call and returns those vertices for which
+     * they rule out any matching edge.
+     */
+    private Set<InternalVertex> getExcludedByAdjacencySummary() {
+        List<InternalVertex> candidates = vertices.stream().filter(this::hasAdjacencySummary).collect(Collectors.toList());
+        if (candidates.isEmpty()) return Collections.emptySet();
+        tx.prefetchAdjacencySummaries(candidates, profiler);
+        Set<InternalVertex> excluded = candidates.stream().filter(this::isExcludedByAdjacencySummary).collect(Collectors.toSet());
+        if (!excluded.isEmpty()) profiler.setAnnotation(QueryProfiler.ADJACENCY_SUMMARY_ANNOTATION,excluded.size());
+        return excluded;
+    }
+
     private Collection<InternalVertex> getResolvedAdjVertices(){
         if(hasQueryOnlyGivenVertex()){
             return vertices;
@@ -17,6 +17,7 @@ package org.janusgraph.graphdb.query.vertex;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import org.janusgraph.core.JanusGraphRelation;
 import org.janusgraph.core.VertexList;
 import org.janusgraph.diskstorage.Entry;
@@ -115,14 +116,31 @@ public class SimpleVertexQueryProcessor implements Iterable<Entry> {
         return new VertexIdList(tx,list,sorted);
     }
 
+    /**
+     * Returns the number of entries that match this query. Since the query is simple (and hence fitted) every
+     * entry returned by the backend is part of the result set, so we can count the entries directly without
+     * deserializing them into relations or adjacent vertex ids.
+     *
+     * @return
+     */
+    public long count() {
+        if (sliceQuery.hasLimit() && sliceQuery.getLimit()!=query.getLimit()) {
+            return Iterators.size(iterator());
+        }
+        return getBasicResult().size();
+    }
+
     /**
      * Executes the query by executing its on {@link SliceQuery} sub-query.
      *
      * @return
      */
     private Iterator<Entry> getBasicIterator() {
-        final EntryList result = vertex.loadRelations(sliceQuery, query -> QueryProfiler.profile(profiler, query, q -> tx.getGraph().edgeQuery(vertex.id(), q, tx.getTxHandle())));
-        return result.iterator();
+        return getBasicResult().iterator();
+    }
+
+    private EntryList getBasicResult() {
+        return vertex.loadRelations(sliceQuery, query -> QueryProfiler.profile(profiler, query, q -> tx.getGraph().edgeQuery(vertex.id(), q, tx.getTxHandle())));
     }
 
 
@@ -72,6 +72,10 @@ public class VertexCentricQueryBuilder extends BasicVertexCentricQueryBuilder<Ve
     protected<Q> Q execute(RelationCategory returnType, ResultConstructor<Q> resultConstructor) {
         BaseVertexCentricQuery bq = super.constructQuery(returnType);
         if (bq.isEmpty()) return resultConstructor.emptyResult();
+        if (returnType==RelationCategory.EDGE && hasAdjacencySummaryCheck() && isExcludedByAdjacencySummary(vertex)) {
+            profiler.setAnnotation(QueryProfiler.ADJACENCY_SUMMARY_ANNOTATION,1);
+            return resultConstructor.emptyResult();
+        }
         if (returnType==RelationCategory.PROPERTY && hasSingleType() && !hasQueryOnlyLoaded()
                 && tx.getConfiguration().hasPropertyPrefetching()) {
             //Preload properties
@@ -124,4 +128,11 @@ public class VertexCentricQueryBuilder extends BasicVertexCentricQueryBuilder<Ve
         return execute(RelationCategory.EDGE,new VertexIdConstructor());
     }
 
+    //#### COUNTS
+
+    @Override
+    public long edgeCount() {
+        return execute(RelationCategory.EDGE,new RelationCountConstructor());
+    }
+
 }
@@ -62,7 +62,7 @@ public class CacheEdge extends AbstractEdge {
         if (startVertex.hasAddedRelations() && startVertex.hasRemovedRelations()) {
             //Test whether this relation has been replaced
             final long id = super.longId();
-            final Iterable<InternalRelation> added = startVertex.getAddedRelations(
+            final Iterable<InternalRelation> added = startVertex.getAddedRelations(getType().longId(),
                 internalRelation -> (internalRelation instanceof StandardEdge) && ((StandardEdge) internalRelation).getPreviousID() == id);
             assert Iterables.size(added) <= 1 || (isLoop() && Iterables.size(added) == 2);
             it = Iterables.getFirst(added, null);
@@ -51,7 +51,7 @@ public class CacheVertexProperty extends AbstractVertexProperty {
         if (startVertex.hasAddedRelations() && startVertex.hasRemovedRelations()) {
             //Test whether this relation has been replaced
             final long id = longId();
-            it = Iterables.getOnlyElement(startVertex.getAddedRelations(
+            it = Iterables.getOnlyElement(startVertex.getAddedRelations(getType().longId(),
                 internalRelation -> (internalRelation instanceof StandardVertexProperty) && ((StandardVertexProperty) internalRelation).getPreviousID() == id), null);
         }
 
@@ -0,0 +1,101 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.tinkerpop.optimize.step;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.Profiling;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.ReducingBarrierStep;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
+import org.apache.tinkerpop.gremlin.process.traversal.util.MutableMetrics;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+import org.apache.tinkerpop.gremlin.util.function.ConstantSupplier;
+import org.janusgraph.core.JanusGraphVertexQuery;
+import org.janusgraph.graphdb.query.profile.QueryProfiler;
+import org.janusgraph.graphdb.query.vertex.BasicVertexCentricQueryBuilder;
+import org.janusgraph.graphdb.tinkerpop.optimize.JanusGraphTraversalUtil;
+import org.janusgraph.graphdb.tinkerpop.profile.TP3ProfileWrapper;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.function.BinaryOperator;
+
+/**
+ * A custom step similar to {@link org.apache.tinkerpop.gremlin.process.traversal.step.map.CountGlobalStep} which
+ * replaces a {@link JanusGraphVertexStep} without any property conditions that is directly followed by a count.
+ * Instead of materializing every adjacent relation, the number of matching relations is computed per vertex via
+ * {@link JanusGraphVertexQuery#edgeCount()} which counts the backend entries without deserializing them whenever
+ * the vertex-centric query is simple.
+ */
+public class JanusGraphVertexCountStep extends ReducingBarrierStep<Vertex, Long> implements Profiling {
+
+    private static final Set<TraverserRequirement> REQUIREMENTS = Collections.singleton(TraverserRequirement.BULK);
+
+    private final Direction direction;
+    private final String[] edgeLabels;
+    private QueryProfiler queryProfiler = QueryProfiler.NO_OP;
+
+    public JanusGraphVertexCountStep(JanusGraphVertexStep<?> vertexStep) {
+        super(vertexStep.getTraversal());
+        this.direction = vertexStep.getDirection();
+        this.edgeLabels = vertexStep.getEdgeLabels();
+        this.setSeedSupplier(new ConstantSupplier<>(0L));
+        this.setReducingBiOperator((BinaryOperator<Long> & Serializable) Long::sum);
+    }
+
+    @Override
+    public Long projectTraverser(Traverser.Admin<Vertex> traverser) {
+        final JanusGraphVertexQuery<?> query = JanusGraphTraversalUtil.getJanusGraphVertex(traverser).query();
+        query.labels(edgeLabels);
+        query.direction(direction);
+        ((BasicVertexCentricQueryBuilder<?>) query).profiler(queryProfiler);
+        return query.edgeCount() * traverser.bulk();
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public String[] getEdgeLabels() {
+        return edgeLabels;
+    }
+
+    @Override
+    public Set<TraverserRequirement> getRequirements() {
+        return REQUIREMENTS;
+    }
+
+    @Override
+    public String toString() {
+        return StringFactory.stepString(this, this.direction, Arrays.asList(this.edgeLabels));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = super.hashCode() ^ this.direction.hashCode();
+        for (final String edgeLabel : this.edgeLabels) {
+            result ^= edgeLabel.hashCode();
+        }
+        return result;
+    }
+
+    @Override
+    public void setMetrics(MutableMetrics metrics) {
+        queryProfiler = new TP3ProfileWrapper(metrics);
+    }
+}
@@ -209,6 +209,10 @@ public class JanusGraphVertexStep<E extends Element> extends VertexStep<E> imple
         throw new UnsupportedOperationException("getLocalHighLimit is not supported for graph vertex step.");
     }
 
+    public List<HasContainer> getHasContainers() {
+        return this.hasContainers;
+    }
+
     @Override
     public String toString() {
         return this.hasContainers.isEmpty() ? super.toString() : StringFactory.stepString(this, this.hasContainers);
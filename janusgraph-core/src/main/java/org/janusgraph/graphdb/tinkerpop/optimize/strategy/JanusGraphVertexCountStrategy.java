@@ -0,0 +1,101 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.tinkerpop.optimize.strategy;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.CountGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.NoOpBarrierStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.IdentityStep;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+import org.janusgraph.graphdb.query.Query;
+import org.janusgraph.graphdb.tinkerpop.optimize.step.JanusGraphVertexCountStep;
+import org.janusgraph.graphdb.tinkerpop.optimize.step.JanusGraphVertexStep;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * If a {@link JanusGraphVertexStep} has no property conditions and no limit, and it is directly followed by a
+ * count step, then this strategy replaces both steps by a {@link JanusGraphVertexCountStep} which counts the
+ * adjacent relations of each vertex without materializing them.
+ * <p>
+ * This covers both global counts like {@code g.V(x).outE('follows').count()} and local degree computations like
+ * {@code g.V().local(outE('follows').count())}.
+ */
+public class JanusGraphVertexCountStrategy extends AbstractTraversalStrategy<TraversalStrategy.ProviderOptimizationStrategy>
+    implements TraversalStrategy.ProviderOptimizationStrategy {
+
+    private static final JanusGraphVertexCountStrategy INSTANCE = new JanusGraphVertexCountStrategy();
+    private static final Set<Class<? extends ProviderOptimizationStrategy>> PRIORS = Collections.singleton(JanusGraphLocalQueryOptimizerStrategy.class);
+    private static final Set<Class<? extends ProviderOptimizationStrategy>> POSTS = Collections.singleton(JanusGraphMultiQueryStrategy.class);
+
+    private JanusGraphVertexCountStrategy() {
+    }
+
+    @Override
+    public void apply(final Traversal.Admin<?, ?> traversal) {
+        if (TraversalHelper.onGraphComputer(traversal))
+            return;
+
+        TraversalHelper.getStepsOfClass(JanusGraphVertexStep.class, traversal).forEach(vertexStep -> {
+            if (!isCountable(vertexStep)) return;
+
+            final List<Step<?, ?>> skippedSteps = new ArrayList<>();
+            Step<?, ?> currentStep = vertexStep.getNextStep();
+            while (isEligibleToSkip(currentStep)) {
+                skippedSteps.add(currentStep);
+                currentStep = currentStep.getNextStep();
+            }
+            if (!(currentStep instanceof CountGlobalStep)) return;
+
+            final JanusGraphVertexCountStep countStep = new JanusGraphVertexCountStep(vertexStep);
+            currentStep.getLabels().forEach(countStep::addLabel);
+            skippedSteps.forEach(traversal::removeStep);
+            traversal.removeStep(currentStep);
+            traversal.addStep(traversal.getSteps().indexOf(vertexStep), countStep);
+            traversal.removeStep(vertexStep);
+        });
+    }
+
+    private static boolean isCountable(final JanusGraphVertexStep<?> vertexStep) {
+        return vertexStep.getLabels().isEmpty()
+            && vertexStep.getHasContainers().isEmpty()
+            && vertexStep.getHighLimit() == Query.NO_LIMIT;
+    }
+
+    private static boolean isEligibleToSkip(final Step<?, ?> currentStep) {
+        return (currentStep instanceof IdentityStep || currentStep instanceof NoOpBarrierStep)
+            && currentStep.getLabels().isEmpty();
+    }
+
+    @Override
+    public Set<Class<? extends ProviderOptimizationStrategy>> applyPrior() {
+        return PRIORS;
+    }
+
+    @Override
+    public Set<Class<? extends ProviderOptimizationStrategy>> applyPost() {
+        return POSTS;
+    }
+
+    public static JanusGraphVertexCountStrategy instance() {
+        return INSTANCE;
+    }
+}
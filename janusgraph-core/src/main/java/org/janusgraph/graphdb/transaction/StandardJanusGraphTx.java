@@ -14,8 +14,11 @@
 
 package org.janusgraph.graphdb.transaction;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.tinkerpop.gremlin.structure.Direction;
 import org.apache.tinkerpop.gremlin.structure.Property;
@@ -82,9 +85,11 @@ import org.janusgraph.graphdb.query.graph.JointIndexQuery;
 import org.janusgraph.graphdb.query.graph.MixedIndexAggQueryBuilder;
 import org.janusgraph.graphdb.query.index.IndexSelectionStrategy;
 import org.janusgraph.graphdb.query.profile.QueryProfiler;
+import org.janusgraph.graphdb.query.vertex.AdjacencySummary;
 import org.janusgraph.graphdb.query.vertex.MultiVertexCentricQueryBuilder;
 import org.janusgraph.graphdb.query.vertex.VertexCentricQuery;
 import org.janusgraph.graphdb.query.vertex.VertexCentricQueryBuilder;
+import org.janusgraph.graphdb.relations.EdgeDirection;
 import org.janusgraph.graphdb.relations.RelationComparator;
 import org.janusgraph.graphdb.relations.RelationIdentifier;
 import org.janusgraph.graphdb.relations.RelationIdentifierUtils;
@@ -147,6 +152,7 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -243,6 +249,14 @@ public class StandardJanusGraphTx extends JanusGraphBlueprintsTransaction implem
      */
     private Map<String, Long> newTypeCache;
 
+    /**
+     * Caches the decoded adjacency summaries of loaded vertices. Created on first use, so that transactions of graphs
+     * without adjacency summaries are not affected. See {@link #getAdjacencySummaryCache()}.
+     */
+    private volatile Cache<Object, AdjacencySummary> adjacencySummaries;
+    private SliceQuery adjacencySummaryQuery;
+    private final long adjacencySummaryCacheSize;
+
     /**
      * Used to assign temporary ids to new vertices and relations added in this transaction.
      * If ids are assigned immediately, this is not used. This IDPool is shared across all elements.
@@ -317,6 +331,7 @@ public class StandardJanusGraphTx extends JanusGraphBlueprintsTransaction implem
         }
 
         vertexCache = new CaffeineVertexCache(effectiveVertexCacheSize,config.getDirtyVertexSize());
+        adjacencySummaryCacheSize = effectiveVertexCacheSize;
 
         indexCache = new CaffeineSubqueryCache(config.getIndexCacheWeight());
 
@@ -401,6 +416,53 @@ public class StandardJanusGraphTx extends JanusGraphBlueprintsTransaction implem
         return idInspector;
     }
 
+    /**
+     * Returns the adjacency summary of the given loaded vertex or null if adjacency summaries are disabled.
+     *
+     * @param vertex
+     * @return
+     */
+    public AdjacencySummary getAdjacencySummary(InternalVertex vertex) {
+        final Cache<Object, AdjacencySummary> adjacencySummaries = getAdjacencySummaryCache();
+        if (adjacencySummaries == null) return null;
+        Preconditions.checkArgument(!vertex.isNew() && !vertex.hasAddedRelations(), "Vertex has been modified: %s", vertex);
+        return adjacencySummaries.get(vertex.id(), id -> AdjacencySummary.of(
+            query(vertex).noPartitionRestriction().type(BaseKey.AdjacencySummary).properties()));
+    }
+
+    /**
+     * Loads the adjacency summaries of the given vertices which are not yet cached with a single backend call.
+     *
+     * @param vertices
+     * @param profiler
+     */
+    public void prefetchAdjacencySummaries(Collection<InternalVertex> vertices, QueryProfiler profiler) {
+        final Cache<Object, AdjacencySummary> adjacencySummaries = getAdjacencySummaryCache();
+        Preconditions.checkState(adjacencySummaries != null, "Adjacency summaries are disabled");
+        List<InternalVertex> missing = new ArrayList<>(vertices.size());
+        for (InternalVertex v : vertices) {
+            if (adjacencySummaries.getIfPresent(v.id()) == null) missing.add(v);
+        }
+        if (!missing.isEmpty()) executeMultiQuery(missing, adjacencySummaryQuery, profiler);
+    }
+
+    /**
+     * Returns the cache of adjacency summaries, creating it on first use, or null if adjacency summaries are disabled.
+     *
+     * @return
+     */
+    private Cache<Object, AdjacencySummary> getAdjacencySummaryCache() {
+        if (adjacencySummaries == null && graph.getConfiguration().hasAdjacencySummary()) {
+            synchronized (this) {
+                if (adjacencySummaries == null) {
+                    adjacencySummaryQuery = edgeSerializer.getQuery(BaseKey.AdjacencySummary, Direction.OUT, new EdgeSerializer.TypedInterval[0]);
+                    adjacencySummaries = Caffeine.newBuilder().maximumSize(adjacencySummaryCacheSize).build();
+                }
+            }
+        }
+        return adjacencySummaries;
+    }
+
     public boolean isPartitionedVertex(JanusGraphVertex vertex) {
         return vertex.hasId() && idInspector.isPartitionedVertex(vertex.id());
     }
@@ -933,7 +995,7 @@ public class StandardJanusGraphTx extends JanusGraphBlueprintsTransaction implem
                     //Only delete in-memory so as to not trigger a read from the database which isn't necessary because we will overwrite blindly
                     //We need to label the new property as "upsert", so that in case property deletion happens, we not only delete this new
                     //in-memory property, but also read from database to delete the old value (if exists)
-                    ((InternalVertex) vertex).getAddedRelations(p -> p.getType().equals(key)).forEach(p -> propertyRemover.accept((JanusGraphVertexProperty) p));
+                    ((InternalVertex) vertex).getAddedRelations(key.longId(), p -> true).forEach(p -> propertyRemover.accept((JanusGraphVertexProperty) p));
                     prop.setUpsert(true);
                 } else {
                     ((InternalVertex) vertex).query().types(key).properties().forEach(propertyRemover);
@@ -1272,10 +1334,19 @@ public class StandardJanusGraphTx extends JanusGraphBlueprintsTransaction implem
             }
         }
 
+        private Iterator<InternalRelation> getAddedRelations(final VertexCentricQuery query, final InternalVertex vertex) {
+            final long[] typeIds = query.getRelationTypeIds();
+            if (typeIds == null) return vertex.getAddedRelations(t -> true).iterator();
+            if (typeIds.length == 1) return vertex.getAddedRelations(typeIds[0], t -> true).iterator();
+            final List<Iterator<InternalRelation>> iterators = new ArrayList<>(typeIds.length);
+            for (long typeId : typeIds) iterators.add(vertex.getAddedRelations(typeId, t -> true).iterator());
+            return com.google.common.collect.Iterators.concat(iterators.iterator());
+        }
+
         private Iterator<JanusGraphRelation> getMatchedRelations(final VertexCentricQuery query, final InternalVertex vertex) {
             // Need to filter out self-loops if query only asks for one direction
             return new Iterator<JanusGraphRelation>() {
-                Iterator<InternalRelation> iterator = vertex.getAddedRelations(t -> true).iterator();
+                Iterator<InternalRelation> iterator = getAddedRelations(query, vertex);
                 InternalRelation loop = null;
                 InternalRelation current = null;
 
@@ -1336,7 +1407,7 @@ public class StandardJanusGraphTx extends JanusGraphBlueprintsTransaction implem
             InternalVertex vertex = query.getVertex();
             if (type.multiplicity().isConstrained() && vertex.hasAddedRelations()) {
                 final RelationComparator comparator = new RelationComparator(vertex);
-                return !Iterables.isEmpty(vertex.getAddedRelations(internalRelation -> comparator.compare((InternalRelation) result, internalRelation) == 0));
+                return !Iterables.isEmpty(vertex.getAddedRelations(type.longId(), internalRelation -> comparator.compare((InternalRelation) result, internalRelation) == 0));
             }
             return false;
         }
@@ -1395,8 +1466,10 @@ public class StandardJanusGraphTx extends JanusGraphBlueprintsTransaction implem
                     });
                     Preconditions.checkArgument(!keys.isEmpty(), "Invalid query condition: %s", query.getCondition());
                     Set<JanusGraphVertex> vertexSet = new HashSet<>();
-                    for (final JanusGraphRelation r : addedRelations.getView(relation -> keys.contains(relation.getType()))) {
-                        vertexSet.add(((JanusGraphVertexProperty) r).element());
+                    for (final PropertyKey key : keys) {
+                        for (final JanusGraphRelation r : addedRelations.getView(key.longId(), relation -> true)) {
+                            vertexSet.add(((JanusGraphVertexProperty) r).element());
+                        }
                     }
                     for (JanusGraphRelation r : deletedRelations.values()) {
                         if (keys.contains(r.getType())) {
@@ -1546,6 +1619,73 @@ public class StandardJanusGraphTx extends JanusGraphBlueprintsTransaction implem
      * ------------------------------------ Transaction State ------------------------------------
      */
 
+    /**
+     * Adds an adjacency summary entry for every vertex, edge label and direction that gained edges in this transaction
+     * and marks all new vertices as completely summarized. Once a vertex has accumulated too many entries for one
+     * label and direction, those entries are replaced by a single one rebuilt from its adjacency list.
+     * <p>
+     * Vertex ids are assigned upfront since the summaries are keyed by the final ids of the adjacent vertices.
+     */
+    private void updateAdjacencySummaries() {
+        if (!config.hasAssignIDsImmediately()) graph.assignIDs(addedRelations.getAll());
+        Map<InternalVertex, Map<InternalRelationType, List<Set<Object>>>> adjacentIds = new HashMap<>();
+        Set<InternalVertex> newVertices = new HashSet<>();
+        for (InternalRelation relation : new ArrayList<>(addedRelations.getAll())) {
+            if (relation.getType().equals(BaseKey.VertexExists)) {
+                if (hasAdjacencySummary(relation.getVertex(0))) newVertices.add(relation.getVertex(0));
+                continue;
+            }
+            if (!relation.isEdge() || relation.isInvisible()) continue;
+            InternalRelationType type = (InternalRelationType) relation.getType();
+            for (int pos = 0; pos < relation.getLen(); pos++) {
+                Direction dir = EdgeDirection.fromPosition(pos);
+                InternalVertex vertex = relation.getVertex(pos);
+                if (!type.isUnidirected(Direction.BOTH) && !type.isUnidirected(dir)) continue;
+                if (!hasAdjacencySummary(vertex)) continue;
+                List<Set<Object>> ids = adjacentIds.computeIfAbsent(vertex, v -> new HashMap<>())
+                    .computeIfAbsent(type, t -> Arrays.asList(null, null));
+                if (ids.get(pos) == null) ids.set(pos, new HashSet<>());
+                ids.get(pos).add(relation.getVertex(1 - pos).id());
+            }
+        }
+        for (InternalVertex vertex : newVertices) {
+            addAdjacencySummary(vertex, AdjacencySummary.completeMarker());
+        }
+        for (Map.Entry<InternalVertex, Map<InternalRelationType, List<Set<Object>>>> vertexIds : adjacentIds.entrySet()) {
+            InternalVertex vertex = vertexIds.getKey();
+            List<JanusGraphVertexProperty> summaries = vertex.isNew() ? Collections.emptyList()
+                : Lists.newArrayList(query(vertex).noPartitionRestriction().type(BaseKey.AdjacencySummary).properties());
+            for (Map.Entry<InternalRelationType, List<Set<Object>>> typeIds : vertexIds.getValue().entrySet()) {
+                InternalRelationType type = typeIds.getKey();
+                for (int pos = 0; pos < 2; pos++) {
+                    Set<Object> ids = typeIds.getValue().get(pos);
+                    if (ids == null) continue;
+                    Direction dir = EdgeDirection.fromPosition(pos);
+                    List<JanusGraphVertexProperty> existing = summaries.stream()
+                        .filter(p -> AdjacencySummary.isSummaryOf((byte[]) p.value(), type.longId(), dir))
+                        .collect(Collectors.toList());
+                    if (existing.size() >= AdjacencySummary.COMPACTION_THRESHOLD) {
+                        ids.addAll(query(vertex).noPartitionRestriction().direction(dir).types(type).vertexIds().getIDs());
+                        existing.forEach(p -> removeRelation((InternalRelation) p));
+                    }
+                    addAdjacencySummary(vertex, AdjacencySummary.encode(type.longId(), dir, ids));
+                }
+            }
+        }
+    }
+
+    private boolean hasAdjacencySummary(InternalVertex vertex) {
+        return !vertex.isRemoved() && !(vertex instanceof JanusGraphSchemaElement) && !isPartitionedVertex(vertex)
+            && (vertex.isNew() || !idInspector.isUnmodifiableVertex(vertex.id()));
+    }
+
+    private void addAdjacencySummary(InternalVertex vertex, byte[] summary) {
+        StandardVertexProperty prop = new StandardVertexProperty(IDManager.getTemporaryRelationID(temporaryIds.nextID()),
+            BaseKey.AdjacencySummary, vertex, summary, ElementLifeCycle.New);
+        if (config.hasAssignIDsImmediately()) graph.assignID(prop);
+        connectRelation(prop);
+    }
+
     @Override
     public synchronized void commit() {
         Preconditions.checkArgument(isOpen(), "The transaction has already been closed");
@@ -1555,6 +1695,7 @@ public class StandardJanusGraphTx extends JanusGraphBlueprintsTransaction implem
         }
         try {
             if (hasModifications()) {
+                if (getAdjacencySummaryCache() != null) updateAdjacencySummaries();
                 graph.commit(addedRelations.getAll(), deletedRelations.values(), this);
             } else {
                 txHandle.commit();
@@ -1605,6 +1746,7 @@ public class StandardJanusGraphTx extends JanusGraphBlueprintsTransaction implem
         uniqueLocks = Collections.emptyMap();
         newVertexIndexEntries = EmptyIndexCache.getInstance();
         newTypeCache = Collections.emptyMap();
+        if (adjacencySummaries != null) adjacencySummaries.invalidateAll();
     }
 
     @Override
@@ -32,6 +32,17 @@ public interface AddedRelationsContainer {
 
     Iterable<InternalRelation> getView(Predicate<InternalRelation> filter);
 
+    /**
+     * Returns the relations of the relation type with the given id which match the filter.
+     *
+     * @param typeId the id of the relation type
+     * @param filter
+     * @return
+     */
+    default Iterable<InternalRelation> getView(long typeId, Predicate<InternalRelation> filter) {
+        return getView(relation -> relation.getType().longId() == typeId && filter.apply(relation));
+    }
+
     boolean isEmpty();
 
     /**
@@ -40,6 +40,11 @@ public class ConcurrentAddedRelations extends SimpleAddedRelations {
         return super.getView(filter);
     }
 
+    @Override
+    public synchronized Iterable<InternalRelation> getView(final long typeId, final Predicate<InternalRelation> filter) {
+        return super.getView(typeId, filter);
+    }
+
     @Override
     public synchronized Collection<InternalRelation> getAll() {
         return super.getAll();
@@ -14,8 +14,8 @@
 
 package org.janusgraph.graphdb.transaction.addedrelations;
 
+import com.carrotsearch.hppc.LongObjectHashMap;
 import com.carrotsearch.hppc.ObjectHashSet;
-import com.carrotsearch.hppc.ObjectSet;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
@@ -28,26 +28,60 @@ import java.util.Iterator;
 import javax.annotation.Nonnull;
 
 /**
+ * Keeps the added relations indexed by the id of their relation type in a primitive open-addressing map, so that
+ * the relations of a single type can be retrieved without scanning all added relations. Types with a single
+ * relation, which is the common case for properties, store it directly instead of in a set.
+ *
  * @author Matthias Broecheler (me@matthiasb.com)
  */
 
 public class SimpleAddedRelations implements AddedRelationsContainer {
+    private static final int INITIAL_TYPES_SIZE = 4;
     private static final int INITIAL_ADDED_SIZE = 10;
-    private final ObjectSet<InternalRelation> container;
+    private final LongObjectHashMap<Object> relationsByType;
+    private int size;
 
     public SimpleAddedRelations() {
-        this.container = new ObjectHashSet<>(INITIAL_ADDED_SIZE);
+        this.relationsByType = new LongObjectHashMap<>(INITIAL_TYPES_SIZE);
+        this.size = 0;
     }
 
     @Override
     public boolean add(InternalRelation relation) {
-        container.add(relation);
+        final long typeId = relation.getType().longId();
+        final int index = relationsByType.indexOf(typeId);
+        if (!relationsByType.indexExists(index)) {
+            relationsByType.indexInsert(index, typeId, relation);
+            size++;
+            return true;
+        }
+        final Object existing = relationsByType.indexGet(index);
+        if (existing instanceof RelationSet) {
+            if (((RelationSet) existing).add(relation)) size++;
+        } else if (!existing.equals(relation)) {
+            final RelationSet relations = new RelationSet();
+            relations.add((InternalRelation) existing);
+            relations.add(relation);
+            relationsByType.indexReplace(index, relations);
+            size++;
+        }
         return true;
     }
 
     @Override
     public boolean remove(InternalRelation relation) {
-        container.removeAll(relation);
+        final int index = relationsByType.indexOf(relation.getType().longId());
+        if (relationsByType.indexExists(index)) {
+            final Object existing = relationsByType.indexGet(index);
+            if (existing instanceof RelationSet) {
+                final RelationSet relations = (RelationSet) existing;
+                size -= relations.removeAll(relation);
+                if (relations.isEmpty()) relationsByType.indexRemove(index);
+            } else if (existing.equals(relation)) {
+                relationsByType.indexRemove(index);
+                size--;
+            }
+        }
         return true;
     }
 
@@ -56,9 +90,14 @@ public class SimpleAddedRelations implements AddedRelationsContainer {
         return Iterables.filter(this::iterator, filter);
     }
 
+    @Override
+    public Iterable<InternalRelation> getView(long typeId, Predicate<InternalRelation> filter) {
+        return Iterables.filter(() -> iterator(relationsByType.get(typeId)), filter);
+    }
+
     @Override
     public boolean isEmpty() {
-        return container.isEmpty();
+        return size == 0;
     }
 
     @Override
@@ -72,20 +111,42 @@ public class SimpleAddedRelations implements AddedRelationsContainer {
 
             @Override
             public int size() {
-                return container.size();
+                return size;
             }
         });
     }
 
     @Override
     public void clear() {
-        container.release();
+        relationsByType.release();
+        size = 0;
     }
 
     private Iterator<InternalRelation> iterator() {
-        return Iterators.transform(container.iterator(), e -> {
+        return Iterators.concat(Iterators.transform(relationsByType.values().iterator(), e -> {
             assert e != null;
-            return e.value;
-        });
+            return iterator(e.value);
+        }));
+    }
+
+    private static Iterator<InternalRelation> iterator(Object relations) {
+        if (relations == null) return Collections.emptyIterator();
+        if (relations instanceof RelationSet) {
+            return Iterators.transform(((RelationSet) relations).iterator(), e -> {
+                assert e != null;
+                return e.value;
+            });
+        }
+        return Iterators.singletonIterator((InternalRelation) relations);
+    }
+
+    /**
+     * Relations of a type with more than one added relation
+     */
+    private static final class RelationSet extends ObjectHashSet<InternalRelation> {
+
+        private RelationSet() {
+            super(INITIAL_ADDED_SIZE);
+        }
     }
 }
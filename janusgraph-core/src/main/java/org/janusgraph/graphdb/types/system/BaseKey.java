@@ -55,6 +55,9 @@ public class BaseKey extends BaseRelationType implements PropertyKey {
     public static final BaseKey SchemaUpdateTime =
             new BaseKey("SchemaUpdateTimestamp", Long.class, 36, Index.NONE, Cardinality.SINGLE);
 
+    public static final BaseKey AdjacencySummary =
+            new BaseKey("AdjacencySummary", byte[].class, 37, Index.NONE, Cardinality.LIST);
+
 
 
     private final Class<?> dataType;
@@ -37,7 +37,7 @@ public abstract class SystemTypeManager {
         synchronized (SystemTypeManager.class) {
             SystemRelationType[] systemRelationTypes = new SystemRelationType[]{BaseKey.SchemaCategory, BaseKey.SchemaDefinitionDesc,
                 BaseKey.SchemaDefinitionProperty, BaseKey.SchemaName, BaseKey.SchemaUpdateTime,
-                BaseKey.VertexExists,
+                BaseKey.VertexExists, BaseKey.AdjacencySummary,
                 BaseLabel.VertexLabelEdge, BaseLabel.SchemaDefinitionEdge,
                 ImplicitKey.ID, ImplicitKey.JANUSGRAPHID, ImplicitKey.LABEL,
                 ImplicitKey.KEY, ImplicitKey.VALUE, ImplicitKey.ADJACENT_ID,
@@ -55,8 +55,8 @@ public abstract class SystemTypeManager {
             ADDITIONAL_RESERVED_NAMES = Collections.unmodifiableSet(
                 Stream.of("key", "vertex", "edge", "element", "property", "label").collect(Collectors.toSet()));
         }
-        assert SYSTEM_TYPES_BY_ID.size()==17;
-        assert SYSTEM_TYPES_BY_NAME.size()==17;
+        assert SYSTEM_TYPES_BY_ID.size()==18;
+        assert SYSTEM_TYPES_BY_NAME.size()==18;
     }
 
     public static SystemRelationType getSystemType(long id) {
@@ -72,7 +72,12 @@ public class PreloadedVertex extends CacheVertex {
 
     @Override
     public Iterable<InternalRelation> getAddedRelations(Predicate<InternalRelation> query) {
-        return Collections.EMPTY_LIST;
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Iterable<InternalRelation> getAddedRelations(long typeId, Predicate<InternalRelation> query) {
+        return Collections.emptyList();
     }
 
     @Override
@@ -78,6 +78,11 @@ public class StandardVertex extends AbstractVertex {
         return addedRelations.getView(query);
     }
 
+    @Override
+    public Iterable<InternalRelation> getAddedRelations(long typeId, Predicate<InternalRelation> query) {
+        return addedRelations.getView(typeId, query);
+    }
+
     @Override
     public EntryList loadRelations(SliceQuery query, Retriever<SliceQuery, EntryList> lookup) {
         return (isNew()) ? EntryList.EMPTY_LIST : lookup.get(query);
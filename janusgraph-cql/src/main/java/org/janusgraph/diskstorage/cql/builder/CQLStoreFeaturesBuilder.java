@@ -62,6 +62,7 @@ public class CQLStoreFeaturesBuilder {
         fb.locking(useExternalLocking);
         fb.optimisticLocking(true);
         fb.multiQuery(true);
+        fb.threadSafeTransactions(true);
 
         if (!configuration.get(TTL_ENABLED)) {
             fb.cellTTL(false).storeTTL(false);
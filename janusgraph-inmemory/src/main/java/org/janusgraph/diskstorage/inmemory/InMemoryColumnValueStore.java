@@ -19,6 +19,7 @@ import org.janusgraph.diskstorage.EntryList;
 import org.janusgraph.diskstorage.StaticBuffer;
 import org.janusgraph.diskstorage.keycolumnvalue.KeySliceQuery;
 import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.util.BufferUtil;
 import org.janusgraph.diskstorage.util.NoLock;
 import org.janusgraph.diskstorage.util.StaticArrayEntry;
 
@@ -27,6 +28,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.locks.Lock;
@@ -141,6 +143,21 @@ class InMemoryColumnValueStore {
         }
     }
 
+    /**
+     * Inserts the entry unless its column already exists. Like {@link #mutate(List, List, StoreTransaction)}, this is
+     * synchronized on the store such that the existence check and the insertion are atomic.
+     */
+    synchronized boolean insertIfAbsent(StaticBuffer key, Entry entry, StoreTransaction txh) {
+        final StaticBuffer column = entry.getColumn();
+        //the column padded with a zero byte is the smallest column after it and, unlike incrementing it, cannot overflow
+        final KeySliceQuery query = new KeySliceQuery(key, column, BufferUtil.padBuffer(column, column.length() + 1)).setLimit(1);
+        if (!getSlice(query, txh).isEmpty()) {
+            return false;
+        }
+        mutate(Collections.singletonList(entry), Collections.emptyList(), txh);
+        return true;
+    }
+
     private volatile ReentrantLock lock = null;
 
     private Lock getLock(StoreTransaction txh) {
@@ -49,6 +49,7 @@ import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -123,6 +124,25 @@ public class InMemoryKeyColumnValueStore implements KeyColumnValueStore {
         cvs.mutate(additions, deletions, txh);
     }
 
+    @Override
+    public boolean insertIfAbsent(StaticBuffer key, Entry entry, StoreTransaction txh) throws BackendException {
+        InMemoryColumnValueStore cvs = kcv.get(key);
+        if (cvs == null) {
+            kcv.putIfAbsent(key, new InMemoryColumnValueStore());
+            cvs = kcv.get(key);
+        }
+        if (!cvs.insertIfAbsent(key, entry, txh)) {
+            return false;
+        }
+        if (txh instanceof InMemoryStoreManager.InMemoryTransaction) {
+            // There is no transaction isolation, so the insertion has to be undone explicitly on rollback
+            final InMemoryColumnValueStore inserted = cvs;
+            ((InMemoryStoreManager.InMemoryTransaction) txh).onRollback(() ->
+                inserted.mutate(Collections.emptyList(), Collections.singletonList(entry.getColumn()), txh));
+        }
+        return true;
+    }
+
     @Override
     public void acquireLock(StaticBuffer key, StaticBuffer column, StaticBuffer expectedValue, StoreTransaction txh) throws BackendException {
         throw new UnsupportedOperationException();
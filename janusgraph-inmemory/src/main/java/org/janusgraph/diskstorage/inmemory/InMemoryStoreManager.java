@@ -35,6 +35,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -67,6 +68,7 @@ public class InMemoryStoreManager implements KeyColumnValueStoreManager {
             .keyOrdered(true)
             .persists(false)
             .optimisticLocking(true)
+            .conditionalInsert(true)
             .keyConsistent(GraphDatabaseConfiguration.buildGraphConfiguration())
             .build();
     }
@@ -185,10 +187,32 @@ public class InMemoryStoreManager implements KeyColumnValueStoreManager {
         }
     }
 
-    private static class InMemoryTransaction extends AbstractStoreTransaction {
+    static class InMemoryTransaction extends AbstractStoreTransaction {
+
+        private final List<Runnable> rollbackActions = new ArrayList<>(0);
 
         public InMemoryTransaction(final BaseTransactionConfig config) {
             super(config);
         }
+
+        /**
+         * Registers an action which undoes a write of this transaction if it is rolled back.
+         */
+        synchronized void onRollback(Runnable action) {
+            rollbackActions.add(action);
+        }
+
+        @Override
+        public synchronized void commit() {
+            rollbackActions.clear();
+        }
+
+        @Override
+        public synchronized void rollback() {
+            for (int i = rollbackActions.size() - 1; i >= 0; i--) {
+                rollbackActions.get(i).run();
+            }
+            rollbackActions.clear();
+        }
     }
 }
@@ -0,0 +1,87 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage;
+
+import org.janusgraph.diskstorage.indexing.IndexTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreFeatures;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.CacheTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.KCVSCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+public class BackendTransactionTest {
+
+    private final ExecutorService threadPool = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    public void shutdown() {
+        threadPool.shutdownNow();
+    }
+
+    private BackendTransaction backendTransaction(Map<String, IndexTransaction> indexTx) {
+        return new BackendTransaction(Mockito.mock(CacheTransaction.class), Mockito.mock(BaseTransactionConfig.class),
+            Mockito.mock(StoreFeatures.class), Mockito.mock(KCVSCache.class), Mockito.mock(KCVSCache.class),
+            Mockito.mock(KCVSCache.class), Duration.ofSeconds(10), indexTx, threadPool, true, false);
+    }
+
+    @Test
+    public void testIndexTransactionsAreCommittedConcurrently() throws BackendException {
+        final CyclicBarrier barrier = new CyclicBarrier(3);
+        final Map<String, IndexTransaction> indexTx = new HashMap<>();
+        for (String index : new String[]{"search", "geo", "other"}) {
+            IndexTransaction itx = Mockito.mock(IndexTransaction.class);
+            // the commits only succeed if all of them are in progress at the same time
+            doAnswer(invocation -> barrier.await(10, TimeUnit.SECONDS)).when(itx).commit();
+            indexTx.put(index, itx);
+        }
+
+        assertTrue(backendTransaction(indexTx).commitIndexes().isEmpty());
+        for (IndexTransaction itx : indexTx.values()) verify(itx).commit();
+    }
+
+    @Test
+    public void testIndexFailuresAreCollected() throws BackendException {
+        final Map<String, IndexTransaction> indexTx = new HashMap<>();
+        final IndexTransaction failing = Mockito.mock(IndexTransaction.class);
+        final BackendException failure = new PermanentBackendException("failure");
+        doThrow(failure).when(failing).commit();
+        indexTx.put("failing", failing);
+        final IndexTransaction succeeding = Mockito.mock(IndexTransaction.class);
+        indexTx.put("succeeding", succeeding);
+
+        final Map<String, Throwable> failures = backendTransaction(indexTx).commitIndexes();
+        assertEquals(1, failures.size());
+        assertEquals(failure, failures.get("failing"));
+        verify(succeeding).commit();
+
+        assertEquals(failure, assertThrows(BackendException.class, () -> backendTransaction(indexTx).commit()));
+    }
+}
@@ -0,0 +1,180 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.cache;
+
+import org.janusgraph.core.JanusGraph;
+import org.janusgraph.core.JanusGraphException;
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.core.schema.JanusGraphManagement;
+import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.Entry;
+import org.janusgraph.diskstorage.PermanentBackendException;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.inmemory.InMemoryStoreManager;
+import org.janusgraph.diskstorage.keycolumnvalue.KCVMutation;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStoreManager;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.diskstorage.util.StaticArrayEntry;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CacheTransactionFlushTest {
+
+    private final List<Map<String, Map<StaticBuffer, KCVMutation>>> persisted = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger concurrentFlushes = new AtomicInteger();
+    private final AtomicInteger maxConcurrentFlushes = new AtomicInteger();
+    private final AtomicInteger failingKey = new AtomicInteger(-1);
+
+    private ExecutorService executor;
+    private KeyColumnValueStoreManager manager;
+    private KCVSCache edgeStore;
+
+    @BeforeEach
+    public void setUp() throws BackendException {
+        executor = Executors.newCachedThreadPool();
+        manager = Mockito.mock(KeyColumnValueStoreManager.class);
+        doAnswer(invocation -> {
+            final Map<String, Map<StaticBuffer, KCVMutation>> mutations = new HashMap<>();
+            invocation.<Map<String, Map<StaticBuffer, KCVMutation>>>getArgument(0)
+                .forEach((store, storeMutations) -> mutations.put(store, new HashMap<>(storeMutations)));
+            maxConcurrentFlushes.accumulateAndGet(concurrentFlushes.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } finally {
+                concurrentFlushes.decrementAndGet();
+            }
+            for (StaticBuffer key : mutations.getOrDefault("edgestore", Collections.emptyMap()).keySet()) {
+                if (key.getInt(0) == failingKey.get()) throw new PermanentBackendException("Chunk rejected");
+            }
+            return persisted.add(mutations);
+        }).when(manager).mutateMany(any(), any());
+        edgeStore = Mockito.mock(KCVSCache.class);
+        when(edgeStore.getName()).thenReturn("edgestore");
+        when(edgeStore.hasValidateKeysOnly()).thenReturn(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private CacheTransaction transaction(int persistChunkSize, long persistChunkBytes, int maxFlushesInFlight) {
+        return new CacheTransaction(Mockito.mock(StoreTransaction.class), manager, persistChunkSize, Duration.ofSeconds(10),
+            false, 2, 0, null, persistChunkBytes, executor, maxFlushesInFlight);
+    }
+
+    private static Entry entry(int column, int value) {
+        return StaticArrayEntry.of(BufferUtil.getIntBuffer(column), BufferUtil.getIntBuffer(value));
+    }
+
+    private static void mutate(CacheTransaction tx, KCVSCache store, int numKeys) throws BackendException {
+        for (int i = 0; i < numKeys; i++) {
+            tx.mutate(store, BufferUtil.getIntBuffer(i), Collections.singletonList(entry(i, i)), KCVSCache.NO_DELETIONS);
+        }
+    }
+
+    private int numPersistedKeys() {
+        synchronized (persisted) {
+            return persisted.stream().mapToInt(batch -> batch.get("edgestore").size()).sum();
+        }
+    }
+
+    @Test
+    public void testChunksAreLimitedBySize() throws BackendException {
+        // every key takes 4 bytes and its entry 8 bytes, so a chunk of 32 bytes holds 3 keys
+        final CacheTransaction tx = transaction(1000, 32, 1);
+        mutate(tx, edgeStore, 9);
+        tx.commit();
+
+        assertEquals(3, persisted.size());
+        for (Map<String, Map<StaticBuffer, KCVMutation>> batch : persisted) {
+            assertEquals(3, batch.get("edgestore").size());
+        }
+        assertEquals(1, maxConcurrentFlushes.get());
+    }
+
+    @Test
+    public void testChunksArePersistedConcurrently() throws BackendException {
+        final CacheTransaction tx = transaction(4, 0, 3);
+        mutate(tx, edgeStore, 40);
+        tx.commit();
+
+        assertEquals(10, persisted.size());
+        assertEquals(40, numPersistedKeys());
+        assertTrue(maxConcurrentFlushes.get() > 1);
+        assertTrue(maxConcurrentFlushes.get() <= 3);
+        verify(edgeStore, Mockito.times(40)).invalidate(any(), any());
+    }
+
+    @Test
+    public void testCachesAreNotInvalidatedWhenChunkFails() throws BackendException {
+        failingKey.set(21);
+        final CacheTransaction tx = transaction(4, 0, 3);
+        mutate(tx, edgeStore, 40);
+        assertThrows(JanusGraphException.class, tx::commit);
+
+        // no further chunks are submitted after the failure, but those in flight are awaited
+        assertTrue(numPersistedKeys() <= 36);
+        assertEquals(0, concurrentFlushes.get());
+        verify(edgeStore, never()).invalidate(any(), any());
+    }
+
+    @Test
+    public void testBatchLoadingGraphIsFlushedConcurrently() {
+        final ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        config.set(GraphDatabaseConfiguration.STORAGE_BACKEND, InMemoryStoreManager.class.getCanonicalName());
+        config.set(GraphDatabaseConfiguration.STORAGE_BATCH, true);
+        config.set(GraphDatabaseConfiguration.BUFFER_SIZE, 16);
+        config.set(GraphDatabaseConfiguration.BUFFER_SIZE_BYTES, 512L);
+        config.set(GraphDatabaseConfiguration.FLUSH_PARALLELISM, 4);
+        try (JanusGraph graph = JanusGraphFactory.open(config)) {
+            final JanusGraphManagement mgmt = graph.openManagement();
+            mgmt.makePropertyKey("name").dataType(String.class).make();
+            mgmt.makeEdgeLabel("next").make();
+            mgmt.commit();
+            for (int i = 0; i < 500; i++) {
+                graph.addVertex("name", "v" + i).addEdge("next", graph.addVertex("name", "w" + i));
+            }
+            graph.tx().commit();
+            assertEquals(1000L, graph.traversal().V().count().next());
+            assertEquals(500L, graph.traversal().E().hasLabel("next").count().next());
+            graph.tx().rollback();
+        }
+    }
+}
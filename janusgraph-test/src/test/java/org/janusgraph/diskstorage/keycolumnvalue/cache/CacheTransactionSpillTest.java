@@ -0,0 +1,177 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.cache;
+
+import org.janusgraph.core.JanusGraph;
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.core.JanusGraphTransaction;
+import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.Entry;
+import org.janusgraph.diskstorage.EntryMetaData;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.inmemory.InMemoryStoreManager;
+import org.janusgraph.diskstorage.keycolumnvalue.KCVMutation;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStoreManager;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.diskstorage.util.StaticArrayEntry;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+public class CacheTransactionSpillTest {
+
+    @TempDir
+    File spillDirectory;
+
+    private final List<Map<String, Map<StaticBuffer, KCVMutation>>> persisted = new ArrayList<>();
+
+    private KeyColumnValueStoreManager manager;
+    private KCVSCache edgeStore;
+    private KCVSCache indexStore;
+
+    @BeforeEach
+    public void setUp() throws BackendException {
+        manager = Mockito.mock(KeyColumnValueStoreManager.class);
+        doAnswer(invocation -> {
+            final Map<String, Map<StaticBuffer, KCVMutation>> mutations = new HashMap<>();
+            invocation.<Map<String, Map<StaticBuffer, KCVMutation>>>getArgument(0)
+                .forEach((store, storeMutations) -> mutations.put(store, new HashMap<>(storeMutations)));
+            return persisted.add(mutations);
+        }).when(manager).mutateMany(any(), any());
+        edgeStore = store("edgestore");
+        indexStore = store("graphindex");
+    }
+
+    private static KCVSCache store(String name) {
+        final KCVSCache store = Mockito.mock(KCVSCache.class);
+        when(store.getName()).thenReturn(name);
+        when(store.hasValidateKeysOnly()).thenReturn(true);
+        return store;
+    }
+
+    private CacheTransaction transaction(long spillThreshold, int persistChunkSize) {
+        return new CacheTransaction(Mockito.mock(StoreTransaction.class), manager, persistChunkSize, Duration.ofSeconds(10),
+            false, 2, spillThreshold, spillDirectory);
+    }
+
+    private static Entry entry(int column, int value) {
+        return StaticArrayEntry.of(BufferUtil.getIntBuffer(column), BufferUtil.getIntBuffer(value));
+    }
+
+    private Map<StaticBuffer, KCVMutation> persistedMutations(String store) {
+        final Map<StaticBuffer, KCVMutation> mutations = new HashMap<>();
+        for (Map<String, Map<StaticBuffer, KCVMutation>> batch : persisted) {
+            for (Map.Entry<StaticBuffer, KCVMutation> mutation : batch.getOrDefault(store, Collections.emptyMap()).entrySet()) {
+                assertFalse(mutations.containsKey(mutation.getKey()), "Key persisted more than once");
+                mutations.put(mutation.getKey(), mutation.getValue());
+            }
+        }
+        return mutations;
+    }
+
+    @Test
+    public void testSpilledMutationsAreMergedOnCommit() throws BackendException {
+        final CacheTransaction tx = transaction(24, 1000);
+        final StaticBuffer key = BufferUtil.getIntBuffer(1);
+        final Entry withTtl = entry(2, 2);
+        ((StaticArrayEntry) withTtl).setMetaData(EntryMetaData.TTL, 60);
+        tx.mutate(edgeStore, key, Collections.singletonList(entry(1, 1)), KCVSCache.NO_DELETIONS);
+        tx.mutate(edgeStore, key, Collections.singletonList(withTtl), KCVSCache.NO_DELETIONS);
+        assertTrue(tx.hasSpilled());
+        assertEquals(1, spillDirectory.list().length);
+
+        // deleting a column which is re-added later on must not swallow the addition
+        tx.mutate(edgeStore, key, Collections.singletonList(entry(3, 3)), Collections.singletonList(entry(1, 1)));
+        tx.mutate(edgeStore, key, Collections.singletonList(entry(1, 4)), KCVSCache.NO_DELETIONS);
+        tx.mutate(indexStore, BufferUtil.getIntBuffer(2), Collections.singletonList(entry(5, 5)), KCVSCache.NO_DELETIONS);
+        assertTrue(persisted.isEmpty());
+
+        tx.commit();
+        assertEquals(0, spillDirectory.list().length);
+        final KCVMutation mutation = persistedMutations("edgestore").get(key);
+        assertEquals(4, mutation.getAdditions().size());
+        assertTrue(mutation.getDeletions().isEmpty());
+        assertEquals(60, mutation.getAdditions().get(1).getMetaData().get(EntryMetaData.TTL));
+        assertEquals(1, persistedMutations("graphindex").size());
+    }
+
+    @Test
+    public void testSpilledMutationsArePersistedInSortedChunks() throws BackendException {
+        final int numKeys = 100;
+        final CacheTransaction tx = transaction(200, 10);
+        for (int i = numKeys - 1; i >= 0; i--) {
+            tx.mutate(edgeStore, BufferUtil.getIntBuffer(i), Collections.singletonList(entry(i, i)), KCVSCache.NO_DELETIONS);
+        }
+        assertTrue(spillDirectory.list().length > 1);
+        tx.commit();
+
+        assertEquals(numKeys / 10, persisted.size());
+        for (int batch = 0; batch < persisted.size(); batch++) {
+            assertEquals(10, persisted.get(batch).get("edgestore").size());
+            for (StaticBuffer key : persisted.get(batch).get("edgestore").keySet()) {
+                assertEquals(batch, key.getInt(0) / 10);
+            }
+        }
+        assertEquals(numKeys, persistedMutations("edgestore").size());
+    }
+
+    @Test
+    public void testRollbackDeletesSpilledMutations() throws BackendException {
+        final CacheTransaction tx = transaction(1, 1000);
+        tx.mutate(edgeStore, BufferUtil.getIntBuffer(1), Collections.singletonList(entry(1, 1)), KCVSCache.NO_DELETIONS);
+        assertTrue(tx.hasSpilled());
+        tx.rollback();
+        assertFalse(tx.hasSpilled());
+        assertEquals(0, spillDirectory.list().length);
+        assertTrue(persisted.isEmpty());
+    }
+
+    @Test
+    public void testLargeGraphTransactionIsSpilled() {
+        final ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        config.set(GraphDatabaseConfiguration.STORAGE_BACKEND, InMemoryStoreManager.class.getCanonicalName());
+        config.set(GraphDatabaseConfiguration.TX_MUTATION_SPILL_DIRECTORY, spillDirectory.getAbsolutePath());
+        try (JanusGraph graph = JanusGraphFactory.open(config)) {
+            final JanusGraphTransaction tx = graph.buildTransaction().customOption("tx.mutation-spill-threshold", 1024L).start();
+            for (int i = 0; i < 500; i++) {
+                tx.addVertex("name", "v" + i).addEdge("next", tx.addVertex("name", "w" + i));
+            }
+            tx.commit();
+            assertEquals(0, spillDirectory.list().length);
+            assertEquals(1000L, graph.traversal().V().count().next());
+            assertEquals(500L, graph.traversal().E().hasLabel("next").count().next());
+            graph.tx().rollback();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.cache;
+
+import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.BaseTransactionConfig;
+import org.janusgraph.diskstorage.PermanentBackendException;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.keycolumnvalue.KCVMutation;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStoreManager;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.diskstorage.util.StandardBaseTransactionConfig;
+import org.janusgraph.diskstorage.util.StaticArrayEntry;
+import org.janusgraph.diskstorage.util.time.TimestampProviders;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GroupCommitterTest {
+
+    private static final String STORE = "edgestore";
+
+    private final ExecutorService threadPool = Executors.newFixedThreadPool(4);
+    private final List<Map<String, Map<StaticBuffer, KCVMutation>>> batches = Collections.synchronizedList(new ArrayList<>());
+    private final List<Instant> batchTimes = Collections.synchronizedList(new ArrayList<>());
+
+    private KeyColumnValueStoreManager manager;
+    private StoreTransaction batchTx;
+
+    @BeforeEach
+    public void setUp() throws BackendException {
+        manager = Mockito.mock(KeyColumnValueStoreManager.class);
+        batchTx = Mockito.mock(StoreTransaction.class);
+        when(manager.getName()).thenReturn("test");
+        when(manager.beginTransaction(any())).thenAnswer(invocation -> {
+            batchTimes.add(invocation.<BaseTransactionConfig>getArgument(0).getCommitTime());
+            return batchTx;
+        });
+        doAnswer(invocation -> batches.add(new HashMap<>(invocation.getArgument(0))))
+            .when(manager).mutateMany(any(), any());
+    }
+
+    @AfterEach
+    public void shutdown() {
+        threadPool.shutdownNow();
+    }
+
+    private static Map<String, Map<StaticBuffer, KCVMutation>> mutation(int key) {
+        final StaticBuffer buffer = BufferUtil.getIntBuffer(key);
+        final KCVMutation mutation = new KCVMutation(Collections.singletonList(StaticArrayEntry.of(buffer, buffer)),
+            KeyColumnValueStore.NO_DELETIONS);
+        final Map<String, Map<StaticBuffer, KCVMutation>> mutations = new HashMap<>();
+        mutations.put(STORE, Collections.singletonMap(buffer, mutation));
+        return mutations;
+    }
+
+    private static Map<String, Map<StaticBuffer, KCVMutation>> mutation(int key, int column) {
+        final StaticBuffer buffer = BufferUtil.getIntBuffer(column);
+        final KCVMutation mutation = new KCVMutation(Collections.singletonList(StaticArrayEntry.of(buffer, buffer)),
+            KeyColumnValueStore.NO_DELETIONS);
+        final Map<String, Map<StaticBuffer, KCVMutation>> mutations = new HashMap<>();
+        mutations.put(STORE, Collections.singletonMap(BufferUtil.getIntBuffer(key), mutation));
+        return mutations;
+    }
+
+    private static BaseTransactionConfig config(Instant commitTime) {
+        final BaseTransactionConfig config = StandardBaseTransactionConfig.of(TimestampProviders.MICRO);
+        config.setCommitTime(commitTime);
+        return config;
+    }
+
+    private List<Future<?>> persistConcurrently(GroupCommitter committer, int... keys) {
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int key : keys) {
+            futures.add(threadPool.submit(() -> {
+                committer.persist(mutation(key), 1, StandardBaseTransactionConfig.of(TimestampProviders.MICRO));
+                return null;
+            }));
+        }
+        return futures;
+    }
+
+    private Future<?> persistAsync(GroupCommitter committer, Map<String, Map<StaticBuffer, KCVMutation>> mutations,
+                                   BaseTransactionConfig config) {
+        return threadPool.submit(() -> {
+            committer.persist(mutations, 1, config);
+            return null;
+        });
+    }
+
+    @Test
+    public void testConcurrentCommitsAreBatched() throws Exception {
+        try (GroupCommitter committer = new GroupCommitter(manager, 100, Duration.ofSeconds(1), Duration.ofSeconds(10))) {
+            for (Future<?> future : persistConcurrently(committer, 1, 2, 3, 4)) future.get();
+        }
+        assertEquals(1, batches.size());
+        assertEquals(4, batches.get(0).get(STORE).size());
+        verify(batchTx, times(1)).commit();
+    }
+
+    @Test
+    public void testBatchSizeIsBounded() throws Exception {
+        try (GroupCommitter committer = new GroupCommitter(manager, 2, Duration.ofSeconds(1), Duration.ofSeconds(10))) {
+            for (Future<?> future : persistConcurrently(committer, 1, 2, 3, 4)) future.get();
+        }
+        assertEquals(2, batches.size());
+        for (Map<String, Map<StaticBuffer, KCVMutation>> batch : batches) assertEquals(2, batch.get(STORE).size());
+    }
+
+    @Test
+    public void testConflictingKeysAreNotMerged() throws Exception {
+        try (GroupCommitter committer = new GroupCommitter(manager, 100, Duration.ofSeconds(1), Duration.ofSeconds(10))) {
+            for (Future<?> future : persistConcurrently(committer, 1, 1)) future.get();
+        }
+        assertEquals(2, batches.size());
+        verify(batchTx, times(2)).commit();
+    }
+
+    @Test
+    public void testDistinctColumnsOfSameKeyAreMerged() throws Exception {
+        try (GroupCommitter committer = new GroupCommitter(manager, 100, Duration.ofSeconds(1), Duration.ofSeconds(10))) {
+            final BaseTransactionConfig config = config(Instant.ofEpochSecond(1));
+            final List<Future<?>> futures = new ArrayList<>();
+            futures.add(persistAsync(committer, mutation(1, 1), config));
+            futures.add(persistAsync(committer, mutation(1, 2), config));
+            for (Future<?> future : futures) future.get();
+        }
+        assertEquals(1, batches.size());
+        final KCVMutation merged = batches.get(0).get(STORE).get(BufferUtil.getIntBuffer(1));
+        assertEquals(2, merged.getAdditions().size());
+    }
+
+    @Test
+    public void testDistinctCommitTimesShareLatestCommitTime() throws Exception {
+        try (GroupCommitter committer = new GroupCommitter(manager, 100, Duration.ofSeconds(1), Duration.ofSeconds(10))) {
+            final List<Future<?>> futures = new ArrayList<>();
+            futures.add(persistAsync(committer, mutation(1), config(Instant.ofEpochSecond(2))));
+            futures.add(persistAsync(committer, mutation(2), config(Instant.ofEpochSecond(1))));
+            for (Future<?> future : futures) future.get();
+            assertEquals(1, committer.getNumBatches());
+            assertEquals(2, committer.getNumTransactions());
+        }
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).get(STORE).size());
+        assertEquals(Collections.singletonList(Instant.ofEpochSecond(2)), batchTimes);
+    }
+
+    @Test
+    public void testConsecutiveBatchesHaveIncreasingCommitTimes() throws Exception {
+        try (GroupCommitter committer = new GroupCommitter(manager, 100, Duration.ofSeconds(1), Duration.ofSeconds(10))) {
+            final BaseTransactionConfig config = config(Instant.ofEpochSecond(1));
+            final List<Future<?>> futures = new ArrayList<>();
+            futures.add(persistAsync(committer, mutation(1), config));
+            futures.add(persistAsync(committer, mutation(1), config));
+            for (Future<?> future : futures) future.get();
+            assertEquals(2, committer.getNumBatches());
+        }
+        assertEquals(2, batches.size());
+        assertEquals(Instant.ofEpochSecond(1), batchTimes.get(0));
+        assertEquals(Instant.ofEpochSecond(1).plusNanos(1000), batchTimes.get(1));
+    }
+
+    @Test
+    public void testFailuresArePropagatedToAllParticipants() throws Exception {
+        final BackendException failure = new PermanentBackendException("failure");
+        Mockito.doThrow(failure).when(manager).mutateMany(any(), any());
+        try (GroupCommitter committer = new GroupCommitter(manager, 100, Duration.ofSeconds(1), Duration.ofSeconds(10))) {
+            for (Future<?> future : persistConcurrently(committer, 1, 2)) {
+                final ExecutionException e = assertThrows(ExecutionException.class, future::get);
+                assertEquals(failure, e.getCause());
+            }
+        }
+        verify(batchTx, times(1)).rollback();
+    }
+}
@@ -0,0 +1,312 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.scan;
+
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.janusgraph.core.JanusGraph;
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.core.PropertyKey;
+import org.janusgraph.core.schema.JanusGraphManagement;
+import org.janusgraph.core.schema.SchemaAction;
+import org.janusgraph.core.schema.SchemaStatus;
+import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.configuration.backend.KCVSConfiguration;
+import org.janusgraph.diskstorage.configuration.backend.builder.KCVSConfigurationBuilder;
+import org.janusgraph.diskstorage.inmemory.InMemoryStoreManager;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.diskstorage.util.StandardBaseTransactionConfig;
+import org.janusgraph.diskstorage.util.StaticArrayEntry;
+import org.janusgraph.diskstorage.util.time.TimestampProviders;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.graphdb.database.StandardJanusGraph;
+import org.janusgraph.graphdb.database.management.ManagementSystem;
+import org.janusgraph.graphdb.olap.job.IndexRepairJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScanCheckpointTest {
+
+    private static final String STORE_NAME = "scantest";
+    private static final String CHECKPOINT = "test-scan";
+    private static final int NUM_KEYS = 1000;
+    private static final String PROCESSED = "processed";
+    private static final int WORK_BLOCK_SIZE = 10;
+    private static final SliceQuery QUERY = new SliceQuery(BufferUtil.zeroBuffer(1), BufferUtil.oneBuffer(4));
+
+    private InMemoryStoreManager manager;
+    private KCVSConfiguration checkpoints;
+
+    /**
+     * Records the keys it processes and blocks on the given latch once it has processed the given number of keys
+     */
+    private static class RecordingJob implements ScanJob {
+
+        private final Set<StaticBuffer> processed;
+        private final int blockAt;
+        private final CountDownLatch blocked;
+        private final CountDownLatch release;
+
+        private RecordingJob(Set<StaticBuffer> processed, int blockAt, CountDownLatch blocked, CountDownLatch release) {
+            this.processed = processed;
+            this.blockAt = blockAt;
+            this.blocked = blocked;
+            this.release = release;
+        }
+
+        @Override
+        public void process(StaticBuffer key, Map<SliceQuery, EntryList> entries, ScanMetrics metrics) {
+            assertTrue(processed.add(key), "Processed twice: " + key);
+            metrics.incrementCustom(PROCESSED);
+            if (processed.size() == blockAt) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public List<SliceQuery> getQueries() {
+            return Collections.singletonList(QUERY);
+        }
+
+        @Override
+        public RecordingJob clone() {
+            return this;
+        }
+    }
+
+    @BeforeEach
+    public void setUp() throws BackendException {
+        manager = new InMemoryStoreManager();
+        final KeyColumnValueStore store = manager.openDatabase(STORE_NAME);
+        final StoreTransaction tx = manager.beginTransaction(StandardBaseTransactionConfig.of(TimestampProviders.MICRO));
+        for (int i = 0; i < NUM_KEYS; i++) {
+            store.mutate(BufferUtil.getLongBuffer(i),
+                Collections.singletonList(StaticArrayEntry.of(BufferUtil.getIntBuffer(1), BufferUtil.getIntBuffer(i))),
+                KeyColumnValueStore.NO_DELETIONS, tx);
+        }
+        tx.commit();
+        checkpoints = new KCVSConfigurationBuilder().buildStandaloneGlobalConfiguration(manager,
+            GraphDatabaseConfiguration.buildGraphConfiguration());
+    }
+
+    @AfterEach
+    public void tearDown() throws BackendException {
+        checkpoints.close();
+        manager.close();
+    }
+
+    private ScanJobFuture execute(RecordingJob job, Duration interval, boolean resume) throws BackendException {
+        return execute(job, interval, resume, WORK_BLOCK_SIZE);
+    }
+
+    private ScanJobFuture execute(RecordingJob job, Duration interval, boolean resume, int workBlockSize)
+            throws BackendException {
+        return new StandardScanner(manager).build()
+            .setStoreName(STORE_NAME)
+            .setWorkBlockSize(workBlockSize)
+            .setTimestampProvider(TimestampProviders.MICRO)
+            .setGraphConfiguration(GraphDatabaseConfiguration.buildGraphConfiguration())
+            .setCheckpoint(checkpoints, CHECKPOINT, interval)
+            .setResume(resume)
+            .setJob(job)
+            .execute();
+    }
+
+    private ScanCheckpoint awaitCheckpoint() throws InterruptedException {
+        for (int i = 0; i < 1000; i++) {
+            final ScanCheckpoint checkpoint = ScanCheckpoint.read(checkpoints, CHECKPOINT);
+            if (checkpoint != null) return checkpoint;
+            Thread.sleep(10);
+        }
+        return null;
+    }
+
+    @Test
+    public void testInterruptedScanResumesFromCheckpoint() throws Exception {
+        final Set<StaticBuffer> firstRun = ConcurrentHashMap.newKeySet();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ScanJobFuture future = execute(new RecordingJob(firstRun, 300, blocked, release), Duration.ofHours(1), false);
+        assertTrue(blocked.await(1, TimeUnit.MINUTES));
+        future.cancel(true);
+        release.countDown();
+
+        // the checkpoint is recorded once the rows handed over to the processors have been processed
+        final ScanCheckpoint checkpoint = awaitCheckpoint();
+        assertNotNull(checkpoint);
+        assertEquals(firstRun.size(), checkpoint.getPosition());
+        assertEquals(firstRun.size(), checkpoint.get(ScanMetrics.Metric.SUCCESS));
+        assertEquals(firstRun.size(), checkpoint.getCustom(PROCESSED));
+        assertEquals(BufferUtil.getLongBuffer(checkpoint.getPosition() - 1), checkpoint.getKey());
+        assertTrue(firstRun.size() >= 300 && firstRun.size() < NUM_KEYS);
+
+        final Set<StaticBuffer> secondRun = ConcurrentHashMap.newKeySet();
+        final ScanMetrics metrics = execute(new RecordingJob(secondRun, -1, null, null), Duration.ofHours(1), true).get();
+        assertEquals(NUM_KEYS - firstRun.size(), secondRun.size());
+        for (StaticBuffer key : secondRun) assertFalse(firstRun.contains(key));
+        // the metrics continue from the checkpoint
+        assertEquals(NUM_KEYS, metrics.get(ScanMetrics.Metric.SUCCESS));
+        assertEquals(NUM_KEYS, metrics.getCustom(PROCESSED));
+        // completed scans remove their checkpoint
+        assertNull(ScanCheckpoint.read(checkpoints, CHECKPOINT));
+    }
+
+    @Test
+    public void testCheckpointsAreRecordedPeriodically() throws Exception {
+        final Set<StaticBuffer> processed = ConcurrentHashMap.newKeySet();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ScanJobFuture future = execute(new RecordingJob(processed, 500, blocked, release), Duration.ofMillis(1), false);
+        assertTrue(blocked.await(1, TimeUnit.MINUTES));
+        final ScanCheckpoint checkpoint = awaitCheckpoint();
+        assertNotNull(checkpoint);
+        assertTrue(checkpoint.getPosition() > 0 && checkpoint.getPosition() < 500, "Position " + checkpoint.getPosition());
+        assertEquals(checkpoint.getPosition(), checkpoint.get(ScanMetrics.Metric.SUCCESS));
+        assertEquals(checkpoint.getPosition(), checkpoint.getCustom(PROCESSED));
+        release.countDown();
+        assertEquals(NUM_KEYS, future.get().get(ScanMetrics.Metric.SUCCESS));
+        assertNull(ScanCheckpoint.read(checkpoints, CHECKPOINT));
+
+        // scans which do not resume start from the beginning
+        processed.clear();
+        ScanCheckpoint.of(500, BufferUtil.getLongBuffer(499), new StandardScanMetrics()).write(checkpoints, CHECKPOINT);
+        assertEquals(NUM_KEYS, execute(new RecordingJob(processed, -1, null, null), Duration.ofHours(1), false)
+            .get().get(ScanMetrics.Metric.SUCCESS));
+        assertEquals(NUM_KEYS, processed.size());
+    }
+
+    @Test
+    public void testRowsAreCheckpointedOnceTheirWorkBlockHasEnded() throws Exception {
+        final Set<StaticBuffer> processed = ConcurrentHashMap.newKeySet();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        // the work blocks are larger than the scan, so they only end when the processors do
+        final ScanJobFuture future = execute(new RecordingJob(processed, 500, blocked, release), Duration.ofMillis(1),
+            false, 2 * NUM_KEYS);
+        assertTrue(blocked.await(1, TimeUnit.MINUTES));
+        Thread.sleep(200);
+        assertNull(ScanCheckpoint.read(checkpoints, CHECKPOINT));
+
+        future.cancel(true);
+        release.countDown();
+        final ScanCheckpoint checkpoint = awaitCheckpoint();
+        assertNotNull(checkpoint);
+        assertEquals(processed.size(), checkpoint.getPosition());
+        assertEquals(processed.size(), checkpoint.get(ScanMetrics.Metric.SUCCESS));
+    }
+
+    @Test
+    public void testRowsAreSkippedByCountForUnorderedStores() {
+        final StandardScanMetrics metrics = new StandardScanMetrics();
+        metrics.increment(ScanMetrics.Metric.SUCCESS, 3);
+        metrics.incrementCustom(PROCESSED, 3);
+        final ScanCheckpoint resumeFrom = ScanCheckpoint.fromBytes(
+            ScanCheckpoint.of(3, BufferUtil.getLongBuffer(12), metrics).toBytes());
+        assertEquals(3, resumeFrom.getPosition());
+        assertEquals(BufferUtil.getLongBuffer(12), resumeFrom.getKey());
+        assertEquals(3, resumeFrom.get(ScanMetrics.Metric.SUCCESS));
+        assertEquals(0, resumeFrom.get(ScanMetrics.Metric.FAILURE));
+        assertEquals(3, resumeFrom.getCustom(PROCESSED));
+
+        final ScanCheckpointer checkpointer = new ScanCheckpointer(checkpoints, CHECKPOINT, Duration.ofHours(1),
+            resumeFrom, true);
+        final Map<Integer, StandardScannerExecutor.Row> rows = new HashMap<>();
+        final Set<Integer> emitted = new HashSet<>();
+        for (int i : new int[]{14, 10, 12, 11, 13, 15}) {
+            final StandardScannerExecutor.Row row = new StandardScannerExecutor.Row(BufferUtil.getLongBuffer(i), Collections.emptyMap());
+            rows.put(i, row);
+            if (checkpointer.emit(row)) emitted.add(i);
+        }
+        assertEquals(new HashSet<>(Arrays.asList(11, 13, 15)), emitted);
+
+        // the checkpoint only advances over rows once all rows before them have been processed
+        checkpointer.processed(processedRow(rows.get(13)));
+        assertEquals(3, checkpointer.getPosition());
+        checkpointer.processed(processedRow(rows.get(11)));
+        assertEquals(5, checkpointer.getPosition());
+        checkpointer.checkpoint();
+        // the metrics are those of the rows up to the checkpoint
+        assertEquals(5, ScanCheckpoint.read(checkpoints, CHECKPOINT).get(ScanMetrics.Metric.SUCCESS));
+        assertEquals(5, ScanCheckpoint.read(checkpoints, CHECKPOINT).getCustom(PROCESSED));
+        checkpointer.processed(processedRow(rows.get(15)));
+        assertEquals(6, checkpointer.getPosition());
+
+        checkpointer.checkpoint();
+        final ScanCheckpoint checkpoint = ScanCheckpoint.read(checkpoints, CHECKPOINT);
+        assertEquals(6, checkpoint.getPosition());
+        assertEquals(BufferUtil.getLongBuffer(15), checkpoint.getKey());
+        assertEquals(6, checkpoint.get(ScanMetrics.Metric.SUCCESS));
+        checkpointer.complete();
+        assertNull(ScanCheckpoint.read(checkpoints, CHECKPOINT));
+    }
+
+    private static Map<Long, ScanCheckpointer.RecordingMetrics> processedRow(StandardScannerExecutor.Row row) {
+        final ScanCheckpointer.RecordingMetrics metrics = new ScanCheckpointer.RecordingMetrics(new StandardScanMetrics());
+        metrics.incrementCustom(PROCESSED);
+        metrics.increment(ScanMetrics.Metric.SUCCESS);
+        return Collections.singletonMap(row.position, metrics);
+    }
+
+    @Test
+    public void testReindexWithResume() throws Exception {
+        final ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        config.set(GraphDatabaseConfiguration.STORAGE_BACKEND, InMemoryStoreManager.class.getCanonicalName());
+        try (JanusGraph graph = JanusGraphFactory.open(config)) {
+            for (int i = 0; i < 100; i++) graph.addVertex("name", "v" + i);
+            graph.tx().commit();
+
+            JanusGraphManagement management = graph.openManagement();
+            final PropertyKey name = management.getPropertyKey("name");
+            management.buildIndex("byName", Vertex.class).addKey(name).buildCompositeIndex();
+            management.commit();
+            ManagementSystem.awaitGraphIndexStatus(graph, "byName").status(SchemaStatus.REGISTERED).call();
+
+            management = graph.openManagement();
+            final ScanMetrics metrics = management.updateIndex(management.getGraphIndex("byName"), SchemaAction.REINDEX, 2, true).get();
+            management.commit();
+            assertEquals(100, metrics.getCustom(IndexRepairJob.ADDED_RECORDS_COUNT));
+            assertNull(ScanCheckpoint.read(((StandardJanusGraph) graph).getBackend().getScanCheckpoints(), "REINDEX:byName"));
+        }
+    }
+}
@@ -0,0 +1,241 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.scan;
+
+import org.apache.tinkerpop.gremlin.process.computer.ComputerResult;
+import org.apache.tinkerpop.gremlin.process.computer.GraphComputer;
+import org.apache.tinkerpop.gremlin.process.computer.ranking.pagerank.PageRankVertexProgram;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.janusgraph.core.JanusGraph;
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.core.JanusGraphVertex;
+import org.janusgraph.diskstorage.Entry;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.inmemory.InMemoryStoreManager;
+import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.diskstorage.util.EntryArrayList;
+import org.janusgraph.diskstorage.util.StaticArrayEntry;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScanSnapshotTest {
+
+    private static final SliceQuery GROUND = new SliceQuery(BufferUtil.zeroBuffer(1), BufferUtil.oneBuffer(4)).setLimit(1);
+    private static final SliceQuery PROPERTIES = new SliceQuery(BufferUtil.zeroBuffer(1), BufferUtil.oneBuffer(8));
+    private static final SliceQuery EDGES = new SliceQuery(BufferUtil.oneBuffer(1), BufferUtil.oneBuffer(8));
+
+    @TempDir
+    File spillDirectory;
+
+    private static EntryList entries(int row, int numEntries) {
+        final EntryArrayList entries = new EntryArrayList();
+        for (int i = 0; i < numEntries; i++) {
+            entries.add(StaticArrayEntry.of(BufferUtil.getIntBuffer(i), BufferUtil.getLongBuffer(row * 1000L + i)));
+        }
+        return entries;
+    }
+
+    private static Map<SliceQuery, EntryList> row(int row) {
+        final Map<SliceQuery, EntryList> entries = new HashMap<>();
+        entries.put(GROUND, entries(row, 1));
+        entries.put(PROPERTIES, entries(row, row % 3));
+        entries.put(EDGES, entries(row, row));
+        return entries;
+    }
+
+    private static void record(ScanSnapshot snapshot, List<SliceQuery> queries, int numRows) {
+        final ScanSnapshot.Recorder recorder = snapshot.record(queries);
+        final ScanSnapshot.Recorder.Writer writer = recorder.newWriter();
+        for (int i = 0; i < numRows; i++) writer.add(BufferUtil.getIntBuffer(i), row(i));
+        recorder.complete();
+    }
+
+    private static void assertReplayed(ScanSnapshot snapshot, List<SliceQuery> queries, int numRows) {
+        final ScanSnapshot.RowReader reader = snapshot.read(queries);
+        for (int i = 0; i < numRows; i++) {
+            final StandardScannerExecutor.Row row = reader.next();
+            assertEquals(BufferUtil.getIntBuffer(i), row.key);
+            assertEquals(queries.size(), row.entries.size());
+            for (SliceQuery query : queries) {
+                final EntryList expected = row(i).get(query);
+                final EntryList actual = row.entries.get(query);
+                assertEquals(expected.size(), actual.size());
+                for (int j = 0; j < expected.size(); j++) {
+                    final Entry entry = actual.get(j);
+                    assertEquals(expected.get(j), entry);
+                    assertEquals(expected.get(j).getColumn(), entry.getColumn());
+                    assertEquals(expected.get(j).getValue(), entry.getValue());
+                }
+            }
+        }
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testRowsAreReplayedForCoveredQueries() {
+        final ScanSnapshot snapshot = new ScanSnapshot(Long.MAX_VALUE, spillDirectory);
+        assertFalse(snapshot.covers(Arrays.asList(GROUND, PROPERTIES)));
+
+        record(snapshot, Arrays.asList(GROUND, PROPERTIES, EDGES), 100);
+        assertEquals(100, snapshot.getNumRows());
+        assertEquals(0, snapshot.getSpilledBytes());
+        assertTrue(snapshot.getHeapBytes() > 0);
+
+        assertTrue(snapshot.covers(Arrays.asList(GROUND, EDGES, PROPERTIES)));
+        assertTrue(snapshot.covers(Arrays.asList(GROUND, EDGES)));
+        assertFalse(snapshot.covers(Arrays.asList(PROPERTIES, GROUND)));
+        assertFalse(snapshot.covers(Collections.singletonList(EDGES)));
+
+        assertReplayed(snapshot, Arrays.asList(GROUND, PROPERTIES, EDGES), 100);
+        assertReplayed(snapshot, Arrays.asList(GROUND, EDGES), 100);
+
+        snapshot.close();
+        assertFalse(snapshot.covers(Arrays.asList(GROUND, EDGES)));
+    }
+
+    @Test
+    public void testRowsBeyondHeapSizeAreSpilled() {
+        final ScanSnapshot snapshot = new ScanSnapshot(0, spillDirectory);
+        // rows larger than a segment get a segment of their own
+        final int numRows = 1100;
+        record(snapshot, Arrays.asList(GROUND, PROPERTIES, EDGES), numRows);
+        assertEquals(0, snapshot.getHeapBytes());
+        assertTrue(snapshot.getSpilledBytes() > ScanSnapshot.SEGMENT_SIZE);
+        assertTrue(Objects.requireNonNull(spillDirectory.list()).length > 1);
+
+        assertReplayed(snapshot, Arrays.asList(GROUND, PROPERTIES, EDGES), numRows);
+
+        snapshot.close();
+        assertEquals(0, Objects.requireNonNull(spillDirectory.list()).length);
+    }
+
+    @Test
+    public void testAbortedRecordingKeepsPreviousRows() {
+        final ScanSnapshot snapshot = new ScanSnapshot(0, spillDirectory);
+        record(snapshot, Arrays.asList(GROUND, PROPERTIES), 10);
+        final int numFiles = Objects.requireNonNull(spillDirectory.list()).length;
+
+        final ScanSnapshot.Recorder recorder = snapshot.record(Arrays.asList(GROUND, EDGES));
+        final ScanSnapshot.Recorder.Writer writer = recorder.newWriter();
+        for (int i = 0; i < 10; i++) writer.add(BufferUtil.getIntBuffer(i), row(i));
+        recorder.abort();
+
+        assertTrue(snapshot.covers(Arrays.asList(GROUND, PROPERTIES)));
+        assertFalse(snapshot.covers(Arrays.asList(GROUND, EDGES)));
+        assertEquals(numFiles, Objects.requireNonNull(spillDirectory.list()).length);
+        assertReplayed(snapshot, Arrays.asList(GROUND, PROPERTIES), 10);
+        snapshot.close();
+    }
+
+    @Test
+    public void testRowsOfConcurrentWritersAreMerged() throws Exception {
+        final ScanSnapshot snapshot = new ScanSnapshot(ScanSnapshot.SEGMENT_SIZE, spillDirectory);
+        final List<SliceQuery> queries = Arrays.asList(GROUND, PROPERTIES, EDGES);
+        final ScanSnapshot.Recorder recorder = snapshot.record(queries);
+        final int numThreads = 4;
+        final int numRows = 2000;
+        final Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            final ScanSnapshot.Recorder.Writer writer = recorder.newWriter();
+            final int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = offset; i < numRows; i += numThreads) writer.add(BufferUtil.getIntBuffer(i), row(i));
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        recorder.complete();
+        assertEquals(numRows, snapshot.getNumRows());
+        assertTrue(snapshot.getSpilledBytes() > 0);
+
+        final Set<Integer> keys = ConcurrentHashMap.newKeySet();
+        final List<ScanSnapshot.RowReader> readers = snapshot.read(queries, numThreads);
+        for (int t = 0; t < numThreads; t++) {
+            final ScanSnapshot.RowReader reader = readers.get(t);
+            threads[t] = new Thread(() -> {
+                StandardScannerExecutor.Row row;
+                while ((row = reader.next()) != null) {
+                    final int key = row.key.getInt(0);
+                    if (hasEdgesOf(row, key)) keys.add(key);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        assertEquals(numRows, keys.size());
+        snapshot.close();
+    }
+
+    private static boolean hasEdgesOf(StandardScannerExecutor.Row row, int key) {
+        final EntryList expected = row(key).get(EDGES);
+        final EntryList actual = row.entries.get(EDGES);
+        if (expected.size() != actual.size()) return false;
+        for (int i = 0; i < expected.size(); i++) {
+            if (!expected.get(i).getValue().equals(actual.get(i).getValue())) return false;
+        }
+        return true;
+    }
+
+    private Map<Object, Object> computePageRanks(boolean snapshot) throws Exception {
+        final ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        config.set(GraphDatabaseConfiguration.STORAGE_BACKEND, InMemoryStoreManager.class.getCanonicalName());
+        config.set(GraphDatabaseConfiguration.COMPUTER_SNAPSHOT, snapshot);
+        config.set(GraphDatabaseConfiguration.COMPUTER_SNAPSHOT_HEAP_SIZE, 1024L);
+        config.set(GraphDatabaseConfiguration.COMPUTER_SNAPSHOT_DIRECTORY, spillDirectory.getAbsolutePath());
+        try (JanusGraph graph = JanusGraphFactory.open(config)) {
+            final JanusGraphVertex[] vertices = new JanusGraphVertex[50];
+            for (int i = 0; i < vertices.length; i++) vertices[i] = graph.addVertex("name", "v" + i);
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i].addEdge("link", vertices[(i + 1) % vertices.length]);
+                vertices[i].addEdge("link", vertices[(i * 7) % vertices.length]);
+            }
+            graph.tx().commit();
+
+            final ComputerResult result = graph.compute().program(PageRankVertexProgram.build().iterations(10).create(graph))
+                .result(GraphComputer.ResultGraph.NEW).persist(GraphComputer.Persist.VERTEX_PROPERTIES).submit().get();
+            final Map<Object, Object> ranks = new HashMap<>();
+            result.graph().vertices().forEachRemaining(
+                (Vertex v) -> ranks.put(v.value("name"), v.value(PageRankVertexProgram.PAGE_RANK)));
+            result.close();
+            return ranks;
+        }
+    }
+
+    @Test
+    public void testVertexProgramIterationsAreServedFromSnapshot() throws Exception {
+        final Map<Object, Object> expected = computePageRanks(false);
+        assertEquals(50, expected.size());
+        assertEquals(expected, computePageRanks(true));
+        assertEquals(0, Objects.requireNonNull(spillDirectory.list()).length);
+    }
+}
@@ -0,0 +1,218 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.scan;
+
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.inmemory.InMemoryStoreManager;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.diskstorage.util.EntryArrayList;
+import org.janusgraph.diskstorage.util.StandardBaseTransactionConfig;
+import org.janusgraph.diskstorage.util.StaticArrayEntry;
+import org.janusgraph.diskstorage.util.time.TimestampProviders;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.janusgraph.diskstorage.keycolumnvalue.scan.StandardScannerExecutor.Row;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScanThrottleTest {
+
+    private static final String STORE_NAME = "scantest";
+    private static final String PROCESSED = "processed";
+    private static final SliceQuery QUERY = new SliceQuery(BufferUtil.zeroBuffer(1), BufferUtil.oneBuffer(4));
+
+    private static Row row(int key, int numBytes) {
+        EntryList entries = EntryArrayList.of(Collections.singletonList(
+            StaticArrayEntry.of(BufferUtil.getIntBuffer(1), BufferUtil.zeroBuffer(numBytes - 2 * Integer.BYTES))));
+        return new Row(BufferUtil.getIntBuffer(key), Collections.singletonMap(QUERY, entries));
+    }
+
+    private static long acquireMillis(ScanThrottle throttle, int numRows, int numBytes) throws InterruptedException {
+        long start = System.nanoTime();
+        for (int i = 0; i < numRows; i++) {
+            throttle.acquire(row(i, numBytes));
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    @Test
+    public void testUnlimitedByDefault() throws InterruptedException {
+        ScanThrottle throttle = new ScanThrottle();
+        assertEquals(0, throttle.getRowsPerSecond());
+        assertTrue(acquireMillis(throttle, 10000, 100) < 1000);
+    }
+
+    @Test
+    public void testRowsPerSecond() throws InterruptedException {
+        ScanThrottle throttle = new ScanThrottle();
+        throttle.setMaxRowsPerSecond(200);
+        assertEquals(200, throttle.getRowsPerSecond());
+        // the first row is handed out right away, the others at 5ms intervals
+        long millis = acquireMillis(throttle, 101, 8);
+        assertTrue(millis >= 450 && millis < 2000, "Took " + millis + " ms");
+    }
+
+    @Test
+    public void testBytesPerSecond() throws InterruptedException {
+        ScanThrottle throttle = new ScanThrottle();
+        throttle.setMaxBytesPerSecond(20000);
+        // rows of 196 bytes of keys and entries
+        long millis = acquireMillis(throttle, 51, 196);
+        assertTrue(millis >= 450 && millis < 2000, "Took " + millis + " ms");
+
+        assertThrows(IllegalArgumentException.class, () -> throttle.setMaxBytesPerSecond(-1));
+    }
+
+    @Test
+    public void testLimitCanBeRemovedWhileWaiting() throws InterruptedException {
+        ScanThrottle throttle = new ScanThrottle();
+        throttle.setMaxRowsPerSecond(1);
+        Thread remover = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throttle.setMaxRowsPerSecond(0);
+        });
+        remover.start();
+        long millis = acquireMillis(throttle, 1000, 8);
+        remover.join();
+        assertTrue(millis < 5000, "Took " + millis + " ms");
+    }
+
+    @Test
+    public void testAdaptsRateToReadLatency() throws InterruptedException {
+        ScanThrottle throttle = new ScanThrottle(Duration.ofMillis(50));
+        throttle.setTargetReadLatency(Duration.ofMillis(10));
+        assertEquals(0, throttle.getRowsPerSecond());
+
+        // reads within the target latency don't limit the scan
+        runInterval(throttle, TimeUnit.MILLISECONDS.toNanos(1));
+        runInterval(throttle, TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(0, throttle.getRowsPerSecond());
+
+        // slow reads make the scan back off to half its rate
+        double observed = runInterval(throttle, TimeUnit.MILLISECONDS.toNanos(20));
+        double backedOff = throttle.getRowsPerSecond();
+        assertTrue(backedOff > 0 && backedOff <= observed, backedOff + " rows per second after " + observed);
+        runInterval(throttle, TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(throttle.getRowsPerSecond() < backedOff);
+
+        // fast reads raise the rate again until the scan is no longer limited
+        double rate = throttle.getRowsPerSecond();
+        for (int i = 0; i < 100 && throttle.getRowsPerSecond() > 0; i++) {
+            runInterval(throttle, TimeUnit.MILLISECONDS.toNanos(1));
+            assertTrue(throttle.getRowsPerSecond() == 0 || throttle.getRowsPerSecond() > rate);
+            rate = throttle.getRowsPerSecond();
+        }
+        assertEquals(0, throttle.getRowsPerSecond());
+
+        throttle.setTargetReadLatency(null);
+        assertEquals(Duration.ZERO, throttle.getTargetReadLatency());
+    }
+
+    /**
+     * Acquires rows and records the given read latency until the throttle has completed an adaptation interval and
+     * returns the observed number of rows per second
+     */
+    private static double runInterval(ScanThrottle throttle, long latencyNanos) throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(60);
+        int numRows = 0;
+        while (System.nanoTime() < end) {
+            throttle.acquire(row(numRows++, 8));
+            if (numRows % 10 == 0) Thread.sleep(1);
+        }
+        throttle.recordReadLatency(latencyNanos);
+        return numRows * 1e9 / (System.nanoTime() - start);
+    }
+
+    private static class CountingJob implements ScanJob {
+
+        @Override
+        public void process(StaticBuffer key, Map<SliceQuery, EntryList> entries, ScanMetrics metrics) {
+            metrics.incrementCustom(PROCESSED);
+        }
+
+        @Override
+        public List<SliceQuery> getQueries() {
+            return Collections.singletonList(QUERY);
+        }
+
+        @Override
+        public CountingJob clone() {
+            return this;
+        }
+    }
+
+    @Test
+    public void testThrottleOfRunningScanCanBeAdjusted() throws Exception {
+        final int numKeys = 200;
+        InMemoryStoreManager manager = new InMemoryStoreManager();
+        try {
+            KeyColumnValueStore store = manager.openDatabase(STORE_NAME);
+            StoreTransaction tx = manager.beginTransaction(StandardBaseTransactionConfig.of(TimestampProviders.MICRO));
+            for (int i = 0; i < numKeys; i++) {
+                store.mutate(BufferUtil.getLongBuffer(i),
+                    Collections.singletonList(StaticArrayEntry.of(BufferUtil.getIntBuffer(1), BufferUtil.getIntBuffer(i))),
+                    KeyColumnValueStore.NO_DELETIONS, tx);
+            }
+            tx.commit();
+
+            ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+            config.set(GraphDatabaseConfiguration.SCAN_MAX_ROWS_PER_SECOND, 10);
+            ScanJobFuture future = new StandardScanner(manager).build()
+                .setStoreName(STORE_NAME)
+                .setTimestampProvider(TimestampProviders.MICRO)
+                .setGraphConfiguration(config)
+                .setJob(new CountingJob())
+                .execute();
+            assertEquals(10, future.getThrottle().getMaxRowsPerSecond());
+
+            Thread.sleep(500);
+            assertFalse(future.isDone());
+            long processed = future.getIntermediateResult().getCustom(PROCESSED);
+            assertTrue(processed > 0 && processed < 50, "Processed " + processed);
+
+            future.getThrottle().setMaxRowsPerSecond(0);
+            ScanMetrics metrics = future.get(10, TimeUnit.SECONDS);
+            assertEquals(numKeys, metrics.getCustom(PROCESSED));
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void testThrottleOfCompletedJobHasNoEffect() {
+        ScanJobFuture future = new CompletedJobFuture(new StandardScanMetrics());
+        future.getThrottle().setMaxRowsPerSecond(1);
+        assertEquals(0, future.getThrottle().getMaxRowsPerSecond());
+    }
+}
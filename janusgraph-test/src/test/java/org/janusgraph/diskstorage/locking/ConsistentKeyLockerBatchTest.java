@@ -0,0 +1,168 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.locking;
+
+import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.inmemory.InMemoryStoreManager;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import org.janusgraph.diskstorage.keycolumnvalue.KeySliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.locking.consistentkey.ConsistentKeyLocker;
+import org.janusgraph.diskstorage.locking.consistentkey.ConsistentKeyLockerSerializer;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.diskstorage.util.KeyColumn;
+import org.janusgraph.diskstorage.util.StandardBaseTransactionConfig;
+import org.janusgraph.diskstorage.util.StaticArrayBuffer;
+import org.janusgraph.diskstorage.util.time.TimestampProviders;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.janusgraph.diskstorage.locking.consistentkey.ConsistentKeyLocker.LOCK_COL_END;
+import static org.janusgraph.diskstorage.locking.consistentkey.ConsistentKeyLocker.LOCK_COL_START;
+import static org.janusgraph.util.encoding.StringEncoding.UTF8_CHARSET;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ConsistentKeyLockerBatchTest {
+
+    private static final int NUM_LOCKS = 5;
+
+    private InMemoryStoreManager manager;
+    private KeyColumnValueStore store;
+    private final ConsistentKeyLockerSerializer codec = new ConsistentKeyLockerSerializer();
+    private final List<KeyColumn> lockIDs = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws BackendException {
+        manager = Mockito.spy(new InMemoryStoreManager());
+        store = Mockito.spy(manager.openDatabase("test_lock_"));
+        for (int i = 0; i < NUM_LOCKS; i++) {
+            lockIDs.add(new KeyColumn(BufferUtil.getIntBuffer(i), BufferUtil.getIntBuffer(i)));
+        }
+    }
+
+    @AfterEach
+    public void tearDown() throws BackendException {
+        manager.close();
+    }
+
+    private ConsistentKeyLocker locker(String rid) {
+        return locker(rid, new LocalLockMediator<>(rid, TimestampProviders.MILLI));
+    }
+
+    private ConsistentKeyLocker locker(String rid, LocalLockMediator<StoreTransaction> mediator) {
+        return new ConsistentKeyLocker.Builder(store, manager)
+            .rid(new StaticArrayBuffer(rid.getBytes(UTF8_CHARSET)))
+            .times(TimestampProviders.MILLI)
+            .mediator(mediator)
+            .lockWait(Duration.ofMillis(500))
+            .lockExpire(Duration.ofMinutes(1))
+            .batchLocks(true)
+            .build();
+    }
+
+    private StoreTransaction tx() throws BackendException {
+        return manager.beginTransaction(StandardBaseTransactionConfig.of(TimestampProviders.MILLI));
+    }
+
+    private int countClaims() throws BackendException {
+        final StoreTransaction tx = tx();
+        int claims = 0;
+        for (KeyColumn kc : lockIDs) {
+            final StaticBuffer lockKey = codec.toLockKey(kc.getKey(), kc.getColumn());
+            claims += store.getSlice(new KeySliceQuery(lockKey, LOCK_COL_START, LOCK_COL_END), tx).size();
+        }
+        tx.commit();
+        return claims;
+    }
+
+    @Test
+    public void testLocksAreWrittenCheckedAndDeletedInBatches() throws BackendException {
+        final ConsistentKeyLocker locker = locker("a");
+        final StoreTransaction tx = tx();
+        for (KeyColumn kc : lockIDs) {
+            locker.writeLock(kc, tx);
+        }
+        // claims are deferred until the locks are checked
+        verify(manager, Mockito.never()).mutateMany(any(), any());
+        assertEquals(0, countClaims());
+
+        Mockito.clearInvocations(store);
+        locker.checkLocks(tx);
+        verify(manager, times(1)).mutateMany(any(), any());
+        verify(store, times(1)).getSlice(anyList(), any(SliceQuery.class), any());
+        assertEquals(NUM_LOCKS, countClaims());
+
+        // checking again does not touch the store
+        locker.checkLocks(tx);
+        verify(manager, times(1)).mutateMany(any(), any());
+
+        locker.deleteLocks(tx);
+        verify(manager, times(2)).mutateMany(any(), any());
+        assertEquals(0, countClaims());
+        tx.commit();
+    }
+
+    @Test
+    public void testContendedLockFailsBatch() throws BackendException {
+        final ConsistentKeyLocker first = locker("a");
+        final StoreTransaction firstTx = tx();
+        first.writeLock(lockIDs.get(2), firstTx);
+        first.checkLocks(firstTx);
+
+        final ConsistentKeyLocker second = locker("b");
+        final StoreTransaction secondTx = tx();
+        for (KeyColumn kc : lockIDs) {
+            second.writeLock(kc, secondTx);
+        }
+        final TemporaryLockingException e = assertThrows(TemporaryLockingException.class, () -> second.checkLocks(secondTx));
+        assertTrue(e.getMessage().contains("already held"));
+
+        second.deleteLocks(secondTx);
+        assertEquals(1, countClaims());
+        first.deleteLocks(firstTx);
+        assertEquals(0, countClaims());
+    }
+
+    @Test
+    public void testLostLocalLockFailsBatch() throws BackendException {
+        final LocalLockMediator<StoreTransaction> mediator = Mockito.spy(new LocalLockMediator<>("a", TimestampProviders.MILLI));
+        final ConsistentKeyLocker locker = locker("a", mediator);
+        final StoreTransaction tx = tx();
+        for (KeyColumn kc : lockIDs) {
+            locker.writeLock(kc, tx);
+        }
+        // the local locks expired and were taken over while the claims were written
+        Mockito.doReturn(false).when(mediator).lockAll(any(), any(), any());
+        final PermanentLockingException e = assertThrows(PermanentLockingException.class, () -> locker.checkLocks(tx));
+        assertTrue(e.getMessage().contains("Local lock contention"));
+        assertEquals(0, countClaims());
+        locker.deleteLocks(tx);
+        tx.commit();
+    }
+}
@@ -23,10 +23,15 @@ import org.janusgraph.diskstorage.util.time.TimestampProviders;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class LocalLockMediatorTest {
 
@@ -50,4 +55,51 @@ public class LocalLockMediatorTest {
         assertTrue(llm.lock(kc, mockTx1, Instant.MAX));
         assertFalse(llm.lock(kc, mockTx2, Instant.MAX));
     }
+
+    @Test
+    public void testLockAllIsAllOrNothing() {
+        LocalLockMediator<ExpectedValueCheckingTransaction> llm = new LocalLockMediator<>(LOCK_NAMESPACE, TimestampProviders.MICRO, 4);
+        List<KeyColumn> kcs = Arrays.asList(kc(1), kc(2), kc(3), kc(4), kc(5));
+
+        assertTrue(llm.lock(kc(3), mockTx2, Instant.MAX));
+        assertFalse(llm.lockAll(kcs, mockTx1, Instant.MAX));
+        // none of the other locks was taken
+        assertTrue(llm.lock(kc(1), mockTx2, Instant.MAX));
+        assertTrue(llm.unlockAll(Arrays.asList(kc(1), kc(3)), mockTx2));
+
+        assertTrue(llm.lockAll(kcs, mockTx1, Instant.MAX));
+        assertTrue(llm.lockAll(kcs, mockTx1, Instant.MAX));
+        assertFalse(llm.lock(kc(5), mockTx2, Instant.MAX));
+        assertFalse(llm.unlock(kc(5), mockTx2));
+        assertTrue(llm.unlockAll(kcs, mockTx1));
+        assertFalse(llm.unlock(kc(5), mockTx1));
+        assertTrue(llm.lock(kc(5), mockTx2, Instant.MAX));
+    }
+
+    @Test
+    public void testExpiredLocksAreDiscarded() {
+        final AtomicReference<Instant> now = new AtomicReference<>(Instant.ofEpochSecond(1000));
+        final TimestampProvider times = mock(TimestampProvider.class);
+        when(times.getTime()).thenAnswer(invocation -> now.get());
+        LocalLockMediator<ExpectedValueCheckingTransaction> llm = new LocalLockMediator<>(LOCK_NAMESPACE, times, 1);
+        assertTrue(llm.lock(kc(1), mockTx1, now.get().plusMillis(100)));
+        assertTrue(llm.lock(kc(2), mockTx1, Instant.MAX));
+        assertTrue(llm.toString().contains("~2 current locks"));
+
+        // The timing wheel only advances once a tick of one second has passed
+        now.set(now.get().plusMillis(500));
+        assertTrue(llm.lock(kc(3), mockTx2, Instant.MAX));
+        assertTrue(llm.toString().contains("~3 current locks"));
+        assertTrue(llm.unlock(kc(3), mockTx2));
+
+        now.set(now.get().plusMillis(1000));
+        assertTrue(llm.lock(kc(3), mockTx2, Instant.MAX));
+        assertEquals("LocalLockMediator [" + LOCK_NAMESPACE + ",  ~2 current locks]", llm.toString());
+        assertFalse(llm.unlock(kc(1), mockTx1));
+        assertTrue(llm.unlock(kc(2), mockTx1));
+    }
+
+    private static KeyColumn kc(int i) {
+        return new KeyColumn(StaticArrayBuffer.of(new byte[]{(byte) i}), LOCK_COL);
+    }
 }
@@ -0,0 +1,132 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.database;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.janusgraph.core.Cardinality;
+import org.janusgraph.core.JanusGraphException;
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.core.PropertyKey;
+import org.janusgraph.core.schema.JanusGraphManagement;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.inmemory.InMemoryStoreManager;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BulkLoaderTest {
+
+    private StandardJanusGraph graph;
+
+    @BeforeEach
+    public void setup() {
+        ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        config.set(GraphDatabaseConfiguration.STORAGE_BACKEND, InMemoryStoreManager.class.getCanonicalName());
+        graph = (StandardJanusGraph) JanusGraphFactory.open(config);
+        JanusGraphManagement mgmt = graph.openManagement();
+        PropertyKey name = mgmt.makePropertyKey("name").dataType(String.class).make();
+        mgmt.makePropertyKey("tag").dataType(String.class).cardinality(Cardinality.SET).make();
+        mgmt.makePropertyKey("weight").dataType(Integer.class).make();
+        mgmt.makeVertexLabel("person").make();
+        mgmt.makeEdgeLabel("knows").make();
+        mgmt.buildIndex("byName", Vertex.class).addKey(name).buildCompositeIndex();
+        mgmt.commit();
+    }
+
+    @AfterEach
+    public void shutdown() {
+        if (graph != null && graph.isOpen()) graph.close();
+    }
+
+    @Test
+    public void testLoadedElementsAreVisible() {
+        final int numVertices = 100;
+        try (BulkLoader loader = graph.buildBulkLoader().batchSize(7).numWorkers(3).open()) {
+            loader.addVertices(IntStream.range(0, numVertices).mapToObj(i -> new BulkLoader.VertexRecord("v" + i, "person",
+                ImmutableMap.of("name", "n" + i, "tag", Arrays.asList("a", "b")))));
+            loader.addEdges(IntStream.range(1, numVertices).mapToObj(i -> new BulkLoader.EdgeRecord("v0", "v" + i, "knows",
+                Collections.singletonMap("weight", i))));
+            loader.addEdge("v1", "v1", "knows", null);
+            loader.flush();
+
+            assertEquals(numVertices, loader.getMetrics().getVertexCount());
+            assertEquals(numVertices, loader.getMetrics().getEdgeCount());
+            assertTrue(loader.getMetrics().getBatchCount() > 1);
+        }
+
+        GraphTraversalSource g = graph.traversal();
+        assertEquals(numVertices, g.V().hasLabel("person").count().next());
+        assertEquals(numVertices - 1, g.V().has("name", "n0").out("knows").count().next());
+        assertEquals(1, g.V().has("name", "n42").in("knows").has("name", "n0").count().next());
+        assertEquals(42, g.V().has("name", "n0").outE("knows").where(__.inV().has("name", "n42")).values("weight").next());
+        assertEquals(2, g.V().has("name", "n42").values("tag").count().next());
+        assertEquals(1, g.V().has("name", "n1").out("knows").has("name", "n1").count().next());
+        graph.tx().rollback();
+    }
+
+    @Test
+    public void testUnknownSchemaIsRejected() {
+        try (BulkLoader loader = graph.buildBulkLoader().open()) {
+            assertThrows(IllegalArgumentException.class, () -> loader.addVertex(1, "unknown", null));
+            assertThrows(IllegalArgumentException.class, () -> loader.addVertex(1, null, Collections.singletonMap("unknown", 1)));
+            loader.addVertex(1, null, null);
+            assertThrows(IllegalArgumentException.class, () -> loader.addVertex(1, null, null));
+            assertThrows(IllegalArgumentException.class, () -> loader.addEdge(1, 2, "knows", null));
+        }
+    }
+
+    @Test
+    public void testFailuresAreReported() {
+        assertThrows(JanusGraphException.class, () -> {
+            try (BulkLoader loader = graph.buildBulkLoader().open()) {
+                loader.addVertex(1, null, Collections.singletonMap("weight", "not a number"));
+                loader.flush();
+            }
+        });
+    }
+
+    @Test
+    public void testCachedRowsAreInvalidated() {
+        graph.close();
+        ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        config.set(GraphDatabaseConfiguration.STORAGE_BACKEND, InMemoryStoreManager.class.getCanonicalName());
+        config.set(GraphDatabaseConfiguration.DB_CACHE, true);
+        graph = (StandardJanusGraph) JanusGraphFactory.open(config);
+        JanusGraphManagement mgmt = graph.openManagement();
+        mgmt.buildIndex("byName", Vertex.class).addKey(mgmt.makePropertyKey("name").dataType(String.class).make())
+            .buildCompositeIndex();
+        mgmt.commit();
+
+        assertEquals(0, graph.traversal().V().has("name", "n0").count().next());
+        graph.tx().rollback();
+        try (BulkLoader loader = graph.buildBulkLoader().open()) {
+            loader.addVertex("v0", null, Collections.singletonMap("name", "n0"));
+        }
+        assertEquals(1, graph.traversal().V().has("name", "n0").count().next());
+        graph.tx().rollback();
+    }
+}
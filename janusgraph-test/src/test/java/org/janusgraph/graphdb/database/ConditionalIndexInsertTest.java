@@ -0,0 +1,124 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.database;
+
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.janusgraph.core.JanusGraphException;
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.core.JanusGraphTransaction;
+import org.janusgraph.core.JanusGraphVertex;
+import org.janusgraph.core.PropertyKey;
+import org.janusgraph.core.schema.ConsistencyModifier;
+import org.janusgraph.core.schema.JanusGraphIndex;
+import org.janusgraph.core.schema.JanusGraphManagement;
+import org.janusgraph.diskstorage.Backend;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.inmemory.InMemoryStoreManager;
+import org.janusgraph.diskstorage.util.MetricInstrumentedStore;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.util.stats.MetricManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ConditionalIndexInsertTest {
+
+    private StandardJanusGraph graph;
+
+    @BeforeEach
+    public void setup() {
+        ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        config.set(GraphDatabaseConfiguration.STORAGE_BACKEND, InMemoryStoreManager.class.getCanonicalName());
+        config.set(GraphDatabaseConfiguration.LOCK_CONDITIONAL_INSERT, true);
+        config.set(GraphDatabaseConfiguration.BASIC_METRICS, true);
+        config.set(GraphDatabaseConfiguration.METRICS_MERGE_STORES, false);
+        graph = (StandardJanusGraph) JanusGraphFactory.open(config);
+        JanusGraphManagement mgmt = graph.openManagement();
+        PropertyKey name = mgmt.makePropertyKey("name").dataType(String.class).make();
+        JanusGraphIndex index = mgmt.buildIndex("byName", Vertex.class).addKey(name).unique().buildCompositeIndex();
+        mgmt.setConsistency(index, ConsistencyModifier.LOCK);
+        mgmt.commit();
+    }
+
+    @AfterEach
+    public void shutdown() {
+        if (graph != null && graph.isOpen()) graph.close();
+    }
+
+    private static long calls(String storeName, String operation) {
+        return MetricManager.INSTANCE.getCounter(GraphDatabaseConfiguration.METRICS_PREFIX_DEFAULT, storeName, operation,
+            MetricInstrumentedStore.M_CALLS).getCount();
+    }
+
+    @Test
+    public void testConcurrentDuplicateIsRejected() {
+        final String lockStore = Backend.INDEXSTORE_NAME + Backend.LOCK_STORE_SUFFIX;
+        final long inserts = calls(Backend.INDEXSTORE_NAME, MetricInstrumentedStore.M_INSERT_IF_ABSENT);
+        final long lockWrites = calls(lockStore, MetricInstrumentedStore.M_MUTATE);
+        final long lockReads = calls(lockStore, MetricInstrumentedStore.M_GET_SLICE);
+        final long storeLocks = calls(Backend.INDEXSTORE_NAME, MetricInstrumentedStore.M_ACQUIRE_LOCK);
+
+        JanusGraphTransaction first = graph.newTransaction();
+        JanusGraphTransaction second = graph.newTransaction();
+        first.addVertex("name", "alice");
+        second.addVertex("name", "alice");
+        first.commit();
+        assertThrows(JanusGraphException.class, second::commit);
+
+        // both commits inserted their index entry conditionally and neither went through the locker
+        assertEquals(inserts + 2, calls(Backend.INDEXSTORE_NAME, MetricInstrumentedStore.M_INSERT_IF_ABSENT));
+        assertEquals(lockWrites, calls(lockStore, MetricInstrumentedStore.M_MUTATE));
+        assertEquals(lockReads, calls(lockStore, MetricInstrumentedStore.M_GET_SLICE));
+        assertEquals(storeLocks, calls(Backend.INDEXSTORE_NAME, MetricInstrumentedStore.M_ACQUIRE_LOCK));
+
+        assertEquals(1L, graph.traversal().V().has("name", "alice").count().next());
+        graph.tx().rollback();
+    }
+
+    @Test
+    public void testFailedCommitDoesNotLeaveIndexEntries() {
+        JanusGraphTransaction tx = graph.newTransaction();
+        tx.addVertex("name", "bob");
+        tx.addVertex("name", "alice");
+        graph.addVertex("name", "alice");
+        graph.tx().commit();
+
+        // The insert of bob succeeds conditionally, alice conflicts and the insert of bob is rolled back
+        assertThrows(JanusGraphException.class, tx::commit);
+
+        graph.addVertex("name", "bob");
+        graph.tx().commit();
+        assertEquals(1L, graph.traversal().V().has("name", "bob").count().next());
+        graph.tx().rollback();
+    }
+
+    @Test
+    public void testValueCanBeChanged() {
+        JanusGraphVertex v = graph.addVertex("name", "alice");
+        graph.tx().commit();
+
+        graph.traversal().V(v.id()).property("name", "bob").iterate();
+        graph.tx().commit();
+        graph.traversal().V(v.id()).property("name", "alice").iterate();
+        graph.tx().commit();
+
+        assertEquals(0L, graph.traversal().V().has("name", "bob").count().next());
+        assertEquals(v.id(), graph.traversal().V().has("name", "alice").next().id());
+        graph.tx().rollback();
+    }
+}
@@ -0,0 +1,121 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.database.idassigner;
+
+import org.janusgraph.core.JanusGraph;
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.inmemory.InMemoryStoreManager;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.util.stats.MetricManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveIDBlockSizerTest {
+
+    private static final int ADAPTED = 0;
+    private static final int STATIC = 1;
+    private static final String METRICS_PREFIX = "adaptivesizertest";
+
+    private AdaptiveIDBlockSizer sizer;
+
+    @BeforeEach
+    public void setUp() {
+        MetricManager.INSTANCE.getRegistry().removeMatching((name, metric) -> name.startsWith(METRICS_PREFIX));
+        sizer = new AdaptiveIDBlockSizer(new StaticIDBlockSizer(1000, 1L << 30), Collections.singletonMap(ADAPTED, "test"),
+            100, 100000, Duration.ofSeconds(10), METRICS_PREFIX);
+    }
+
+    private long applyAfter(long numIds, Duration elapsed, int partition, int idNamespace) {
+        sizer.recordConsumption(partition, idNamespace, numIds, elapsed);
+        return sizer.getBlockSize(partition, idNamespace);
+    }
+
+    @Test
+    public void testBlockSizeFollowsConsumptionRate() {
+        assertEquals(1000, sizer.getBlockSize(0, ADAPTED));
+        // 1000 ids consumed per second => a block of 10000 ids lasts 10s, approached in steps of factor 2
+        assertEquals(2000, applyAfter(1000, Duration.ofSeconds(1), 0, ADAPTED));
+        assertEquals(4000, applyAfter(2000, Duration.ofSeconds(2), 0, ADAPTED));
+        assertEquals(8000, applyAfter(4000, Duration.ofSeconds(4), 0, ADAPTED));
+        assertEquals(10000, applyAfter(8000, Duration.ofSeconds(8), 0, ADAPTED));
+        assertEquals(10000, applyAfter(10000, Duration.ofSeconds(10), 0, ADAPTED));
+
+        // consumption slows down
+        assertEquals(5000, applyAfter(10000, Duration.ofSeconds(100), 0, ADAPTED));
+        assertEquals(4000, applyAfter(5000, Duration.ofSeconds(12).plusMillis(500), 0, ADAPTED));
+    }
+
+    @Test
+    public void testBlockSizeIsKeptUntilConsumptionIsRecorded() {
+        assertEquals(1000, sizer.getBlockSize(0, ADAPTED));
+        assertEquals(1000, sizer.getBlockSize(0, ADAPTED));
+        // blocks prefetched at the same rate approach the target size instead of growing further
+        sizer.recordConsumption(0, ADAPTED, 300, Duration.ofSeconds(1));
+        assertEquals(2000, sizer.getBlockSize(0, ADAPTED));
+        assertEquals(3000, sizer.getBlockSize(0, ADAPTED));
+        assertEquals(3000, sizer.getBlockSize(0, ADAPTED));
+        // partially consumed blocks are measured by the ids handed out so far
+        assertEquals(1500, applyAfter(150, Duration.ofSeconds(10), 0, ADAPTED));
+    }
+
+    @Test
+    public void testBlockSizeIsBounded() {
+        assertEquals(1000, sizer.getBlockSize(0, ADAPTED));
+        for (int i = 0; i < 20; i++) applyAfter(1000, Duration.ofMillis(1), 0, ADAPTED);
+        assertEquals(100000, applyAfter(1000, Duration.ofMillis(1), 0, ADAPTED));
+        for (int i = 0; i < 20; i++) applyAfter(1, Duration.ofHours(1), 0, ADAPTED);
+        assertEquals(100, applyAfter(1, Duration.ofHours(1), 0, ADAPTED));
+    }
+
+    @Test
+    public void testPoolsAreSizedIndependently() {
+        assertEquals(1000, sizer.getBlockSize(0, ADAPTED));
+        assertEquals(1000, sizer.getBlockSize(1, ADAPTED));
+        assertEquals(2000, applyAfter(1000, Duration.ofSeconds(1), 0, ADAPTED));
+        assertEquals(500, applyAfter(1000, Duration.ofSeconds(100), 1, ADAPTED));
+
+        assertEquals(1000, sizer.getBlockSize(0, STATIC));
+        assertEquals(1000, applyAfter(1000, Duration.ofMillis(1), 0, STATIC));
+
+        assertEquals(4, MetricManager.INSTANCE.getHistogram(METRICS_PREFIX, AdaptiveIDBlockSizer.METRICS_NAME, "test",
+            AdaptiveIDBlockSizer.M_BLOCK_SIZE).getCount());
+    }
+
+    @Test
+    public void testGraphWithAdaptiveBlockSizes() {
+        final ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        config.set(GraphDatabaseConfiguration.STORAGE_BACKEND, InMemoryStoreManager.class.getCanonicalName());
+        config.set(GraphDatabaseConfiguration.IDS_BLOCK_SIZE, 100);
+        config.set(GraphDatabaseConfiguration.IDS_ADAPTIVE, true);
+        config.set(GraphDatabaseConfiguration.IDS_ADAPTIVE_MIN_BLOCK_SIZE, 50);
+        try (JanusGraph graph = JanusGraphFactory.open(config)) {
+            for (int i = 0; i < 2000; i++) {
+                graph.addVertex("name", "v" + i);
+            }
+            graph.tx().commit();
+            assertEquals(2000L, graph.traversal().V().count().next());
+            graph.tx().rollback();
+        }
+        assertTrue(MetricManager.INSTANCE.getHistogram(GraphDatabaseConfiguration.METRICS_SYSTEM_PREFIX_DEFAULT,
+            AdaptiveIDBlockSizer.METRICS_NAME, "normal_vertex", AdaptiveIDBlockSizer.M_BLOCK_SIZE).getSnapshot().getMax() > 100);
+    }
+}
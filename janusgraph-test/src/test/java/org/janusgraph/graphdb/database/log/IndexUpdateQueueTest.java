@@ -0,0 +1,354 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.database.log;
+
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.core.JanusGraphVertex;
+import org.janusgraph.core.PropertyKey;
+import org.janusgraph.core.schema.JanusGraphManagement;
+import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.BaseTransaction;
+import org.janusgraph.diskstorage.BaseTransactionConfig;
+import org.janusgraph.diskstorage.BaseTransactionConfigurable;
+import org.janusgraph.diskstorage.TemporaryBackendException;
+import org.janusgraph.diskstorage.configuration.Configuration;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.indexing.IndexEntry;
+import org.janusgraph.diskstorage.indexing.IndexFeatures;
+import org.janusgraph.diskstorage.indexing.IndexMutation;
+import org.janusgraph.diskstorage.indexing.IndexProvider;
+import org.janusgraph.diskstorage.indexing.IndexQuery;
+import org.janusgraph.diskstorage.indexing.KeyInformation;
+import org.janusgraph.diskstorage.indexing.RawQuery;
+import org.janusgraph.diskstorage.inmemory.InMemoryStoreManager;
+import org.janusgraph.diskstorage.log.kcvs.KCVSLogManager;
+import org.janusgraph.diskstorage.util.DefaultTransaction;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.graphdb.database.StandardJanusGraph;
+import org.janusgraph.graphdb.query.JanusGraphPredicate;
+import org.janusgraph.graphdb.tinkerpop.optimize.step.Aggregation;
+import org.janusgraph.util.stats.MetricManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.INDEX_QUEUE_LOG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IndexUpdateQueueTest {
+
+    private static final String INDEX = "search";
+
+    private StandardJanusGraph graph;
+
+    private static ModifiableConfiguration getConfiguration() {
+        ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        config.set(GraphDatabaseConfiguration.STORAGE_BACKEND, InMemoryStoreManager.class.getCanonicalName());
+        config.set(GraphDatabaseConfiguration.INDEX_BACKEND, RecordingIndexProvider.class.getName(), INDEX);
+        config.set(GraphDatabaseConfiguration.INDEX_QUEUE, true);
+        config.set(GraphDatabaseConfiguration.INDEX_QUEUE_WRITERS, 1);
+        config.set(GraphDatabaseConfiguration.INDEX_QUEUE_MAX_DELAY, Duration.ofMillis(10));
+        config.set(GraphDatabaseConfiguration.LOG_READ_INTERVAL, Duration.ofMillis(50), INDEX_QUEUE_LOG);
+        config.set(GraphDatabaseConfiguration.LOG_SEND_DELAY, Duration.ZERO, INDEX_QUEUE_LOG);
+        return config;
+    }
+
+    @BeforeEach
+    public void setup() {
+        RecordingIndexProvider.documents.clear();
+        RecordingIndexProvider.failures.set(0);
+        open(getConfiguration());
+    }
+
+    private void open(ModifiableConfiguration config) {
+        graph = (StandardJanusGraph) JanusGraphFactory.open(config);
+        JanusGraphManagement mgmt = graph.openManagement();
+        PropertyKey name = mgmt.makePropertyKey("name").dataType(String.class).make();
+        mgmt.buildIndex("byName", Vertex.class).addKey(name).buildMixedIndex(INDEX);
+        mgmt.commit();
+    }
+
+    @AfterEach
+    public void shutdown() {
+        if (graph != null && graph.isOpen()) graph.close();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for index updates");
+            Thread.sleep(20);
+        }
+    }
+
+    private static long numDeliveredMessages() {
+        return MetricManager.INSTANCE.getHistogram(GraphDatabaseConfiguration.METRICS_SYSTEM_PREFIX_DEFAULT,
+            IndexUpdateQueue.METRICS_NAME, IndexUpdateQueue.M_LAG).getCount();
+    }
+
+    @Test
+    public void testUpdatesAreDeliveredAsynchronously() throws InterruptedException {
+        JanusGraphVertex v = graph.addVertex("name", "alice");
+        graph.tx().commit();
+        awaitUntil(() -> RecordingIndexProvider.numDocuments() == 1);
+        assertEquals(Collections.singleton("alice"), RecordingIndexProvider.values());
+
+        graph.traversal().V(v.id()).property("name", "bob").iterate();
+        graph.tx().commit();
+        awaitUntil(() -> RecordingIndexProvider.values().contains("bob"));
+        assertEquals(Collections.singleton("bob"), RecordingIndexProvider.values());
+
+        graph.traversal().V(v.id()).drop().iterate();
+        graph.tx().commit();
+        awaitUntil(() -> RecordingIndexProvider.numDocuments() == 0);
+
+        assertTrue(numDeliveredMessages() >= 3);
+    }
+
+    @Test
+    public void testConflictingUpdatesAreDeliveredInCommitOrder() throws InterruptedException {
+        final long delivered = numDeliveredMessages();
+        final int numVertices = 16;
+        //The transactions have different log keys, which would spread them across partitions of a partitioned log
+        for (int i = 0; i < numVertices; i++) {
+            JanusGraphVertex v = graph.addVertex("name", "v" + i);
+            graph.tx().commit();
+            graph.traversal().V(v.id()).drop().iterate();
+            graph.tx().commit();
+        }
+        awaitUntil(() -> numDeliveredMessages() - delivered >= 2 * numVertices);
+        assertEquals(0, RecordingIndexProvider.numDocuments());
+    }
+
+    @Test
+    public void testUpdatesQueuedBeforeDeliveryStartedAreDelivered() throws InterruptedException {
+        graph.close();
+        final ModifiableConfiguration config = getConfiguration();
+        config.set(GraphDatabaseConfiguration.INDEX_QUEUE_WRITERS, 0);
+        open(config);
+        graph.addVertex("name", "alice");
+        graph.tx().commit();
+
+        //Delivery is enabled after the update has been queued
+        final ModifiableConfiguration queueConfig = GraphDatabaseConfiguration.buildGraphConfiguration();
+        queueConfig.set(GraphDatabaseConfiguration.INDEX_QUEUE_WRITERS, 1);
+        queueConfig.set(GraphDatabaseConfiguration.INDEX_QUEUE_MAX_DELAY, Duration.ofMillis(10));
+        try (IndexUpdateQueue queue = new IndexUpdateQueue(graph, queueConfig)) {
+            awaitUntil(() -> RecordingIndexProvider.numDocuments() == 1);
+        }
+        assertEquals(Collections.singleton("alice"), RecordingIndexProvider.values());
+    }
+
+    @Test
+    public void testFailedDeliveriesAreRetried() throws InterruptedException {
+        RecordingIndexProvider.failures.set(2);
+        graph.addVertex("name", "alice");
+        graph.tx().commit();
+        awaitUntil(() -> RecordingIndexProvider.numDocuments() == 1);
+        assertEquals(0, RecordingIndexProvider.failures.get());
+        assertEquals(Collections.singleton("alice"), RecordingIndexProvider.values());
+    }
+
+    @Test
+    public void testQueueMustBeReadBySingleThread() {
+        ModifiableConfiguration config = getConfiguration();
+        config.set(GraphDatabaseConfiguration.LOG_READ_THREADS, 2, INDEX_QUEUE_LOG);
+        assertThrows(IllegalArgumentException.class, () -> JanusGraphFactory.open(config));
+    }
+
+    @Test
+    public void testQueueMustUseSinglePartition() {
+        ModifiableConfiguration config = getConfiguration();
+        config.set(KCVSLogManager.LOG_MAX_PARTITIONS, 4, INDEX_QUEUE_LOG);
+        assertThrows(IllegalArgumentException.class, () -> JanusGraphFactory.open(config));
+
+        ModifiableConfiguration bucketConfig = getConfiguration();
+        bucketConfig.set(GraphDatabaseConfiguration.LOG_NUM_BUCKETS, 2, INDEX_QUEUE_LOG);
+        assertThrows(IllegalArgumentException.class, () -> JanusGraphFactory.open(bucketConfig));
+    }
+
+    @Test
+    public void testUpdatesOfDocumentAreCoalesced() {
+        final IndexEntry alice = new IndexEntry("name", "alice");
+        final IndexEntry bob = new IndexEntry("name", "bob");
+        final IndexEntry age = new IndexEntry("age", 42);
+
+        final IndexUpdateQueue.PendingDocument document = new IndexUpdateQueue.PendingDocument(true, false,
+            Collections.singletonList(alice), Collections.emptyList());
+        document.apply(new IndexUpdateQueue.PendingDocument(false, false,
+            Arrays.asList(bob, age), Collections.singletonList(alice)));
+        assertTrue(document.isNew);
+        assertEquals(Arrays.asList(bob, age), document.additions);
+        assertTrue(document.deletions.isEmpty());
+
+        document.apply(new IndexUpdateQueue.PendingDocument(false, true, Collections.emptyList(), Collections.emptyList()));
+        assertTrue(document.isDeleted);
+        assertFalse(document.isNew);
+        assertTrue(document.additions.isEmpty());
+
+        document.apply(new IndexUpdateQueue.PendingDocument(false, false,
+            Collections.singletonList(alice), Collections.singletonList(age)));
+        assertTrue(document.isNew);
+        assertFalse(document.isDeleted);
+        assertEquals(Collections.singletonList(alice), document.additions);
+        assertTrue(document.deletions.isEmpty());
+
+        final IndexUpdateQueue.PendingDocument existing = new IndexUpdateQueue.PendingDocument(false, false,
+            Collections.singletonList(alice), Collections.emptyList());
+        existing.apply(new IndexUpdateQueue.PendingDocument(false, false,
+            Collections.singletonList(bob), Collections.singletonList(alice)));
+        assertEquals(Collections.singletonList(bob), existing.additions);
+        assertEquals(Collections.singletonList(alice), existing.deletions);
+    }
+
+    /**
+     * Keeps the indexed documents in memory and optionally rejects mutations
+     */
+    public static class RecordingIndexProvider implements IndexProvider {
+
+        static final Map<String, Map<String, Map<String, Object>>> documents = new ConcurrentHashMap<>();
+        static final AtomicInteger failures = new AtomicInteger();
+
+        public RecordingIndexProvider(Configuration config) {
+        }
+
+        static int numDocuments() {
+            return documents.values().stream().mapToInt(Map::size).sum();
+        }
+
+        static Set<Object> values() {
+            final Set<Object> values = new HashSet<>();
+            documents.values().forEach(store -> store.values().forEach(doc -> values.addAll(doc.values())));
+            return values;
+        }
+
+        @Override
+        public void register(String store, String key, KeyInformation information, BaseTransaction tx) {
+        }
+
+        @Override
+        public synchronized void mutate(Map<String, Map<String, IndexMutation>> mutations,
+                                        KeyInformation.IndexRetriever information, BaseTransaction tx) throws BackendException {
+            if (failures.get() > 0) {
+                failures.decrementAndGet();
+                throw new TemporaryBackendException("Index unavailable");
+            }
+            mutations.forEach((store, docs) -> {
+                final Map<String, Map<String, Object>> storeDocuments = documents.computeIfAbsent(store, k -> new ConcurrentHashMap<>());
+                docs.forEach((id, mutation) -> {
+                    if (mutation.isDeleted()) {
+                        storeDocuments.remove(id);
+                        return;
+                    }
+                    final Map<String, Object> doc = mutation.isNew() ? new HashMap<>()
+                        : storeDocuments.getOrDefault(id, new HashMap<>());
+                    mutation.getDeletions().forEach(e -> doc.remove(e.field));
+                    mutation.getAdditions().forEach(e -> doc.put(e.field, e.value));
+                    if (doc.isEmpty()) storeDocuments.remove(id);
+                    else storeDocuments.put(id, doc);
+                });
+            });
+        }
+
+        @Override
+        public void restore(Map<String, Map<String, List<IndexEntry>>> documents, KeyInformation.IndexRetriever information,
+                            BaseTransaction tx) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Number queryAggregation(IndexQuery query, KeyInformation.IndexRetriever information, BaseTransaction tx,
+                                       Aggregation aggregation) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Stream<String> query(IndexQuery query, KeyInformation.IndexRetriever information, BaseTransaction tx) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Stream<RawQuery.Result<String>> query(RawQuery query, KeyInformation.IndexRetriever information,
+                                                     BaseTransaction tx) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Long totals(RawQuery query, KeyInformation.IndexRetriever information, BaseTransaction tx) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public BaseTransactionConfigurable beginTransaction(BaseTransactionConfig config) {
+            return new DefaultTransaction(config);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void clearStorage() {
+            documents.clear();
+        }
+
+        @Override
+        public void clearStore(String storeName) {
+            documents.remove(storeName);
+        }
+
+        @Override
+        public boolean exists() {
+            return !documents.isEmpty();
+        }
+
+        @Override
+        public boolean supports(KeyInformation information, JanusGraphPredicate janusgraphPredicate) {
+            return false;
+        }
+
+        @Override
+        public boolean supports(KeyInformation information) {
+            return true;
+        }
+
+        @Override
+        public String mapKey2Field(String key, KeyInformation information) {
+            return key;
+        }
+
+        @Override
+        public IndexFeatures getFeatures() {
+            return new IndexFeatures.Builder().build();
+        }
+    }
+}
@@ -14,6 +14,7 @@
 
 package org.janusgraph.graphdb.idmanagement;
 
+import com.codahale.metrics.Timer;
 import org.easymock.EasyMock;
 import org.easymock.IMocksControl;
 import org.janusgraph.core.JanusGraphException;
@@ -22,16 +23,26 @@ import org.janusgraph.diskstorage.IDAuthority;
 import org.janusgraph.diskstorage.IDBlock;
 import org.janusgraph.diskstorage.TemporaryBackendException;
 import org.janusgraph.diskstorage.keycolumnvalue.KeyRange;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
 import org.janusgraph.graphdb.database.idassigner.IDBlockSizer;
 import org.janusgraph.graphdb.database.idassigner.IDPoolExhaustedException;
+import org.janusgraph.graphdb.database.idassigner.LeasingIDPool;
 import org.janusgraph.graphdb.database.idassigner.StandardIDPool;
 import org.janusgraph.graphdb.util.IntHashSet;
 import org.janusgraph.graphdb.util.IntSet;
+import org.janusgraph.util.stats.MetricManager;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.easymock.EasyMock.expect;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -66,6 +77,161 @@ public class IDPoolTest {
         testIDPoolWith(partitionID -> new StandardIDPool(idAuthority, partitionID, partitionID, Integer.MAX_VALUE, Duration.ofMillis(2000), 0.2), 10, 20, 100000);
     }
 
+    @Test
+    public void testStandardIDPoolUnderContention() throws InterruptedException {
+        final AtomicInteger numBlocks = new AtomicInteger();
+        final MockIDAuthority idAuthority = new MockIDAuthority(200) {
+            @Override
+            public IDBlock getIDBlock(int partition, int idNamespace, Duration timeout) throws BackendException {
+                numBlocks.incrementAndGet();
+                return super.getIDBlock(partition, idNamespace, timeout);
+            }
+        };
+        testIDPoolWith(partitionID -> new StandardIDPool(idAuthority, partitionID, partitionID, Integer.MAX_VALUE, Duration.ofMillis(2000), 0.2), 1, 32, 10000);
+        // every block is renewed exactly once, only the last prefetched block remains unused
+        assertTrue(numBlocks.get() <= 32 * 10000 / 200 + 1, "Blocks acquired: " + numBlocks.get());
+    }
+
+    @Test
+    public void testStandardIDPoolPrefetchesBlocksConcurrently() throws InterruptedException {
+        final AtomicInteger acquiring = new AtomicInteger();
+        final AtomicInteger maxAcquiring = new AtomicInteger();
+        final MockIDAuthority idAuthority = new MockIDAuthority(200, Integer.MAX_VALUE, 20) {
+            @Override
+            public IDBlock getIDBlock(int partition, int idNamespace, Duration timeout) throws BackendException {
+                maxAcquiring.accumulateAndGet(acquiring.incrementAndGet(), Math::max);
+                try {
+                    return super.getIDBlock(partition, idNamespace, timeout);
+                } finally {
+                    acquiring.decrementAndGet();
+                }
+            }
+        };
+        final String metricsName = "prefetchtest";
+        final Timer stalls = MetricManager.INSTANCE.getTimer(GraphDatabaseConfiguration.METRICS_SYSTEM_PREFIX_DEFAULT,
+            StandardIDPool.METRICS_NAME, metricsName, StandardIDPool.M_STALL);
+        final long initialStalls = stalls.getCount();
+        final StandardIDPool idPool = new StandardIDPool(idAuthority, 0, 0, Integer.MAX_VALUE, Duration.ofMillis(2000),
+            0.5, 4, metricsName);
+        final Set<Long> ids = ConcurrentHashMap.newKeySet();
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int attempt = 0; attempt < 2000; attempt++) ids.add(idPool.nextID());
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) thread.join();
+        idPool.close();
+
+        // prefetched blocks may complete out of order, but no id is handed out twice
+        assertEquals(threads.length * 2000, ids.size());
+        assertTrue(maxAcquiring.get() > 1);
+        assertTrue(maxAcquiring.get() <= 4);
+        // at least the acquisition of the first block stalls
+        assertTrue(stalls.getCount() > initialStalls);
+    }
+
+    @Test
+    public void testStandardIDPoolRecordsConsumption() {
+        final List<Long> consumed = new ArrayList<>();
+        final IDBlockSizer recorder = new IDBlockSizer() {
+            @Override
+            public long getBlockSize(int idNamespace) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public long getIdUpperBound(int idNamespace) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void recordConsumption(int partition, int idNamespace, long numIds, Duration duration) {
+                assertEquals(3, partition);
+                assertFalse(duration.isNegative());
+                consumed.add(numIds);
+            }
+        };
+        final StandardIDPool idPool = new StandardIDPool(new MockIDAuthority(200), 3, 0, Integer.MAX_VALUE,
+            Duration.ofMillis(2000), 0.5, 1, null, recorder);
+        for (int i = 0; i < 400; i++) idPool.nextID();
+        idPool.close();
+
+        // the ids handed out when the next block is acquired and when a block is exhausted
+        assertEquals(Arrays.asList(100L, 200L, 100L), consumed);
+    }
+
+    @Test
+    public void testLeasingIDPoolHandsOutUniqueIDs() throws InterruptedException {
+        final AtomicInteger numBlocks = new AtomicInteger();
+        final MockIDAuthority idAuthority = new MockIDAuthority(1000) {
+            @Override
+            public IDBlock getIDBlock(int partition, int idNamespace, Duration timeout) throws BackendException {
+                numBlocks.incrementAndGet();
+                return super.getIDBlock(partition, idNamespace, timeout);
+            }
+        };
+        final LeasingIDPool idPool = new LeasingIDPool(new StandardIDPool(idAuthority, 0, 0, Integer.MAX_VALUE,
+            Duration.ofMillis(2000), 0.2), 64);
+        final Set<Long> ids = ConcurrentHashMap.newKeySet();
+        final Thread[] threads = new Thread[16];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int attempt = 0; attempt < 5000; attempt++) ids.add(idPool.nextID());
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) thread.join();
+        idPool.close();
+
+        assertEquals(threads.length * 5000, ids.size());
+        // every thread leaves at most one partially used lease behind
+        assertTrue(numBlocks.get() <= (threads.length * (5000 + 64)) / 1000 + 2, "Blocks acquired: " + numBlocks.get());
+    }
+
+    @Test
+    public void testLeasingIDPoolCloseInvalidatesLeasesOfAllThreads() throws InterruptedException {
+        final LeasingIDPool idPool = new LeasingIDPool(new StandardIDPool(new MockIDAuthority(1000), 0, 0,
+            Integer.MAX_VALUE, Duration.ofMillis(2000), 0.2), 64);
+        final CountDownLatch leased = new CountDownLatch(1);
+        final CountDownLatch closed = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread thread = new Thread(() -> {
+            idPool.nextID();
+            leased.countDown();
+            try {
+                closed.await();
+                idPool.nextID();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        thread.start();
+        leased.await();
+        idPool.close();
+        closed.countDown();
+        thread.join();
+
+        assertTrue(failure.get() instanceof IllegalStateException, "Failure: " + failure.get());
+    }
+
+    @Test
+    public void testLeasingIDPoolExhaustion() {
+        final int idUpper = 10000;
+        final LeasingIDPool pool = new LeasingIDPool(new StandardIDPool(new MockIDAuthority(200), 0, 1, idUpper,
+            Duration.ofMillis(2000), 0.2), 64);
+        for (int i = 1; i < idUpper * 2; i++) {
+            try {
+                long id = pool.nextID();
+                assertTrue(id < idUpper);
+            } catch (IDPoolExhaustedException e) {
+                assertEquals(idUpper, i);
+                break;
+            }
+        }
+    }
+
     private void testIDPoolWith(IDPoolFactory poolFactory, final int numPartitions,
                                        final int numThreads, final int attemptsPerThread) throws InterruptedException {
         final Random random = new Random();
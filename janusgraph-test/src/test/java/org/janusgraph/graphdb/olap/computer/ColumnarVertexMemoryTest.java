@@ -0,0 +1,199 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.olap.computer;
+
+import org.apache.tinkerpop.gremlin.process.computer.ComputerResult;
+import org.apache.tinkerpop.gremlin.process.computer.GraphComputer;
+import org.apache.tinkerpop.gremlin.process.computer.MessageScope;
+import org.apache.tinkerpop.gremlin.process.computer.ranking.pagerank.PageRankVertexProgram;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.janusgraph.core.JanusGraph;
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.core.JanusGraphVertex;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.inmemory.InMemoryStoreManager;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.graphdb.database.StandardJanusGraph;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ColumnarVertexMemoryTest {
+
+    // transient compute key of the PageRank vertex program
+    private static final String EDGE_COUNT = "gremlin.pageRankVertexProgram.edgeCount";
+    private static final Set<MessageScope> GLOBAL = Collections.singleton(MessageScope.Global.instance());
+
+    private StandardJanusGraph graph;
+
+    @BeforeEach
+    public void setUp() {
+        final ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        config.set(GraphDatabaseConfiguration.STORAGE_BACKEND, InMemoryStoreManager.class.getCanonicalName());
+        graph = (StandardJanusGraph) JanusGraphFactory.open(config);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (graph != null) graph.close();
+    }
+
+    private ColumnarVertexMemory<Double> newMemory(boolean offHeap) {
+        return new ColumnarVertexMemory<>(100, graph.getIDManager(), PageRankVertexProgram.build().create(graph), offHeap);
+    }
+
+    private static long vertexId(int i) {
+        // sparse vertex ids, which are mapped to dense ordinals
+        return 1L + i * 1031L;
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testPropertiesAreStoredInColumns(boolean offHeap) {
+        final ColumnarVertexMemory<Double> memory = newMemory(offHeap);
+        final int numVertices = 2 * LongColumn.PAGE_SIZE + 10;
+        for (int i = 0; i < numVertices; i++) {
+            memory.setProperty(vertexId(i), PageRankVertexProgram.PAGE_RANK, i / 2.0);
+            memory.setProperty(vertexId(i), EDGE_COUNT, (long) i);
+        }
+        assertEquals(numVertices, memory.getNumVertices());
+        assertEquals(0, memory.getNumObjectValues());
+        for (int i = 0; i < numVertices; i++) {
+            assertEquals(i / 2.0, (Double) memory.getProperty(vertexId(i), PageRankVertexProgram.PAGE_RANK));
+            assertEquals((long) i, (Long) memory.getProperty(vertexId(i), EDGE_COUNT));
+        }
+        assertNull(memory.getProperty(vertexId(numVertices), PageRankVertexProgram.PAGE_RANK));
+
+        // values of a different type than the first value of a column are held as objects
+        memory.setProperty(vertexId(3), PageRankVertexProgram.PAGE_RANK, "rank");
+        memory.setProperty(vertexId(4), PageRankVertexProgram.PAGE_RANK, null);
+        assertEquals("rank", memory.getProperty(vertexId(3), PageRankVertexProgram.PAGE_RANK));
+        assertNull(memory.getProperty(vertexId(4), PageRankVertexProgram.PAGE_RANK));
+        assertEquals(1, memory.getNumObjectValues());
+        memory.setProperty(vertexId(3), PageRankVertexProgram.PAGE_RANK, 1.5);
+        assertEquals(1.5, (Double) memory.getProperty(vertexId(3), PageRankVertexProgram.PAGE_RANK));
+        assertEquals(0, memory.getNumObjectValues());
+
+        final Map<Object, Map<String, Object>> properties = memory.getMutableVertexProperties();
+        assertEquals(numVertices, properties.size());
+        assertEquals(Collections.singletonMap(EDGE_COUNT, 4L), properties.get(vertexId(4)));
+        assertEquals(numVertices, properties.entrySet().stream().filter(e -> e.getValue().size() >= 1).count());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testVertexIdsAreMappedToDenseOrdinals(boolean offHeap) {
+        final VertexOrdinals ordinals = new VertexOrdinals(10, offHeap);
+        final long initialBytes = ordinals.getAllocatedBytes();
+        final int numVertices = 100000;
+        for (int i = 0; i < numVertices; i++) assertEquals(i, ordinals.getOrCreate(vertexId(i)));
+        for (int i = 0; i < numVertices; i++) {
+            assertEquals(i, ordinals.getOrCreate(vertexId(i)));
+            assertEquals(i, ordinals.get(vertexId(i)));
+            assertEquals(vertexId(i), ordinals.getVertexId(i));
+        }
+        assertEquals(-1, ordinals.get(vertexId(numVertices)));
+        assertEquals(numVertices, ordinals.size());
+        // the tables grew with the number of vertices
+        assertTrue(ordinals.getAllocatedBytes() > initialBytes + numVertices * Integer.BYTES);
+    }
+
+    @Test
+    public void testMessagesAreCombinedAndSwapped() throws Exception {
+        final ColumnarVertexMemory<Double> memory = newMemory(false);
+        final int numVertices = 1000;
+        final int numThreads = 8;
+
+        for (int iteration = 1; iteration <= 3; iteration++) {
+            memory.nextIteration(GLOBAL);
+            final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+            final int weight = iteration;
+            for (int t = 0; t < numThreads; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < numVertices; i++) {
+                        memory.sendMessage(vertexId(i), (double) weight, MessageScope.Global.instance());
+                    }
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+            if (iteration > 1) {
+                // messages of the previous iteration are still received while the current one is in progress
+                assertEquals(Collections.singletonList(numThreads * (iteration - 1.0)),
+                    memory.getMessage(vertexId(7), MessageScope.Global.instance()).collect(Collectors.toList()));
+            }
+            memory.completeIteration();
+            for (int i = 0; i < numVertices; i++) {
+                assertEquals(Collections.singletonList(numThreads * (double) iteration),
+                    memory.getMessage(vertexId(i), MessageScope.Global.instance()).collect(Collectors.toList()));
+            }
+        }
+        assertEquals(0, memory.getMessage(vertexId(numVertices), MessageScope.Global.instance()).count());
+
+        final long allocated = memory.getAllocatedBytes();
+        memory.nextIteration(GLOBAL);
+        memory.completeIteration();
+        // message columns are reused across iterations
+        assertEquals(allocated, memory.getAllocatedBytes());
+        assertEquals(0, memory.getMessage(vertexId(7), MessageScope.Global.instance()).count());
+    }
+
+    private Map<Object, Object> computePageRanks(boolean columnar, boolean offHeap) throws Exception {
+        final ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        config.set(GraphDatabaseConfiguration.STORAGE_BACKEND, InMemoryStoreManager.class.getCanonicalName());
+        config.set(GraphDatabaseConfiguration.COMPUTER_COLUMNAR_VERTEX_MEMORY, columnar);
+        config.set(GraphDatabaseConfiguration.COMPUTER_COLUMNAR_VERTEX_MEMORY_OFF_HEAP, offHeap);
+        try (JanusGraph graph = JanusGraphFactory.open(config)) {
+            final JanusGraphVertex[] vertices = new JanusGraphVertex[50];
+            for (int i = 0; i < vertices.length; i++) vertices[i] = graph.addVertex("name", "v" + i);
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i].addEdge("link", vertices[(i + 1) % vertices.length]);
+                vertices[i].addEdge("link", vertices[(i * 7) % vertices.length]);
+            }
+            graph.tx().commit();
+
+            final ComputerResult result = graph.compute().program(PageRankVertexProgram.build().iterations(10).create(graph))
+                .result(GraphComputer.ResultGraph.NEW).persist(GraphComputer.Persist.VERTEX_PROPERTIES).submit().get();
+            final Map<Object, Object> ranks = new HashMap<>();
+            result.graph().vertices().forEachRemaining(
+                (Vertex v) -> ranks.put(v.value("name"), v.value(PageRankVertexProgram.PAGE_RANK)));
+            result.close();
+            return ranks;
+        }
+    }
+
+    @Test
+    public void testPageRankWithColumnarVertexMemory() throws Exception {
+        final Map<Object, Object> expected = computePageRanks(false, false);
+        assertEquals(50, expected.size());
+        assertEquals(expected, computePageRanks(true, false));
+        assertEquals(expected, computePageRanks(true, true));
+    }
+}
@@ -0,0 +1,195 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.olap.computer;
+
+import org.apache.tinkerpop.gremlin.process.computer.ComputerResult;
+import org.apache.tinkerpop.gremlin.process.computer.GraphComputer;
+import org.apache.tinkerpop.gremlin.process.computer.Memory;
+import org.apache.tinkerpop.gremlin.process.computer.MemoryComputeKey;
+import org.apache.tinkerpop.gremlin.process.computer.MessageScope;
+import org.apache.tinkerpop.gremlin.process.computer.Messenger;
+import org.apache.tinkerpop.gremlin.process.computer.VertexComputeKey;
+import org.apache.tinkerpop.gremlin.process.computer.util.StaticVertexProgram;
+import org.apache.tinkerpop.gremlin.process.traversal.Operator;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.janusgraph.core.JanusGraph;
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.core.JanusGraphVertex;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.inmemory.InMemoryStoreManager;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FulgoraFrontierTest {
+
+    private static final int PATH_LENGTH = 30;
+    private static final int NUM_UNREACHABLE = 300;
+
+    /**
+     * Breadth-first search along outgoing "next" edges from the vertices with a "source" property, which only acts on
+     * vertices that receive a message and counts the vertices it is executed on.
+     */
+    public static class DistanceVertexProgram extends StaticVertexProgram<Long> {
+
+        static final String DISTANCE = "janusgraph.test.distance";
+        static final String PROCESSED = "janusgraph.test.processed";
+        static final String HALT = "janusgraph.test.halt";
+
+        private static final MessageScope.Local<Long> OUT = MessageScope.Local.of(() -> __.outE("next"));
+
+        @Override
+        public void setup(Memory memory) {
+            memory.set(PROCESSED, 0L);
+            memory.set(HALT, true);
+        }
+
+        @Override
+        public void execute(Vertex vertex, Messenger<Long> messenger, Memory memory) {
+            memory.add(PROCESSED, 1L);
+            long distance = Long.MAX_VALUE;
+            if (memory.isInitialIteration()) {
+                if (vertex.property("source").isPresent()) distance = 0;
+            } else {
+                final Iterator<Long> messages = messenger.receiveMessages();
+                while (messages.hasNext()) distance = Math.min(distance, messages.next());
+            }
+            final VertexProperty<Long> current = vertex.property(DISTANCE);
+            if (distance < Long.MAX_VALUE && (!current.isPresent() || distance < current.value())) {
+                vertex.property(VertexProperty.Cardinality.single, DISTANCE, distance);
+                messenger.sendMessage(OUT, distance + 1);
+                memory.add(HALT, false);
+            }
+        }
+
+        @Override
+        public boolean terminate(Memory memory) {
+            if (memory.<Boolean>get(HALT)) return true;
+            memory.set(HALT, true);
+            return false;
+        }
+
+        @Override
+        public Set<VertexComputeKey> getVertexComputeKeys() {
+            return Collections.singleton(VertexComputeKey.of(DISTANCE, false));
+        }
+
+        @Override
+        public Set<MemoryComputeKey> getMemoryComputeKeys() {
+            return new HashSet<>(Arrays.asList(MemoryComputeKey.of(PROCESSED, Operator.sum, false, false),
+                MemoryComputeKey.of(HALT, Operator.and, false, true)));
+        }
+
+        @Override
+        public Set<MessageScope> getMessageScopes(Memory memory) {
+            return Collections.singleton(OUT);
+        }
+
+        @Override
+        public GraphComputer.ResultGraph getPreferredResultGraph() {
+            return GraphComputer.ResultGraph.NEW;
+        }
+
+        @Override
+        public GraphComputer.Persist getPreferredPersist() {
+            return GraphComputer.Persist.VERTEX_PROPERTIES;
+        }
+    }
+
+    private static class Result {
+
+        private final Map<Object, Object> distances = new HashMap<>();
+        private long processed;
+    }
+
+    private Result computeDistances(boolean frontier, long frontierMaxSize, boolean columnar) throws Exception {
+        final ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        config.set(GraphDatabaseConfiguration.STORAGE_BACKEND, InMemoryStoreManager.class.getCanonicalName());
+        config.set(GraphDatabaseConfiguration.COMPUTER_FRONTIER, frontier);
+        config.set(GraphDatabaseConfiguration.COMPUTER_FRONTIER_MAX_SIZE, frontierMaxSize);
+        config.set(GraphDatabaseConfiguration.COMPUTER_COLUMNAR_VERTEX_MEMORY, columnar);
+        try (JanusGraph graph = JanusGraphFactory.open(config)) {
+            final JanusGraphVertex[] path = new JanusGraphVertex[PATH_LENGTH];
+            for (int i = 0; i < path.length; i++) path[i] = graph.addVertex("name", "p" + i);
+            path[0].property("source", true);
+            for (int i = 1; i < path.length; i++) {
+                path[i - 1].addEdge("next", path[i]);
+                // shortcuts, and edges which are not followed by the search
+                if (i % 10 == 0) path[0].addEdge("next", path[i]);
+                path[i].addEdge("back", path[i - 1]);
+            }
+            JanusGraphVertex previous = null;
+            for (int i = 0; i < NUM_UNREACHABLE; i++) {
+                final JanusGraphVertex vertex = graph.addVertex("name", "u" + i);
+                if (previous != null) previous.addEdge("next", vertex);
+                previous = vertex;
+            }
+            graph.tx().commit();
+
+            final ComputerResult computerResult = graph.compute().program(new DistanceVertexProgram()).submit().get();
+            final Result result = new Result();
+            computerResult.graph().vertices().forEachRemaining(v -> {
+                if (v.property(DistanceVertexProgram.DISTANCE).isPresent()) {
+                    result.distances.put(v.value("name"), v.value(DistanceVertexProgram.DISTANCE));
+                }
+            });
+            result.processed = computerResult.memory().<Long>get(DistanceVertexProgram.PROCESSED);
+            computerResult.close();
+            return result;
+        }
+    }
+
+    @Test
+    public void testIterationsRunOnActiveVerticesOnly() throws Exception {
+        final Result expected = computeDistances(false, 0, false);
+        assertEquals(PATH_LENGTH, expected.distances.size());
+        assertEquals(0L, expected.distances.get("p0"));
+        assertEquals(1L, expected.distances.get("p10"));
+        assertEquals(10L, expected.distances.get("p19"));
+        final long numVertices = PATH_LENGTH + NUM_UNREACHABLE;
+        assertTrue(expected.processed > 9 * numVertices);
+
+        final Result frontier = computeDistances(true, 1000, false);
+        assertEquals(expected.distances, frontier.distances);
+        // all vertices in the first iteration, then only those that received a message
+        assertTrue(frontier.processed < numVertices + 2 * PATH_LENGTH, "Processed " + frontier.processed);
+
+        final Result columnar = computeDistances(true, 1000, true);
+        assertEquals(expected.distances, columnar.distances);
+        assertEquals(frontier.processed, columnar.processed);
+    }
+
+    @Test
+    public void testLargeFrontierFallsBackToFullScan() throws Exception {
+        final Result expected = computeDistances(false, 0, false);
+        // iterations after the first one reaching three vertices scan all vertices
+        final Result frontier = computeDistances(true, 2, false);
+        assertEquals(expected.distances, frontier.distances);
+        assertTrue(frontier.processed > 2 * (PATH_LENGTH + NUM_UNREACHABLE));
+        assertTrue(frontier.processed < expected.processed);
+    }
+}
@@ -48,6 +48,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import static org.apache.tinkerpop.gremlin.process.traversal.Order.desc;
 import static org.apache.tinkerpop.gremlin.process.traversal.P.not;
 import static org.janusgraph.testutil.JanusGraphAssert.assertBackendHit;
 import static org.janusgraph.testutil.JanusGraphAssert.assertCount;
@@ -517,4 +518,42 @@ public class QueryTest {
         assertTrue(g.E().has("duration", P.eq(0.2d).or(not(P.outside(0.3d, 0.4d)))).hasNext());
         assertFalse(g.E().has("duration", P.eq(0d).or(not(P.outside(0.3d, 0.4d)))).hasNext());
     }
+
+    @Test
+    public void testOrderedVertexCentricQueryWithLimitOnNonSortKey() {
+        PropertyKey time = tx.makePropertyKey("time").dataType(Integer.class).make();
+        tx.makeEdgeLabel("follows").make();
+        JanusGraphVertex v = tx.addVertex();
+        int numEdges = 200;
+        for (int i = 0; i < numEdges; i++) {
+            JanusGraphVertex u = tx.addVertex();
+            v.addEdge("follows", u, "time", (i * 37) % numEdges, "group", i % 3);
+        }
+        tx.commit();
+
+        tx = graph.newTransaction();
+        GraphTraversalSource g = tx.traversal();
+        v = tx.getVertex(v.id());
+        assertTopTimes(g, v, numEdges - 1, 10);
+        assertTopTimes(g, v, numEdges - 1, numEdges + 5);
+
+        // filtered query, only every third edge remains
+        List<Object> times = g.V(v).local(__.outE("follows").has("group", 0).order().by("time", desc).limit(5)).values("time").toList();
+        List<Object> expected = g.V(v).outE("follows").has("group", 0).values("time").order().by(desc).limit(5).toList();
+        assertEquals(expected, times);
+
+        // modifications of the vertex in this transaction need to be reflected in the top elements
+        g.V(v).outE("follows").has("time", numEdges - 1).drop().iterate();
+        v.addEdge("follows", tx.addVertex(), "time", numEdges + 1);
+        List<Object> top = g.V(v).local(__.outE("follows").order().by("time", desc).limit(3)).values("time").toList();
+        assertEquals(Arrays.asList(numEdges + 1, numEdges - 2, numEdges - 3), top);
+    }
+
+    private void assertTopTimes(GraphTraversalSource g, Vertex v, int maxTime, int limit) {
+        List<Object> times = g.V(v).local(__.outE("follows").order().by("time", desc).limit(limit)).values("time").toList();
+        assertEquals(Math.min(limit, maxTime + 1), times.size());
+        for (int i = 0; i < times.size(); i++) {
+            assertEquals(maxTime - i, times.get(i));
+        }
+    }
 }
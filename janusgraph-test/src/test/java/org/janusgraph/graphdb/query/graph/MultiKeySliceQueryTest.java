@@ -0,0 +1,130 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.query.graph;
+
+import org.janusgraph.diskstorage.BackendTransaction;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.keycolumnvalue.KeySliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.diskstorage.util.StaticArrayEntry;
+import org.janusgraph.diskstorage.util.StaticArrayEntryList;
+import org.janusgraph.graphdb.query.profile.QueryProfiler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MultiKeySliceQueryTest {
+
+    private BackendTransaction tx;
+
+    @BeforeEach
+    public void setUp() {
+        tx = Mockito.mock(BackendTransaction.class);
+        when(tx.indexQuery(any(KeySliceQuery.class))).thenAnswer(invocation ->
+            entries(((KeySliceQuery) invocation.getArgument(0)).getKey()));
+        when(tx.indexMultiQuery(any(), any(SliceQuery.class))).thenAnswer(invocation -> {
+            final Map<StaticBuffer, EntryList> result = new HashMap<>();
+            for (StaticBuffer key : (List<StaticBuffer>) invocation.getArgument(0)) {
+                result.put(key, entries(key));
+            }
+            return result;
+        });
+    }
+
+    private static EntryList entries(StaticBuffer key) {
+        return StaticArrayEntryList.of(StaticArrayEntry.of(key, key));
+    }
+
+    private static MultiKeySliceQuery query(int... keys) {
+        final List<KeySliceQuery> queries = new ArrayList<>();
+        for (int key : keys) {
+            queries.add(new KeySliceQuery(BufferUtil.getIntBuffer(key), BufferUtil.zeroBuffer(1), BufferUtil.oneBuffer(1)));
+        }
+        return new MultiKeySliceQuery(queries);
+    }
+
+    private static List<StaticBuffer> keysOf(List<EntryList> results) {
+        final List<StaticBuffer> keys = new ArrayList<>();
+        results.forEach(r -> r.forEach(e -> keys.add(e.getColumn())));
+        return keys;
+    }
+
+    private static List<StaticBuffer> buffers(int... keys) {
+        return Arrays.stream(keys).mapToObj(BufferUtil::getIntBuffer).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testDuplicateKeysAreRetrievedOnce() {
+        final List<EntryList> results = query(3, 1, 3, 2, 1).execute(tx, 100, QueryProfiler.NO_OP);
+        assertEquals(buffers(3, 1, 2), keysOf(results));
+
+        final ArgumentCaptor<List<StaticBuffer>> keys = ArgumentCaptor.forClass(List.class);
+        verify(tx, times(1)).indexMultiQuery(keys.capture(), any(SliceQuery.class));
+        assertEquals(buffers(3, 1, 2), keys.getValue());
+        verify(tx, never()).indexQuery(any(KeySliceQuery.class));
+    }
+
+    @Test
+    public void testKeysAreRetrievedInBatches() {
+        final List<EntryList> results = query(1, 2, 3, 4, 5).execute(tx, 2, QueryProfiler.NO_OP);
+        assertEquals(buffers(1, 2, 3, 4, 5), keysOf(results));
+        verify(tx, times(2)).indexMultiQuery(any(), any(SliceQuery.class));
+        verify(tx, times(1)).indexQuery(any(KeySliceQuery.class));
+    }
+
+    @Test
+    public void testLimitBoundsRetrievedKeys() {
+        final MultiKeySliceQuery query = query(1, 2, 3, 4, 5, 6, 7, 8, 9, 10).updateLimit(3);
+        final List<EntryList> results = query.execute(tx, 100, QueryProfiler.NO_OP);
+        assertEquals(buffers(1, 2, 3), keysOf(results));
+
+        final ArgumentCaptor<List<StaticBuffer>> keys = ArgumentCaptor.forClass(List.class);
+        verify(tx, times(1)).indexMultiQuery(keys.capture(), any(SliceQuery.class));
+        assertEquals(3, keys.getValue().size());
+    }
+
+    @Test
+    public void testBatchIsTrimmedToLimit() {
+        when(tx.indexMultiQuery(any(), any(SliceQuery.class))).thenAnswer(invocation -> {
+            final Map<StaticBuffer, EntryList> result = new HashMap<>();
+            for (StaticBuffer key : (List<StaticBuffer>) invocation.getArgument(0)) {
+                result.put(key, StaticArrayEntryList.of(StaticArrayEntry.of(key, key),
+                    StaticArrayEntry.of(BufferUtil.getIntBuffer(-1), key)));
+            }
+            return result;
+        });
+        final List<EntryList> results = query(1, 2, 3).updateLimit(3).execute(tx, 100, QueryProfiler.NO_OP);
+        assertEquals(2, results.size());
+        assertEquals(3, results.stream().mapToInt(EntryList::size).sum());
+        assertEquals(buffers(1, -1, 2), keysOf(results));
+    }
+}
@@ -0,0 +1,193 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.query.vertex;
+
+import com.google.common.collect.Iterables;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.janusgraph.core.JanusGraph;
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.core.JanusGraphTransaction;
+import org.janusgraph.core.JanusGraphVertex;
+import org.janusgraph.core.schema.JanusGraphManagement;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.inmemory.InMemoryStoreManager;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.graphdb.internal.InternalVertex;
+import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
+import org.janusgraph.graphdb.transaction.StandardTransactionBuilder;
+import org.janusgraph.graphdb.types.system.BaseKey;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.janusgraph.testutil.JanusGraphAssert.assertBackendHit;
+import static org.janusgraph.testutil.JanusGraphAssert.assertCount;
+import static org.janusgraph.testutil.JanusGraphAssert.assertNoBackendHit;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdjacencySummaryTest {
+
+    private JanusGraph graph;
+
+    @BeforeEach
+    public void setup() {
+        ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        config.set(GraphDatabaseConfiguration.STORAGE_BACKEND, InMemoryStoreManager.class.getCanonicalName());
+        config.set(GraphDatabaseConfiguration.ADJACENCY_SUMMARY, true);
+        graph = JanusGraphFactory.open(config);
+        JanusGraphManagement mgmt = graph.openManagement();
+        mgmt.makeEdgeLabel("knows").make();
+        mgmt.makeEdgeLabel("likes").make();
+        mgmt.commit();
+    }
+
+    @AfterEach
+    public void shutdown() {
+        if (graph != null && graph.isOpen()) graph.close();
+    }
+
+    @Test
+    public void testOptionCannotBeChanged() {
+        JanusGraphManagement mgmt = graph.openManagement();
+        assertThrows(IllegalArgumentException.class, () -> mgmt.set("query.adjacency-summary", false));
+        mgmt.rollback();
+    }
+
+    @Test
+    public void testAdjacencyChecks() {
+        JanusGraphTransaction tx = graph.newTransaction();
+        JanusGraphVertex a = tx.addVertex(), b = tx.addVertex(), c = tx.addVertex();
+        a.addEdge("knows", b);
+        b.addEdge("likes", b);
+        tx.commit();
+
+        tx = graph.newTransaction();
+        a = tx.getVertex(a.id());
+        b = tx.getVertex(b.id());
+        c = tx.getVertex(c.id());
+        assertEquals(1, Iterables.size(a.query().direction(Direction.OUT).labels("knows").adjacent(b).edges()));
+        assertEquals(1, Iterables.size(b.query().direction(Direction.IN).labels("knows").adjacent(a).edges()));
+        assertEquals(1, Iterables.size(b.query().labels("knows", "likes").adjacent(a).edges()));
+        assertEquals(2, Iterables.size(b.query().labels("likes").adjacent(b).edges()));
+        assertEquals(0, Iterables.size(a.query().direction(Direction.IN).labels("knows").adjacent(b).edges()));
+        assertEquals(0, Iterables.size(a.query().labels("likes").adjacent(b).edges()));
+        assertEquals(0, Iterables.size(a.query().labels("knows").adjacent(c).edges()));
+        assertEquals(0, Iterables.size(c.query().labels("knows").adjacent(a).edges()));
+
+        GraphTraversalSource g = tx.traversal();
+        assertCount(1, g.V(a).out("knows").hasId(b.id()));
+        assertCount(0, g.V(a).out("knows").hasId(c.id()));
+        assertCount(1, g.V(a, c).out("knows").hasId(b.id()));
+        assertCount(0, g.V(a, b, c).out("knows").hasId(c.id()));
+        tx.rollback();
+    }
+
+    @Test
+    public void testNegativeCheckAvoidsBackend() {
+        JanusGraphTransaction tx = graph.newTransaction();
+        JanusGraphVertex a = tx.addVertex(), b = tx.addVertex(), c = tx.addVertex(), d = tx.addVertex();
+        a.addEdge("knows", b);
+        tx.commit();
+
+        for (boolean batch : new boolean[]{true, false}) {
+            tx = ((StandardTransactionBuilder) graph.buildTransaction()).multiQuery(batch).start();
+            GraphTraversalSource g = tx.traversal();
+            assertCount(0, g.V(a.id()).out("knows").hasId(c.id()));
+            assertNoBackendHit(g.V(a.id()).out("knows").hasId(d.id()).profile().next());
+            assertBackendHit(g.V(a.id()).out("knows").hasId(b.id()).profile().next());
+            tx.rollback();
+        }
+    }
+
+    @Test
+    public void testSummariesAreMaintainedAcrossTransactions() {
+        JanusGraphTransaction tx = graph.newTransaction();
+        Object a = tx.addVertex().id();
+        tx.commit();
+
+        int numCommits = 2 * AdjacencySummary.COMPACTION_THRESHOLD + 1;
+        List<Object> adjacent = new ArrayList<>();
+        for (int i = 0; i < numCommits; i++) {
+            tx = graph.newTransaction();
+            JanusGraphVertex v = tx.addVertex();
+            tx.getVertex(a).addEdge("knows", v);
+            tx.commit();
+            adjacent.add(v.id());
+        }
+
+        tx = graph.newTransaction();
+        JanusGraphVertex other = tx.addVertex();
+        tx.commit();
+
+        tx = graph.newTransaction();
+        JanusGraphVertex vertex = tx.getVertex(a);
+        for (Object id : adjacent) {
+            assertEquals(1, Iterables.size(vertex.query().direction(Direction.OUT).labels("knows").adjacent(tx.getVertex(id)).edges()));
+            assertEquals(1, Iterables.size(tx.getVertex(id).query().direction(Direction.IN).labels("knows").adjacent(vertex).edges()));
+        }
+        assertEquals(0, Iterables.size(vertex.query().labels("knows").adjacent(tx.getVertex(other.id())).edges()));
+        int numSummaries = Iterables.size(((StandardJanusGraphTx) tx).query((InternalVertex) vertex)
+            .type(BaseKey.AdjacencySummary).properties());
+        assertTrue(numSummaries <= AdjacencySummary.COMPACTION_THRESHOLD + 1, "Summaries were not compacted: " + numSummaries);
+        assertFalse(vertex.properties().hasNext());
+        tx.rollback();
+    }
+
+    @Test
+    public void testVerticesWithoutSummaryAreQueried() {
+        JanusGraphTransaction tx = graph.newTransaction();
+        JanusGraphVertex a = tx.addVertex(), b = tx.addVertex();
+        a.addEdge("knows", b);
+        tx.commit();
+
+        //Dropping the completeness marker simulates a vertex which was created before summaries got enabled
+        tx = graph.newTransaction();
+        ((StandardJanusGraphTx) tx).query((InternalVertex) tx.getVertex(a.id())).type(BaseKey.AdjacencySummary).properties()
+            .forEach(p -> p.remove());
+        tx.commit();
+
+        tx = graph.newTransaction();
+        assertEquals(1, Iterables.size(tx.getVertex(a.id()).query().labels("knows").adjacent(tx.getVertex(b.id())).edges()));
+        tx.rollback();
+    }
+
+    @Test
+    public void testNoSummariesAreWrittenWhenDisabled() {
+        graph.close();
+        ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        config.set(GraphDatabaseConfiguration.STORAGE_BACKEND, InMemoryStoreManager.class.getCanonicalName());
+        graph = JanusGraphFactory.open(config);
+        graph.openManagement().makeEdgeLabel("knows").make();
+        graph.tx().commit();
+
+        JanusGraphTransaction tx = graph.newTransaction();
+        JanusGraphVertex a = tx.addVertex(), b = tx.addVertex();
+        a.addEdge("knows", b);
+        tx.commit();
+
+        tx = graph.newTransaction();
+        InternalVertex vertex = (InternalVertex) tx.getVertex(a.id());
+        assertEquals(0, Iterables.size(((StandardJanusGraphTx) tx).query(vertex).type(BaseKey.AdjacencySummary).properties()));
+        assertEquals(1, Iterables.size(vertex.query().labels("knows").adjacent(tx.getVertex(b.id())).edges()));
+        tx.rollback();
+    }
+}
@@ -0,0 +1,71 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.tinkerpop.optimize;
+
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.CountGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+import org.janusgraph.graphdb.tinkerpop.optimize.step.JanusGraphVertexCountStep;
+import org.janusgraph.graphdb.tinkerpop.optimize.step.JanusGraphVertexStep;
+import org.junit.jupiter.api.Test;
+
+import static org.janusgraph.testutil.JanusGraphAssert.assertNumStep;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class JanusGraphVertexCountStrategyTest extends OptimizerStrategyTest {
+
+    @Test
+    public void testCountIsFoldedIntoVertexStep() {
+        makeSampleGraph();
+
+        assertNumStep(1, 1, g.V(sv[0]).outE("knows").count(), JanusGraphVertexCountStep.class);
+        assertNumStep(1, 0, g.V(sv[0]).outE("knows").count(), JanusGraphVertexStep.class, CountGlobalStep.class);
+        assertNumStep(1, 1, g.V(sv[0]).out("knows").count(), JanusGraphVertexCountStep.class);
+        assertNumStep(1, 1, g.V(sv[0]).bothE().count(), JanusGraphVertexCountStep.class);
+
+        final GraphTraversal<?, ?> local = g.V().has("id", sid).local(__.outE("knows").count());
+        assertEquals(superV, local.toList().size());
+        assertEquals(1, TraversalHelper.getStepsOfAssignableClassRecursively(JanusGraphVertexCountStep.class, local.asAdmin()).size());
+
+        // property conditions, limits and step labels prevent the optimization
+        assertNumStep(1, 0, g.V(sv[0]).outE("knows").has("weight", 1).count(), JanusGraphVertexCountStep.class);
+        assertNumStep(1, 0, g.V(sv[0]).outE("knows").limit(10).count(), JanusGraphVertexCountStep.class);
+        assertNumStep(1, 0, g.V(sv[0]).outE("knows").as("e").count(), JanusGraphVertexCountStep.class);
+    }
+
+    @Test
+    public void testCountResults() {
+        makeSampleGraph();
+        verifyCounts();
+
+        // run the same counts against loaded vertices which are counted without deserializing the relations
+        newTx();
+        graph.tx().commit();
+        verifyCounts();
+    }
+
+    private void verifyCounts() {
+        assertEquals(numV, g.V(sv[0]).outE("knows").count().next());
+        assertEquals(numV, g.V(sv[0]).out("knows").count().next());
+        assertEquals(0L, g.V(sv[0]).inE("knows").count().next());
+        assertEquals(numV, g.V(sv[0]).bothE().count().next());
+        assertEquals(superV, g.V(vs[0]).inE("knows").count().next());
+        assertEquals(numV * superV, g.V().has("id", sid).outE("knows").count().next());
+        assertEquals(0L, g.V().has("id", numV + 1).outE("knows").count().next());
+        g.V().has("id", sid).local(__.outE("knows").count()).forEachRemaining(c -> assertEquals(numV, c));
+        assertEquals(numV / 5, g.V(sv[0]).outE("knows").has("weight", 1).count().next());
+    }
+}
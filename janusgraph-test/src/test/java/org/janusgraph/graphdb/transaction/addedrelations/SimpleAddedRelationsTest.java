@@ -0,0 +1,81 @@
+// Copyright 2023 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.transaction.addedrelations;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+import org.janusgraph.core.RelationType;
+import org.janusgraph.graphdb.internal.InternalRelation;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+public class SimpleAddedRelationsTest {
+
+    private static InternalRelation relation(long typeId) {
+        final RelationType type = Mockito.mock(RelationType.class);
+        when(type.longId()).thenReturn(typeId);
+        final InternalRelation relation = Mockito.mock(InternalRelation.class);
+        when(relation.getType()).thenReturn(type);
+        return relation;
+    }
+
+    @Test
+    public void testRelationsAreIndexedByType() {
+        final AddedRelationsContainer container = new SimpleAddedRelations();
+        final InternalRelation single = relation(1);
+        final InternalRelation first = relation(2);
+        final InternalRelation second = relation(2);
+        container.add(single);
+        container.add(first);
+        container.add(second);
+        container.add(second);
+
+        assertEquals(3, container.getAll().size());
+        assertEquals(Sets.newHashSet(single, first, second), new HashSet<>(container.getAll()));
+        assertEquals(Sets.newHashSet(single), Sets.newHashSet(container.getView(1, r -> true)));
+        assertEquals(Sets.newHashSet(first, second), Sets.newHashSet(container.getView(2, r -> true)));
+        assertEquals(Sets.newHashSet(second), Sets.newHashSet(container.getView(2, r -> r == second)));
+        assertTrue(Iterables.isEmpty(container.getView(3, r -> true)));
+        assertEquals(2, Iterables.size(container.getView(r -> r != single)));
+    }
+
+    @Test
+    public void testRemovedRelationsAreNotReturned() {
+        final AddedRelationsContainer container = new ConcurrentAddedRelations();
+        final InternalRelation single = relation(1);
+        final InternalRelation first = relation(2);
+        final InternalRelation second = relation(2);
+        container.add(single);
+        container.add(first);
+        container.add(second);
+
+        container.remove(first);
+        container.remove(relation(2));
+        assertEquals(Sets.newHashSet(second), Sets.newHashSet(container.getView(2, r -> true)));
+        container.remove(single);
+        assertTrue(Iterables.isEmpty(container.getView(1, r -> true)));
+        assertFalse(container.isEmpty());
+        container.remove(second);
+        assertTrue(container.isEmpty());
+        assertTrue(container.getAll().isEmpty());
+    }
+}